@@ -0,0 +1,173 @@
+package io.github.ocelot.glslprocessor.api;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded pool of identifier strings that can be shared between parses to deduplicate identical names.
+ * <p>
+ * The pool is a fixed size table indexed by the hash of the identifier. When two identifiers map to the same slot the
+ * newer one replaces the old one, so memory use never grows past the capacity. All methods are thread-safe and a hit
+ * never allocates.
+ *
+ * @author Ocelot
+ * @since 1.0.0
+ */
+public final class GlslIdentifierPool {
+
+    private final AtomicReferenceArray<String> entries;
+    private final int mask;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder bytesSaved;
+
+    /**
+     * Creates a new pool with a default capacity of 4096 identifiers.
+     */
+    public GlslIdentifierPool() {
+        this(4096);
+    }
+
+    /**
+     * Creates a new pool.
+     *
+     * @param capacity The maximum number of identifiers to keep. This is rounded up to the next power of two
+     */
+    public GlslIdentifierPool(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.entries = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.bytesSaved = new LongAdder();
+    }
+
+    private static int hash(CharSequence source, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + source.charAt(i);
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean matches(String entry, CharSequence source, int start, int end) {
+        if (entry.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < entry.length(); i++) {
+            if (entry.charAt(i) != source.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Estimates the heap size of a compact string with the specified length.
+     */
+    private static long estimateSize(int length) {
+        return 24 + ((16 + length + 7) & ~7);
+    }
+
+    /**
+     * Retrieves the pooled string for the specified range of characters, creating and storing it if it is not present.
+     *
+     * @param source The characters to read from
+     * @param start  The first character of the identifier
+     * @param end    The character after the last character of the identifier
+     * @return The shared string with the same characters
+     */
+    public String intern(CharSequence source, int start, int end) {
+        int slot = hash(source, start, end) & this.mask;
+        String entry = this.entries.get(slot);
+        if (entry != null && matches(entry, source, start, end)) {
+            this.hits.increment();
+            this.bytesSaved.add(estimateSize(end - start));
+            return entry;
+        }
+
+        String value = source.subSequence(start, end).toString();
+        this.entries.set(slot, value);
+        this.misses.increment();
+        return value;
+    }
+
+    /**
+     * Retrieves the pooled string equal to the specified value, storing it if it is not present.
+     *
+     * @param value The value to intern
+     * @return The shared string with the same characters
+     */
+    public String intern(String value) {
+        int slot = hash(value, 0, value.length()) & this.mask;
+        String entry = this.entries.get(slot);
+        if (entry != null && entry.equals(value)) {
+            if (entry != value) {
+                this.hits.increment();
+                this.bytesSaved.add(estimateSize(value.length()));
+            }
+            return entry;
+        }
+
+        this.entries.set(slot, value);
+        this.misses.increment();
+        return value;
+    }
+
+    /**
+     * Removes all identifiers and resets all statistics.
+     */
+    public void clear() {
+        for (int i = 0; i < this.entries.length(); i++) {
+            this.entries.set(i, null);
+        }
+        this.hits.reset();
+        this.misses.reset();
+        this.bytesSaved.reset();
+    }
+
+    /**
+     * @return The maximum number of identifiers this pool can hold
+     */
+    public int getCapacity() {
+        return this.entries.length();
+    }
+
+    /**
+     * @return The number of lookups that returned an existing string
+     */
+    public long getHits() {
+        return this.hits.sum();
+    }
+
+    /**
+     * @return The number of lookups that had to create a new string
+     */
+    public long getMisses() {
+        return this.misses.sum();
+    }
+
+    /**
+     * @return The fraction of lookups that returned an existing string, or <code>0</code> if there were none
+     */
+    public double getHitRate() {
+        long hits = this.hits.sum();
+        long total = hits + this.misses.sum();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    /**
+     * @return An estimate of the number of bytes that did not need to be allocated because of this pool
+     */
+    public long getBytesSaved() {
+        return this.bytesSaved.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("GlslIdentifierPool{capacity=%d, hits=%d, misses=%d, hitRate=%.2f, bytesSaved=%d}", this.getCapacity(), this.getHits(), this.getMisses(), this.getHitRate(), this.getBytesSaved());
+    }
+}
@@ -0,0 +1,59 @@
+package io.github.ocelot.glslprocessor.api;
+
+import io.github.ocelot.glslprocessor.api.node.GlslTree;
+import io.github.ocelot.glslprocessor.impl.GlslParserImpl;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A parser that reuses the nodes of top-level declarations that are unchanged since its previous parse. Only the
+ * declarations that changed are parsed again, which makes reloading a shader after an edit scale with the size of the
+ * edited declarations instead of the whole file.
+ * <p>
+ * The parser keeps the last returned tree and the tokens of its source until the next parse or {@link #reset()}.
+ * Reused nodes are shared with the previous tree, so it should not be used after the next parse. Nodes removed from the
+ * previous tree are not reused. A parser is not thread-safe.
+ *
+ * @author Ocelot
+ * @since 1.0.0
+ */
+public final class GlslIncrementalParser {
+
+    private final @Nullable GlslIdentifierPool identifierPool;
+    private GlslParserImpl.@Nullable IncrementalTree previous;
+
+    /**
+     * Creates a new parser that doesn't share identifier names.
+     */
+    public GlslIncrementalParser() {
+        this(null);
+    }
+
+    /**
+     * Creates a new parser.
+     *
+     * @param identifierPool The pool to deduplicate identifier names with or <code>null</code> to not share names
+     */
+    public GlslIncrementalParser(@Nullable GlslIdentifierPool identifierPool) {
+        this.identifierPool = identifierPool;
+    }
+
+    /**
+     * Parses the specified input code into a GLSL tree, reusing the nodes of the previous tree where the declarations
+     * didn't change. If there is a syntax error, the previous tree is still used by the next parse.
+     *
+     * @param input The GLSL source input
+     * @return A new tree of all nodes
+     * @throws GlslSyntaxException If there is a syntax error in the GLSL source code
+     */
+    public GlslTree parse(CharSequence input) throws GlslSyntaxException {
+        this.previous = GlslParserImpl.parseIncremental(this.previous, input, this.identifierPool);
+        return this.previous.tree();
+    }
+
+    /**
+     * Forgets the previous tree, so the next parse parses everything and nothing from the last source stays reachable.
+     */
+    public void reset() {
+        this.previous = null;
+    }
+}
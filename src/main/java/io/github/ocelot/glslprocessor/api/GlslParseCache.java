@@ -0,0 +1,259 @@
+package io.github.ocelot.glslprocessor.api;
+
+import io.github.ocelot.glslprocessor.api.node.GlslTree;
+import io.github.ocelot.glslprocessor.impl.GlslParserImpl;
+import io.github.ocelot.glslprocessor.lib.anarres.cpp.LexerException;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of parsed trees that can be shared between everything parsing the same shader sources.
+ * <p>
+ * Trees are looked up by a SHA-256 hash of the source and, for {@link #preprocessParse(String, Map)}, the macros, so
+ * the sources themselves are never kept. When the cache is full the least recently used tree is evicted. Each call
+ * returns a new deep copy of the cached tree, so returned trees can be changed freely. All methods are thread-safe.
+ * Sources that are not cached yet may be parsed by multiple threads at the same time.
+ *
+ * @author Ocelot
+ * @since 1.0.0
+ */
+public final class GlslParseCache {
+
+    private static final byte PARSE = 0;
+    private static final byte PREPROCESS_PARSE = 1;
+
+    private final int capacity;
+    private final @Nullable GlslIdentifierPool identifierPool;
+    private final Map<Key, Entry> trees;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder evictions;
+
+    /**
+     * Creates a new cache with a default capacity of 256 trees.
+     */
+    public GlslParseCache() {
+        this(256);
+    }
+
+    /**
+     * Creates a new cache.
+     *
+     * @param capacity The maximum number of trees to keep
+     */
+    public GlslParseCache(int capacity) {
+        this(capacity, null);
+    }
+
+    /**
+     * Creates a new cache.
+     *
+     * @param capacity       The maximum number of trees to keep
+     * @param identifierPool The pool to deduplicate identifier names with or <code>null</code> to not share names
+     */
+    public GlslParseCache(int capacity, @Nullable GlslIdentifierPool identifierPool) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.identifierPool = identifierPool;
+        this.trees = new LinkedHashMap<>(16, 0.75F, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (this.size() > GlslParseCache.this.capacity) {
+                    GlslParseCache.this.evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.evictions = new LongAdder();
+    }
+
+    private static MessageDigest createDigest(byte type) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(type);
+            return digest;
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError("SHA-256 is always supported", e);
+        }
+    }
+
+    private static void update(MessageDigest digest, int value) {
+        digest.update((byte) (value >> 24));
+        digest.update((byte) (value >> 16));
+        digest.update((byte) (value >> 8));
+        digest.update((byte) value);
+    }
+
+    private static void update(MessageDigest digest, CharSequence value) {
+        // Encoding strings is intrinsified, which makes this much faster than hashing each character
+        byte[] bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+        update(digest, bytes.length);
+        digest.update(bytes);
+    }
+
+    private static Key createKey(MessageDigest digest) {
+        ByteBuffer hash = ByteBuffer.wrap(digest.digest());
+        return new Key(hash.getLong(), hash.getLong(), hash.getLong(), hash.getLong());
+    }
+
+    private @Nullable Entry get(Key key) {
+        Entry entry;
+        synchronized (this.trees) {
+            entry = this.trees.get(key);
+        }
+        if (entry == null) {
+            this.misses.increment();
+            return null;
+        }
+
+        this.hits.increment();
+        return entry;
+    }
+
+    private void put(Key key, Entry entry) {
+        synchronized (this.trees) {
+            this.trees.putIfAbsent(key, entry);
+        }
+    }
+
+    /**
+     * Runs the C preprocessor on the specified source before passing it off to the parser, or copies the tree parsed
+     * from the same source and macros before. Like {@link GlslParser#preprocessParse(String, Map)}, all macros defined
+     * after pre-processing are added to the macros.
+     *
+     * @param input  The source code input
+     * @param macros All macros to evaluate during pre-processing
+     * @return A new tree of all nodes
+     * @throws GlslSyntaxException If there is a syntax error in the GLSL source code
+     * @throws LexerException      If there is any issue pre-processing the code
+     */
+    public GlslTree preprocessParse(String input, Map<String, String> macros) throws GlslSyntaxException, LexerException {
+        MessageDigest digest = createDigest(PREPROCESS_PARSE);
+        update(digest, input);
+        // Sort the macros so the same definitions always create the same hash
+        Map<String, String> sortedMacros = new TreeMap<>(macros);
+        update(digest, sortedMacros.size());
+        for (Map.Entry<String, String> entry : sortedMacros.entrySet()) {
+            update(digest, entry.getKey());
+            update(digest, entry.getValue());
+        }
+
+        Key key = createKey(digest);
+        Entry entry = this.get(key);
+        if (entry == null) {
+            Map<String, String> definedMacros = new HashMap<>(macros);
+            GlslTree tree = GlslParserImpl.parse(GlslParserImpl.preprocess(input, definedMacros), this.identifierPool);
+            entry = new Entry(tree, Map.copyOf(definedMacros));
+            this.put(key, entry);
+        }
+        macros.putAll(entry.macros());
+        return entry.tree().copy();
+    }
+
+    /**
+     * Parses the specified input code into a GLSL tree, or copies the tree parsed from the same source before.
+     *
+     * @param input The GLSL source input
+     * @return A new tree of all nodes
+     * @throws GlslSyntaxException If there is a syntax error in the GLSL source code
+     */
+    public GlslTree parse(CharSequence input) throws GlslSyntaxException {
+        MessageDigest digest = createDigest(PARSE);
+        update(digest, input);
+
+        Key key = createKey(digest);
+        Entry entry = this.get(key);
+        if (entry == null) {
+            entry = new Entry(GlslParserImpl.parse(input, this.identifierPool), Map.of());
+            this.put(key, entry);
+        }
+        return entry.tree().copy();
+    }
+
+    /**
+     * Removes all trees and resets all statistics.
+     */
+    public void clear() {
+        synchronized (this.trees) {
+            this.trees.clear();
+        }
+        this.hits.reset();
+        this.misses.reset();
+        this.evictions.reset();
+    }
+
+    /**
+     * @return The number of trees currently in this cache
+     */
+    public int size() {
+        synchronized (this.trees) {
+            return this.trees.size();
+        }
+    }
+
+    /**
+     * @return The maximum number of trees this cache can hold
+     */
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * @return The number of lookups that copied an existing tree
+     */
+    public long getHits() {
+        return this.hits.sum();
+    }
+
+    /**
+     * @return The number of lookups that had to parse the source
+     */
+    public long getMisses() {
+        return this.misses.sum();
+    }
+
+    /**
+     * @return The number of trees that were removed to make space for new trees
+     */
+    public long getEvictions() {
+        return this.evictions.sum();
+    }
+
+    /**
+     * @return The fraction of lookups that copied an existing tree, or <code>0</code> if there were none
+     */
+    public double getHitRate() {
+        long hits = this.hits.sum();
+        long total = hits + this.misses.sum();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("GlslParseCache{capacity=%d, size=%d, hits=%d, misses=%d, evictions=%d, hitRate=%.2f}", this.capacity, this.size(), this.getHits(), this.getMisses(), this.getEvictions(), this.getHitRate());
+    }
+
+    private record Key(long first, long second, long third, long fourth) {
+    }
+
+    /**
+     * @param tree   The tree parsed from the source. This is never changed and only copies of it are returned
+     * @param macros The macros defined after pre-processing the source
+     */
+    private record Entry(GlslTree tree, Map<String, String> macros) {
+    }
+}
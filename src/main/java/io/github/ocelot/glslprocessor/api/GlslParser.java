@@ -2,14 +2,17 @@ package io.github.ocelot.glslprocessor.api;
 
 import io.github.ocelot.glslprocessor.api.node.GlslNode;
 import io.github.ocelot.glslprocessor.api.node.GlslTree;
+import io.github.ocelot.glslprocessor.api.visitor.GlslTreeVisitor;
 import io.github.ocelot.glslprocessor.impl.GlslLexer;
 import io.github.ocelot.glslprocessor.impl.GlslParserImpl;
 import io.github.ocelot.glslprocessor.impl.GlslTokenReader;
 import io.github.ocelot.glslprocessor.lib.anarres.cpp.LexerException;
 import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Parses GLSL source code strings into a mutable AST.
@@ -35,6 +38,21 @@ public final class GlslParser {
         return GlslParserImpl.parse(GlslParserImpl.preprocess(input, macros));
     }
 
+    /**
+     * Runs the C preprocessor on the specified source before passing it off to the parser, sharing identifier names
+     * through the specified pool.
+     *
+     * @param input          The source code input
+     * @param macros         All macros to evaluate during pre-processing
+     * @param identifierPool The pool to deduplicate identifier names with or <code>null</code> to not share names
+     * @return A new tree of all nodes
+     * @throws GlslSyntaxException If there is a syntax error in the GLSL source code
+     * @throws LexerException      If there is any issue pre-processing the code
+     */
+    public static GlslTree preprocessParse(String input, Map<String, String> macros, @Nullable GlslIdentifierPool identifierPool) throws GlslSyntaxException, LexerException {
+        return GlslParserImpl.parse(GlslParserImpl.preprocess(input, macros), identifierPool);
+    }
+
     /**
      * Parses the specified input code into a GLSL tree.
      *
@@ -46,6 +64,77 @@ public final class GlslParser {
         return GlslParserImpl.parse(input);
     }
 
+    /**
+     * Parses the specified input code into a GLSL tree. The input is read in place, so sources created with
+     * {@link GlslSource} are never copied into a string.
+     *
+     * @param input The GLSL source input
+     * @return A new tree of all nodes
+     * @throws GlslSyntaxException If there is a syntax error in the GLSL source code
+     */
+    public static GlslTree parse(CharSequence input) throws GlslSyntaxException {
+        return GlslParserImpl.parse(input);
+    }
+
+    /**
+     * Parses the specified input code into a GLSL tree, sharing identifier names through the specified pool.
+     *
+     * @param input          The GLSL source input
+     * @param identifierPool The pool to deduplicate identifier names with or <code>null</code> to not share names
+     * @return A new tree of all nodes
+     * @throws GlslSyntaxException If there is a syntax error in the GLSL source code
+     */
+    public static GlslTree parse(CharSequence input, @Nullable GlslIdentifierPool identifierPool) throws GlslSyntaxException {
+        return GlslParserImpl.parse(input, identifierPool);
+    }
+
+    /**
+     * Parses the specified input code and visits each top-level declaration as soon as it is parsed, without building a
+     * tree. This is faster than parsing and then visiting a tree when the shader only has to be read once.
+     * <p>
+     * The events differ from visiting a tree in a few ways. Directives are visited in source order between the
+     * declarations. {@link GlslTreeVisitor#visitMarkers(Map)} is called with only the nodes marked by a declaration,
+     * right before it is visited, so it can be called several times. The tree passed to
+     * {@link GlslTreeVisitor#visitTreeEnd(GlslTree)} only contains the version statement.
+     *
+     * @param input   The GLSL source input
+     * @param visitor The visitor to send the declarations to
+     * @throws GlslSyntaxException If there is a syntax error in the GLSL source code. Everything before the error has
+     *                             already been visited
+     */
+    public static void visit(CharSequence input, GlslTreeVisitor visitor) throws GlslSyntaxException {
+        GlslParserImpl.visit(new GlslTokenReader(input), visitor);
+    }
+
+    /**
+     * Parses the specified input code into a GLSL tree without parsing function bodies. Each body is parsed the first time
+     * it is used, which makes reading and changing declarations independent of the size of function bodies.
+     *
+     * @param input          The GLSL source input
+     * @param identifierPool The pool to deduplicate identifier names with or <code>null</code> to not share names
+     * @return A new tree of all nodes
+     * @throws GlslSyntaxException If there is a syntax error in the GLSL source code outside of function bodies. Errors
+     *                             in function bodies are thrown as {@link IllegalStateException} when the body is used
+     */
+    public static GlslTree parseLazy(CharSequence input, @Nullable GlslIdentifierPool identifierPool) throws GlslSyntaxException {
+        return GlslParserImpl.parseLazy(input, identifierPool);
+    }
+
+    /**
+     * Parses the specified input code into a GLSL tree on multiple threads. Large sources are lexed in parallel and
+     * split into chunks of whole top-level declarations that are parsed on the pool. The result is the same as
+     * {@link #parse(CharSequence, GlslIdentifierPool)}. Small sources are parsed on the calling thread.
+     *
+     * @param input          The GLSL source input
+     * @param identifierPool The pool to deduplicate identifier names with or <code>null</code> to not share names
+     * @param pool           The pool to lex and parse on
+     * @return A new tree of all nodes
+     * @throws GlslSyntaxException If there is a syntax error in the GLSL source code
+     */
+    public static GlslTree parseParallel(CharSequence input, @Nullable GlslIdentifierPool identifierPool, ForkJoinPool pool) throws GlslSyntaxException {
+        return GlslParserImpl.parseParallel(input, identifierPool, pool);
+    }
+
     /**
      * Parses the specified input code as a single GLSL expression.
      *
@@ -54,14 +143,13 @@ public final class GlslParser {
      * @throws GlslSyntaxException If there is a syntax error in the GLSL source code
      */
     public static GlslNode parseExpression(String input) throws GlslSyntaxException {
-        GlslLexer.Token[] tokens = GlslLexer.createTokens(input + ";");
-        GlslTokenReader reader = new GlslTokenReader(tokens);
+        GlslTokenReader reader = new GlslTokenReader(GlslLexer.createTokenStream(input + ";"));
         List<GlslNode> expression = GlslParserImpl.parseStatement(reader);
         if (expression == null) {
             reader.throwError();
         }
         while (reader.canRead()) {
-            if (reader.peek().type() != GlslLexer.TokenType.SEMICOLON) {
+            if (reader.peekType(0) != GlslLexer.TokenType.SEMICOLON) {
                 break;
             }
             reader.skip();
@@ -89,7 +177,7 @@ public final class GlslParser {
             reader.throwError();
         }
         while (reader.canRead()) {
-            if (reader.peek().type() != GlslLexer.TokenType.SEMICOLON) {
+            if (reader.peekType(0) != GlslLexer.TokenType.SEMICOLON) {
                 break;
             }
             reader.skip();
@@ -108,8 +196,7 @@ public final class GlslParser {
      * @throws GlslSyntaxException If there is a syntax error in the GLSL source code
      */
     public static List<GlslNode> parseExpressionList(String input) throws GlslSyntaxException {
-        GlslLexer.Token[] tokens = GlslLexer.createTokens(input + ";");
-        GlslTokenReader reader = new GlslTokenReader(tokens);
+        GlslTokenReader reader = new GlslTokenReader(GlslLexer.createTokenStream(input + ";"));
         List<GlslNode> expressions = GlslParserImpl.parseStatementList(reader);
         if (reader.canRead()) {
             throw reader.error("Too many tokens provided");
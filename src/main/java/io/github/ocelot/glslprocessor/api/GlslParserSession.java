@@ -0,0 +1,99 @@
+package io.github.ocelot.glslprocessor.api;
+
+import io.github.ocelot.glslprocessor.api.node.GlslNode;
+import io.github.ocelot.glslprocessor.api.node.GlslTree;
+import io.github.ocelot.glslprocessor.api.visitor.GlslTreeVisitor;
+import io.github.ocelot.glslprocessor.impl.GlslParserImpl;
+import io.github.ocelot.glslprocessor.impl.GlslTokenReader;
+import io.github.ocelot.glslprocessor.impl.GlslTokenStream;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A parser that keeps its token buffers, lookup tables and node lists between parses. After the buffers have grown to
+ * fit the largest source, parsing mostly allocates the nodes of the resulting tree.
+ * <p>
+ * A session is not thread-safe. It should be confined to a single thread, for example by keeping one session per
+ * thread in a {@link ThreadLocal}. Trees returned by a session don't reference its buffers, so they can be used after
+ * the next parse and shared freely.
+ *
+ * @author Ocelot
+ * @since 1.0.0
+ */
+public final class GlslParserSession {
+
+    private final GlslTokenStream.Builder tokens;
+    private final List<String> directives;
+    private final List<GlslNode> body;
+    private final @Nullable GlslIdentifierPool identifierPool;
+    private @Nullable GlslTokenReader reader;
+
+    /**
+     * Creates a new session that doesn't share identifier names.
+     */
+    public GlslParserSession() {
+        this(null);
+    }
+
+    /**
+     * Creates a new session.
+     *
+     * @param identifierPool The pool to deduplicate identifier names with or <code>null</code> to not share names
+     */
+    public GlslParserSession(@Nullable GlslIdentifierPool identifierPool) {
+        this.tokens = new GlslTokenStream.Builder();
+        this.directives = new ArrayList<>();
+        this.body = new ArrayList<>();
+        this.identifierPool = identifierPool;
+    }
+
+    /**
+     * Parses the specified input code into a GLSL tree, reusing the buffers of the previous parse.
+     *
+     * @param input The GLSL source input
+     * @return A new tree of all nodes
+     * @throws GlslSyntaxException If there is a syntax error in the GLSL source code
+     */
+    public GlslTree parse(CharSequence input) throws GlslSyntaxException {
+        try {
+            return GlslParserImpl.parse(this.read(input), this.directives, this.body);
+        } finally {
+            this.directives.clear();
+            this.body.clear();
+        }
+    }
+
+    /**
+     * Parses the specified input code and visits each top-level declaration as soon as it is parsed, reusing the buffers
+     * of the previous parse.
+     *
+     * @param input   The GLSL source input
+     * @param visitor The visitor to send the declarations to
+     * @throws GlslSyntaxException If there is a syntax error in the GLSL source code. Everything before the error has
+     *                             already been visited
+     * @see GlslParser#visit(CharSequence, GlslTreeVisitor)
+     */
+    public void visit(CharSequence input, GlslTreeVisitor visitor) throws GlslSyntaxException {
+        GlslParserImpl.visit(this.read(input), visitor);
+    }
+
+    private GlslTokenReader read(CharSequence input) throws GlslSyntaxException {
+        if (this.reader == null) {
+            this.reader = new GlslTokenReader(input, this.tokens, this.identifierPool);
+        } else {
+            this.reader.reset(input, this.tokens, this.identifierPool);
+        }
+        return this.reader;
+    }
+
+    /**
+     * Releases everything kept from the last parse except the token buffers, so an idle session doesn't keep the last
+     * source or its names reachable. Parsing already reuses the buffers without calling this.
+     */
+    public void reset() {
+        this.tokens.reset();
+        this.reader = null;
+    }
+}
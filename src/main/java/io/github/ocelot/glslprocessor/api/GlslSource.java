@@ -0,0 +1,72 @@
+package io.github.ocelot.glslprocessor.api;
+
+import io.github.ocelot.glslprocessor.impl.GlslByteSequence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Creates source inputs for {@link GlslParser} without copying the source into a string first.
+ *
+ * @author Ocelot
+ * @since 1.0.0
+ */
+public final class GlslSource {
+
+    private GlslSource() {
+    }
+
+    /**
+     * Wraps a range of a character array. The array is read directly instead of through the returned sequence, so it
+     * must not be modified while parsing.
+     *
+     * @param chars  The characters to read
+     * @param offset The index of the first character
+     * @param length The number of characters to read
+     * @return A sequence of the characters in the range
+     */
+    public static CharSequence wrap(char[] chars, int offset, int length) {
+        // A read-only buffer would hide the array, so the lexer could only read it one character at a time
+        return CharBuffer.wrap(chars, offset, length);
+    }
+
+    /**
+     * Wraps the remaining bytes of a buffer. ISO-8859-1 and US-ASCII buffers, and UTF-8 buffers that only contain ASCII
+     * are read directly from the buffer. Any other buffer is decoded into a string first.
+     *
+     * @param buffer  The buffer to read. The position and limit are not modified
+     * @param charset The charset of the bytes in the buffer
+     * @return A sequence of the characters in the buffer
+     */
+    public static CharSequence wrap(ByteBuffer buffer, Charset charset) {
+        if (charset.equals(StandardCharsets.ISO_8859_1) || charset.equals(StandardCharsets.US_ASCII)) {
+            return new GlslByteSequence(buffer);
+        }
+        if (charset.equals(StandardCharsets.UTF_8) && GlslByteSequence.isAscii(buffer)) {
+            return new GlslByteSequence(buffer);
+        }
+        return charset.decode(buffer.duplicate()).toString();
+    }
+
+    /**
+     * Maps a file into memory and wraps it with {@link #wrap(ByteBuffer, Charset)}.
+     *
+     * @param path    The file to map
+     * @param charset The charset of the file
+     * @return A sequence of the characters in the file
+     * @throws IOException If the file cannot be mapped
+     */
+    public static CharSequence map(Path path, Charset charset) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return wrap(buffer, charset);
+        }
+    }
+}
@@ -9,14 +9,56 @@ public class GlslSyntaxException extends Exception {
     public static final int CONTEXT_AMOUNT = 64;
 
     private final String message;
-    private final String input;
+    private final String context;
+    private final int contextOffset;
     private int cursor;
+    private int line;
+    private int column;
 
     public GlslSyntaxException(String message, String input, int cursor) {
-        super(message);
+        this(message, (CharSequence) input, cursor);
+    }
+
+    /**
+     * Creates a syntax error in a source. Strings are kept as they are. Any other source only has the characters before
+     * the cursor that are shown in the message copied, so the source can be modified or reused afterward.
+     *
+     * @param message The error message
+     * @param input   The source the error occurred in
+     * @param cursor  The position in the source after the error
+     */
+    public GlslSyntaxException(String message, CharSequence input, int cursor) {
+        this(message, input, cursor, true);
+    }
+
+    /**
+     * Creates a syntax error in a source. Only the context shown in the message is copied from sources that are not
+     * strings.
+     *
+     * @param message    The error message
+     * @param input      The source the error occurred in
+     * @param cursor     The position in the source after the error
+     * @param stackTrace Whether to fill in the stack trace. Errors that are only reported as part of another error don't
+     *                   need one
+     */
+    public GlslSyntaxException(String message, CharSequence input, int cursor, boolean stackTrace) {
+        super(message, null, true, stackTrace);
         this.message = message;
-        this.input = input;
+        if (input instanceof String string) {
+            this.context = string;
+            this.contextOffset = 0;
+        } else if (input != null && cursor >= 0) {
+            int end = Math.min(input.length(), cursor);
+            int start = Math.max(0, end - CONTEXT_AMOUNT);
+            this.context = new StringBuilder(end - start).append(input, start, end).toString();
+            this.contextOffset = start;
+        } else {
+            this.context = null;
+            this.contextOffset = 0;
+        }
         this.cursor = cursor;
+        this.line = -1;
+        this.column = -1;
     }
 
     @Override
@@ -24,7 +66,11 @@ public class GlslSyntaxException extends Exception {
         String message = this.message;
         String context = this.getContext();
         if (context != null) {
-            message += " at position " + this.cursor + ": " + context;
+            if (this.line != -1) {
+                message += " at line " + this.line + ", column " + this.column + ": " + context;
+            } else {
+                message += " at position " + this.cursor + ": " + context;
+            }
         }
         return message;
     }
@@ -41,18 +87,44 @@ public class GlslSyntaxException extends Exception {
         this.cursor = cursor;
     }
 
+    /**
+     * @return The line in the source the error occurred on starting at <code>1</code> or <code>-1</code> if unknown
+     */
+    public int getLine() {
+        return this.line;
+    }
+
+    /**
+     * @return The column in the source line the error occurred at starting at <code>1</code> or <code>-1</code> if unknown
+     */
+    public int getColumn() {
+        return this.column;
+    }
+
+    /**
+     * Sets the location of this error in the original source.
+     *
+     * @param line   The line starting at <code>1</code>
+     * @param column The column starting at <code>1</code>
+     */
+    public void setPosition(int line, int column) {
+        this.line = line;
+        this.column = column;
+    }
+
     private String getContext() {
-        if (this.input == null || this.cursor < 0) {
+        if (this.context == null || this.cursor < 0) {
             return null;
         }
         StringBuilder builder = new StringBuilder();
-        int cursor = Math.min(this.input.length(), this.cursor);
+        // The cursor can be moved outside the copied context, so only the part that was copied is shown
+        int cursor = Math.max(0, Math.min(this.context.length(), this.cursor - this.contextOffset));
 
-        if (cursor > CONTEXT_AMOUNT) {
+        if (this.contextOffset + cursor > CONTEXT_AMOUNT) {
             builder.append("...");
         }
 
-        builder.append(this.input, Math.max(0, cursor - CONTEXT_AMOUNT), cursor);
+        builder.append(this.context, Math.max(0, cursor - CONTEXT_AMOUNT), cursor);
         builder.append("<--[HERE]");
 
         return builder.toString();
@@ -0,0 +1,88 @@
+package io.github.ocelot.glslprocessor.api;
+
+import io.github.ocelot.glslprocessor.api.node.GlslTree;
+import io.github.ocelot.glslprocessor.impl.GlslTreeReader;
+import io.github.ocelot.glslprocessor.impl.GlslTreeWriter;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Writes trees into a compact binary format and reads them back. Reading a serialized tree is much faster than
+ * parsing and pre-processing the source again, so trees of unchanged shaders can be stored between runs.
+ * <p>
+ * The format is versioned with {@link #FORMAT_VERSION}. Data written with a different version can't be read and should
+ * be discarded by parsing the source again.
+ *
+ * @author Ocelot
+ * @since 1.0.0
+ */
+public final class GlslTreeSerializer {
+
+    /**
+     * The current version of the binary format.
+     */
+    public static final int FORMAT_VERSION = GlslTreeWriter.VERSION;
+
+    private GlslTreeSerializer() {
+    }
+
+    /**
+     * Serializes the specified tree. Bodies of functions parsed lazily are parsed so they can be written.
+     *
+     * @param tree The tree to write
+     * @return A new array with the serialized tree
+     */
+    public static byte[] write(GlslTree tree) {
+        return GlslTreeWriter.write(tree);
+    }
+
+    /**
+     * Serializes the specified tree into a stream.
+     *
+     * @param tree   The tree to write
+     * @param output The stream to write to
+     * @throws IOException If there is an error writing to the stream
+     */
+    public static void write(GlslTree tree, OutputStream output) throws IOException {
+        output.write(GlslTreeWriter.write(tree));
+    }
+
+    /**
+     * Reads a tree written by {@link #write(GlslTree)}.
+     *
+     * @param data The serialized tree
+     * @return A new tree of all nodes
+     * @throws IOException If the data is not a valid tree or was written with a different format version
+     */
+    public static GlslTree read(byte[] data) throws IOException {
+        return GlslTreeReader.read(data, 0, data.length, null);
+    }
+
+    /**
+     * Reads a tree written by {@link #write(GlslTree)}, sharing identifier names through the specified pool.
+     *
+     * @param data           The serialized tree
+     * @param identifierPool The pool to deduplicate identifier names with or <code>null</code> to not share names
+     * @return A new tree of all nodes
+     * @throws IOException If the data is not a valid tree or was written with a different format version
+     */
+    public static GlslTree read(byte[] data, @Nullable GlslIdentifierPool identifierPool) throws IOException {
+        return GlslTreeReader.read(data, 0, data.length, identifierPool);
+    }
+
+    /**
+     * Reads a tree written by {@link #write(GlslTree, OutputStream)}. The rest of the stream is read.
+     *
+     * @param input The stream to read from
+     * @return A new tree of all nodes
+     * @throws IOException If there is an error reading from the stream, the data is not a valid tree or was written with
+     *                     a different format version
+     */
+    public static GlslTree read(InputStream input) throws IOException {
+        byte[] data = input.readAllBytes();
+        return GlslTreeReader.read(data, 0, data.length, null);
+    }
+}
@@ -77,7 +77,7 @@ public final class GlslFunctionHeader {
         for (GlslParameterDeclaration parameter : this.parameters) {
             declarations.add(parameter.copy());
         }
-        return new GlslFunctionHeader(this.name, this.returnType, declarations);
+        return new GlslFunctionHeader(this.name, this.returnType.copy(), declarations);
     }
 
     @Override
@@ -3,6 +3,7 @@ package io.github.ocelot.glslprocessor.api.grammar;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.Collection;
+import java.util.Objects;
 
 /**
  * Represents a single parameter declaration. Includes the name and full data operand of the parameter.
@@ -88,12 +89,12 @@ public final class GlslParameterDeclaration {
         }
 
         GlslParameterDeclaration that = (GlslParameterDeclaration) o;
-        return this.name.equals(that.name) && this.type.equals(that.type);
+        return Objects.equals(this.name, that.name) && this.type.equals(that.type);
     }
 
     @Override
     public int hashCode() {
-        int result = this.name.hashCode();
+        int result = Objects.hashCode(this.name);
         result = 31 * result + this.type.hashCode();
         return result;
     }
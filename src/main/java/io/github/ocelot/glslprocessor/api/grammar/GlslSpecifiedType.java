@@ -30,8 +30,8 @@ public final class GlslSpecifiedType implements GlslType {
     }
 
     public GlslSpecifiedType(GlslTypeSpecifier specifier, Collection<GlslTypeQualifier> qualifiers) {
-        this(specifier);
-        this.qualifiers.addAll(qualifiers);
+        this.specifier = specifier;
+        this.qualifiers = new ArrayList<>(qualifiers);
     }
 
     /**
@@ -87,7 +87,7 @@ public final class GlslSpecifiedType implements GlslType {
      * @return A deep copy of this type
      */
     public GlslSpecifiedType copy() {
-        return new GlslSpecifiedType(this.specifier, this.qualifiers);
+        return new GlslSpecifiedType(this.specifier.copy(), this.qualifiers);
     }
 
     @Override
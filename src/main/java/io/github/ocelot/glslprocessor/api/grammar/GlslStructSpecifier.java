@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * @author Ocelot
@@ -60,6 +61,7 @@ public final class GlslStructSpecifier implements GlslTypeSpecifier {
     /**
      * @return A deep copy of this struct
      */
+    @Override
     public GlslStructSpecifier copy() {
         List<GlslStructField> fields = new ArrayList<>(this.fields.size());
         for (GlslStructField field : this.fields) {
@@ -80,12 +82,12 @@ public final class GlslStructSpecifier implements GlslTypeSpecifier {
         }
 
         GlslStructSpecifier that = (GlslStructSpecifier) o;
-        return this.name.equals(that.name) && this.fields.equals(that.fields);
+        return Objects.equals(this.name, that.name) && this.fields.equals(that.fields);
     }
 
     @Override
     public int hashCode() {
-        int result = this.name.hashCode();
+        int result = Objects.hashCode(this.name);
         result = 31 * result + this.fields.hashCode();
         return result;
     }
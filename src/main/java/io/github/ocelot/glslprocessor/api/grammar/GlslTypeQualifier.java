@@ -58,6 +58,16 @@ public sealed interface GlslTypeQualifier {
      * @author Ocelot
      */
     record StorageSubroutine(String[] typeNames) implements GlslTypeQualifier {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof StorageSubroutine that && Arrays.equals(this.typeNames, that.typeNames);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(this.typeNames);
+        }
+
         @Override
         public String toString() {
             return "Storage[operand=SUBROUTINE, typeNames=" + Arrays.toString(this.typeNames) + "]";
@@ -32,6 +32,11 @@ public sealed interface GlslTypeSpecifier extends GlslType permits GlslStructSpe
         return false;
     }
 
+    /**
+     * @return A deep copy of this type specifier
+     */
+    GlslTypeSpecifier copy();
+
     default GlslStructSpecifier asStructSpecifier() throws IllegalStateException {
         GlslTypeSpecifier specifier = this;
         while (specifier instanceof GlslTypeSpecifier.Array array) {
@@ -89,6 +94,11 @@ public sealed interface GlslTypeSpecifier extends GlslType permits GlslStructSpe
             return this;
         }
 
+        @Override
+        public Name copy() {
+            return new Name(this.name);
+        }
+
         @Override
         public boolean equals(Object o) {
             if (!(o instanceof Name name)) return false;
@@ -155,6 +165,11 @@ public sealed interface GlslTypeSpecifier extends GlslType permits GlslStructSpe
             return this;
         }
 
+        @Override
+        public Array copy() {
+            return new Array(this.specifier.copy(), this.size != null ? this.size.copy() : null);
+        }
+
         @Deprecated(since = "0.2.0", forRemoval = true)
         public GlslTypeSpecifier specifier() {
             return this.specifier;
@@ -317,6 +332,11 @@ public sealed interface GlslTypeSpecifier extends GlslType permits GlslStructSpe
             this.name = name;
         }
 
+        @Override
+        public BuiltinType copy() {
+            return this;
+        }
+
         public String getConstant(double value) {
             return switch (this) {
                 case FLOAT, VEC2, VEC3, VEC4 -> Float.toString((float) value);
@@ -59,6 +59,13 @@ public final class GlslVersionStatement {
         this.core = core;
     }
 
+    /**
+     * @return A copy of this version statement
+     */
+    public GlslVersionStatement copy() {
+        return new GlslVersionStatement(this.version, this.core);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
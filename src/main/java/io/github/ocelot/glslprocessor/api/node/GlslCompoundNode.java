@@ -27,6 +27,11 @@ public final class GlslCompoundNode implements GlslNode {
         }
     }
 
+    @Override
+    public GlslCompoundNode copy() {
+        return new GlslCompoundNode(GlslNode.copyAll(this.children));
+    }
+
     @Override
     public GlslNodeType getNodeType() {
         throw new AssertionError("This should never happen");
@@ -17,6 +17,11 @@ public enum GlslEmptyNode implements GlslNode {
     public void visit(GlslNodeVisitor visitor) {
     }
 
+    @Override
+    public GlslEmptyNode copy() {
+        return this;
+    }
+
     @Override
     public GlslNodeType getNodeType() {
         throw new AssertionError("This should never happen");
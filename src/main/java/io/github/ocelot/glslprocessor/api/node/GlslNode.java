@@ -91,6 +91,25 @@ public interface GlslNode {
 
     Stream<GlslNode> stream();
 
+    /**
+     * @return A deep copy of this node and all child nodes
+     */
+    GlslNode copy();
+
+    /**
+     * Creates a deep copy of each node in the specified collection.
+     *
+     * @param nodes The nodes to copy
+     * @return A new list with a copy of each node
+     */
+    static List<GlslNode> copyAll(Collection<GlslNode> nodes) {
+        List<GlslNode> copies = new ArrayList<>(nodes.size());
+        for (GlslNode node : nodes) {
+            copies.add(node.copy());
+        }
+        return copies;
+    }
+
     static GlslIntConstantNode intConstant(int value) {
         return new GlslIntConstantNode(GlslIntFormat.DECIMAL, true, value);
     }
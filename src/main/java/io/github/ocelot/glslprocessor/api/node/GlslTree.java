@@ -3,14 +3,19 @@ package io.github.ocelot.glslprocessor.api.node;
 import io.github.ocelot.glslprocessor.api.grammar.GlslSpecifiedType;
 import io.github.ocelot.glslprocessor.api.grammar.GlslTypeQualifier;
 import io.github.ocelot.glslprocessor.api.grammar.GlslVersionStatement;
-import io.github.ocelot.glslprocessor.api.node.branch.GlslIfNode;
+import io.github.ocelot.glslprocessor.api.node.branch.*;
+import io.github.ocelot.glslprocessor.api.node.expression.*;
 import io.github.ocelot.glslprocessor.api.node.function.GlslFunctionNode;
+import io.github.ocelot.glslprocessor.api.node.function.GlslInvokeFunctionNode;
+import io.github.ocelot.glslprocessor.api.node.variable.GlslGetArrayNode;
+import io.github.ocelot.glslprocessor.api.node.variable.GlslGetFieldNode;
 import io.github.ocelot.glslprocessor.api.node.variable.GlslNewFieldNode;
 import io.github.ocelot.glslprocessor.api.node.variable.GlslStructDeclarationNode;
 import io.github.ocelot.glslprocessor.api.node.variable.GlslVariableDeclarationNode;
 import io.github.ocelot.glslprocessor.api.visitor.GlslNodeVisitor;
 import io.github.ocelot.glslprocessor.api.visitor.GlslTreeStringWriter;
 import io.github.ocelot.glslprocessor.api.visitor.GlslTreeVisitor;
+import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
@@ -46,7 +51,28 @@ public final class GlslTree {
         this.macros = new HashMap<>();
     }
 
-    private void visit(GlslTreeVisitor visitor, GlslNode node) {
+    /**
+     * Visits a single top-level node the same way {@link #visit(GlslTreeVisitor)} visits each node of the body.
+     *
+     * @param visitor The visitor instance
+     * @param node    The top-level node to visit
+     */
+    @ApiStatus.Internal
+    public static void visitNode(GlslTreeVisitor visitor, GlslNode node) {
+        if (node instanceof GlslEmptyNode) {
+            return;
+        }
+        // Unwrap compound nodes
+        if (node instanceof GlslCompoundNode compoundNode) {
+            for (GlslNode child : compoundNode.children) {
+                visitDeclaration(visitor, child);
+            }
+            return;
+        }
+        visitDeclaration(visitor, node);
+    }
+
+    private static void visitDeclaration(GlslTreeVisitor visitor, GlslNode node) {
         if (node instanceof GlslFunctionNode functionNode) {
             GlslNodeVisitor functionVisitor = visitor.visitFunction(functionNode);
             if (functionVisitor != null) {
@@ -86,17 +112,7 @@ public final class GlslTree {
         }
 
         for (GlslNode node : this.body) {
-            if (node instanceof GlslEmptyNode) {
-                continue;
-            }
-            // Unwrap compound nodes
-            if (node instanceof GlslCompoundNode compoundNode) {
-                for (GlslNode child : compoundNode.children) {
-                    this.visit(visitor, child);
-                }
-                continue;
-            }
-            this.visit(visitor, node);
+            visitNode(visitor, node);
         }
 
         visitor.visitTreeEnd(this);
@@ -250,6 +266,119 @@ public final class GlslTree {
         return this.body;
     }
 
+    /**
+     * Creates a deep copy of this tree. Markers refer to the copied nodes, so the copy can be changed without affecting
+     * this tree.
+     *
+     * @return A new tree with a copy of all nodes
+     */
+    public GlslTree copy() {
+        List<GlslNode> body = GlslNode.copyAll(this.body);
+        Map<String, GlslNode> markers = new HashMap<>(this.markers.size());
+        if (!this.markers.isEmpty()) {
+            Map<GlslNode, GlslNode> copies = new IdentityHashMap<>();
+            for (GlslNode node : this.markers.values()) {
+                copies.put(node, null);
+            }
+
+            // Copies have the same structure, so marked nodes are found at the same position in the copy
+            List<GlslNode> original = new ArrayList<>();
+            List<GlslNode> copied = new ArrayList<>();
+            int remaining = copies.size();
+            for (int i = 0; i < body.size() && remaining > 0; i++) {
+                original.clear();
+                copied.clear();
+                flatten(this.body.get(i), original);
+                flatten(body.get(i), copied);
+                for (int j = 0; j < original.size(); j++) {
+                    GlslNode node = original.get(j);
+                    if (copies.containsKey(node) && copies.put(node, copied.get(j)) == null) {
+                        remaining--;
+                    }
+                }
+            }
+
+            for (Map.Entry<String, GlslNode> entry : this.markers.entrySet()) {
+                GlslNode copy = copies.get(entry.getValue());
+                if (copy != null) {
+                    markers.put(entry.getKey(), copy);
+                }
+            }
+        }
+
+        GlslTree tree = new GlslTree(this.versionStatement.copy(), body, this.directives, markers);
+        tree.macros.putAll(this.macros);
+        return tree;
+    }
+
+    private static void flatten(@Nullable GlslNode node, List<GlslNode> nodes) {
+        if (node == null) {
+            return;
+        }
+
+        nodes.add(node);
+        if (node instanceof GlslCompoundNode compoundNode) {
+            flatten(compoundNode.children, nodes);
+        } else if (node instanceof GlslFunctionNode functionNode) {
+            // Lazy bodies never contain markers
+            if (functionNode.isBodyParsed() && functionNode.getBody() != null) {
+                flatten(functionNode.getBody(), nodes);
+            }
+        } else if (node instanceof GlslIfNode ifNode) {
+            flatten(ifNode.getExpression(), nodes);
+            flatten(ifNode.getFirst(), nodes);
+            flatten(ifNode.getSecond(), nodes);
+        } else if (node instanceof GlslForLoopNode forLoopNode) {
+            flatten(forLoopNode.getInit(), nodes);
+            flatten(forLoopNode.getCondition(), nodes);
+            flatten(forLoopNode.getIncrement(), nodes);
+            flatten(forLoopNode.getBody(), nodes);
+        } else if (node instanceof GlslWhileLoopNode whileLoopNode) {
+            flatten(whileLoopNode.getCondition(), nodes);
+            flatten(whileLoopNode.getBody(), nodes);
+        } else if (node instanceof GlslSwitchNode switchNode) {
+            flatten(switchNode.getCondition(), nodes);
+            flatten(switchNode.getBranches(), nodes);
+        } else if (node instanceof GlslCaseLabelNode caseLabelNode) {
+            flatten(caseLabelNode.getCondition(), nodes);
+        } else if (node instanceof GlslReturnNode returnNode) {
+            flatten(returnNode.getValue(), nodes);
+        } else if (node instanceof GlslAssignmentNode assignmentNode) {
+            flatten(assignmentNode.getFirst(), nodes);
+            flatten(assignmentNode.getSecond(), nodes);
+        } else if (node instanceof GlslOperationNode operationNode) {
+            flatten(operationNode.getFirst(), nodes);
+            flatten(operationNode.getSecond(), nodes);
+        } else if (node instanceof GlslCompareNode compareNode) {
+            flatten(compareNode.getFirst(), nodes);
+            flatten(compareNode.getSecond(), nodes);
+        } else if (node instanceof GlslConditionalNode conditionalNode) {
+            flatten(conditionalNode.getCondition(), nodes);
+            flatten(conditionalNode.getFirst(), nodes);
+            flatten(conditionalNode.getSecond(), nodes);
+        } else if (node instanceof GlslBitwiseNode bitwiseNode) {
+            flatten(bitwiseNode.getExpressions(), nodes);
+        } else if (node instanceof GlslUnaryNode unaryNode) {
+            flatten(unaryNode.getExpression(), nodes);
+        } else if (node instanceof GlslInvokeFunctionNode invokeFunctionNode) {
+            flatten(invokeFunctionNode.getHeader(), nodes);
+            flatten(invokeFunctionNode.getParameters(), nodes);
+        } else if (node instanceof GlslGetArrayNode getArrayNode) {
+            flatten(getArrayNode.getExpression(), nodes);
+            flatten(getArrayNode.getIndex(), nodes);
+        } else if (node instanceof GlslGetFieldNode getFieldNode) {
+            flatten(getFieldNode.getExpression(), nodes);
+        } else if (node instanceof GlslNewFieldNode newFieldNode) {
+            flatten(newFieldNode.getInitializer(), nodes);
+        }
+    }
+
+    private static void flatten(List<GlslNode> children, List<GlslNode> nodes) {
+        for (GlslNode child : children) {
+            flatten(child, nodes);
+        }
+    }
+
     public String toSourceString() {
         GlslTreeStringWriter writer = new GlslTreeStringWriter();
         this.visit(writer);
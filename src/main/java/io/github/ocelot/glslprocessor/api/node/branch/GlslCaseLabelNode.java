@@ -37,6 +37,11 @@ public final class GlslCaseLabelNode implements GlslNode {
         throw new UnsupportedOperationException("Cannot call visit() on GlslCaseLabelNode");
     }
 
+    @Override
+    public GlslCaseLabelNode copy() {
+        return new GlslCaseLabelNode(this.condition != null ? this.condition.copy() : null);
+    }
+
     @Override
     public GlslNodeType getNodeType() {
         return GlslNodeType.CASE_LABEL;
@@ -49,7 +54,7 @@ public final class GlslCaseLabelNode implements GlslNode {
         }
 
         GlslCaseLabelNode that = (GlslCaseLabelNode) o;
-        return this.condition.equals(that.condition);
+        return Objects.equals(this.condition, that.condition);
     }
 
     @Override
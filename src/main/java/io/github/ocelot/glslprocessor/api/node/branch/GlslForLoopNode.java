@@ -7,6 +7,7 @@ import io.github.ocelot.glslprocessor.api.visitor.GlslNodeVisitor;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.Collection;
+import java.util.Objects;
 import java.util.stream.Stream;
 
 /**
@@ -72,6 +73,11 @@ public final class GlslForLoopNode implements GlslNode {
         }
     }
 
+    @Override
+    public GlslForLoopNode copy() {
+        return new GlslForLoopNode(this.init.copy(), this.condition.copy(), this.increment != null ? this.increment.copy() : null, GlslNode.copyAll(this.body));
+    }
+
     @Override
     public GlslNodeType getNodeType() {
         return GlslNodeType.FOR_LOOP;
@@ -84,14 +90,14 @@ public final class GlslForLoopNode implements GlslNode {
         }
 
         GlslForLoopNode that = (GlslForLoopNode) o;
-        return this.init.equals(that.init) && this.condition.equals(that.condition) && this.increment.equals(that.increment) && this.body.equals(that.body);
+        return this.init.equals(that.init) && this.condition.equals(that.condition) && Objects.equals(this.increment, that.increment) && this.body.equals(that.body);
     }
 
     @Override
     public int hashCode() {
         int result = this.init.hashCode();
         result = 31 * result + this.condition.hashCode();
-        result = 31 * result + this.increment.hashCode();
+        result = 31 * result + Objects.hashCode(this.increment);
         result = 31 * result + this.body.hashCode();
         return result;
     }
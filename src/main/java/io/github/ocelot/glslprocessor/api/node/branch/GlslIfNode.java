@@ -81,6 +81,11 @@ public final class GlslIfNode implements GlslNode {
         }
     }
 
+    @Override
+    public GlslIfNode copy() {
+        return new GlslIfNode(this.expression.copy(), GlslNode.copyAll(this.first), GlslNode.copyAll(this.second));
+    }
+
     @Override
     public GlslNodeType getNodeType() {
         return GlslNodeType.IF_ELSE;
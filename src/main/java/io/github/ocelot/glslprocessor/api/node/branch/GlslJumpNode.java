@@ -26,6 +26,11 @@ public enum GlslJumpNode implements GlslNode {
         visitor.visitJump(this);
     }
 
+    @Override
+    public GlslJumpNode copy() {
+        return this;
+    }
+
     @Override
     public GlslNodeType getNodeType() {
         return this.nodeType;
@@ -5,6 +5,7 @@ import io.github.ocelot.glslprocessor.api.node.GlslNodeType;
 import io.github.ocelot.glslprocessor.api.visitor.GlslNodeVisitor;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Objects;
 import java.util.stream.Stream;
 
 /**
@@ -32,6 +33,11 @@ public final class GlslReturnNode implements GlslNode {
         visitor.visitReturn(this);
     }
 
+    @Override
+    public GlslReturnNode copy() {
+        return new GlslReturnNode(this.value != null ? this.value.copy() : null);
+    }
+
     @Override
     public GlslNodeType getNodeType() {
         return GlslNodeType.RETURN;
@@ -49,12 +55,12 @@ public final class GlslReturnNode implements GlslNode {
         }
 
         GlslReturnNode that = (GlslReturnNode) o;
-        return this.value.equals(that.value);
+        return Objects.equals(this.value, that.value);
     }
 
     @Override
     public int hashCode() {
-        return this.value.hashCode();
+        return Objects.hashCode(this.value);
     }
 
     @Override
@@ -89,6 +89,11 @@ public final class GlslSwitchNode implements GlslNode {
         }
     }
 
+    @Override
+    public GlslSwitchNode copy() {
+        return new GlslSwitchNode(this.condition.copy(), GlslNode.copyAll(this.branches));
+    }
+
     @Override
     public GlslNodeType getNodeType() {
         return GlslNodeType.SWITCH;
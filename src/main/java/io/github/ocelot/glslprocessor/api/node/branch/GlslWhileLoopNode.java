@@ -60,6 +60,11 @@ public final class GlslWhileLoopNode implements GlslNode {
         }
     }
 
+    @Override
+    public GlslWhileLoopNode copy() {
+        return new GlslWhileLoopNode(this.condition.copy(), GlslNode.copyAll(this.body), this.loopType);
+    }
+
     @Override
     public GlslNodeType getNodeType() {
         return GlslNodeType.WHILE_LOOP;
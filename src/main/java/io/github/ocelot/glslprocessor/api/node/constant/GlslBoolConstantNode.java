@@ -46,6 +46,11 @@ public final class GlslBoolConstantNode implements GlslConstantNode {
         return Boolean.toString(this.value);
     }
 
+    @Override
+    public GlslBoolConstantNode copy() {
+        return new GlslBoolConstantNode(this.value);
+    }
+
     @Override
     public GlslNodeType getNodeType() {
         return GlslNodeType.BOOL_CONSTANT;
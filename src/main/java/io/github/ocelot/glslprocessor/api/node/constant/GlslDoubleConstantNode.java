@@ -51,6 +51,11 @@ public final class GlslDoubleConstantNode implements GlslConstantNode {
         return this.value + "lf";
     }
 
+    @Override
+    public GlslDoubleConstantNode copy() {
+        return new GlslDoubleConstantNode(this.value);
+    }
+
     @Override
     public GlslNodeType getNodeType() {
         return GlslNodeType.DOUBLE_CONSTANT;
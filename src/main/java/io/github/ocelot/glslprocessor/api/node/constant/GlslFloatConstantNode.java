@@ -51,6 +51,11 @@ public final class GlslFloatConstantNode implements GlslConstantNode {
         return Float.toString(this.value);
     }
 
+    @Override
+    public GlslFloatConstantNode copy() {
+        return new GlslFloatConstantNode(this.value);
+    }
+
     @Override
     public GlslNodeType getNodeType() {
         return GlslNodeType.FLOAT_CONSTANT;
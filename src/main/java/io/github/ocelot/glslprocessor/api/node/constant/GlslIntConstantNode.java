@@ -75,6 +75,11 @@ public final class GlslIntConstantNode implements GlslConstantNode {
         };
     }
 
+    @Override
+    public GlslIntConstantNode copy() {
+        return new GlslIntConstantNode(this.format, this.signed, this.value);
+    }
+
     @Override
     public GlslNodeType getNodeType() {
         return GlslNodeType.INT_CONSTANT;
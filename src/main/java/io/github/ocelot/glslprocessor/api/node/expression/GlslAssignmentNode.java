@@ -34,6 +34,11 @@ public final class GlslAssignmentNode implements GlslNode {
         visitor.visitAssign(this);
     }
 
+    @Override
+    public GlslAssignmentNode copy() {
+        return new GlslAssignmentNode(this.first.copy(), this.second.copy(), this.operand);
+    }
+
     @Override
     public GlslNodeType getNodeType() {
         return GlslNodeType.ASSIGN;
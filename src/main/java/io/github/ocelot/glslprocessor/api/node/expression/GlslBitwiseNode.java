@@ -88,6 +88,11 @@ public final class GlslBitwiseNode implements GlslNode {
         }
     }
 
+    @Override
+    public GlslBitwiseNode copy() {
+        return new GlslBitwiseNode(GlslNode.copyAll(this.expressions), this.operand);
+    }
+
     @Override
     public GlslNodeType getNodeType() {
         return this.operand.getNodeType();
@@ -63,6 +63,11 @@ public final class GlslCompareNode implements GlslNode {
         visitor.visitCompare(this);
     }
 
+    @Override
+    public GlslCompareNode copy() {
+        return new GlslCompareNode(this.first.copy(), this.second.copy(), this.operand);
+    }
+
     @Override
     public GlslNodeType getNodeType() {
         return GlslNodeType.COMPARE;
@@ -27,6 +27,11 @@ public final class GlslConditionalNode implements GlslNode {
         visitor.visitCondition(this);
     }
 
+    @Override
+    public GlslConditionalNode copy() {
+        return new GlslConditionalNode(this.condition.copy(), this.first.copy(), this.second.copy());
+    }
+
     @Override
     public GlslNodeType getNodeType() {
         return GlslNodeType.CONDITIONAL;
@@ -27,6 +27,11 @@ public final class GlslOperationNode implements GlslNode {
         visitor.visitOperation(this);
     }
 
+    @Override
+    public GlslOperationNode copy() {
+        return new GlslOperationNode(this.first.copy(), this.second.copy(), this.operand);
+    }
+
     @Override
     public GlslNodeType getNodeType() {
         return GlslNodeType.OPERATION;
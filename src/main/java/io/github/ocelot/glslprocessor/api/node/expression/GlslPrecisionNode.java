@@ -27,6 +27,11 @@ public final class GlslPrecisionNode implements GlslNode {
         visitor.visitPrecision(this);
     }
 
+    @Override
+    public GlslPrecisionNode copy() {
+        return new GlslPrecisionNode(this.precision, this.typeSpecifier.copy());
+    }
+
     @Override
     public GlslNodeType getNodeType() {
         return GlslNodeType.PRECISION;
@@ -27,6 +27,11 @@ public final class GlslUnaryNode implements GlslNode {
         visitor.visitUnary(this);
     }
 
+    @Override
+    public GlslUnaryNode copy() {
+        return new GlslUnaryNode(this.expression.copy(), this.operand);
+    }
+
     @Override
     public GlslNodeType getNodeType() {
         return GlslNodeType.UNARY;
@@ -8,16 +8,19 @@ import io.github.ocelot.glslprocessor.api.node.GlslNodeList;
 import io.github.ocelot.glslprocessor.api.node.GlslNodeType;
 import io.github.ocelot.glslprocessor.api.node.GlslRootNode;
 import io.github.ocelot.glslprocessor.api.visitor.GlslNodeVisitor;
+import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 /**
- * Defines a function in a GLSL file with an optional body.
+ * Defines a function in a GLSL file with an optional body. Bodies of functions parsed lazily are parsed the first time
+ * they are used, so lazy functions should not be shared between threads until the body has been parsed.
  *
  * @author Ocelot
  * @since 1.0.0
@@ -26,19 +29,47 @@ public final class GlslFunctionNode implements GlslRootNode {
 
     private GlslFunctionHeader header;
     private GlslNodeList body;
+    private @Nullable Supplier<? extends Collection<GlslNode>> lazyBody;
 
     public GlslFunctionNode(GlslFunctionHeader header, @Nullable Collection<GlslNode> body) {
         this.header = header;
         this.body = body != null ? new GlslNodeList(body) : null;
     }
 
+    /**
+     * Creates a function with a body that is parsed the first time it is used.
+     *
+     * @param header The signature of the function
+     * @param body   The parser for the function body. Syntax errors are thrown as {@link IllegalStateException}
+     * @return A new function definition
+     */
+    @ApiStatus.Internal
+    public static GlslFunctionNode lazy(GlslFunctionHeader header, Supplier<? extends Collection<GlslNode>> body) {
+        GlslFunctionNode function = new GlslFunctionNode(header, null);
+        function.lazyBody = body;
+        return function;
+    }
+
     @Override
     public void visit(GlslNodeVisitor visitor) {
-        for (GlslNode node : this.body) {
+        GlslNodeList body = this.getBody();
+        if (body == null) {
+            return;
+        }
+        for (GlslNode node : body) {
             node.visit(visitor);
         }
     }
 
+    @Override
+    public GlslFunctionNode copy() {
+        if (this.lazyBody != null) {
+            // The body parser creates new nodes each time, so copies can parse their own body
+            return lazy(this.header.copy(), this.lazyBody);
+        }
+        return new GlslFunctionNode(this.header.copy(), this.body != null ? GlslNode.copyAll(this.body) : null);
+    }
+
     @Override
     public GlslNodeType getNodeType() {
         return GlslNodeType.FUNCTION;
@@ -72,9 +103,21 @@ public final class GlslFunctionNode implements GlslRootNode {
 
     @Override
     public @Nullable GlslNodeList getBody() {
+        if (this.lazyBody != null) {
+            this.body = new GlslNodeList(this.lazyBody.get());
+            this.lazyBody = null;
+        }
         return this.body;
     }
 
+    /**
+     * @return Whether the body of this function has been parsed. This is only <code>false</code> for lazy functions that
+     * have not been used yet
+     */
+    public boolean isBodyParsed() {
+        return this.lazyBody == null;
+    }
+
     /**
      * Sets the function header of this function to the specified value.
      *
@@ -97,6 +140,7 @@ public final class GlslFunctionNode implements GlslRootNode {
      */
     @Override
     public boolean setBody(@Nullable Collection<GlslNode> body) {
+        this.lazyBody = null;
         if (body != null) {
             if (this.body != null) {
                 this.body.clear();
@@ -112,7 +156,7 @@ public final class GlslFunctionNode implements GlslRootNode {
 
     @Override
     public Stream<GlslNode> stream() {
-        return Stream.concat(Stream.of(this), this.body.stream().flatMap(GlslNode::stream));
+        return Stream.concat(Stream.of(this), this.getBody().stream().flatMap(GlslNode::stream));
     }
 
     @Override
@@ -122,18 +166,18 @@ public final class GlslFunctionNode implements GlslRootNode {
         }
 
         GlslFunctionNode that = (GlslFunctionNode) o;
-        return this.header.equals(that.header) && Objects.equals(this.body, that.body);
+        return this.header.equals(that.header) && Objects.equals(this.getBody(), that.getBody());
     }
 
     @Override
     public int hashCode() {
         int result = this.header.hashCode();
-        result = 31 * result + Objects.hashCode(this.body);
+        result = 31 * result + Objects.hashCode(this.getBody());
         return result;
     }
 
     @Override
     public String toString() {
-        return "GlslFunction{header=" + this.header + ", body=" + this.body + '}';
+        return "GlslFunction{header=" + this.header + ", body=" + this.getBody() + '}';
     }
 }
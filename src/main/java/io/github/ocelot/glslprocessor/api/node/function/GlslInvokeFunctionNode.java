@@ -39,6 +39,11 @@ public final class GlslInvokeFunctionNode implements GlslNode {
         }
     }
 
+    @Override
+    public GlslInvokeFunctionNode copy() {
+        return new GlslInvokeFunctionNode(this.header.copy(), GlslNode.copyAll(this.parameters));
+    }
+
     @Override
     public GlslNodeType getNodeType() {
         return GlslNodeType.INVOKE_FUNCTION;
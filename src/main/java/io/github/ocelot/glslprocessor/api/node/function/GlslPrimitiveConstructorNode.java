@@ -32,6 +32,11 @@ public final class GlslPrimitiveConstructorNode implements GlslNode {
         visitor.visitPrimitiveConstructor(this);
     }
 
+    @Override
+    public GlslPrimitiveConstructorNode copy() {
+        return new GlslPrimitiveConstructorNode(this.primitiveType.copy());
+    }
+
     @Override
     public GlslNodeType getNodeType() {
         return GlslNodeType.PRIMITIVE_CONSTRUCTOR;
@@ -25,6 +25,11 @@ public final class GlslGetArrayNode implements GlslNode {
         visitor.visitGetArray(this);
     }
 
+    @Override
+    public GlslGetArrayNode copy() {
+        return new GlslGetArrayNode(this.expression.copy(), this.index.copy());
+    }
+
     @Override
     public GlslNodeType getNodeType() {
         return GlslNodeType.GET_ARRAY;
@@ -25,6 +25,11 @@ public final class GlslGetFieldNode implements GlslNode {
         visitor.visitGetField(this);
     }
 
+    @Override
+    public GlslGetFieldNode copy() {
+        return new GlslGetFieldNode(this.expression.copy(), this.fieldSelection);
+    }
+
     @Override
     public GlslNodeType getNodeType() {
         return GlslNodeType.GET_FIELD;
@@ -33,6 +33,11 @@ public final class GlslNewFieldNode implements GlslRootNode {
         visitor.visitNewField(this);
     }
 
+    @Override
+    public GlslNewFieldNode copy() {
+        return new GlslNewFieldNode(this.type.copy(), this.name, this.initializer != null ? this.initializer.copy() : null);
+    }
+
     @Override
     public GlslNodeType getNodeType() {
         return GlslNodeType.NEW_FIELD;
@@ -85,13 +90,13 @@ public final class GlslNewFieldNode implements GlslRootNode {
         }
 
         GlslNewFieldNode that = (GlslNewFieldNode) o;
-        return this.type.equals(that.type) && this.name.equals(that.name) && Objects.equals(this.initializer, that.initializer);
+        return this.type.equals(that.type) && Objects.equals(this.name, that.name) && Objects.equals(this.initializer, that.initializer);
     }
 
     @Override
     public int hashCode() {
         int result = this.type.hashCode();
-        result = 31 * result + this.name.hashCode();
+        result = 31 * result + Objects.hashCode(this.name);
         result = 31 * result + Objects.hashCode(this.initializer);
         return result;
     }
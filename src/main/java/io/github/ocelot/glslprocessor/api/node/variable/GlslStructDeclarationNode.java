@@ -29,6 +29,11 @@ public final class GlslStructDeclarationNode implements GlslRootNode {
         visitor.visitStructDeclaration(this);
     }
 
+    @Override
+    public GlslStructDeclarationNode copy() {
+        return new GlslStructDeclarationNode(this.specifiedType.copy());
+    }
+
     @Override
     public GlslNodeType getNodeType() {
         return GlslNodeType.STRUCT_DECLARATION;
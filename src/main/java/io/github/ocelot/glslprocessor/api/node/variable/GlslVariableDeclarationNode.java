@@ -31,6 +31,11 @@ public final class GlslVariableDeclarationNode implements GlslRootNode {
         visitor.visitVariableDeclaration(this);
     }
 
+    @Override
+    public GlslVariableDeclarationNode copy() {
+        return new GlslVariableDeclarationNode(this.typeQualifiers, this.names);
+    }
+
     @Override
     public GlslNodeType getNodeType() {
         return GlslNodeType.VARIABLE_DECLARATION;
@@ -23,6 +23,11 @@ public final class GlslVariableNode implements GlslNode {
         visitor.visitVariable(this);
     }
 
+    @Override
+    public GlslVariableNode copy() {
+        return new GlslVariableNode(this.name);
+    }
+
     @Override
     public GlslNodeType getNodeType() {
         return GlslNodeType.VARIABLE;
@@ -0,0 +1,81 @@
+package io.github.ocelot.glslprocessor.impl;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A read-only view of single-byte characters in a byte buffer. Characters are decoded as ISO-8859-1 when read, so the
+ * buffer contents are never copied unless a string is requested.
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public final class GlslByteSequence implements CharSequence {
+
+    private final ByteBuffer buffer;
+    private final int offset;
+    private final int length;
+
+    /**
+     * Creates a view of the remaining bytes in the specified buffer. The position and limit of the buffer are not
+     * modified.
+     *
+     * @param buffer The buffer to read from
+     */
+    public GlslByteSequence(ByteBuffer buffer) {
+        this(buffer.duplicate(), buffer.position(), buffer.remaining());
+    }
+
+    private GlslByteSequence(ByteBuffer buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Checks whether every remaining byte in the buffer is ASCII. ASCII bytes are decoded the same in UTF-8 and
+     * ISO-8859-1.
+     *
+     * @param buffer The buffer to check
+     * @return Whether the buffer only contains ASCII characters
+     */
+    public static boolean isAscii(ByteBuffer buffer) {
+        for (int i = buffer.position(); i < buffer.limit(); i++) {
+            if (buffer.get(i) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int length() {
+        return this.length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= this.length) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + this.length);
+        }
+        return (char) (this.buffer.get(this.offset + index) & 0xFF);
+    }
+
+    @Override
+    public @NotNull CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > this.length || start > end) {
+            throw new IndexOutOfBoundsException("begin " + start + ", end " + end + ", length " + this.length);
+        }
+        return new GlslByteSequence(this.buffer, this.offset + start, end - start);
+    }
+
+    @Override
+    public @NotNull String toString() {
+        byte[] bytes = new byte[this.length];
+        this.buffer.get(this.offset, bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,49 @@
+package io.github.ocelot.glslprocessor.impl;
+
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * Scans runs of characters in an array. The vector implementation is compiled separately with the incubating
+ * <code>jdk.incubator.vector</code> module and only loaded by {@link GlslLexer} when the module is present.
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+interface GlslCharScanner {
+
+    /**
+     * @return Whether this scanner is faster than reading one character at a time on this machine
+     */
+    boolean isSupported();
+
+    /**
+     * Finds the first character that is not whitespace.
+     *
+     * @param chars The characters to scan
+     * @param start The first index to check
+     * @param end   The index after the last index to check
+     * @return The index of the first character that is not whitespace or <code>end</code>
+     */
+    int skipWhitespace(char[] chars, int start, int end);
+
+    /**
+     * Finds the first character that can't be part of an identifier.
+     *
+     * @param chars The characters to scan
+     * @param start The first index to check
+     * @param end   The index after the last index to check
+     * @return The index of the first character that can't be part of an identifier or <code>end</code>
+     */
+    int skipIdentifier(char[] chars, int start, int end);
+
+    /**
+     * Finds the first occurrence of a character.
+     *
+     * @param chars The characters to scan
+     * @param c     The character to find
+     * @param start The first index to check
+     * @param end   The index after the last index to check
+     * @return The index of the character or <code>end</code> if it is not present
+     */
+    int indexOf(char[] chars, char c, int start, int end);
+}
@@ -0,0 +1,129 @@
+package io.github.ocelot.glslprocessor.impl;
+
+import io.github.ocelot.glslprocessor.api.node.GlslNode;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * The fingerprints of the top-level declarations of a parsed tree and the nodes each declaration was parsed into. An
+ * incremental parse looks up the fingerprint of each declaration in the new source to reuse the nodes of declarations
+ * that didn't change. Fingerprints only find candidates, the tokens and visible struct names of a candidate are
+ * compared with the new declaration before its nodes are reused. The tokens of the source are kept so only the edited part of the next source has to be lexed.
+ * They keep a copy of the source if it can be edited, since the next source may be the same object after an edit.
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public final class GlslDeclarationFingerprints {
+
+    private final GlslTokenStream tokens;
+    private final List<Declaration> declarations;
+
+    /**
+     * @param tokens The tokens the declarations were parsed from
+     */
+    public GlslDeclarationFingerprints(GlslTokenStream tokens) {
+        this.tokens = tokens.snapshot();
+        this.declarations = new ArrayList<>();
+    }
+
+    /**
+     * @return The tokens the declarations were parsed from
+     */
+    public GlslTokenStream getTokens() {
+        return this.tokens;
+    }
+
+    /**
+     * Adds the nodes a declaration was parsed into.
+     *
+     * @param fingerprint The fingerprint of the tokens of the declaration
+     * @param start       The index of the first token of the declaration
+     * @param end         The index after the last token of the declaration
+     * @param types       The sorted names of the struct types visible to the declaration
+     * @param nodes       The nodes parsed from the declaration
+     */
+    public void add(long fingerprint, int start, int end, String[] types, List<GlslNode> nodes) {
+        this.declarations.add(new Declaration(fingerprint, start, end, types, nodes.toArray(GlslNode[]::new)));
+    }
+
+    /**
+     * Creates a lookup of all declarations whose nodes are all still in the specified body. Declarations with the same
+     * fingerprint are reused in source order.
+     *
+     * @param body The current top-level nodes of the tree
+     * @return A new lookup for reusable declarations
+     */
+    public Lookup lookup(Collection<GlslNode> body) {
+        Set<GlslNode> present = Collections.newSetFromMap(new IdentityHashMap<>(body.size()));
+        present.addAll(body);
+
+        Map<Long, List<Declaration>> reusable = new HashMap<>();
+        for (Declaration declaration : this.declarations) {
+            boolean valid = true;
+            for (GlslNode node : declaration.nodes()) {
+                // Nodes can only be reused once, even if they were added to the tree several times
+                if (!present.remove(node)) {
+                    valid = false;
+                    break;
+                }
+            }
+            if (valid) {
+                reusable.computeIfAbsent(declaration.fingerprint(), unused -> new ArrayList<>(1)).add(declaration);
+            }
+        }
+        return new Lookup(this.tokens, reusable);
+    }
+
+    /**
+     * @return The number of declarations with fingerprints
+     */
+    public int size() {
+        return this.declarations.size();
+    }
+
+    private record Declaration(long fingerprint, int start, int end, String[] types, GlslNode[] nodes) {
+    }
+
+    /**
+     * Declarations of a previous tree that can be reused.
+     */
+    public static final class Lookup {
+
+        private final GlslTokenStream tokens;
+        private final Map<Long, List<Declaration>> reusable;
+
+        private Lookup(GlslTokenStream tokens, Map<Long, List<Declaration>> reusable) {
+            this.tokens = tokens;
+            this.reusable = reusable;
+        }
+
+        /**
+         * Removes the nodes of the first declaration with the specified fingerprint that has the same tokens and
+         * visible struct names.
+         *
+         * @param fingerprint The fingerprint of the declaration
+         * @param tokens      The tokens of the new source
+         * @param start       The index of the first token of the declaration
+         * @param end         The index after the last token of the declaration
+         * @param types       The sorted names of the struct types visible to the declaration
+         * @return The nodes of the declaration or <code>null</code> if no declaration with the same tokens can be reused
+         */
+        public GlslNode @Nullable [] take(long fingerprint, GlslTokenStream tokens, int start, int end, String[] types) {
+            List<Declaration> declarations = this.reusable.get(fingerprint);
+            if (declarations == null) {
+                return null;
+            }
+            for (int i = 0; i < declarations.size(); i++) {
+                Declaration declaration = declarations.get(i);
+                if (Arrays.equals(declaration.types(), types) && tokens.rangeEquals(start, end, this.tokens, declaration.start(), declaration.end())) {
+                    declarations.remove(i);
+                    return declaration.nodes();
+                }
+            }
+            return null;
+        }
+    }
+}
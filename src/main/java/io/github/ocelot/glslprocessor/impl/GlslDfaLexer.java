@@ -0,0 +1,540 @@
+package io.github.ocelot.glslprocessor.impl;
+
+import io.github.ocelot.glslprocessor.api.GlslSyntaxException;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * A table-driven alternative to {@link GlslLexer}. The transition table is generated once from the words in
+ * {@link GlslLexer.TokenType} and the character rules of {@link GlslNumberConstantParser}, and every character of the
+ * input is read exactly once.
+ * <p>
+ * A number can read past the end of the token it finally produces, such as the incomplete exponent in
+ * <code>1.5e+x</code> or a run of integers that could still end in a fraction. Instead of going back to the last
+ * accepting state, a second table lexes the characters after it into the tokens they form if the number doesn't
+ * continue. When the number ends, those tokens follow it and lexing continues from the last one.
+ * <p>
+ * The produced tokens are identical to {@link GlslLexer#createTokens(CharSequence, ObjIntConsumer)}.
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public final class GlslDfaLexer {
+
+    // Columns 0-127 are ASCII, followed by any other whitespace, digit and character
+    private static final int UNICODE_WHITESPACE = 128;
+    private static final int UNICODE_DIGIT = 129;
+    private static final int UNICODE_OTHER = 130;
+    private static final int COLUMNS = 131;
+
+    private static final int DEAD = 0;
+    private static final int START = 1;
+    private static final int ERROR = 2;
+
+    private static final byte KIND_NONE = 0;
+    private static final byte KIND_WORD = 1;
+    private static final byte KIND_TEXT = 2;
+    private static final byte KIND_NUMBER = 3;
+    private static final byte KIND_PENDING_COMMENT = 4;
+    private static final byte KIND_PENDING_NUMBER = 5;
+
+    private static final short[] TRANSITIONS;
+    private static final short[] FALLBACK;
+    private static final GlslLexer.TokenType[] ACCEPT;
+    private static final String[] WORDS;
+    private static final byte[] KINDS;
+
+    static {
+        Builder builder = new Builder();
+        builder.build();
+        TRANSITIONS = Arrays.copyOf(builder.transitions, builder.states * COLUMNS);
+        FALLBACK = builder.fallback;
+        ACCEPT = Arrays.copyOf(builder.accept, builder.states);
+        WORDS = Arrays.copyOf(builder.words, builder.states);
+        KINDS = Arrays.copyOf(builder.kinds, builder.states);
+    }
+
+    private GlslDfaLexer() {
+    }
+
+    public static GlslLexer.Token[] createTokens(CharSequence input) throws GlslSyntaxException {
+        return createTokens(input, null);
+    }
+
+    public static GlslLexer.Token[] createTokens(CharSequence input, @Nullable ObjIntConsumer<GlslLexer.Token> commentConsumer) throws GlslSyntaxException {
+        return createTokenStream(input, commentConsumer).toArray();
+    }
+
+    public static GlslTokenStream createTokenStream(CharSequence input) throws GlslSyntaxException {
+        return createTokenStream(input, null);
+    }
+
+    public static GlslTokenStream createTokenStream(CharSequence input, @Nullable ObjIntConsumer<GlslLexer.Token> commentConsumer) throws GlslSyntaxException {
+        CharSequence chars = input;
+        int length = chars.length();
+        GlslTokenStream.Builder tokens = new GlslTokenStream.Builder(Math.max(16, length / 4));
+        Fallback fallback = new Fallback();
+
+        int state = START;
+        int cursor = 0;
+        int acceptState = DEAD;
+        int acceptEnd = 0;
+        for (int i = 0; i < length; i++) {
+            int column = column(chars.charAt(i));
+            int next;
+            while ((next = TRANSITIONS[state * COLUMNS + column]) == DEAD) {
+                if (state == START) {
+                    throw GlslLexer.unknownToken(input, i);
+                }
+
+                // The token ends before this character, which continues the tokens lexed after it
+                checkAccepted(input, state, acceptState, cursor, i);
+                addToken(tokens, input, commentConsumer, acceptState, cursor, acceptEnd);
+                state = acceptEnd < i ? fallback.finish(tokens, input) : START;
+                cursor = state == START ? i : fallback.start;
+                acceptState = state == START ? DEAD : state;
+                acceptEnd = i;
+            }
+
+            state = next;
+            if (state == START) {
+                // Whitespace between tokens
+                cursor = i + 1;
+            } else if (ACCEPT[state] != null) {
+                acceptState = state;
+                acceptEnd = i + 1;
+            } else if (acceptState != DEAD && KINDS[state] == KIND_NONE) {
+                // The token might never accept again, so the characters after the last accepting state are lexed on their own
+                if (acceptEnd == i) {
+                    fallback.reset();
+                }
+                fallback.advance(column, i);
+            }
+        }
+
+        if (state != START) {
+            checkAccepted(input, state, acceptState, cursor, length);
+            addToken(tokens, input, commentConsumer, acceptState, cursor, acceptEnd);
+            if (acceptEnd < length) {
+                state = fallback.finish(tokens, input);
+                if (state != START) {
+                    addToken(tokens, input, commentConsumer, state, fallback.start, length);
+                }
+            }
+        }
+
+        return tokens.build(input);
+    }
+
+    private static void checkAccepted(CharSequence input, int state, int acceptState, int cursor, int end) throws GlslSyntaxException {
+        // Unterminated comments and hexadecimal prefixes without digits are not valid tokens
+        if (KINDS[state] == KIND_PENDING_COMMENT || acceptState == DEAD) {
+            throw GlslLexer.unknownToken(input, cursor);
+        }
+        if (KINDS[state] == KIND_PENDING_NUMBER) {
+            throw GlslLexer.unknownToken(input, end);
+        }
+    }
+
+    private static void addToken(GlslTokenStream.Builder tokens, CharSequence input, @Nullable ObjIntConsumer<GlslLexer.Token> commentConsumer, int state, int start, int end) {
+        GlslLexer.TokenType type = ACCEPT[state];
+        if (type != GlslLexer.TokenType.COMMENT && type != GlslLexer.TokenType.MULTI_COMMENT) {
+            tokens.add(type, start, end, KINDS[state] == KIND_WORD ? WORDS[state] : null);
+        } else {
+            tokens.addComment(type, start, end);
+            if (commentConsumer != null) {
+                commentConsumer.accept(new GlslLexer.Token(type, input.subSequence(start, end).toString()), tokens.size());
+            }
+        }
+    }
+
+    private static int column(char c) {
+        if (c < 128) {
+            return c;
+        }
+        if (Character.isWhitespace(c)) {
+            return UNICODE_WHITESPACE;
+        }
+        return Character.isDigit(c) ? UNICODE_DIGIT : UNICODE_OTHER;
+    }
+
+    /**
+     * Lexes the characters after the last accepting state of a token. Only integer constants, identifiers and operators
+     * are produced, since a floating constant starting there would have been accepted by the token itself.
+     */
+    private static final class Fallback {
+
+        private int[] tokens = new int[24];
+        private int size;
+        private int state = START;
+        private int start;
+
+        private void reset() {
+            this.size = 0;
+            this.state = START;
+        }
+
+        private void advance(int column, int i) {
+            int next = FALLBACK[this.state * COLUMNS + column];
+            if (next < 0) {
+                // The open token ends before this character
+                this.add(i);
+                next = -next;
+                this.start = i;
+            } else if (this.state == START) {
+                this.start = i;
+            }
+            this.state = next;
+        }
+
+        private void add(int end) {
+            if (this.size + 3 > this.tokens.length) {
+                this.tokens = Arrays.copyOf(this.tokens, this.tokens.length * 2);
+            }
+            this.tokens[this.size++] = this.start;
+            this.tokens[this.size++] = end;
+            this.tokens[this.size++] = this.state;
+        }
+
+        /**
+         * Adds every token that ended and resets the fallback.
+         *
+         * @return The state of the open token starting at {@link #start} or {@link #START} if there is none
+         * @throws GlslSyntaxException If the characters don't form valid tokens
+         */
+        private int finish(GlslTokenStream.Builder builder, CharSequence input) throws GlslSyntaxException {
+            int state = this.state;
+            if (state == ERROR) {
+                throw GlslLexer.unknownToken(input, this.start);
+            }
+
+            for (int i = 0; i < this.size; i += 3) {
+                int tokenState = this.tokens[i + 2];
+                builder.add(ACCEPT[tokenState], this.tokens[i], this.tokens[i + 1], KINDS[tokenState] == KIND_WORD ? WORDS[tokenState] : null);
+            }
+            this.reset();
+            return state;
+        }
+    }
+
+    /**
+     * Generates the transition tables. State 0 is the dead state, state 1 is the start state and state 2 is the error
+     * state of the fallback table.
+     */
+    private static final class Builder {
+
+        private short[] transitions = new short[64 * COLUMNS];
+        private short[] fallback;
+        private GlslLexer.TokenType[] accept = new GlslLexer.TokenType[64];
+        private String[] words = new String[64];
+        private byte[] kinds = new byte[64];
+        private int states;
+
+        private int identifier;
+
+        private void build() {
+            this.newState(null, KIND_NONE); // DEAD
+            this.newState(null, KIND_NONE); // START
+            this.newState(null, KIND_NONE); // ERROR
+
+            this.buildIdentifiers();
+            this.buildOperators();
+            this.buildComments();
+            this.buildNumbers();
+            this.set(START, Character::isWhitespace, START);
+            this.buildFallback();
+        }
+
+        private int newState(@Nullable GlslLexer.TokenType type, byte kind) {
+            if (this.states >= this.accept.length) {
+                int size = this.accept.length * 2;
+                this.transitions = Arrays.copyOf(this.transitions, size * COLUMNS);
+                this.accept = Arrays.copyOf(this.accept, size);
+                this.words = Arrays.copyOf(this.words, size);
+                this.kinds = Arrays.copyOf(this.kinds, size);
+            }
+            if (this.states > Short.MAX_VALUE) {
+                throw new IllegalStateException("Too many lexer states");
+            }
+
+            this.accept[this.states] = type;
+            this.kinds[this.states] = kind;
+            return this.states++;
+        }
+
+        private int get(int state, int column) {
+            return this.transitions[state * COLUMNS + column];
+        }
+
+        private void set(int state, int column, int next) {
+            this.transitions[state * COLUMNS + column] = (short) next;
+        }
+
+        private void set(int state, CharPredicate predicate, int next) {
+            for (int column = 0; column < COLUMNS; column++) {
+                if (predicate.test(getCharacter(column))) {
+                    this.set(state, column, next);
+                }
+            }
+        }
+
+        private void setAll(int state, int next) {
+            for (int column = 0; column < COLUMNS; column++) {
+                this.set(state, column, next);
+            }
+        }
+
+        private void setIdentifierChars(int state, int next, boolean digits) {
+            this.set(state, c -> GlslLexer.isValidIdentifierChar(c) || (digits && Character.isDigit(c)), next);
+        }
+
+        /**
+         * @return A character that is sorted into the specified column
+         */
+        private static char getCharacter(int column) {
+            return switch (column) {
+                case UNICODE_WHITESPACE -> '\u2003';
+                case UNICODE_DIGIT -> '\u0663';
+                case UNICODE_OTHER -> '\u00E9';
+                default -> (char) column;
+            };
+        }
+
+        private void buildIdentifiers() {
+            // Every identifier prefix that is not part of a keyword continues in a single looping state
+            this.identifier = this.newState(GlslLexer.TokenType.IDENTIFIER, KIND_TEXT);
+            this.setIdentifierChars(this.identifier, this.identifier, true);
+            this.setIdentifierChars(START, this.identifier, false);
+
+            for (GlslLexer.TokenType type : GlslLexer.TokenType.values()) {
+                String[] typeWords = type.getWords();
+                if (typeWords == null) {
+                    continue;
+                }
+
+                for (String word : typeWords) {
+                    if (!GlslLexer.isValidIdentifierChar(word.charAt(0))) {
+                        continue;
+                    }
+
+                    int state = START;
+                    for (int i = 0; i < word.length(); i++) {
+                        int next = this.get(state, word.charAt(i));
+                        if (next == DEAD || next == this.identifier) {
+                            next = this.newState(GlslLexer.TokenType.IDENTIFIER, KIND_TEXT);
+                            this.setIdentifierChars(next, this.identifier, true);
+                            this.set(state, word.charAt(i), next);
+                        }
+                        state = next;
+                    }
+                    // The first type to define a word takes priority
+                    if (this.kinds[state] != KIND_WORD) {
+                        this.accept[state] = type;
+                        this.words[state] = word;
+                        this.kinds[state] = KIND_WORD;
+                    }
+                }
+            }
+        }
+
+        private void buildOperators() {
+            for (GlslLexer.TokenType type : GlslLexer.TokenType.values()) {
+                String[] typeWords = type.getWords();
+                if (typeWords == null) {
+                    continue;
+                }
+
+                for (String word : typeWords) {
+                    if (GlslLexer.isValidIdentifierChar(word.charAt(0))) {
+                        continue;
+                    }
+
+                    int state = START;
+                    for (int i = 0; i < word.length(); i++) {
+                        int next = this.get(state, word.charAt(i));
+                        if (next == DEAD) {
+                            next = this.newState(null, KIND_NONE);
+                            this.set(state, word.charAt(i), next);
+                        }
+                        state = next;
+                    }
+                    // The first type to define a word takes priority
+                    if (this.kinds[state] != KIND_WORD) {
+                        this.accept[state] = type;
+                        this.words[state] = word;
+                        this.kinds[state] = KIND_WORD;
+                    }
+                }
+            }
+        }
+
+        private void buildComments() {
+            // Directives run until the end of the line
+            int directive = this.newState(GlslLexer.TokenType.DIRECTIVE, KIND_TEXT);
+            this.setAll(directive, directive);
+            this.set(directive, '\n', DEAD);
+            this.set(START, '#', directive);
+
+            int slash = this.get(START, '/');
+
+            int comment = this.newState(GlslLexer.TokenType.COMMENT, KIND_TEXT);
+            this.setAll(comment, comment);
+            this.set(comment, '\n', DEAD);
+            this.set(slash, '/', comment);
+
+            int multiComment = this.newState(null, KIND_PENDING_COMMENT);
+            int multiCommentStar = this.newState(null, KIND_PENDING_COMMENT);
+            int multiCommentEnd = this.newState(GlslLexer.TokenType.MULTI_COMMENT, KIND_TEXT);
+            this.setAll(multiComment, multiComment);
+            this.set(multiComment, '*', multiCommentStar);
+            this.setAll(multiCommentStar, multiComment);
+            this.set(multiCommentStar, '*', multiCommentStar);
+            this.set(multiCommentStar, '/', multiCommentEnd);
+            this.set(slash, '*', multiComment);
+        }
+
+        /**
+         * Follows the grammar in {@link GlslNumberConstantParser} using the same character rules. Digit sequences of
+         * floating constants may contain whitespace, integer constants may not.
+         */
+        private void buildNumbers() {
+            // fractional-constant: digit-sequence? . digit-sequence?
+            int fraction = this.newState(GlslLexer.TokenType.FLOATING_CONSTANT, KIND_NUMBER);
+            int fractionWhitespace = this.newState(null, KIND_NONE);
+            int fractionDigits = this.newState(GlslLexer.TokenType.FLOATING_CONSTANT, KIND_NUMBER);
+            this.set(fraction, GlslNumberConstantParser::isDigit, fractionDigits);
+            this.set(fraction, GlslNumberConstantParser::isSpace, fractionWhitespace);
+            this.set(fractionWhitespace, GlslNumberConstantParser::isDigit, fractionDigits);
+            this.set(fractionWhitespace, GlslNumberConstantParser::isSpace, fractionWhitespace);
+            this.set(fractionDigits, c -> GlslNumberConstantParser.isDigit(c) || GlslNumberConstantParser.isSpace(c), fractionDigits);
+
+            // exponent-part: e sign? digit-sequence
+            int exponentStart = this.newState(null, KIND_NONE);
+            int exponentSign = this.newState(null, KIND_NONE);
+            int exponentWhitespace = this.newState(null, KIND_NONE);
+            int exponent = this.newState(GlslLexer.TokenType.FLOATING_CONSTANT, KIND_NUMBER);
+            this.set(exponentStart, GlslNumberConstantParser::isSign, exponentSign);
+            for (int state : new int[]{exponentStart, exponentSign, exponentWhitespace}) {
+                this.set(state, GlslNumberConstantParser::isDigit, exponent);
+                this.set(state, GlslNumberConstantParser::isSpace, exponentWhitespace);
+            }
+            this.set(exponent, c -> GlslNumberConstantParser.isDigit(c) || GlslNumberConstantParser.isSpace(c), exponent);
+            this.set(fraction, GlslNumberConstantParser::isExponent, exponentStart);
+            this.set(fractionDigits, GlslNumberConstantParser::isExponent, exponentStart);
+
+            // floating-suffix: f F lf LF
+            int floatSuffix = this.newState(GlslLexer.TokenType.FLOATING_CONSTANT, KIND_NUMBER);
+            int doubleSuffix = this.newState(GlslLexer.TokenType.DOUBLE_CONSTANT, KIND_NUMBER);
+            int[] suffixed = {fraction, fractionDigits, exponent};
+            for (int state : suffixed) {
+                this.set(state, GlslNumberConstantParser::isFloatSuffix, floatSuffix);
+            }
+            for (char first = 0; first < 128; first++) {
+                int doubleSuffixStart = DEAD;
+                for (char second = 0; second < 128; second++) {
+                    if (!GlslNumberConstantParser.isDoubleSuffix(first, second)) {
+                        continue;
+                    }
+                    if (doubleSuffixStart == DEAD) {
+                        doubleSuffixStart = this.newState(null, KIND_NONE);
+                        for (int state : suffixed) {
+                            this.set(state, first, doubleSuffixStart);
+                        }
+                    }
+                    this.set(doubleSuffixStart, second, doubleSuffix);
+                }
+            }
+
+            // A digit sequence that can only continue as a floating constant
+            int digits = this.newState(null, KIND_NONE);
+            this.set(digits, c -> GlslNumberConstantParser.isDigit(c) || GlslNumberConstantParser.isSpace(c), digits);
+
+            // Integer constants end at whitespace and any digit of a floating constant outside their radix
+            int decimal = this.newState(GlslLexer.TokenType.INTEGER_DECIMAL_CONSTANT, KIND_NUMBER);
+            int decimalUnsigned = this.newState(GlslLexer.TokenType.UINTEGER_DECIMAL_CONSTANT, KIND_NUMBER);
+            this.set(decimal, c -> GlslNumberConstantParser.isDigit(c) || GlslNumberConstantParser.isSpace(c), digits);
+            this.set(decimal, c -> GlslNumberConstantParser.getDigit(c, 10) != -1, decimal);
+            this.set(decimal, GlslNumberConstantParser::isUnsignedSuffix, decimalUnsigned);
+
+            int octal = this.newState(GlslLexer.TokenType.INTEGER_OCTAL_CONSTANT, KIND_NUMBER);
+            int octalUnsigned = this.newState(GlslLexer.TokenType.UINTEGER_OCTAL_CONSTANT, KIND_NUMBER);
+            this.set(octal, c -> GlslNumberConstantParser.isDigit(c) || GlslNumberConstantParser.isSpace(c), digits);
+            this.set(octal, c -> GlslNumberConstantParser.getDigit(c, 8) != -1, octal);
+            this.set(octal, GlslNumberConstantParser::isUnsignedSuffix, octalUnsigned);
+
+            // Only a single leading zero can start a hexadecimal constant
+            int zero = this.newState(GlslLexer.TokenType.INTEGER_OCTAL_CONSTANT, KIND_NUMBER);
+            System.arraycopy(this.transitions, octal * COLUMNS, this.transitions, zero * COLUMNS, COLUMNS);
+
+            int hexadecimalPrefix = this.newState(null, KIND_PENDING_NUMBER);
+            int hexadecimal = this.newState(GlslLexer.TokenType.INTEGER_HEXADECIMAL_CONSTANT, KIND_NUMBER);
+            int hexadecimalUnsigned = this.newState(GlslLexer.TokenType.UINTEGER_HEXADECIMAL_CONSTANT, KIND_NUMBER);
+            this.set(zero, GlslNumberConstantParser::isHexadecimalPrefix, hexadecimalPrefix);
+            this.set(hexadecimalPrefix, c -> GlslNumberConstantParser.getDigit(c, 16) != -1, hexadecimal);
+            this.set(hexadecimal, c -> GlslNumberConstantParser.getDigit(c, 16) != -1, hexadecimal);
+            this.set(hexadecimal, GlslNumberConstantParser::isUnsignedSuffix, hexadecimalUnsigned);
+
+            for (int state : new int[]{digits, decimal, octal, zero}) {
+                this.set(state, GlslNumberConstantParser::isDecimalPoint, fraction);
+                this.set(state, GlslNumberConstantParser::isExponent, exponentStart);
+            }
+
+            // Digits that can't start an integer constant can still start a floating constant
+            this.set(START, GlslNumberConstantParser::isDigit, digits);
+            this.set(START, c -> GlslNumberConstantParser.getDigit(c, 10) > 0, decimal);
+            this.set(START, c -> GlslNumberConstantParser.getDigit(c, 10) == 0, zero);
+
+            // A leading decimal point is only a number if it is directly followed by a digit
+            for (char c = 0; c < 128; c++) {
+                if (GlslNumberConstantParser.isDecimalPoint(c)) {
+                    this.set(this.get(START, c), GlslNumberConstantParser::isDigit, fractionDigits);
+                }
+            }
+        }
+
+        /**
+         * The fallback table continues the open token where the transition table does, otherwise the token ends and the
+         * character starts the next one. Entries where the open token ends are stored negated.
+         */
+        private void buildFallback() {
+            this.fallback = new short[this.states * COLUMNS];
+            for (int column = 0; column < COLUMNS; column++) {
+                this.fallback[ERROR * COLUMNS + column] = ERROR;
+                for (int state = START; state < this.states; state++) {
+                    if (state == ERROR) {
+                        continue;
+                    }
+
+                    int next = this.get(state, column);
+                    if (!this.isFallbackToken(next)) {
+                        next = this.get(START, column);
+                        if (next != START && !this.isFallbackToken(next)) {
+                            next = ERROR;
+                        }
+                        if (state != START) {
+                            next = -next;
+                        }
+                    }
+                    this.fallback[state * COLUMNS + column] = (short) next;
+                }
+            }
+        }
+
+        private boolean isFallbackToken(int state) {
+            GlslLexer.TokenType type = this.accept[state];
+            return type != null && switch (type) {
+                case FLOATING_CONSTANT, DOUBLE_CONSTANT, COMMENT, MULTI_COMMENT, DIRECTIVE -> false;
+                default -> true;
+            };
+        }
+    }
+
+    @FunctionalInterface
+    private interface CharPredicate {
+
+        boolean test(char c);
+    }
+}
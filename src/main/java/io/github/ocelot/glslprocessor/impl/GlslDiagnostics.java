@@ -0,0 +1,128 @@
+package io.github.ocelot.glslprocessor.impl;
+
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Errors marked while parsing, stored as a token index and a message id. Nothing is allocated per error once a message
+ * has been seen, and duplicate errors are rejected with a hash set of the packed pairs.
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+final class GlslDiagnostics {
+
+    private static final long EMPTY = -1L;
+
+    private final List<String> messages;
+    private final Map<String, Integer> messageIds;
+    private int[] cursors;
+    private int[] ids;
+    private int size;
+    private long[] keys;
+
+    GlslDiagnostics() {
+        this.messages = new ArrayList<>();
+        this.messageIds = new HashMap<>();
+        this.cursors = new int[16];
+        this.ids = new int[16];
+        this.keys = new long[32];
+        Arrays.fill(this.keys, EMPTY);
+    }
+
+    /**
+     * Adds an error if the same message was not already added for the same token.
+     *
+     * @param cursor  The index of the token the error is at
+     * @param message The error message
+     * @return Whether the error was added
+     */
+    public boolean add(int cursor, String message) {
+        Integer id = this.messageIds.get(message);
+        if (id == null) {
+            id = this.messages.size();
+            this.messages.add(message);
+            this.messageIds.put(message, id);
+        }
+
+        if (!this.insert(((long) cursor << 32) | id)) {
+            return false;
+        }
+
+        if (this.size >= this.cursors.length) {
+            this.cursors = Arrays.copyOf(this.cursors, this.cursors.length * 2);
+            this.ids = Arrays.copyOf(this.ids, this.ids.length * 2);
+        }
+        this.cursors[this.size] = cursor;
+        this.ids[this.size] = id;
+        this.size++;
+        return true;
+    }
+
+    private boolean insert(long key) {
+        // Keep the table at most half full
+        if ((this.size + 1) * 2 > this.keys.length) {
+            long[] old = this.keys;
+            this.keys = new long[old.length * 2];
+            Arrays.fill(this.keys, EMPTY);
+            for (long value : old) {
+                if (value != EMPTY) {
+                    this.insert(value);
+                }
+            }
+        }
+
+        int mask = this.keys.length - 1;
+        int index = Long.hashCode(key * 0x9E3779B97F4A7C15L) & mask;
+        while (this.keys[index] != EMPTY) {
+            if (this.keys[index] == key) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        this.keys[index] = key;
+        return true;
+    }
+
+    /**
+     * Removes all errors and keeps the buffers for the next errors.
+     */
+    public void clear() {
+        this.messages.clear();
+        this.messageIds.clear();
+        Arrays.fill(this.keys, EMPTY);
+        this.size = 0;
+    }
+
+    /**
+     * @return The number of errors added
+     */
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * @param index The index of the error
+     * @return The index of the token the error is at
+     */
+    public int getCursor(int index) {
+        return this.cursors[index];
+    }
+
+    /**
+     * @param index The index of the error
+     * @return The message of the error
+     */
+    public String getMessage(int index) {
+        return this.messages.get(this.ids[index]);
+    }
+}
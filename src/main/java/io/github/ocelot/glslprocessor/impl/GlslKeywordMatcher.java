@@ -0,0 +1,221 @@
+package io.github.ocelot.glslprocessor.impl;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Precomputed lookup tables for all words defined in {@link GlslLexer.TokenType}.
+ * <p>
+ * Identifier-shaped keywords are stored in a collision-free hash table so a scanned identifier can be classified with a
+ * single probe. All other words (operators and punctuation) are stored in a trie that is walked once per token to find
+ * the longest match.
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+final class GlslKeywordMatcher {
+
+    private static final int ALPHABET_SIZE = 128;
+
+    private static final int KEYWORD_SEED;
+    private static final int KEYWORD_SHIFT;
+    private static final char[][] KEYWORD_CHARS;
+    private static final String[] KEYWORD_WORDS;
+    private static final GlslLexer.TokenType[] KEYWORD_TYPES;
+
+    private static final int[] OPERATOR_NEXT;
+    private static final String[] OPERATOR_WORDS;
+    private static final GlslLexer.TokenType[] OPERATOR_TYPES;
+    private static final int MAX_OPERATOR_LENGTH;
+
+    static {
+        List<String> keywords = new ArrayList<>();
+        List<GlslLexer.TokenType> keywordTypes = new ArrayList<>();
+        List<String> operators = new ArrayList<>();
+        List<GlslLexer.TokenType> operatorTypes = new ArrayList<>();
+        for (GlslLexer.TokenType type : GlslLexer.TokenType.values()) {
+            String[] words = type.getWords();
+            if (words == null) {
+                continue;
+            }
+
+            for (String word : words) {
+                if (isIdentifier(word)) {
+                    keywords.add(word);
+                    keywordTypes.add(type);
+                } else {
+                    operators.add(word);
+                    operatorTypes.add(type);
+                }
+            }
+        }
+
+        // Find a seed that maps every keyword into a unique slot
+        int bits = 32 - Integer.numberOfLeadingZeros(keywords.size() * 2);
+        int seed = -1;
+        int[] slots = new int[keywords.size()];
+        while (seed < 0) {
+            for (int candidate = 1; candidate < 1 << 16; candidate++) {
+                if (isPerfect(keywords, candidate, 32 - bits, slots)) {
+                    seed = candidate;
+                    break;
+                }
+            }
+            if (seed < 0) {
+                bits++;
+            }
+        }
+
+        KEYWORD_SEED = seed;
+        KEYWORD_SHIFT = 32 - bits;
+        KEYWORD_CHARS = new char[1 << bits][];
+        KEYWORD_WORDS = new String[1 << bits];
+        KEYWORD_TYPES = new GlslLexer.TokenType[1 << bits];
+        for (int i = 0; i < keywords.size(); i++) {
+            String keyword = keywords.get(i);
+            KEYWORD_CHARS[slots[i]] = keyword.toCharArray();
+            KEYWORD_WORDS[slots[i]] = keyword;
+            KEYWORD_TYPES[slots[i]] = keywordTypes.get(i);
+        }
+
+        // Build the operator trie. Node 0 is the root
+        int[] next = new int[ALPHABET_SIZE * (1 + operators.stream().mapToInt(String::length).sum())];
+        String[] nodeWords = new String[next.length / ALPHABET_SIZE];
+        GlslLexer.TokenType[] nodeTypes = new GlslLexer.TokenType[nodeWords.length];
+        int nodes = 1;
+        for (int i = 0; i < operators.size(); i++) {
+            String operator = operators.get(i);
+            int node = 0;
+            for (int j = 0; j < operator.length(); j++) {
+                int index = node * ALPHABET_SIZE + operator.charAt(j);
+                if (next[index] == 0) {
+                    next[index] = nodes++;
+                }
+                node = next[index];
+            }
+            if (nodeTypes[node] == null) {
+                nodeWords[node] = operator;
+                nodeTypes[node] = operatorTypes.get(i);
+            }
+        }
+
+        OPERATOR_NEXT = Arrays.copyOf(next, nodes * ALPHABET_SIZE);
+        OPERATOR_WORDS = Arrays.copyOf(nodeWords, nodes);
+        OPERATOR_TYPES = Arrays.copyOf(nodeTypes, nodes);
+        MAX_OPERATOR_LENGTH = operators.stream().mapToInt(String::length).max().orElse(0);
+    }
+
+    private GlslKeywordMatcher() {
+    }
+
+    private static boolean isIdentifier(String word) {
+        if (word.isEmpty() || !GlslLexer.isValidIdentifierChar(word.charAt(0))) {
+            return false;
+        }
+        for (int i = 1; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (!Character.isDigit(c) && !GlslLexer.isValidIdentifierChar(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isPerfect(List<String> keywords, int seed, int shift, int[] slots) {
+        boolean[] used = new boolean[1 << (32 - shift)];
+        for (int i = 0; i < keywords.size(); i++) {
+            String keyword = keywords.get(i);
+            int slot = slot(keyword, 0, keyword.length(), seed, shift);
+            if (used[slot]) {
+                return false;
+            }
+            used[slot] = true;
+            slots[i] = slot;
+        }
+        return true;
+    }
+
+    private static int slot(CharSequence chars, int start, int end, int seed, int shift) {
+        int hash = seed;
+        for (int i = start; i < end; i++) {
+            hash = hash * 31 + chars.charAt(i);
+        }
+        return ((hash ^ (hash >>> 15)) * 0x9E3779B9) >>> shift;
+    }
+
+    /**
+     * Finds the keyword that exactly matches the identifier in <code>chars[start..end)</code>.
+     *
+     * @param chars The source characters
+     * @param start The first character of the identifier
+     * @param end   The character after the last character of the identifier
+     * @return The slot of the keyword or <code>-1</code> if the identifier is not a keyword
+     */
+    public static int findKeyword(CharSequence chars, int start, int end) {
+        int slot = slot(chars, start, end, KEYWORD_SEED, KEYWORD_SHIFT);
+        char[] keyword = KEYWORD_CHARS[slot];
+        if (keyword == null || keyword.length != end - start) {
+            return -1;
+        }
+        for (int i = 0; i < keyword.length; i++) {
+            if (keyword[i] != chars.charAt(start + i)) {
+                return -1;
+            }
+        }
+        return slot;
+    }
+
+    public static GlslLexer.TokenType getKeywordType(int slot) {
+        return KEYWORD_TYPES[slot];
+    }
+
+    public static String getKeyword(int slot) {
+        return KEYWORD_WORDS[slot];
+    }
+
+    /**
+     * Walks the operator trie from <code>start</code> and finds the longest operator or punctuation word.
+     *
+     * @param chars The source characters
+     * @param start The first character of the operator
+     * @return The trie node of the longest match or <code>-1</code> if no operator starts at the position
+     */
+    public static int findOperator(CharSequence chars, int start) {
+        int node = 0;
+        int match = -1;
+        for (int i = start; i < chars.length(); i++) {
+            char c = chars.charAt(i);
+            if (c >= ALPHABET_SIZE) {
+                break;
+            }
+
+            node = OPERATOR_NEXT[node * ALPHABET_SIZE + c];
+            if (node == 0) {
+                break;
+            }
+            if (OPERATOR_TYPES[node] != null) {
+                match = node;
+            }
+        }
+        return match;
+    }
+
+    public static @Nullable GlslLexer.TokenType getOperatorType(int node) {
+        return OPERATOR_TYPES[node];
+    }
+
+    public static String getOperator(int node) {
+        return OPERATOR_WORDS[node];
+    }
+
+    /**
+     * @return The length of the longest operator or punctuation word
+     */
+    public static int getMaxOperatorLength() {
+        return MAX_OPERATOR_LENGTH;
+    }
+}
@@ -12,9 +12,12 @@ import org.jetbrains.annotations.VisibleForTesting;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.function.ObjIntConsumer;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * @author Ocelot
@@ -22,139 +25,465 @@ import java.util.regex.Pattern;
 @ApiStatus.Internal
 public class GlslLexer {
 
-    private static final Pattern MULTI_COMMENT_PATTERN = Pattern.compile("/\\*[^*]*\\*+(?:[^/*][^*]*\\*+)*/");
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+    private static final int MIN_CHUNK_SIZE = 1 << 14;
+    private static final @Nullable GlslCharScanner VECTOR_SCANNER = loadVectorScanner();
+    private static volatile boolean vectorScanning = isVectorScanningRequested();
+
+    /**
+     * Loads the scanner compiled against the incubating vector API. It is the only class that uses the
+     * <code>jdk.incubator.vector</code> module, so it is created through reflection and everything else is compiled
+     * and loaded without the module.
+     */
+    private static @Nullable GlslCharScanner loadVectorScanner() {
+        try {
+            GlslCharScanner scanner = (GlslCharScanner) Class.forName("io.github.ocelot.glslprocessor.impl.GlslVectorScanner").getDeclaredConstructor().newInstance();
+            return scanner.isSupported() ? scanner : null;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // The jdk.incubator.vector module was not added at runtime
+            return null;
+        }
+    }
+
+    private static boolean isVectorScanningRequested() {
+        if (!Boolean.getBoolean("glslprocessor.vectorScanning")) {
+            return false;
+        }
+        if (VECTOR_SCANNER == null) {
+            System.err.println("glslprocessor.vectorScanning is set, but the vector API is not available. Add the module with --add-modules jdk.incubator.vector");
+            return false;
+        }
+        return true;
+    }
+
+    private static GlslStringReader createReader(CharSequence input) {
+        return new GlslStringReader(input, vectorScanning ? VECTOR_SCANNER : null);
+    }
+
+    /**
+     * @return Whether the vector API is available to the lexer
+     */
+    public static boolean isVectorScanningSupported() {
+        return VECTOR_SCANNER != null;
+    }
+
+    /**
+     * @return Whether whitespace, identifiers, and comments are currently scanned with vector instructions
+     */
+    public static boolean isVectorScanningEnabled() {
+        return vectorScanning;
+    }
+
+    /**
+     * Sets whether whitespace, identifiers, and comments should be scanned with vector instructions. This is ignored if
+     * the <code>jdk.incubator.vector</code> module is not available. The default can be set with the
+     * <code>glslprocessor.vectorScanning</code> system property.
+     *
+     * @param enabled Whether to use vector instructions
+     */
+    public static void setVectorScanning(boolean enabled) {
+        vectorScanning = enabled && VECTOR_SCANNER != null;
+    }
 
-    public static Token[] createTokens(String input) throws GlslSyntaxException {
+    public static Token[] createTokens(CharSequence input) throws GlslSyntaxException {
         return createTokens(input, null);
     }
 
-    public static Token[] createTokens(String input, @Nullable ObjIntConsumer<Token> commentConsumer) throws GlslSyntaxException {
-        GlslStringReader reader = new GlslStringReader(input);
-        List<Token> tokens = new ArrayList<>();
+    public static Token[] createTokens(CharSequence input, @Nullable ObjIntConsumer<Token> commentConsumer) throws GlslSyntaxException {
+        return createTokenStream(input, commentConsumer).toArray();
+    }
+
+    public static GlslTokenStream createTokenStream(CharSequence input) throws GlslSyntaxException {
+        return createTokenStream(input, null);
+    }
+
+    public static GlslTokenStream createTokenStream(CharSequence input, @Nullable ObjIntConsumer<Token> commentConsumer) throws GlslSyntaxException {
+        return createTokenStream(input, commentConsumer, new GlslTokenStream.Builder(Math.max(16, input.length() / 4)));
+    }
+
+    /**
+     * Lexes a source into an existing builder. The builder is reset first, so its arrays are reused if they are large
+     * enough for the source.
+     *
+     * @param input           The source to lex
+     * @param commentConsumer The consumer for comments and the number of tokens before them
+     * @param tokens          The builder to add tokens to
+     * @return The tokens in the source, backed by the arrays of the builder
+     * @throws GlslSyntaxException If the source contains an invalid token
+     */
+    public static GlslTokenStream createTokenStream(CharSequence input, @Nullable ObjIntConsumer<Token> commentConsumer, GlslTokenStream.Builder tokens) throws GlslSyntaxException {
+        tokens.reset();
+        readTokens(createReader(input), tokens, commentConsumer);
+        return tokens.build(input);
+    }
+
+    private static void readTokens(GlslStringReader reader, GlslTokenStream.Builder tokens, @Nullable ObjIntConsumer<Token> commentConsumer) throws GlslSyntaxException {
+        GlslNumberConstantParser numbers = new GlslNumberConstantParser();
 
         reader.skipWhitespace();
         while (reader.canRead()) {
-            Token token = readToken(reader);
-            if (token != null) {
-                if (token.type != TokenType.COMMENT && token.type != TokenType.MULTI_COMMENT) {
-                    tokens.add(token);
-                } else if (commentConsumer != null) {
-                    commentConsumer.accept(token, tokens.size());
-                }
+            if (readToken(reader, tokens, numbers, commentConsumer)) {
                 reader.skipWhitespace();
                 continue;
             }
 
-            throw new GlslSyntaxException("Unknown Token", reader.string, reader.cursor + 1);
+            throw unknownToken(reader.source, reader.cursor);
         }
+    }
 
-        return tokens.toArray(Token[]::new);
+    public static Token[] createTokensParallel(CharSequence input) throws GlslSyntaxException {
+        return createTokenStreamParallel(input, null, ForkJoinPool.commonPool()).toArray();
     }
 
-    private static @Nullable Token readToken(GlslStringReader reader) {
-        int cursor = reader.cursor;
-        String string = reader.string;
-        char[] chars = reader.chars;
-        char firstChar = chars[cursor];
-        boolean number = Character.isDigit(firstChar) || (chars.length > 1 && firstChar == '.' && Character.isDigit(chars[cursor + 1]));
+    /**
+     * Lexes a source on multiple threads. The source is split into chunks at newlines no token can continue past, each
+     * chunk is lexed on the pool, and the results are joined in order. The tokens and comments are identical to
+     * {@link #createTokenStream(CharSequence, ObjIntConsumer)}. Small sources are lexed on the calling thread.
+     *
+     * @param input           The source to lex
+     * @param commentConsumer The consumer for comments and the number of tokens before them. This is called on the
+     *                        calling thread after all chunks have been lexed
+     * @param pool            The pool to lex chunks on
+     * @return The tokens in the source
+     * @throws GlslSyntaxException If the source contains an invalid token
+     */
+    public static GlslTokenStream createTokenStreamParallel(CharSequence input, @Nullable ObjIntConsumer<Token> commentConsumer, ForkJoinPool pool) throws GlslSyntaxException {
+        int chunkSize = Math.max(MIN_CHUNK_SIZE, input.length() / (pool.getParallelism() * 4));
+        if (input.length() < PARALLEL_THRESHOLD || pool.getParallelism() <= 1) {
+            return createTokenStream(input, commentConsumer);
+        }
 
-        // Special for directives
-        if (firstChar == '#') {
-            int i = cursor + 1;
-            while (i < chars.length && chars[i] != '\n') {
-                i++;
+        int[] splits = findSplitPoints(input, chunkSize);
+        if (splits.length == 2) {
+            return createTokenStream(input, commentConsumer);
+        }
+
+        GlslStringReader reader = createReader(input);
+        List<Callable<GlslTokenStream>> chunks = new ArrayList<>(splits.length - 1);
+        for (int i = 0; i < splits.length - 1; i++) {
+            int start = splits[i];
+            int end = splits[i + 1];
+            chunks.add(() -> {
+                GlslTokenStream.Builder tokens = new GlslTokenStream.Builder(Math.max(16, (end - start) / 4));
+                readTokens(reader.range(start, end), tokens, null);
+                return tokens.build(input);
+            });
+        }
+
+        GlslTokenStream.Builder tokens = new GlslTokenStream.Builder(Math.max(16, input.length() / 4));
+        List<Future<GlslTokenStream>> results = pool.invokeAll(chunks);
+        for (int i = 0; i < results.size(); i++) {
+            try {
+                tokens.addAll(results.get(i).get(), splits[i], splits[i + 1], 0);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while lexing", e);
+            } catch (ExecutionException e) {
+                // The first chunk that fails has the same error as lexing sequentially. The pool may wrap it several times
+                for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                    if (cause instanceof GlslSyntaxException exception) {
+                        throw exception;
+                    }
+                }
+                throw new IllegalStateException("Failed to lex chunk", e.getCause());
             }
-            reader.skip(i - cursor);
-            return new Token(TokenType.DIRECTIVE, string.substring(cursor, i));
         }
 
-        if (firstChar == '/' && chars.length > 1) {
-            // Special for single-line comments
-            if (chars[cursor + 1] == '/') {
-                int i = cursor + 2;
-                while (i < chars.length && chars[i] != '\n') {
-                    i++;
+        GlslTokenStream stream = tokens.build(input);
+        if (commentConsumer != null) {
+            for (int i = 0; i < stream.getCommentCount(); i++) {
+                commentConsumer.accept(stream.getComment(i), stream.getCommentTokenIndex(i));
+            }
+        }
+        return stream;
+    }
+
+    /**
+     * Finds positions the source can be split at so each part can be lexed separately. A split is placed after a
+     * newline that is outside a multi-line comment, where the last character before it can't be part of a number
+     * constant. Line comments and directives always end at a newline, so any newline ending them is safe.
+     *
+     * @param source    The source to split
+     * @param chunkSize The minimum number of characters between splits
+     * @return The start of every chunk followed by the length of the source
+     */
+    private static int[] findSplitPoints(CharSequence source, int chunkSize) {
+        int length = source.length();
+        int[] splits = new int[length / chunkSize + 2];
+        int count = 1;
+        int target = chunkSize;
+        char last = ';';
+
+        for (int i = 0; i < length && count < splits.length - 1; i++) {
+            char c = source.charAt(i);
+            if (c == '\n') {
+                if (i + 1 >= target && i + 1 < length && !isNumberChar(last)) {
+                    splits[count++] = i + 1;
+                    target = i + 1 + chunkSize;
                 }
-                reader.skip(i - cursor);
-                return new Token(TokenType.COMMENT, string.substring(cursor, i));
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                continue;
             }
 
-            // Special for multi-line comments
-            if (chars[cursor + 1] == '*') {
-                Matcher matcher = MULTI_COMMENT_PATTERN.matcher(string.substring(cursor));
-                if (!matcher.find() || matcher.start() != 0) {
-                    return null;
+            if (c == '#' || (c == '/' && i + 1 < length && source.charAt(i + 1) == '/')) {
+                // Skip to the newline at the end of the directive or comment
+                while (i + 1 < length && source.charAt(i + 1) != '\n') {
+                    i++;
+                }
+                last = '#';
+                continue;
+            }
+            if (c == '/' && i + 1 < length && source.charAt(i + 1) == '*') {
+                int end = -1;
+                for (int j = i + 2; j < length - 1; j++) {
+                    if (source.charAt(j) == '*' && source.charAt(j + 1) == '/') {
+                        end = j + 2;
+                        break;
+                    }
                 }
-                reader.skip(matcher.end());
-                return new Token(TokenType.MULTI_COMMENT, string.substring(cursor, cursor + matcher.end()));
+                if (end == -1) {
+                    // The comment is never closed, so the rest of the source can't be split
+                    break;
+                }
+                i = end - 1;
+                last = '/';
+                continue;
             }
+            last = c;
         }
 
-        int patternLength = 0;
-        TokenType patternType = null;
-        String longestPattern = null;
-        if (number) {
-            return GlslNumberConstantParser.parseNumberConstant(reader);
+        splits[count++] = length;
+        return Arrays.copyOf(splits, count);
+    }
+
+    /**
+     * Lexes an edited version of the source of a token stream. Only the tokens around the edit are lexed again, the rest
+     * are copied from the previous stream.
+     *
+     * @param previous      The tokens of the source before the edit
+     * @param offset        The position of the edit in the previous source
+     * @param removedLength The number of characters removed at the offset
+     * @param inserted      The characters inserted at the offset
+     * @return A token stream identical to lexing the entire edited source
+     * @throws GlslSyntaxException If the edited source contains an invalid token
+     */
+    public static GlslTokenStream relex(GlslTokenStream previous, int offset, int removedLength, CharSequence inserted) throws GlslSyntaxException {
+        CharSequence old = previous.getSource();
+        Objects.checkFromIndexSize(offset, removedLength, old.length());
+        StringBuilder source = new StringBuilder(old.length() - removedLength + inserted.length());
+        source.append(old, 0, offset).append(inserted).append(old, offset + removedLength, old.length());
+        return relex(previous, source.toString(), offset, removedLength, inserted.length());
+    }
+
+    /**
+     * Lexes an edited version of the source of a token stream. Only the tokens around the edit are lexed again, the rest
+     * are copied from the previous stream.
+     *
+     * @param previous       The tokens of the source before the edit
+     * @param source         The complete source after the edit
+     * @param offset         The position of the edit in the previous source
+     * @param removedLength  The number of characters removed at the offset
+     * @param insertedLength The number of characters inserted at the offset
+     * @return A token stream identical to lexing the entire edited source
+     * @throws GlslSyntaxException If the edited source contains an invalid token
+     */
+    public static GlslTokenStream relex(GlslTokenStream previous, CharSequence source, int offset, int removedLength, int insertedLength) throws GlslSyntaxException {
+        CharSequence old = previous.getSource();
+        Objects.checkFromIndexSize(offset, removedLength, old.length());
+        int shift = insertedLength - removedLength;
+        if (source.length() != old.length() + shift) {
+            throw new IllegalArgumentException("Expected edited source of length " + (old.length() + shift) + ", got " + source.length());
         }
 
-        if (isValidIdentifierChar(firstChar)) {
-            int i = cursor + 1;
-            while (i < chars.length) {
-                char c = chars[i];
-                if (!Character.isDigit(c) && !isValidIdentifierChar(c)) {
-                    break;
+        // Every token before the restart point is unaffected by the edit
+        int restart = findRestartToken(previous, offset);
+        int restartPosition = restart == 0 ? 0 : previous.getEnd(restart - 1);
+
+        GlslTokenStream.Builder tokens = new GlslTokenStream.Builder(previous.size() + 16);
+        tokens.addAll(previous, 0, restartPosition, 0);
+
+        GlslStringReader reader = createReader(source);
+        GlslNumberConstantParser numbers = new GlslNumberConstantParser();
+        reader.cursor = restartPosition;
+        reader.skipWhitespace();
+        int editEnd = offset + insertedLength;
+        while (reader.canRead()) {
+            // Once a token starts where a token or comment started before the edit, the rest of the tokens are the same
+            if (reader.cursor >= editEnd) {
+                int oldPosition = reader.cursor - shift;
+                int token = previous.findToken(oldPosition);
+                int comment = previous.findComment(oldPosition);
+                if ((token < previous.size() && previous.getStart(token) == oldPosition) || (comment < previous.getCommentCount() && previous.getCommentStart(comment) == oldPosition)) {
+                    tokens.addAll(previous, oldPosition, old.length(), shift);
+                    return tokens.build(source);
                 }
-                i++;
             }
 
-            patternLength = i - cursor;
-            longestPattern = string.substring(cursor, i);
-            patternType = TokenType.IDENTIFIER;
+            if (!readToken(reader, tokens, numbers, null)) {
+                throw unknownToken(source, reader.cursor);
+            }
+            reader.skipWhitespace();
+        }
+
+        return tokens.build(source);
+    }
+
+    /**
+     * Creates the error for a character that doesn't start a valid token.
+     *
+     * @param source   The source being lexed
+     * @param position The position of the invalid token
+     * @return A new exception pointing at the position
+     */
+    static GlslSyntaxException unknownToken(CharSequence source, int position) {
+        GlslSyntaxException exception = new GlslSyntaxException("Unknown Token", source, position + 1);
+        GlslLineTable lines = GlslLineTable.of(source);
+        exception.setPosition(lines.getLine(position), lines.getColumn(position));
+        return exception;
+    }
+
+    /**
+     * Finds the first token that may have read characters at or after the specified position.
+     */
+    private static int findRestartToken(GlslTokenStream tokens, int offset) {
+        CharSequence source = tokens.getSource();
+
+        // Numbers can't be read past a character that can never be part of a number
+        int barrier = offset - 1;
+        while (barrier >= 0 && isNumberChar(source.charAt(barrier))) {
+            barrier--;
+        }
+
+        int lookahead = GlslKeywordMatcher.getMaxOperatorLength();
+        int restart = tokens.findToken(offset);
+        for (int i = restart - 1; i >= 0 && tokens.getEnd(i) + lookahead > barrier; i--) {
+            if (getReadEnd(tokens, i) > offset) {
+                restart = i;
+            }
+        }
+        return restart;
+    }
+
+    /**
+     * Calculates the position after the last character the lexer had to look at to read the specified token.
+     */
+    private static int getReadEnd(GlslTokenStream tokens, int index) {
+        CharSequence source = tokens.getSource();
+        int start = tokens.getStart(index);
+        int end = tokens.getEnd(index);
+        TokenType type = tokens.getType(index);
+        if (GlslNumberConstantParser.isNumber(type)) {
+            while (end < source.length() && isNumberChar(source.charAt(end))) {
+                end++;
+            }
+            return end + 1;
+        }
+        if (type != TokenType.IDENTIFIER && type != TokenType.DIRECTIVE && !isValidIdentifierChar(source.charAt(start))) {
+            return Math.max(end, start + GlslKeywordMatcher.getMaxOperatorLength()) + 1;
+        }
+        return end + 1;
+    }
+
+    private static boolean isNumberChar(char c) {
+        return Character.isWhitespace(c) || Character.isDigit(c) || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F') || switch (c) {
+            case '.', '+', '-', 'x', 'X', 'u', 'U', 'l', 'L' -> true;
+            default -> false;
+        };
+    }
+
+    private static boolean readToken(GlslStringReader reader, GlslTokenStream.Builder tokens, GlslNumberConstantParser numbers, @Nullable ObjIntConsumer<Token> commentConsumer) {
+        int cursor = reader.cursor;
+        CharSequence chars = reader.source;
+        char firstChar = chars.charAt(cursor);
+        boolean number = GlslNumberConstantParser.isDigit(firstChar) || (cursor + 1 < chars.length() && GlslNumberConstantParser.isDecimalPoint(firstChar) && GlslNumberConstantParser.isDigit(chars.charAt(cursor + 1)));
+
+        // Special for directives
+        if (firstChar == '#') {
+            int i = reader.indexOf('\n', cursor + 1);
+            reader.skip(i - cursor);
+            tokens.add(TokenType.DIRECTIVE, cursor, i, null);
+            return true;
         }
 
-        int wordLength = 0;
-        TokenType longestWordType = null;
-        String longestWord = null;
-        for (TokenType type : TokenType.WORD_VALUES) {
-            int[] wordLengths = type.wordLengths;
-            for (int i = 0; i < type.wordCount; i++) {
-                if (wordLengths[i] <= wordLength) {
-                    continue;
+        if (firstChar == '/' && cursor + 1 < chars.length()) {
+            // Special for single-line comments
+            if (chars.charAt(cursor + 1) == '/') {
+                int i = reader.indexOf('\n', cursor + 2);
+                reader.skip(i - cursor);
+                tokens.addComment(TokenType.COMMENT, cursor, i);
+                if (commentConsumer != null) {
+                    commentConsumer.accept(new Token(TokenType.COMMENT, chars.subSequence(cursor, i).toString()), tokens.size());
                 }
+                return true;
+            }
 
-                char[] charArray = type.chars[i];
-                if (chars.length - cursor >= charArray.length && Arrays.mismatch(chars, cursor, cursor + charArray.length, charArray, 0, charArray.length) < 0) {
-                    wordLength = wordLengths[i];
-                    longestWordType = type;
-                    longestWord = type.words[i];
+            // Special for multi-line comments
+            if (chars.charAt(cursor + 1) == '*') {
+                int end = findMultiCommentEnd(reader, cursor + 2);
+                if (end == -1) {
+                    return false;
                 }
+                reader.skip(end - cursor);
+                tokens.addComment(TokenType.MULTI_COMMENT, cursor, end);
+                if (commentConsumer != null) {
+                    commentConsumer.accept(new Token(TokenType.MULTI_COMMENT, chars.subSequence(cursor, end).toString()), tokens.size());
+                }
+                return true;
             }
         }
 
-        if (longestPattern == null ^ longestWordType == null) {
-            if (longestPattern != null) {
-                reader.skip(patternLength);
-                return new Token(patternType, longestPattern);
+        if (number) {
+            TokenType type = numbers.parseNumberConstant(reader);
+            if (type == null) {
+                return false;
             }
-
-            reader.skip(wordLength);
-            return new Token(longestWordType, longestWord);
+            tokens.addConstant(type, cursor, reader.cursor, numbers.getValue());
+            return true;
         }
 
-        if (longestPattern == null) {
-            return null;
+        // Identifiers can only ever be keywords if the entire identifier matches
+        if (isValidIdentifierChar(firstChar)) {
+            int i = reader.findIdentifierEnd(cursor + 1);
+            reader.skip(i - cursor);
+            int keyword = GlslKeywordMatcher.findKeyword(chars, cursor, i);
+            if (keyword != -1) {
+                tokens.add(GlslKeywordMatcher.getKeywordType(keyword), cursor, i, GlslKeywordMatcher.getKeyword(keyword));
+            } else {
+                tokens.add(TokenType.IDENTIFIER, cursor, i, null);
+            }
+            return true;
         }
 
-        if (wordLength >= patternLength) {
-            reader.skip(wordLength);
-            return new Token(longestWordType, longestWord);
+        int operator = GlslKeywordMatcher.findOperator(chars, cursor);
+        if (operator == -1) {
+            return false;
         }
 
-        reader.skip(patternLength);
-        return new Token(patternType, longestPattern);
+        String word = GlslKeywordMatcher.getOperator(operator);
+        reader.skip(word.length());
+        tokens.add(GlslKeywordMatcher.getOperatorType(operator), cursor, reader.cursor, word);
+        return true;
+    }
+
+    /**
+     * Finds the end of a multi-line comment without copying the source.
+     *
+     * @param reader The source reader
+     * @param start  The first character after the opening <code>/*</code>
+     * @return The index after the closing <code>*&#47;</code> or <code>-1</code> if the comment is never closed
+     */
+    private static int findMultiCommentEnd(GlslStringReader reader, int start) {
+        for (int i = reader.indexOf('*', start); i < reader.length - 1; i = reader.indexOf('*', i + 1)) {
+            if (reader.charAt(i + 1) == '/') {
+                return i + 2;
+            }
+        }
+        return -1;
     }
 
-    private static boolean isValidIdentifierChar(char c) {
+    static boolean isValidIdentifierChar(char c) {
         return c == '_' || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
     }
 
@@ -402,25 +731,10 @@ public class GlslLexer {
 
         IDENTIFIER;
 
-        private static final TokenType[] WORD_VALUES = Arrays.stream(values()).filter(type -> type.words != null).toArray(TokenType[]::new);
-
-        private final int wordCount;
         private final String[] words;
-        private final int[] wordLengths;
-        private final char[][] chars;
 
         TokenType(String... words) {
-            if (words.length > 0) {
-                this.wordCount = words.length;
-                this.words = words;
-                this.wordLengths = Arrays.stream(words).mapToInt(String::length).toArray();
-                this.chars = Arrays.stream(words).map(String::toCharArray).toArray(char[][]::new);
-            } else {
-                this.wordCount = 0;
-                this.words = null;
-                this.wordLengths = null;
-                this.chars = null;
-            }
+            this.words = words.length > 0 ? words : null;
         }
 
         @VisibleForTesting
@@ -609,6 +923,27 @@ public class GlslLexer {
             };
         }
 
+        /**
+         * @return The precedence of this token as a binary operator from <code>1</code> for logical or to
+         * <code>11</code> for multiplication or <code>0</code> if this is not a binary operator
+         */
+        public int getBinaryPrecedence() {
+            return switch (this) {
+                case OR_OP -> 1;
+                case XOR_OP -> 2;
+                case AND_OP -> 3;
+                case VERTICAL_BAR -> 4;
+                case CARET -> 5;
+                case AMPERSAND -> 6;
+                case EQ_OP, NE_OP -> 7;
+                case LEFT_ANGLE, RIGHT_ANGLE, LE_OP, GE_OP -> 8;
+                case LEFT_OP, RIGHT_OP -> 9;
+                case PLUS, DASH -> 10;
+                case STAR, SLASH, PERCENT -> 11;
+                default -> 0;
+            };
+        }
+
         public @Nullable GlslUnaryNode.Operand asUnaryOperator() {
             return switch (this) {
                 case PLUS -> GlslUnaryNode.Operand.PLUS;
@@ -0,0 +1,107 @@
+package io.github.ocelot.glslprocessor.impl;
+
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.Arrays;
+
+/**
+ * The positions of every newline in a source. Lines and columns are resolved from a source position with a binary
+ * search, so nothing has to be stored per token. Lines and columns both start at <code>1</code>.
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public final class GlslLineTable {
+
+    private final int[] newlines;
+    private final int count;
+    private final int length;
+
+    private GlslLineTable(int[] newlines, int count, int length) {
+        this.newlines = newlines;
+        this.count = count;
+        this.length = length;
+    }
+
+    /**
+     * Finds all newlines in the specified source.
+     *
+     * @param source The source to index
+     * @return A new line table
+     */
+    public static GlslLineTable of(CharSequence source) {
+        int length = source.length();
+        int[] newlines = new int[Math.max(16, length / 32)];
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            if (source.charAt(i) == '\n') {
+                if (count >= newlines.length) {
+                    newlines = Arrays.copyOf(newlines, newlines.length * 2);
+                }
+                newlines[count++] = i;
+            }
+        }
+        return new GlslLineTable(newlines, count, length);
+    }
+
+    /**
+     * @return The number of lines in the source
+     */
+    public int getLineCount() {
+        return this.count + 1;
+    }
+
+    /**
+     * @param position The position in the source
+     * @return The line the position is on
+     */
+    public int getLine(int position) {
+        // The number of newlines before the position
+        int low = 0;
+        int high = this.count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (this.newlines[middle] < position) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low + 1;
+    }
+
+    /**
+     * @param position The position in the source
+     * @return The column of the position in its line
+     */
+    public int getColumn(int position) {
+        return position - this.getLineStart(this.getLine(position)) + 1;
+    }
+
+    /**
+     * @param line The line to get the start of
+     * @return The position of the first character in the specified line
+     */
+    public int getLineStart(int line) {
+        if (line < 1 || line > this.getLineCount()) {
+            throw new IndexOutOfBoundsException("Line " + line + " out of bounds for " + this.getLineCount() + " lines");
+        }
+        return line == 1 ? 0 : this.newlines[line - 2] + 1;
+    }
+
+    /**
+     * @param line The line to get the end of
+     * @return The position of the newline at the end of the specified line or the length of the source for the last line
+     */
+    public int getLineEnd(int line) {
+        if (line < 1 || line > this.getLineCount()) {
+            throw new IndexOutOfBoundsException("Line " + line + " out of bounds for " + this.getLineCount() + " lines");
+        }
+        return line > this.count ? this.length : this.newlines[line - 1];
+    }
+
+    @Override
+    public String toString() {
+        return "GlslLineTable{lines=" + this.getLineCount() + "}";
+    }
+}
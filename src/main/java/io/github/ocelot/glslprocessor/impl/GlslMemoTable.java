@@ -0,0 +1,125 @@
+package io.github.ocelot.glslprocessor.impl;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Packrat memo table for parser rules that are retried at the same token while backtracking. Results are stored by rule
+ * and token index in dense arrays that are only allocated for rules that are actually used.
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+final class GlslMemoTable {
+
+    public static final int FUNCTION_PROTOTYPE = 0;
+    public static final int FULLY_SPECIFIED_TYPE = 1;
+    public static final int UNARY_EXPRESSION = 2;
+    public static final int ASSIGNMENT_EXPRESSION = 3;
+    public static final int CONDITION = 4;
+    private static final int RULE_COUNT = 5;
+
+    /**
+     * Returned by {@link #getEnd(int, int)} when a rule has not been run at a token yet.
+     */
+    public static final int UNKNOWN = -1;
+
+    private final int start;
+    private final int size;
+    // The cursor after each rule offset by one, so 0 means no result has been stored
+    private final int[][] ends;
+    private final Object[][] values;
+    private int hits;
+    private int misses;
+
+    /**
+     * @param start The index of the first token that can be parsed
+     * @param end   The index after the last token that can be parsed
+     */
+    GlslMemoTable(int start, int end) {
+        this.start = start;
+        this.size = end - start + 1;
+        this.ends = new int[RULE_COUNT][];
+        this.values = new Object[RULE_COUNT][];
+    }
+
+    /**
+     * Retrieves the cursor after the specified rule was run at a token.
+     *
+     * @param rule   The rule to get the result of
+     * @param cursor The index of the token the rule started at
+     * @return The index of the token after the rule or {@link #UNKNOWN} if the rule hasn't been run there yet
+     */
+    public int getEnd(int rule, int cursor) {
+        int[] ends = this.ends[rule];
+        int index = cursor - this.start;
+        if (ends == null || index < 0 || index >= this.size || ends[index] == 0) {
+            this.misses++;
+            return UNKNOWN;
+        }
+        this.hits++;
+        return ends[index] - 1;
+    }
+
+    /**
+     * Retrieves the result of the specified rule at a token. Only valid if {@link #getEnd(int, int)} found a result.
+     *
+     * @param rule   The rule to get the result of
+     * @param cursor The index of the token the rule started at
+     * @return The value the rule returned
+     */
+    public @Nullable Object getValue(int rule, int cursor) {
+        return this.values[rule][cursor - this.start];
+    }
+
+    /**
+     * Stores the result of running a rule at a token.
+     *
+     * @param rule   The rule that was run
+     * @param cursor The index of the token the rule started at
+     * @param end    The index of the token after the rule
+     * @param value  The value the rule returned or <code>null</code> if it failed
+     */
+    public void put(int rule, int cursor, int end, @Nullable Object value) {
+        int index = cursor - this.start;
+        if (index < 0 || index >= this.size) {
+            return;
+        }
+        if (this.ends[rule] == null) {
+            this.ends[rule] = new int[this.size];
+            this.values[rule] = new Object[this.size];
+        }
+        this.ends[rule][index] = end + 1;
+        this.values[rule][index] = value;
+    }
+
+    /**
+     * Removes all stored results.
+     */
+    public void clear() {
+        for (int i = 0; i < RULE_COUNT; i++) {
+            if (this.ends[i] != null) {
+                Arrays.fill(this.ends[i], 0);
+                Arrays.fill(this.values[i], null);
+            }
+        }
+        this.hits = 0;
+        this.misses = 0;
+    }
+
+    /**
+     * @return The number of lookups that found a stored result
+     */
+    public int getHits() {
+        return this.hits;
+    }
+
+    /**
+     * @return The number of lookups that had to run the rule
+     */
+    public int getMisses() {
+        return this.misses;
+    }
+}
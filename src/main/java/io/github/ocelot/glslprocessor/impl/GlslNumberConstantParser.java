@@ -6,131 +6,218 @@ import org.jetbrains.annotations.Nullable;
 import java.util.Objects;
 
 /**
+ * Reads number constants and decodes their value in the same pass. One instance is used for all numbers in a source,
+ * so no state is allocated per constant.
+ *
  * @author Ocelot
  */
 @ApiStatus.Internal
 class GlslNumberConstantParser {
 
-    private GlslNumberConstantParser() {
-    }
-
-    public static @Nullable GlslLexer.Token parseNumberConstant(GlslStringReader reader) {
+    /**
+     * The value stored for constants that can't be decoded, such as integers that don't fit in 32 bits. These are parsed
+     * from the source text when requested, so the error is reported there.
+     */
+    public static final long INVALID = -1L;
+
+    private static final int MAX_MANTISSA_DIGITS = 18;
+    private static final float[] FLOAT_POWERS = {1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f};
+    private static final double[] DOUBLE_POWERS = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private long mantissa;
+    private int mantissaDigits;
+    private int scale;
+    private int exponent;
+    private boolean truncated;
+    private long value;
+
+    /**
+     * Reads a number constant and moves the reader past it. The value of the constant can be retrieved with
+     * {@link #getValue()}.
+     *
+     * @param reader The reader to read from
+     * @return The type of number read or <code>null</code> if there is no valid number
+     */
+    public @Nullable GlslLexer.TokenType parseNumberConstant(GlslStringReader reader) {
         if (!reader.canRead()) {
             return null;
         }
-        GlslLexer.Token floatingConstant = parseFloatingConstant(reader);
+        int start = reader.cursor;
+        GlslLexer.TokenType floatingConstant = this.parseFloatingConstant(reader);
         if (floatingConstant != null) {
+            this.value = this.decodeFloating(floatingConstant, reader.source, start, reader.cursor);
             return floatingConstant;
         }
-        return parseIntegerConstant(reader);
+        return this.parseIntegerConstant(reader);
+    }
+
+    /**
+     * @return The value of the last number read. Integers are stored as unsigned 32-bit values, floats as their raw
+     * int bits and doubles as their raw long bits. Constants that can't be decoded are {@link #INVALID}
+     */
+    public long getValue() {
+        return this.value;
+    }
+
+    private void reset() {
+        this.mantissa = 0;
+        this.mantissaDigits = 0;
+        this.scale = 0;
+        this.exponent = 0;
+        this.truncated = false;
     }
 
-    private static @Nullable GlslLexer.Token parseFloatingConstant(GlslStringReader reader) {
+    private @Nullable GlslLexer.TokenType parseFloatingConstant(GlslStringReader reader) {
         // digit-sequence . digit-sequence exponent-partopt floating-suffixopt
         // digit-sequence . exponent-partopt floating-suffixopt
         // . digit-sequence exponent-partopt floating-suffixopt
         // digit-sequence exponent-part floating-suffixopt
 
-        StringBuilder fractionalConstant = parseFractionalConstant(reader);
-        if (fractionalConstant != null) {
-            String exponent = parseExponentPart(reader);
-            if (exponent != null) {
-                fractionalConstant.append(exponent);
-            }
-            GlslLexer.TokenType type = getFloatingType(reader);
-            return new GlslLexer.Token(type, fractionalConstant.toString());
+        this.reset();
+        if (this.parseFractionalConstant(reader)) {
+            this.parseExponentPart(reader);
+            return getFloatingType(reader);
         }
 
+        this.reset();
         int cursor = reader.cursor;
-        StringBuilder sequence = parseDigitSequence(reader);
-        if (sequence != null) {
-            String exponent = parseExponentPart(reader);
-            if (exponent != null) {
-                sequence.append(exponent);
-                GlslLexer.TokenType type = getFloatingType(reader);
-                return new GlslLexer.Token(type, sequence.toString());
-            }
+        if (this.parseDigitSequence(reader, false) && this.parseExponentPart(reader)) {
+            return getFloatingType(reader);
         }
 
         reader.cursor = cursor;
         return null;
     }
 
-    private static @Nullable StringBuilder parseFractionalConstant(GlslStringReader reader) {
+    private boolean parseFractionalConstant(GlslStringReader reader) {
         int cursor = reader.cursor;
-        StringBuilder first = parseDigitSequence(reader);
-        if (reader.chars[reader.cursor] != '.') {
+        boolean first = this.parseDigitSequence(reader, false);
+        if (!reader.canRead() || !isDecimalPoint(reader.charAt(reader.cursor))) {
             reader.cursor = cursor;
-            return null;
+            return false;
         }
         reader.skip();
 
-        StringBuilder second = parseDigitSequence(reader);
-        if (first != null) {
-            first.append('.');
-            if (second != null) {
-                first.append(second);
-            }
-            return first;
-        } else {
-            if (second == null) {
-                return null;
-            }
-            return new StringBuilder(".").append(second);
-        }
+        boolean second = this.parseDigitSequence(reader, true);
+        return first || second;
     }
 
-    private static @Nullable StringBuilder parseDigitSequence(GlslStringReader reader) {
+    private boolean parseDigitSequence(GlslStringReader reader, boolean fraction) {
         int i = reader.cursor;
-        char[] chars = reader.chars;
+        CharSequence chars = reader.source;
+
+        boolean digits = false;
+        while (i < chars.length()) {
+            char c = chars.charAt(i);
+            if (isSpace(c)) {
+                i++;
+                continue;
+            }
+            if (!isDigit(c)) {
+                break;
+            }
 
-        StringBuilder sequence = new StringBuilder();
-        while (i < chars.length && (Character.isDigit(chars[i]) || Character.isWhitespace(chars[i]))) {
-            if (!Character.isWhitespace(chars[i])) {
-                sequence.append(chars[i]);
+            digits = true;
+            int digit = Character.digit(c, 10);
+            // Digits outside ASCII are left to the slow path
+            this.truncated |= c > '9';
+            if (this.mantissaDigits < MAX_MANTISSA_DIGITS) {
+                if (this.mantissa != 0 || digit != 0) {
+                    this.mantissa = this.mantissa * 10 + digit;
+                    this.mantissaDigits++;
+                }
+                if (fraction) {
+                    this.scale--;
+                }
+            } else {
+                // Digits past what fits in the mantissa only change the magnitude
+                this.truncated |= digit != 0;
+                if (!fraction) {
+                    this.scale++;
+                }
             }
             i++;
         }
 
-        if (sequence.isEmpty()) {
-            return null;
+        if (!digits) {
+            return false;
         }
 
         reader.skip(i - reader.cursor);
-        return sequence;
+        return true;
     }
 
-    private static @Nullable String parseExponentPart(GlslStringReader reader) {
+    private boolean parseExponentPart(GlslStringReader reader) {
         int cursor = reader.cursor;
-        char[] chars = reader.chars;
-        if (chars[cursor] != 'e' && chars[cursor] != 'E') {
-            return null;
+        CharSequence chars = reader.source;
+        if (!reader.canRead() || !isExponent(chars.charAt(cursor))) {
+            return false;
         }
 
         reader.skip();
         if (!reader.canRead()) {
-            return null;
+            reader.cursor = cursor;
+            return false;
         }
 
-        char sign = chars[cursor + 1];
-        if (sign == '+' || sign == '-') {
+        char sign = chars.charAt(cursor + 1);
+        if (isSign(sign)) {
             reader.skip();
-            StringBuilder digitSequence = parseDigitSequence(reader);
-            if (digitSequence == null) {
-                reader.cursor = cursor;
-                return null;
-            }
+        }
 
-            return "e" + sign + digitSequence;
+        int i = reader.cursor;
+        boolean digits = false;
+        int exponent = 0;
+        while (i < chars.length() && (isDigit(chars.charAt(i)) || isSpace(chars.charAt(i)))) {
+            if (!isSpace(chars.charAt(i))) {
+                digits = true;
+                this.truncated |= chars.charAt(i) > '9';
+                exponent = Math.min(exponent * 10 + Character.digit(chars.charAt(i), 10), 100_000);
+            }
+            i++;
         }
 
-        StringBuilder digitSequence = parseDigitSequence(reader);
-        if (digitSequence == null) {
+        if (!digits) {
             reader.cursor = cursor;
-            return null;
+            return false;
         }
 
-        return "e" + digitSequence;
+        reader.skip(i - reader.cursor);
+        this.exponent = sign == '-' ? -exponent : exponent;
+        return true;
+    }
+
+    private long decodeFloating(GlslLexer.TokenType type, CharSequence source, int start, int end) {
+        int power = this.scale + this.exponent;
+        if (type == GlslLexer.TokenType.FLOATING_CONSTANT) {
+            // Both operands are exact floats, so the single rounding of the operation matches parseFloat
+            if (!this.truncated && this.mantissa <= 1 << 24 && Math.abs(power) < FLOAT_POWERS.length) {
+                float mantissa = this.mantissa;
+                float value = power < 0 ? mantissa / FLOAT_POWERS[-power] : mantissa * FLOAT_POWERS[power];
+                return Float.floatToRawIntBits(value);
+            }
+            return parseFloating(type, source, start, end);
+        }
+
+        if (!this.truncated && this.mantissa <= 1L << 53 && Math.abs(power) < DOUBLE_POWERS.length) {
+            double mantissa = this.mantissa;
+            double value = power < 0 ? mantissa / DOUBLE_POWERS[-power] : mantissa * DOUBLE_POWERS[power];
+            return Double.doubleToRawLongBits(value);
+        }
+        return parseFloating(type, source, start, end);
+    }
+
+    private static long parseFloating(GlslLexer.TokenType type, CharSequence source, int start, int end) {
+        try {
+            String value = normalize(type, source, start, end);
+            return type == GlslLexer.TokenType.FLOATING_CONSTANT ? Float.floatToRawIntBits(Float.parseFloat(value)) : Double.doubleToRawLongBits(Double.parseDouble(value));
+        } catch (NumberFormatException e) {
+            // Digits outside ASCII are accepted by the grammar, but can't be parsed
+            return INVALID;
+        }
     }
 
     private static GlslLexer.TokenType getFloatingType(GlslStringReader reader) {
@@ -138,19 +225,19 @@ class GlslNumberConstantParser {
             return GlslLexer.TokenType.FLOATING_CONSTANT;
         }
 
-        char[] chars = reader.chars;
-        char first = chars[reader.cursor];
-        if (first == 'f' || first == 'F') {
+        CharSequence chars = reader.source;
+        char first = chars.charAt(reader.cursor);
+        if (isFloatSuffix(first)) {
             reader.skip();
             return GlslLexer.TokenType.FLOATING_CONSTANT;
         }
 
-        if (reader.cursor + 1 >= chars.length) {
+        if (reader.cursor + 1 >= chars.length()) {
             return GlslLexer.TokenType.FLOATING_CONSTANT;
         }
 
-        char second = chars[reader.cursor + 1];
-        if ((first == 'l' && second == 'f') || (first == 'L' && second == 'F')) {
+        char second = chars.charAt(reader.cursor + 1);
+        if (isDoubleSuffix(first, second)) {
             reader.skip(2);
             return GlslLexer.TokenType.DOUBLE_CONSTANT;
         }
@@ -158,51 +245,46 @@ class GlslNumberConstantParser {
         return GlslLexer.TokenType.FLOATING_CONSTANT;
     }
 
-    private static @Nullable GlslLexer.Token parseIntegerConstant(GlslStringReader reader) {
+    private @Nullable GlslLexer.TokenType parseIntegerConstant(GlslStringReader reader) {
         // decimal-constant integer-suffixopt
         // octal-constant integer-suffixopt
         // hexadecimal-constant integer-suffixopt
 
-        char[] chars = reader.chars;
+        CharSequence chars = reader.source;
         int cursor = reader.cursor;
-        StringBuilder numberBuilder = new StringBuilder();
         GlslLexer.TokenType type = null;
 
         // Decimal
-        if (chars[cursor] >= '1' && chars[cursor] <= '9') {
+        int first = getDigit(chars.charAt(cursor), 10);
+        if (first > 0) {
             type = GlslLexer.TokenType.INTEGER_DECIMAL_CONSTANT;
-            numberBuilder.append(chars[cursor]);
-            reader.skip();
-            consumeDigits(reader, numberBuilder, '9');
-        } else if (chars[cursor] == '0') {
+            this.value = consumeDigits(reader, 10);
+        } else if (first == 0) {
             reader.skip();
 
             // Hexadecimal
-            if (cursor + 1 < chars.length && (chars[cursor + 1] == 'x' || chars[cursor + 1] == 'X')) {
-                type = GlslLexer.TokenType.INTEGER_HEXADECIMAL_CONSTANT;
+            if (cursor + 1 < chars.length() && isHexadecimalPrefix(chars.charAt(cursor + 1))) {
                 reader.skip();
 
                 cursor = reader.cursor;
-                while (cursor < chars.length && (chars[cursor] >= '0' && chars[cursor] <= '9') || (chars[cursor] >= 'a' && chars[cursor] <= 'f') || (chars[cursor] >= 'A' && chars[cursor] <= 'F')) {
-                    if (!Character.isWhitespace(chars[cursor])) {
-                        numberBuilder.append(chars[cursor]);
-                    }
-                    cursor++;
+                this.value = consumeDigits(reader, 16);
+                if (cursor == reader.cursor) {
+                    return null;
                 }
-                reader.cursor = cursor;
+
+                type = GlslLexer.TokenType.INTEGER_HEXADECIMAL_CONSTANT;
             } else {
                 // Octal
                 type = GlslLexer.TokenType.INTEGER_OCTAL_CONSTANT;
-                numberBuilder.append('0');
-                consumeDigits(reader, numberBuilder, '7');
+                this.value = consumeDigits(reader, 8);
             }
         }
 
-        if (numberBuilder.isEmpty()) {
+        if (type == null) {
             return null;
         }
 
-        if (reader.canRead() && (chars[reader.cursor] == 'u' || chars[reader.cursor] == 'U')) {
+        if (reader.canRead() && isUnsignedSuffix(chars.charAt(reader.cursor))) {
             switch (Objects.requireNonNull(type)) {
                 case INTEGER_HEXADECIMAL_CONSTANT -> type = GlslLexer.TokenType.UINTEGER_HEXADECIMAL_CONSTANT;
                 case INTEGER_OCTAL_CONSTANT -> type = GlslLexer.TokenType.UINTEGER_OCTAL_CONSTANT;
@@ -211,16 +293,195 @@ class GlslNumberConstantParser {
             reader.skip();
         }
 
-        return new GlslLexer.Token(type, numberBuilder.toString());
+        return type;
+    }
+
+    /**
+     * @param c     The character to convert
+     * @param radix The radix of the integer constant, at most 16
+     * @return The value of the digit in an integer constant or <code>-1</code> if it is not a digit of the radix
+     */
+    static int getDigit(char c, int radix) {
+        int digit;
+        if (c >= '0' && c <= '9') {
+            digit = c - '0';
+        } else if (c >= 'a' && c <= 'f') {
+            digit = c - 'a' + 10;
+        } else if (c >= 'A' && c <= 'F') {
+            digit = c - 'A' + 10;
+        } else {
+            return -1;
+        }
+        return digit < radix ? digit : -1;
+    }
+
+    /**
+     * @param c The character to check
+     * @return Whether the character is a digit of a digit sequence in a floating constant
+     */
+    static boolean isDigit(char c) {
+        return Character.isDigit(c);
+    }
+
+    /**
+     * @param c The character to check
+     * @return Whether the character can appear anywhere in a digit sequence of a floating constant without changing it
+     */
+    static boolean isSpace(char c) {
+        return Character.isWhitespace(c);
+    }
+
+    /**
+     * @param c The character to check
+     * @return Whether the character separates the integer and fractional part of a floating constant
+     */
+    static boolean isDecimalPoint(char c) {
+        return c == '.';
+    }
+
+    /**
+     * @param c The character to check
+     * @return Whether the character starts the exponent part of a floating constant
+     */
+    static boolean isExponent(char c) {
+        return c == 'e' || c == 'E';
+    }
+
+    /**
+     * @param c The character to check
+     * @return Whether the character is the optional sign directly after the start of an exponent part
+     */
+    static boolean isSign(char c) {
+        return c == '+' || c == '-';
+    }
+
+    /**
+     * @param c The character to check
+     * @return Whether the character is the suffix of a float constant
+     */
+    static boolean isFloatSuffix(char c) {
+        return c == 'f' || c == 'F';
+    }
+
+    /**
+     * @param first  The first character of the suffix
+     * @param second The second character of the suffix
+     * @return Whether the characters are the suffix of a double constant
+     */
+    static boolean isDoubleSuffix(char first, char second) {
+        return (first == 'l' && second == 'f') || (first == 'L' && second == 'F');
+    }
+
+    /**
+     * @param c The character to check
+     * @return Whether the character follows the leading zero of a hexadecimal constant
+     */
+    static boolean isHexadecimalPrefix(char c) {
+        return c == 'x' || c == 'X';
     }
 
-    private static void consumeDigits(GlslStringReader reader, StringBuilder builder, char end) {
-        char[] chars = reader.chars;
+    /**
+     * @param c The character to check
+     * @return Whether the character is the suffix of an unsigned integer constant
+     */
+    static boolean isUnsignedSuffix(char c) {
+        return c == 'u' || c == 'U';
+    }
+
+    /**
+     * Reads digits of the specified radix and accumulates their value.
+     *
+     * @return The unsigned 32-bit value of the digits or {@link #INVALID} if it doesn't fit
+     */
+    private static long consumeDigits(GlslStringReader reader, int radix) {
+        CharSequence chars = reader.source;
         int cursor = reader.cursor;
-        while (cursor < chars.length && (chars[cursor] >= '0' && chars[cursor] <= end)) {
-            builder.append(chars[cursor]);
+        long value = 0;
+        while (cursor < chars.length()) {
+            int digit = getDigit(chars.charAt(cursor), radix);
+            if (digit == -1) {
+                break;
+            }
+            if (value != INVALID) {
+                value = value * radix + digit;
+                if (value > 0xFFFFFFFFL) {
+                    value = INVALID;
+                }
+            }
             cursor++;
         }
         reader.cursor = cursor;
+        return value;
+    }
+
+    /**
+     * @param type An integer constant type
+     * @return The radix the constant is written in
+     */
+    static int getRadix(GlslLexer.TokenType type) {
+        return switch (type) {
+            case INTEGER_HEXADECIMAL_CONSTANT, UINTEGER_HEXADECIMAL_CONSTANT -> 16;
+            case INTEGER_OCTAL_CONSTANT, UINTEGER_OCTAL_CONSTANT -> 8;
+            default -> 10;
+        };
+    }
+
+    /**
+     * @param type The type to check
+     * @return Whether the specified token type is a number constant that needs to be normalized
+     */
+    static boolean isNumber(GlslLexer.TokenType type) {
+        return switch (type) {
+            case FLOATING_CONSTANT, DOUBLE_CONSTANT, UINTEGER_HEXADECIMAL_CONSTANT, UINTEGER_OCTAL_CONSTANT,
+                 UINTEGER_DECIMAL_CONSTANT, INTEGER_HEXADECIMAL_CONSTANT, INTEGER_OCTAL_CONSTANT,
+                 INTEGER_DECIMAL_CONSTANT -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * Converts the source text of a number constant into its value. Whitespace is removed along with hexadecimal
+     * prefixes and type suffixes.
+     *
+     * @param type   The type of number constant in the range
+     * @param source The source characters
+     * @param start  The first character of the constant
+     * @param end    The character after the last character of the constant
+     * @return The normalized constant value
+     */
+    static String normalize(GlslLexer.TokenType type, CharSequence source, int start, int end) {
+        while (end > start && isSpace(source.charAt(end - 1))) {
+            end--;
+        }
+
+        boolean floating = false;
+        switch (type) {
+            case INTEGER_HEXADECIMAL_CONSTANT -> start += 2;
+            case UINTEGER_HEXADECIMAL_CONSTANT -> {
+                start += 2;
+                end--;
+            }
+            case UINTEGER_DECIMAL_CONSTANT, UINTEGER_OCTAL_CONSTANT -> end--;
+            case FLOATING_CONSTANT -> {
+                floating = true;
+                if (isFloatSuffix(source.charAt(end - 1))) {
+                    end--;
+                }
+            }
+            case DOUBLE_CONSTANT -> {
+                floating = true;
+                end -= 2;
+            }
+        }
+
+        StringBuilder builder = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            char c = source.charAt(i);
+            if (isSpace(c)) {
+                continue;
+            }
+            builder.append(floating && c == 'E' ? 'e' : c);
+        }
+        return builder.toString();
     }
 }
@@ -1,5 +1,6 @@
 package io.github.ocelot.glslprocessor.impl;
 
+import io.github.ocelot.glslprocessor.api.GlslIdentifierPool;
 import io.github.ocelot.glslprocessor.api.GlslSyntaxException;
 import io.github.ocelot.glslprocessor.api.grammar.*;
 import io.github.ocelot.glslprocessor.api.node.GlslEmptyNode;
@@ -12,12 +13,14 @@ import io.github.ocelot.glslprocessor.api.node.function.GlslFunctionNode;
 import io.github.ocelot.glslprocessor.api.node.function.GlslInvokeFunctionNode;
 import io.github.ocelot.glslprocessor.api.node.function.GlslPrimitiveConstructorNode;
 import io.github.ocelot.glslprocessor.api.node.variable.*;
+import io.github.ocelot.glslprocessor.api.visitor.GlslTreeVisitor;
 import io.github.ocelot.glslprocessor.lib.anarres.cpp.*;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -32,6 +35,14 @@ public class GlslParserImpl {
     public static final Pattern STRIP_PATTERN = Pattern.compile("#version\\s+\\d+\\s*(\\w+)?|#line\\s+\\d+\\s*(\\d+)?|#extension\\s+\\w+\\s*:\\s*\\w+|#include\\s+\\S+|#veil:.*");
     public static final Pattern UNSTRIP_PATTERN = Pattern.compile("// #veil:stripped ");
 
+    private static final int AMPERSAND_PRECEDENCE = GlslLexer.TokenType.AMPERSAND.getBinaryPrecedence();
+    /**
+     * The number of tokens below which {@link #parseParallel(CharSequence, GlslIdentifierPool, ForkJoinPool)} parses on
+     * the calling thread.
+     */
+    public static final int PARALLEL_THRESHOLD = 16 * 1024;
+    private static final int MIN_CHUNK_SIZE = 4 * 1024;
+
     public static String preprocess(String input, Map<String, String> macros) throws LexerException {
         Matcher versionMatcher = VERSION_PATTERN.matcher(input);
         int version = 110;
@@ -94,58 +105,483 @@ public class GlslParserImpl {
         }
     }
 
-    public static GlslTree parse(String input) throws GlslSyntaxException {
-        GlslTokenReader reader = new GlslTokenReader(input);
+    public static GlslTree parse(CharSequence input) throws GlslSyntaxException {
+        return parse(input, null);
+    }
+
+    public static GlslTree parse(CharSequence input, @Nullable GlslIdentifierPool identifierPool) throws GlslSyntaxException {
+        return parse(new GlslTokenReader(input, identifierPool));
+    }
+
+    public static GlslTree parse(GlslTokenReader reader) throws GlslSyntaxException {
+        GlslVersionStatement version = parseVersion(reader);
+        List<String> directives = new ArrayList<>();
+        List<GlslNode> body = new ArrayList<>();
+        parseExternalDeclarations(reader, directives, body);
+        return new GlslTree(version, body, directives, reader.getMarkedNodes());
+    }
+
+    /**
+     * Parses all tokens of a reader into the specified lists. The lists are only read while creating the tree, so they
+     * can be cleared and reused for the next parse. Marked nodes are copied out of the reader.
+     *
+     * @param reader     The reader to parse from
+     * @param directives The list to collect directives in. It must be empty
+     * @param body       The list to collect top-level nodes in. It must be empty
+     * @return A new tree of all nodes
+     * @throws GlslSyntaxException If there is a syntax error in the GLSL source code
+     */
+    public static GlslTree parse(GlslTokenReader reader, List<String> directives, List<GlslNode> body) throws GlslSyntaxException {
+        GlslVersionStatement version = parseVersion(reader);
+        parseExternalDeclarations(reader, directives, body);
+        return new GlslTree(version, body, directives, Map.copyOf(reader.getMarkedNodes()));
+    }
+
+    /**
+     * Parses all tokens of a reader and visits each directive and top-level declaration as soon as it is parsed, without
+     * building a tree. The nodes of a declaration are not referenced anymore after the visitor returns.
+     * <p>
+     * The events differ from visiting a tree in a few ways. Directives are visited in source order between the
+     * declarations. {@link GlslTreeVisitor#visitMarkers(Map)} is called with only the nodes marked by a declaration,
+     * right before it is visited, so it can be called several times. The tree passed to
+     * {@link GlslTreeVisitor#visitTreeEnd(GlslTree)} only contains the version statement. If there is a syntax error,
+     * everything before it has already been visited.
+     *
+     * @param reader  The reader to parse from
+     * @param visitor The visitor to send the declarations to
+     * @throws GlslSyntaxException If there is a syntax error in the GLSL source code
+     */
+    public static void visit(GlslTokenReader reader, GlslTreeVisitor visitor) throws GlslSyntaxException {
+        GlslVersionStatement version = parseVersion(reader);
+        visitor.visitVersion(version);
+
+        List<String> directives = new ArrayList<>(1);
+        List<GlslNode> body = reader.borrowNodeList();
+        try {
+            Map<String, GlslNode> markedNodes = reader.getMarkedNodes();
+            while (reader.canRead()) {
+                parseNextExternalDeclaration(reader, directives, body);
+                if (!markedNodes.isEmpty()) {
+                    visitor.visitMarkers(Map.copyOf(markedNodes));
+                    markedNodes.clear();
+                }
+                for (String directive : directives) {
+                    visitor.visitDirective(directive);
+                }
+                for (GlslNode node : body) {
+                    GlslTree.visitNode(visitor, node);
+                }
+                directives.clear();
+                body.clear();
+            }
+        } finally {
+            reader.releaseNodeList(body);
+        }
+
+        visitor.visitTreeEnd(new GlslTree(version, Collections.emptyList(), Collections.emptyList(), Collections.emptyMap()));
+    }
+
+    /**
+     * Parses the specified input, reusing the nodes of top-level declarations that didn't change since the previous
+     * tree was parsed. The tokens of each declaration are fingerprinted together with the struct names visible to it, and
+     * declarations with the same tokens and struct names as a declaration in the previous tree take its nodes instead of
+     * being parsed. Declarations containing a marker or a struct are always parsed.
+     * <p>
+     * Reused nodes are the same instances as in the previous tree, including any changes made to them, so the previous
+     * tree should not be used anymore. Nodes removed from the previous tree are not reused.
+     *
+     * @param previous       The result of the previous incremental parse or <code>null</code> to parse everything
+     * @param input          The GLSL source input
+     * @param identifierPool The pool to deduplicate identifier names with or <code>null</code> to not share names
+     * @return A new tree of all nodes and the fingerprints for the next incremental parse
+     * @throws GlslSyntaxException If there is a syntax error in the GLSL source code
+     */
+    public static IncrementalTree parseIncremental(@Nullable IncrementalTree previous, CharSequence input, @Nullable GlslIdentifierPool identifierPool) throws GlslSyntaxException {
+        GlslDeclarationFingerprints.Lookup lookup = null;
+        GlslTokenReader reader;
+        if (previous != null) {
+            GlslDeclarationFingerprints previousFingerprints = previous.fingerprints();
+            lookup = previousFingerprints.lookup(previous.tree().getBody());
+            reader = new GlslTokenReader(relex(previousFingerprints.getTokens(), input), identifierPool);
+        } else {
+            reader = new GlslTokenReader(input, identifierPool);
+        }
+        GlslTokenStream tokens = reader.getTokens();
+
+        GlslVersionStatement version = parseVersion(reader);
+        GlslDeclarationFingerprints fingerprints = new GlslDeclarationFingerprints(tokens);
+        List<String> directives = new ArrayList<>();
+        List<GlslNode> body = new ArrayList<>();
+        while (reader.canRead()) {
+            int start = reader.getCursor();
+            int end = findDeclarationEnd(tokens, start, tokens.size());
+            boolean reusable = end != -1 && tokens.getType(start) != GlslLexer.TokenType.DIRECTIVE && !reader.hasMarker(start, end) && !containsType(tokens, start, end, GlslLexer.TokenType.STRUCT);
+            String[] types = reader.getSymbols().getSortedGlobalTypes();
+            long fingerprint = reusable ? tokens.fingerprint(start, end, Arrays.hashCode(types)) : 0L;
+            if (reusable && lookup != null) {
+                GlslNode[] nodes = lookup.take(fingerprint, tokens, start, end, types);
+                if (nodes != null) {
+                    List<GlslNode> declaration = Arrays.asList(nodes);
+                    body.addAll(declaration);
+                    fingerprints.add(fingerprint, start, end, types, declaration);
+                    reader.setCursor(end);
+                    continue;
+                }
+            }
+
+            int bodySize = body.size();
+            parseNextExternalDeclaration(reader, directives, body);
+            // The parser decides where the declaration actually ended
+            if (reusable && reader.getCursor() == end && body.size() > bodySize) {
+                fingerprints.add(fingerprint, start, end, types, body.subList(bodySize, body.size()));
+            }
+        }
+
+        return new IncrementalTree(new GlslTree(version, body, directives, reader.getMarkedNodes()), fingerprints);
+    }
+
+    /**
+     * Lexes a new source by only lexing the characters between the prefix and suffix it has in common with the source of
+     * the previous tokens.
+     */
+    private static GlslTokenStream relex(GlslTokenStream previous, CharSequence source) throws GlslSyntaxException {
+        CharSequence old = previous.getSource();
+        int length = Math.min(old.length(), source.length());
+        int prefix = 0;
+        while (prefix < length && old.charAt(prefix) == source.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < length - prefix && old.charAt(old.length() - suffix - 1) == source.charAt(source.length() - suffix - 1)) {
+            suffix++;
+        }
+        return GlslLexer.relex(previous, source, prefix, old.length() - prefix - suffix, source.length() - prefix - suffix);
+    }
+
+    private static boolean containsType(GlslTokenStream tokens, int start, int end, GlslLexer.TokenType type) {
+        for (int i = start; i < end; i++) {
+            if (tokens.getType(i) == type) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parses the specified input without parsing function bodies until they are used.
+     *
+     * @param input          The GLSL source input
+     * @param identifierPool The pool to deduplicate identifier names with or <code>null</code> to not share names
+     * @return A new tree of all nodes
+     * @throws GlslSyntaxException If there is a syntax error in the GLSL source code outside of function bodies
+     * @see GlslTokenReader#setLazyFunctionBodies(boolean)
+     */
+    public static GlslTree parseLazy(CharSequence input, @Nullable GlslIdentifierPool identifierPool) throws GlslSyntaxException {
+        GlslTokenReader reader = new GlslTokenReader(input, identifierPool);
+        reader.setLazyFunctionBodies(true);
+        return parse(reader);
+    }
+
+    /**
+     * Parses the specified input on a fork join pool. The tokens are split into chunks of whole top-level declarations
+     * and function definitions that are parsed in parallel and joined in source order. Small inputs are parsed on the
+     * calling thread.
+     *
+     * @param input          The GLSL source input
+     * @param identifierPool The pool to deduplicate identifier names with or <code>null</code> to not share names
+     * @param pool           The pool to parse chunks on
+     * @return A new tree of all nodes
+     * @throws GlslSyntaxException If there is a syntax error in the GLSL source code
+     */
+    public static GlslTree parseParallel(CharSequence input, @Nullable GlslIdentifierPool identifierPool, ForkJoinPool pool) throws GlslSyntaxException {
+        GlslTokenReader reader = new GlslTokenReader(input, identifierPool, pool);
+        int size = reader.getTokens().size();
+        if (size < PARALLEL_THRESHOLD || pool.getParallelism() <= 1) {
+            return parse(reader);
+        }
+
+        GlslVersionStatement version = parseVersion(reader);
+        int chunkSize = Math.max(MIN_CHUNK_SIZE, size / (pool.getParallelism() * 4));
+        int[] splits = findSplitPoints(reader.getTokens(), reader.getCursor(), chunkSize);
+        List<String> structNames = new ArrayList<>();
+        int[] structIndices = findStructNames(reader.getTokens(), reader.getCursor(), structNames);
+
+        List<Callable<ParsedChunk>> tasks = new ArrayList<>(splits.length - 1);
+        for (int i = 0; i < splits.length - 1; i++) {
+            int start = splits[i];
+            int end = splits[i + 1];
+            tasks.add(() -> {
+                GlslTokenReader chunk = new GlslTokenReader(reader, start, end);
+                // Types declared by earlier chunks have to be known before parsing statements
+                for (int j = 0; j < structIndices.length && structIndices[j] < start; j++) {
+                    chunk.getSymbols().declareType(structNames.get(j));
+                }
+
+                List<String> directives = new ArrayList<>();
+                List<GlslNode> body = new ArrayList<>();
+                parseExternalDeclarations(chunk, directives, body);
+                return new ParsedChunk(directives, body, chunk.getMarkedNodes());
+            });
+        }
+
+        List<String> directives = new ArrayList<>();
+        List<GlslNode> body = new ArrayList<>();
+        Map<String, GlslNode> markedNodes = new HashMap<>();
+        for (Future<ParsedChunk> future : pool.invokeAll(tasks)) {
+            try {
+                ParsedChunk chunk = future.get();
+                directives.addAll(chunk.directives());
+                body.addAll(chunk.body());
+                markedNodes.putAll(chunk.markedNodes());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while parsing", e);
+            } catch (ExecutionException e) {
+                // The pool may wrap the error several times
+                for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                    if (cause instanceof GlslSyntaxException) {
+                        // Errors recovered from in earlier chunks are part of the exception, so parse again on this thread
+                        return parse(new GlslTokenReader(reader, 0, size));
+                    }
+                }
+                throw new IllegalStateException("Failed to parse chunk", e.getCause());
+            }
+        }
+
+        return new GlslTree(version, body, directives, markedNodes);
+    }
+
+    private static GlslVersionStatement parseVersion(GlslTokenReader reader) throws GlslSyntaxException {
         GlslVersionStatement version = new GlslVersionStatement();
 
         // Try to parse version statements
-        GlslLexer.Token token = reader.peek();
-        if (token != null && token.type() == GlslLexer.TokenType.DIRECTIVE && token.value().startsWith("#version ")) {
+        if (reader.peekType(0) == GlslLexer.TokenType.DIRECTIVE && reader.peekValue(0).startsWith("#version ")) {
+            String value = reader.peekValue(0);
             reader.skip();
-            String[] parts = token.value().substring(9).split(" +", 2);
+            String[] parts = value.substring(9).split(" +", 2);
             try {
                 version.setVersion(Integer.parseInt(parts[0].trim()));
                 version.setCore(parts.length == 1 || parts[1].trim().equals("core"));
             } catch (NumberFormatException e) {
-                throw reader.error("Invalid Version: " + token.value() + ". " + e.getMessage());
+                throw reader.error("Invalid Version: " + value + ". " + e.getMessage());
             }
         }
 
-        List<String> directives = new ArrayList<>();
-        List<GlslNode> body = new ArrayList<>();
+        return version;
+    }
 
+    private static void parseExternalDeclarations(GlslTokenReader reader, List<String> directives, List<GlslNode> body) throws GlslSyntaxException {
         while (reader.canRead()) {
-            if (reader.tryConsume(GlslLexer.TokenType.DIRECTIVE)) {
-                directives.add(reader.peek(-1).value());
-                continue;
-            }
+            parseNextExternalDeclaration(reader, directives, body);
+        }
+    }
 
-            int cursor = reader.getCursor();
-            GlslFunctionNode functionDefinition = parseFunctionDefinition(reader);
-            if (functionDefinition != null) {
-                reader.markNode(cursor, functionDefinition);
-                body.add(functionDefinition);
-                continue;
+    /**
+     * Parses the next directive or top-level declaration.
+     *
+     * @param reader     The reader to parse from
+     * @param directives The list to add a parsed directive to
+     * @param body       The list to add parsed nodes to
+     * @throws GlslSyntaxException If there is no valid declaration at the cursor
+     */
+    private static void parseNextExternalDeclaration(GlslTokenReader reader, List<String> directives, List<GlslNode> body) throws GlslSyntaxException {
+        if (reader.tryConsume(GlslLexer.TokenType.DIRECTIVE)) {
+            directives.add(reader.peekValue(-1));
+            return;
+        }
+
+        int cursor = reader.getCursor();
+        if (parseExternalDeclaration(reader, body)) {
+            return;
+        }
+        reader.setCursor(cursor);
+
+        GlslFunctionNode functionDefinition = parseFunctionDefinition(reader);
+        if (functionDefinition != null) {
+            reader.markNode(cursor, functionDefinition);
+            body.add(functionDefinition);
+            return;
+        }
+
+        cursor = reader.getCursor();
+        List<GlslNode> declarations = parseDeclaration(reader);
+        if (declarations != null) {
+            for (GlslNode declaration : declarations) {
+                reader.markNode(cursor, declaration);
+                body.add(declaration);
             }
+            return;
+        }
 
-            cursor = reader.getCursor();
-            List<GlslNode> declarations = parseDeclaration(reader);
-            if (declarations != null) {
-                for (GlslNode declaration : declarations) {
-                    reader.markNode(cursor, declaration);
-                    body.add(declaration);
+        if (reader.tryConsume(GlslLexer.TokenType.SEMICOLON)) {
+            return;
+        }
+
+        reader.throwError();
+    }
+
+    /**
+     * Finds the token indices to split the tokens at for parsing in parallel. Chunks only contain whole top-level
+     * declarations.
+     *
+     * @param tokens    The tokens to split
+     * @param start     The index of the first token to parse
+     * @param chunkSize The minimum number of tokens in each chunk
+     * @return The start of each chunk followed by the end of the last chunk
+     */
+    private static int[] findSplitPoints(GlslTokenStream tokens, int start, int chunkSize) {
+        int size = tokens.size();
+        List<Integer> splits = new ArrayList<>();
+        splits.add(start);
+
+        int chunkStart = start;
+        int end = findDeclarationEnd(tokens, start, size);
+        while (end != -1 && end < size) {
+            if (end - chunkStart >= chunkSize) {
+                splits.add(end);
+                chunkStart = end;
+            }
+            end = findDeclarationEnd(tokens, end, size);
+        }
+
+        splits.add(size);
+        return splits.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Finds the end of the top-level declaration starting at a token without parsing it. Declarations end after a
+     * semicolon or after the closing brace of a function body outside any braces. Unbalanced braces end a declaration,
+     * since they are left to the parser to report.
+     *
+     * @param tokens The tokens to search
+     * @param start  The index of the first token of the declaration
+     * @param end    The index after the last token to search
+     * @return The index after the last token of the declaration or <code>-1</code> if it doesn't end before the end
+     */
+    private static int findDeclarationEnd(GlslTokenStream tokens, int start, int end) {
+        int depth = 0;
+        boolean functionBody = false;
+        for (int i = start; i < end; i++) {
+            GlslLexer.TokenType type = tokens.getType(i);
+            if (type == GlslLexer.TokenType.LEFT_BRACE) {
+                // Function bodies are the only top-level braces after a parameter list
+                if (depth == 0) {
+                    functionBody = i > start && tokens.getType(i - 1) == GlslLexer.TokenType.RIGHT_PAREN;
                 }
-                continue;
+                depth++;
+            } else if (type == GlslLexer.TokenType.RIGHT_BRACE) {
+                depth--;
+                if (depth < 0 || (depth == 0 && functionBody)) {
+                    return i + 1;
+                }
+            } else if (type == GlslLexer.TokenType.SEMICOLON && depth == 0) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the names of all structs declared outside of braces.
+     *
+     * @param tokens The tokens to search
+     * @param start  The index of the first token to search
+     * @param names  The list to add struct names to
+     * @return The token index of each name
+     */
+    private static int[] findStructNames(GlslTokenStream tokens, int start, List<String> names) {
+        List<Integer> indices = new ArrayList<>();
+        int depth = 0;
+        for (int i = start; i < tokens.size(); i++) {
+            GlslLexer.TokenType type = tokens.getType(i);
+            if (type == GlslLexer.TokenType.LEFT_BRACE) {
+                depth++;
+            } else if (type == GlslLexer.TokenType.RIGHT_BRACE) {
+                depth = Math.max(0, depth - 1);
+            } else if (type == GlslLexer.TokenType.STRUCT && depth == 0 && i + 2 < tokens.size() && tokens.getType(i + 1) == GlslLexer.TokenType.IDENTIFIER && tokens.getType(i + 2) == GlslLexer.TokenType.LEFT_BRACE) {
+                names.add(tokens.getValue(i + 1));
+                indices.add(i + 1);
+            }
+        }
+        return indices.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Parses the common forms of a top-level declaration by reading the fully specified type once and branching on the
+     * tokens after it. Anything else is left to {@link #parseFunctionDefinition(GlslTokenReader)} and
+     * {@link #parseDeclaration(GlslTokenReader)}, which try every alternative from the start.
+     *
+     * @param reader The reader to parse from
+     * @param body   The list to add parsed nodes to
+     * @return Whether a declaration was parsed. The cursor is not reset if nothing was parsed
+     */
+    private static boolean parseExternalDeclaration(GlslTokenReader reader, List<GlslNode> body) {
+        int cursor = reader.getCursor();
+        GlslSpecifiedType fullySpecifiedType = parseFullySpecifiedType(reader);
+        if (fullySpecifiedType == null) {
+            return false;
+        }
+
+        // function_prototype compound_statement_no_new_scope
+        // function_prototype SEMICOLON
+        if (reader.canRead(2) && reader.peekType(0) == GlslLexer.TokenType.IDENTIFIER && reader.peekType(1) == GlslLexer.TokenType.LEFT_PAREN) {
+            GlslFunctionHeader functionPrototype = parseFunctionPrototype(fullySpecifiedType, reader);
+            if (functionPrototype == null) {
+                return false;
             }
 
-            if (reader.tryConsume(GlslLexer.TokenType.SEMICOLON)) {
-                continue;
+            GlslFunctionNode function;
+            if (reader.canConsume(GlslLexer.TokenType.LEFT_BRACE)) {
+                function = parseFunctionBody(functionPrototype, reader);
+                if (function == null) {
+                    return false;
+                }
+            } else if (reader.tryConsume(GlslLexer.TokenType.SEMICOLON)) {
+                function = new GlslFunctionNode(functionPrototype, null);
+            } else {
+                return false;
             }
 
-            reader.throwError();
+            reader.markNode(cursor, function);
+            body.add(function);
+            return true;
         }
 
-        return new GlslTree(version, body, directives, reader.getMarkedNodes());
+        // init_declarator_list SEMICOLON
+        List<GlslNode> initDeclaratorList = parseInitDeclaratorList(fullySpecifiedType, reader);
+        if (initDeclaratorList == null || !reader.tryConsume(GlslLexer.TokenType.SEMICOLON)) {
+            return false;
+        }
+
+        for (GlslNode declaration : initDeclaratorList) {
+            reader.markNode(cursor, declaration);
+            body.add(declaration);
+        }
+        return true;
+    }
+
+    /**
+     * Runs a rule through the memo table of the reader if memoization is enabled. Rules that are retried at the same token
+     * return the node from the first attempt and skip to the same cursor. Errors marked by the first attempt are already
+     * recorded, so nothing else has to be replayed.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> @Nullable T memoize(int rule, GlslTokenReader reader, Function<GlslTokenReader, @Nullable T> parser) {
+        GlslMemoTable memo = reader.getMemoTable();
+        if (memo == null) {
+            return parser.apply(reader);
+        }
+
+        int cursor = reader.getCursor();
+        int end = memo.getEnd(rule, cursor);
+        if (end != GlslMemoTable.UNKNOWN) {
+            reader.setCursor(end);
+            return (T) memo.getValue(rule, cursor);
+        }
+
+        T value = parser.apply(reader);
+        memo.put(rule, cursor, reader.getCursor(), value);
+        return value;
     }
 
     public static @Nullable GlslNode parsePrimaryExpression(GlslTokenReader reader) {
@@ -158,35 +594,35 @@ public class GlslParserImpl {
         // LEFT_PAREN condition RIGHT_PAREN
 
         if (reader.tryConsume(GlslLexer.TokenType.IDENTIFIER)) {
-            String variableName = reader.peek(-1).value();
+            String variableName = reader.peekValue(-1);
             return new GlslVariableNode(variableName);
         }
         if (reader.tryConsume(GlslLexer.TokenType.INTEGER_DECIMAL_CONSTANT)) {
-            return new GlslIntConstantNode(GlslIntFormat.DECIMAL, true, Integer.parseUnsignedInt(reader.peek(-1).value(), 10));
+            return new GlslIntConstantNode(GlslIntFormat.DECIMAL, true, reader.peekInt(-1));
         }
         if (reader.tryConsume(GlslLexer.TokenType.INTEGER_HEXADECIMAL_CONSTANT)) {
-            return new GlslIntConstantNode(GlslIntFormat.HEXADECIMAL, true, Integer.parseUnsignedInt(reader.peek(-1).value(), 16));
+            return new GlslIntConstantNode(GlslIntFormat.HEXADECIMAL, true, reader.peekInt(-1));
         }
         if (reader.tryConsume(GlslLexer.TokenType.INTEGER_OCTAL_CONSTANT)) {
-            return new GlslIntConstantNode(GlslIntFormat.OCTAL, true, Integer.parseUnsignedInt(reader.peek(-1).value(), 8));
+            return new GlslIntConstantNode(GlslIntFormat.OCTAL, true, reader.peekInt(-1));
         }
         if (reader.tryConsume(GlslLexer.TokenType.UINTEGER_DECIMAL_CONSTANT)) {
-            return new GlslIntConstantNode(GlslIntFormat.DECIMAL, false, Integer.parseUnsignedInt(reader.peek(-1).value(), 10));
+            return new GlslIntConstantNode(GlslIntFormat.DECIMAL, false, reader.peekInt(-1));
         }
         if (reader.tryConsume(GlslLexer.TokenType.UINTEGER_HEXADECIMAL_CONSTANT)) {
-            return new GlslIntConstantNode(GlslIntFormat.HEXADECIMAL, false, Integer.parseUnsignedInt(reader.peek(-1).value(), 16));
+            return new GlslIntConstantNode(GlslIntFormat.HEXADECIMAL, false, reader.peekInt(-1));
         }
         if (reader.tryConsume(GlslLexer.TokenType.UINTEGER_OCTAL_CONSTANT)) {
-            return new GlslIntConstantNode(GlslIntFormat.OCTAL, false, Integer.parseUnsignedInt(reader.peek(-1).value(), 8));
+            return new GlslIntConstantNode(GlslIntFormat.OCTAL, false, reader.peekInt(-1));
         }
         if (reader.tryConsume(GlslLexer.TokenType.FLOATING_CONSTANT)) {
-            return new GlslFloatConstantNode(Float.parseFloat(reader.peek(-1).value()));
+            return new GlslFloatConstantNode(reader.peekFloat(-1));
         }
         if (reader.tryConsume(GlslLexer.TokenType.DOUBLE_CONSTANT)) {
-            return new GlslDoubleConstantNode(Double.parseDouble(reader.peek(-1).value()));
+            return new GlslDoubleConstantNode(reader.peekDouble(-1));
         }
         if (reader.tryConsume(GlslLexer.TokenType.BOOL_CONSTANT)) {
-            return new GlslBoolConstantNode(Boolean.parseBoolean(reader.peek(-1).value()));
+            return new GlslBoolConstantNode(Boolean.parseBoolean(reader.peekValue(-1)));
         }
 
         int cursor = reader.getCursor();
@@ -232,9 +668,9 @@ public class GlslParserImpl {
 
                 // function_call DOT FIELD_SELECTION
                 if (reader.tryConsume(GlslLexer.TokenType.DOT, GlslLexer.TokenType.IDENTIFIER)) {
-                    StringBuilder fieldSelection = new StringBuilder(reader.peek(-1).value());
+                    StringBuilder fieldSelection = new StringBuilder(reader.peekValue(-1));
                     while (reader.tryConsume(GlslLexer.TokenType.DOT, GlslLexer.TokenType.IDENTIFIER)) {
-                        fieldSelection.append('.').append(reader.peek(-1).value());
+                        fieldSelection.append('.').append(reader.peekValue(-1));
                     }
                     return new GlslGetFieldNode(functionCall, fieldSelection.toString());
                 }
@@ -273,9 +709,9 @@ public class GlslParserImpl {
 
             // primary_expression DOT FIELD_SELECTION
             if (reader.tryConsume(GlslLexer.TokenType.DOT, GlslLexer.TokenType.IDENTIFIER)) {
-                StringBuilder fieldSelection = new StringBuilder(reader.peek(-1).value());
+                StringBuilder fieldSelection = new StringBuilder(reader.peekValue(-1));
                 while (reader.tryConsume(GlslLexer.TokenType.DOT, GlslLexer.TokenType.IDENTIFIER)) {
-                    fieldSelection.append('.').append(reader.peek(-1).value());
+                    fieldSelection.append('.').append(reader.peekValue(-1));
                 }
                 primaryExpression = new GlslGetFieldNode(primaryExpression, fieldSelection.toString());
                 continue;
@@ -325,25 +761,30 @@ public class GlslParserImpl {
         // function_call_header assignment_expression RIGHT_PAREN
         // function_call_header_with_parameters COMMA assignment_expression RIGHT_PAREN
         int parameterCursor = reader.getCursor();
-        List<GlslNode> parameters = new ArrayList<>();
-        while (reader.canRead()) {
-            GlslNode parameter = parseAssignmentExpression(reader);
-            if (parameter == null) {
-                reader.setCursor(parameterCursor);
-                break;
-            }
+        // The node copies the parameters, so the list can be reused
+        List<GlslNode> parameters = reader.borrowNodeList();
+        try {
+            while (reader.canRead()) {
+                GlslNode parameter = parseAssignmentExpression(reader);
+                if (parameter == null) {
+                    reader.setCursor(parameterCursor);
+                    break;
+                }
 
-            parameters.add(parameter);
-            reader.markNode(parameterCursor, parameter);
-            parameterCursor = reader.getCursor();
+                parameters.add(parameter);
+                reader.markNode(parameterCursor, parameter);
+                parameterCursor = reader.getCursor();
 
-            if (!reader.tryConsume(GlslLexer.TokenType.COMMA)) {
-                break;
+                if (!reader.tryConsume(GlslLexer.TokenType.COMMA)) {
+                    break;
+                }
             }
-        }
 
-        if (reader.tryConsume(GlslLexer.TokenType.RIGHT_PAREN)) {
-            return new GlslInvokeFunctionNode(functionCallHeader, parameters);
+            if (reader.tryConsume(GlslLexer.TokenType.RIGHT_PAREN)) {
+                return new GlslInvokeFunctionNode(functionCallHeader, parameters);
+            }
+        } finally {
+            reader.releaseNodeList(parameters);
         }
         reader.setCursor(cursor);
 
@@ -382,6 +823,10 @@ public class GlslParserImpl {
     }
 
     public static @Nullable GlslNode parseUnaryExpression(GlslTokenReader reader) {
+        return memoize(GlslMemoTable.UNARY_EXPRESSION, reader, GlslParserImpl::parseUnaryExpressionRule);
+    }
+
+    private static @Nullable GlslNode parseUnaryExpressionRule(GlslTokenReader reader) {
         // unary_operator unary_expression
 
         GlslNode expression = parsePostfixExpression(true, reader);
@@ -411,7 +856,7 @@ public class GlslParserImpl {
 
         // postfix_expression
         if (reader.canRead()) {
-            GlslUnaryNode.Operand operator = reader.peek().type().asUnaryOperator();
+            GlslUnaryNode.Operand operator = reader.peekType(0).asUnaryOperator();
             if (operator != null) {
                 reader.skip();
                 GlslNode right = parseUnaryExpression(reader);
@@ -425,282 +870,103 @@ public class GlslParserImpl {
         return null;
     }
 
-    public static @Nullable GlslNode parseSimpleExpression(GlslTokenReader reader, Function<GlslTokenReader, GlslNode> parser, GlslLexer.TokenType operator, Function<List<GlslNode>, GlslNode> join) {
-        int cursor = reader.getCursor();
-        List<GlslNode> expressions = new ArrayList<>();
-        while (reader.canRead()) {
-            GlslNode expression = parser.apply(reader);
-            if (expression == null) {
-                reader.setCursor(cursor);
-                break;
-            }
-
-            expressions.add(expression);
-            cursor = reader.getCursor();
-
-            if (!reader.tryConsume(operator)) {
-                break;
-            }
-        }
-
-        if (expressions.isEmpty()) {
-            return null;
-        }
-        if (expressions.size() == 1) {
-            return expressions.get(0);
-        }
-        return join.apply(expressions);
+    /**
+     * Parses every binary operator from <code>logical_or_expression</code> down to
+     * <code>multiplicative_expression</code> in one precedence climbing loop. This builds the same trees as one rule per
+     * precedence level without entering a method for every level.
+     *
+     * @param reader The reader to parse from
+     * @return The parsed expression or <code>null</code> if there is no unary expression
+     */
+    public static @Nullable GlslNode parseBinaryExpression(GlslTokenReader reader) {
+        return parseBinaryExpression(reader, 1);
     }
 
-    public static @Nullable GlslNode parseMultiplicativeExpression(GlslTokenReader reader) {
-        // unary_expression
-        // multiplicative_expression STAR unary_expression
-        // multiplicative_expression SLASH unary_expression
-        // multiplicative_expression PERCENT unary_expression
-
+    private static @Nullable GlslNode parseBinaryExpression(GlslTokenReader reader, int minPrecedence) {
         GlslNode left = parseUnaryExpression(reader);
         if (left == null) {
             return null;
         }
 
+        int maxPrecedence = Integer.MAX_VALUE;
         while (reader.canRead()) {
-            int cursor = reader.getCursor();
-            if (reader.tryConsume(GlslLexer.TokenType.STAR)) {
-                GlslNode right = parseUnaryExpression(reader);
-                if (right == null) {
-                    reader.setCursor(cursor);
-                    return left;
-                }
-                left = new GlslOperationNode(left, right, GlslOperationNode.Operand.MULTIPLY);
-                continue;
-            }
-            if (reader.tryConsume(GlslLexer.TokenType.SLASH)) {
-                GlslNode right = parseUnaryExpression(reader);
-                if (right == null) {
-                    reader.setCursor(cursor);
-                    return left;
-                }
-                left = new GlslOperationNode(left, right, GlslOperationNode.Operand.DIVIDE);
-                continue;
-            }
-            if (reader.tryConsume(GlslLexer.TokenType.PERCENT)) {
-                GlslNode right = parseUnaryExpression(reader);
-                if (right == null) {
-                    reader.setCursor(cursor);
-                    return left;
-                }
-                left = new GlslOperationNode(left, right, GlslOperationNode.Operand.MODULO);
-                continue;
+            GlslLexer.TokenType operator = reader.peekType(0);
+            int precedence = operator.getBinaryPrecedence();
+            // An operator binding tighter than the last one is only left over if its operand failed to parse
+            if (precedence < minPrecedence || precedence > maxPrecedence) {
+                break;
             }
-            break;
-        }
-
-        return left;
-    }
-
-    public static @Nullable GlslNode parseAdditiveExpression(GlslTokenReader reader) {
-        // multiplicative_expression
-        // additive_expression PLUS multiplicative_expression
-        // additive_expression DASH multiplicative_expression
-
-        GlslNode left = parseMultiplicativeExpression(reader);
-        if (left == null) {
-            return null;
-        }
 
-        while (reader.canRead()) {
             int cursor = reader.getCursor();
-            if (reader.tryConsume(GlslLexer.TokenType.PLUS)) {
-                GlslNode right = parseMultiplicativeExpression(reader);
-                if (right == null) {
-                    reader.setCursor(cursor);
-                    return left;
-                }
-                left = new GlslOperationNode(left, right, GlslOperationNode.Operand.ADD);
-                continue;
-            }
-            if (reader.tryConsume(GlslLexer.TokenType.DASH)) {
-                GlslNode right = parseMultiplicativeExpression(reader);
-                if (right == null) {
-                    reader.setCursor(cursor);
-                    return left;
-                }
-                left = new GlslOperationNode(left, right, GlslOperationNode.Operand.SUBTRACT);
-                continue;
-            }
-            break;
-        }
-
-        return left;
-    }
+            reader.skip();
 
-    public static @Nullable GlslNode parseShiftExpression(GlslTokenReader reader) {
-        // additive_expression
-        // shift_expression LEFT_OP additive_expression
-        // shift_expression RIGHT_OP additive_expression
+            // Bitwise and logical operators are joined into a single node with all operands
+            if (precedence <= AMPERSAND_PRECEDENCE) {
+                List<GlslNode> expressions = new ArrayList<>();
+                expressions.add(left);
+                boolean failed = false;
+                // The chain of rules stops after a trailing operator at the end of the tokens without rewinding
+                while (reader.canRead()) {
+                    GlslNode right = parseBinaryExpression(reader, precedence + 1);
+                    if (right == null) {
+                        reader.setCursor(cursor);
+                        failed = true;
+                        break;
+                    }
 
-        GlslNode left = parseAdditiveExpression(reader);
-        if (left == null) {
-            return null;
-        }
+                    expressions.add(right);
+                    cursor = reader.getCursor();
 
-        while (reader.canRead()) {
-            int cursor = reader.getCursor();
-            if (reader.tryConsume(GlslLexer.TokenType.LEFT_OP)) {
-                GlslNode right = parseAdditiveExpression(reader);
-                if (right == null) {
-                    reader.setCursor(cursor);
-                    return left;
-                }
-                left = new GlslOperationNode(left, right, GlslOperationNode.Operand.LEFT_SHIFT);
-                continue;
-            }
-            if (reader.tryConsume(GlslLexer.TokenType.RIGHT_OP)) {
-                GlslNode right = parseAdditiveExpression(reader);
-                if (right == null) {
-                    reader.setCursor(cursor);
-                    return left;
+                    if (!reader.tryConsume(operator)) {
+                        break;
+                    }
                 }
-                left = new GlslOperationNode(left, right, GlslOperationNode.Operand.RIGHT_SHIFT);
-                continue;
-            }
-            break;
-        }
-
-        return left;
-    }
-
-    public static @Nullable GlslNode parseRelationalExpression(GlslTokenReader reader) {
-        // shift_expression
-        // relational_expression LEFT_ANGLE shift_expression
-        // relational_expression RIGHT_ANGLE shift_expression
-        // relational_expression LE_OP shift_expression
-        // relational_expression GE_OP shift_expression
-
-        GlslNode left = parseShiftExpression(reader);
-        if (left == null) {
-            return null;
-        }
 
-        while (reader.canRead()) {
-            int cursor = reader.getCursor();
-            if (reader.tryConsume(GlslLexer.TokenType.LEFT_ANGLE)) {
-                GlslNode right = parseShiftExpression(reader);
-                if (right == null) {
-                    reader.setCursor(cursor);
-                    return left;
-                }
-                left = new GlslCompareNode(left, right, GlslCompareNode.Operand.LESS);
-                continue;
-            }
-            if (reader.tryConsume(GlslLexer.TokenType.RIGHT_ANGLE)) {
-                GlslNode right = parseShiftExpression(reader);
-                if (right == null) {
-                    reader.setCursor(cursor);
-                    return left;
+                if (expressions.size() > 1) {
+                    left = switch (operator) {
+                        case OR_OP -> GlslBitwiseNode.logicalOr(expressions);
+                        case XOR_OP -> GlslBitwiseNode.logicalXor(expressions);
+                        case AND_OP -> GlslBitwiseNode.logicalAnd(expressions);
+                        case VERTICAL_BAR -> GlslBitwiseNode.bitOr(expressions);
+                        case CARET -> GlslBitwiseNode.bitXor(expressions);
+                        default -> GlslBitwiseNode.bitAnd(expressions);
+                    };
                 }
-                left = new GlslCompareNode(left, right, GlslCompareNode.Operand.GREATER);
-                continue;
-            }
-            if (reader.tryConsume(GlslLexer.TokenType.LE_OP)) {
-                GlslNode right = parseShiftExpression(reader);
-                if (right == null) {
-                    reader.setCursor(cursor);
+                if (failed) {
                     return left;
                 }
-                left = new GlslCompareNode(left, right, GlslCompareNode.Operand.LEQUAL);
-                continue;
-            }
-            if (reader.tryConsume(GlslLexer.TokenType.GE_OP)) {
-                GlslNode right = parseShiftExpression(reader);
+            } else {
+                GlslNode right = parseBinaryExpression(reader, precedence + 1);
                 if (right == null) {
                     reader.setCursor(cursor);
                     return left;
                 }
-                left = new GlslCompareNode(left, right, GlslCompareNode.Operand.GEQUAL);
-                continue;
-            }
-            break;
-        }
-
-        return left;
-    }
-
-    public static @Nullable GlslNode parseEqualityExpression(GlslTokenReader reader) {
-        // relational_expression
-        // equality_expression EQ_OP relational_expression
-        // equality_expression NE_OP relational_expression
-
-        GlslNode left = parseRelationalExpression(reader);
-        if (left == null) {
-            return null;
-        }
 
-        while (reader.canRead()) {
-            int cursor = reader.getCursor();
-            if (reader.tryConsume(GlslLexer.TokenType.EQ_OP)) {
-                GlslNode right = parseRelationalExpression(reader);
-                if (right == null) {
-                    reader.setCursor(cursor);
-                    return left;
-                }
-                left = new GlslCompareNode(left, right, GlslCompareNode.Operand.EQUAL);
-                continue;
-            }
-            if (reader.tryConsume(GlslLexer.TokenType.NE_OP)) {
-                GlslNode right = parseRelationalExpression(reader);
-                if (right == null) {
-                    reader.setCursor(cursor);
-                    return left;
-                }
-                left = new GlslCompareNode(left, right, GlslCompareNode.Operand.NOT_EQUAL);
-                continue;
-            }
-            break;
+                left = switch (operator) {
+                    case EQ_OP -> new GlslCompareNode(left, right, GlslCompareNode.Operand.EQUAL);
+                    case NE_OP -> new GlslCompareNode(left, right, GlslCompareNode.Operand.NOT_EQUAL);
+                    case LEFT_ANGLE -> new GlslCompareNode(left, right, GlslCompareNode.Operand.LESS);
+                    case RIGHT_ANGLE -> new GlslCompareNode(left, right, GlslCompareNode.Operand.GREATER);
+                    case LE_OP -> new GlslCompareNode(left, right, GlslCompareNode.Operand.LEQUAL);
+                    case GE_OP -> new GlslCompareNode(left, right, GlslCompareNode.Operand.GEQUAL);
+                    case LEFT_OP -> new GlslOperationNode(left, right, GlslOperationNode.Operand.LEFT_SHIFT);
+                    case RIGHT_OP -> new GlslOperationNode(left, right, GlslOperationNode.Operand.RIGHT_SHIFT);
+                    case PLUS -> new GlslOperationNode(left, right, GlslOperationNode.Operand.ADD);
+                    case DASH -> new GlslOperationNode(left, right, GlslOperationNode.Operand.SUBTRACT);
+                    case STAR -> new GlslOperationNode(left, right, GlslOperationNode.Operand.MULTIPLY);
+                    case SLASH -> new GlslOperationNode(left, right, GlslOperationNode.Operand.DIVIDE);
+                    default -> new GlslOperationNode(left, right, GlslOperationNode.Operand.MODULO);
+                };
+            }
+            maxPrecedence = precedence;
         }
 
         return left;
     }
 
-    public static @Nullable GlslNode parseAndExpression(GlslTokenReader reader) {
-        // equality_expression
-        // and_expression AMPERSAND equality_expression
-        return parseSimpleExpression(reader, GlslParserImpl::parseEqualityExpression, GlslLexer.TokenType.AMPERSAND, GlslBitwiseNode::bitAnd);
-    }
-
-    public static @Nullable GlslNode parseExclusiveOrExpression(GlslTokenReader reader) {
-        // and_expression
-        // exclusive_or_expression CARET and_expression
-        return parseSimpleExpression(reader, GlslParserImpl::parseAndExpression, GlslLexer.TokenType.CARET, GlslBitwiseNode::bitXor);
-    }
-
-    public static @Nullable GlslNode parseInclusiveOrExpression(GlslTokenReader reader) {
-        // exclusive_or_expression
-        // inclusive_or_expression VERTICAL_BAR exclusive_or_expression
-        return parseSimpleExpression(reader, GlslParserImpl::parseExclusiveOrExpression, GlslLexer.TokenType.VERTICAL_BAR, GlslBitwiseNode::bitOr);
-    }
-
-    public static @Nullable GlslNode parseLogicalAndExpression(GlslTokenReader reader) {
-        // inclusive_or_expression
-        // logical_and_expression AND_OP inclusive_or_expression
-        return parseSimpleExpression(reader, GlslParserImpl::parseInclusiveOrExpression, GlslLexer.TokenType.AND_OP, GlslBitwiseNode::logicalAnd);
-    }
-
-    public static @Nullable GlslNode parseLogicalXorExpression(GlslTokenReader reader) {
-        // logical_and_expression
-        // logical_xor_expression XOR_OP logical_and_expression
-        return parseSimpleExpression(reader, GlslParserImpl::parseLogicalAndExpression, GlslLexer.TokenType.XOR_OP, GlslBitwiseNode::logicalXor);
-    }
-
-    public static @Nullable GlslNode parseLogicalOrExpression(GlslTokenReader reader) {
-        // logical_xor_expression
-        // logical_or_expression OR_OP logical_xor_expression
-        return parseSimpleExpression(reader, GlslParserImpl::parseLogicalXorExpression, GlslLexer.TokenType.OR_OP, GlslBitwiseNode::logicalOr);
-    }
-
     public static @Nullable GlslNode parseConditionalExpression(GlslTokenReader reader) {
         // logical_or_expression
-        GlslNode logicalOr = parseLogicalOrExpression(reader);
+        GlslNode logicalOr = parseBinaryExpression(reader);
         if (logicalOr == null) {
             return null;
         }
@@ -722,11 +988,15 @@ public class GlslParserImpl {
     }
 
     public static @Nullable GlslNode parseAssignmentExpression(GlslTokenReader reader) {
+        return memoize(GlslMemoTable.ASSIGNMENT_EXPRESSION, reader, GlslParserImpl::parseAssignmentExpressionRule);
+    }
+
+    private static @Nullable GlslNode parseAssignmentExpressionRule(GlslTokenReader reader) {
         // unary_expression assignment_operator assignment_expression
         int cursor = reader.getCursor();
         GlslNode unaryExpression = parseUnaryExpression(reader);
         if (reader.canRead()) {
-            GlslAssignmentNode.Operand assignmentOperator = reader.peek().type().asAssignmentOperator();
+            GlslAssignmentNode.Operand assignmentOperator = reader.peekType(0).asAssignmentOperator();
             if (assignmentOperator != null) {
                 reader.skip();
                 GlslNode right = parseAssignmentExpression(reader);
@@ -813,7 +1083,7 @@ public class GlslParserImpl {
 
         cursor = reader.getCursor();
         if (reader.tryConsume(GlslLexer.TokenType.IDENTIFIER, GlslLexer.TokenType.LEFT_BRACE)) {
-            String identifier = reader.peek(-2).value();
+            String identifier = reader.peekValue(-2);
 
             List<GlslStructField> structFields = parseStructDeclarationList(reader);
             if (structFields != null) {
@@ -826,7 +1096,7 @@ public class GlslParserImpl {
                     }
 
                     if (reader.tryConsume(GlslLexer.TokenType.IDENTIFIER)) {
-                        String label = reader.peek(-1).value();
+                        String label = reader.peekValue(-1);
 
                         // type_qualifier IDENTIFIER LEFT_BRACE struct_declaration_list RIGHT_BRACE IDENTIFIER SEMICOLON
                         if (reader.tryConsume(GlslLexer.TokenType.SEMICOLON)) {
@@ -894,7 +1164,7 @@ public class GlslParserImpl {
                 break;
             }
 
-            identifiers.add(reader.peek(-1).value());
+            identifiers.add(reader.peekValue(-1));
             cursor = reader.getCursor();
             if (!reader.tryConsume(GlslLexer.TokenType.COMMA)) {
                 break;
@@ -909,12 +1179,16 @@ public class GlslParserImpl {
     }
 
     public static @Nullable GlslFunctionHeader parseFunctionPrototype(GlslTokenReader reader) {
+        return memoize(GlslMemoTable.FUNCTION_PROTOTYPE, reader, GlslParserImpl::parseFunctionPrototypeRule);
+    }
+
+    private static @Nullable GlslFunctionHeader parseFunctionPrototypeRule(GlslTokenReader reader) {
         int cursor = reader.getCursor();
 
         // fully_specified_type IDENTIFIER LEFT_PAREN RIGHT_PAREN
         GlslSpecifiedType fullySpecifiedType = parseFullySpecifiedType(reader);
         if (fullySpecifiedType != null && reader.tryConsume(GlslLexer.TokenType.IDENTIFIER, GlslLexer.TokenType.LEFT_PAREN, GlslLexer.TokenType.RIGHT_PAREN)) {
-            String name = reader.peek(-3).value();
+            String name = reader.peekValue(-3);
             return new GlslFunctionHeader(name, fullySpecifiedType, new ArrayList<>());
         }
         reader.setCursor(cursor);
@@ -928,7 +1202,7 @@ public class GlslParserImpl {
         // fully_specified_type IDENTIFIER LEFT_PAREN parameter_declaration
         fullySpecifiedType = parseFullySpecifiedType(reader);
         if (fullySpecifiedType != null && reader.tryConsume(GlslLexer.TokenType.IDENTIFIER, GlslLexer.TokenType.LEFT_PAREN)) {
-            String name = reader.peek(-2).value();
+            String name = reader.peekValue(-2);
             GlslParameterDeclaration parameterDeclaration = parseParameterDeclaration(reader);
             if (parameterDeclaration != null && reader.tryConsume(GlslLexer.TokenType.RIGHT_PAREN)) {
                 return new GlslFunctionHeader(name, fullySpecifiedType, Collections.singletonList(parameterDeclaration));
@@ -950,6 +1224,32 @@ public class GlslParserImpl {
         return null;
     }
 
+    /**
+     * Parses the rest of a function prototype after its return type has already been parsed.
+     *
+     * @param fullySpecifiedType The return type of the function
+     * @param reader             The reader to parse from
+     * @return The function header or <code>null</code> if there is no prototype. The cursor is not reset on failure
+     */
+    public static @Nullable GlslFunctionHeader parseFunctionPrototype(GlslSpecifiedType fullySpecifiedType, GlslTokenReader reader) {
+        // fully_specified_type IDENTIFIER LEFT_PAREN RIGHT_PAREN
+        // fully_specified_type IDENTIFIER LEFT_PAREN parameter_list RIGHT_PAREN
+        if (!reader.tryConsume(GlslLexer.TokenType.IDENTIFIER, GlslLexer.TokenType.LEFT_PAREN)) {
+            return null;
+        }
+
+        String name = reader.peekValue(-2);
+        if (reader.tryConsume(GlslLexer.TokenType.RIGHT_PAREN)) {
+            return new GlslFunctionHeader(name, fullySpecifiedType, new ArrayList<>());
+        }
+
+        List<GlslParameterDeclaration> parameters = parseParameterList(reader);
+        if (reader.tryConsume(GlslLexer.TokenType.RIGHT_PAREN)) {
+            return new GlslFunctionHeader(name, fullySpecifiedType, parameters);
+        }
+        return null;
+    }
+
     public static List<GlslParameterDeclaration> parseParameterList(GlslTokenReader reader) {
         List<GlslParameterDeclaration> parameters = new ArrayList<>();
         int cursor = reader.getCursor();
@@ -977,7 +1277,7 @@ public class GlslParserImpl {
         int cursor = reader.getCursor();
         GlslSpecifiedType fullySpecifiedType = parseFullySpecifiedType(reader);
         if (fullySpecifiedType != null && reader.tryConsume(GlslLexer.TokenType.IDENTIFIER, GlslLexer.TokenType.LEFT_PAREN)) {
-            String name = reader.peek(-2).value();
+            String name = reader.peekValue(-2);
             List<GlslParameterDeclaration> parameters = parseParameterList(reader);
             if (reader.tryConsume(GlslLexer.TokenType.RIGHT_PAREN)) {
                 return new GlslFunctionHeader(name, fullySpecifiedType, parameters);
@@ -1004,7 +1304,7 @@ public class GlslParserImpl {
             return null;
         }
 
-        String name = reader.peek(-1).value();
+        String name = reader.peekValue(-1);
         GlslTypeSpecifier arraySpecifier = parseArraySpecifier(reader, typeSpecifier);
         return new GlslParameterDeclaration(Objects.requireNonNullElse(arraySpecifier, typeSpecifier), name);
     }
@@ -1045,6 +1345,17 @@ public class GlslParserImpl {
     }
 
     public static @Nullable List<GlslNode> parseInitDeclaratorList(GlslTokenReader reader) {
+        return parseInitDeclaratorList(null, reader);
+    }
+
+    /**
+     * Parses a list of declarations.
+     *
+     * @param type   The type of the first declaration if it was already parsed or <code>null</code> to parse it
+     * @param reader The reader to parse from
+     * @return The declared fields or <code>null</code> if there are none
+     */
+    public static @Nullable List<GlslNode> parseInitDeclaratorList(@Nullable GlslSpecifiedType type, GlslTokenReader reader) {
         // single_declaration
         // init_declarator_list COMMA IDENTIFIER
         // init_declarator_list COMMA IDENTIFIER array_specifier
@@ -1055,7 +1366,7 @@ public class GlslParserImpl {
         List<GlslNode> initDeclaratorList = new ArrayList<>();
         GlslSpecifiedType fullySpecifiedType = null;
         while (reader.canRead()) {
-            GlslNode singleDeclaration = parseSingleDeclaration(fullySpecifiedType, reader);
+            GlslNode singleDeclaration = parseSingleDeclaration(initDeclaratorList.isEmpty() ? type : fullySpecifiedType, reader);
             if (singleDeclaration == null) {
                 reader.setCursor(cursor);
                 break;
@@ -1105,7 +1416,7 @@ public class GlslParserImpl {
         }
 
         cursor = reader.getCursor();
-        String name = reader.peek(-1).value();
+        String name = reader.peekValue(-1);
 
         GlslSpecifiedType arraySpecifier = parseArraySpecifier(reader, fullySpecifiedType);
         if (arraySpecifier != null) {
@@ -1136,6 +1447,10 @@ public class GlslParserImpl {
     }
 
     public static @Nullable GlslSpecifiedType parseFullySpecifiedType(GlslTokenReader reader) {
+        return memoize(GlslMemoTable.FULLY_SPECIFIED_TYPE, reader, GlslParserImpl::parseFullySpecifiedTypeRule);
+    }
+
+    private static @Nullable GlslSpecifiedType parseFullySpecifiedTypeRule(GlslTokenReader reader) {
         // type_specifier
         // type_qualifier type_specifier
 
@@ -1185,7 +1500,7 @@ public class GlslParserImpl {
         while (reader.canRead()) {
             GlslTypeQualifier.LayoutId qualifier = null;
             if (reader.tryConsume(GlslLexer.TokenType.IDENTIFIER)) {
-                String identifier = reader.peek(-1).value();
+                String identifier = reader.peekValue(-1);
                 GlslNode expression = null;
 
                 int cursor = reader.getCursor();
@@ -1276,7 +1591,7 @@ public class GlslParserImpl {
     }
 
     public static @Nullable GlslTypeQualifier parseStorageQualifier(GlslTokenReader reader) {
-        GlslTypeQualifier.StorageType storageQualifier = reader.peek().type().asStorageQualifier();
+        GlslTypeQualifier.StorageType storageQualifier = reader.peekType(0).asStorageQualifier();
         if (storageQualifier != null) {
             reader.skip();
             return storageQualifier;
@@ -1292,7 +1607,7 @@ public class GlslParserImpl {
                         break;
                     }
 
-                    typeNames.add(reader.peek(-1).value());
+                    typeNames.add(reader.peekValue(-1));
                     if (!reader.tryConsume(GlslLexer.TokenType.COMMA)) {
                         break;
                     }
@@ -1321,8 +1636,8 @@ public class GlslParserImpl {
 
         // type_specifier_nonarray : VOID | FLOAT | DOUBLE | INT | UINT | BOOL | VEC2 | VEC3 | VEC4 | DVEC2 | DVEC3 | DVEC4 | BVEC2 | BVEC3 | BVEC4 | IVEC2 | IVEC3 | IVEC4 | UVEC2 | UVEC3 | UVEC4 | MAT2 | MAT3 | MAT4 | MAT2X2 | MAT2X3 | MAT2X4 | MAT3X2 | MAT3X3 | MAT3X4 | MAT4X2 | MAT4X3 | MAT4X4 | DMAT2 | DMAT3 | DMAT4 | DMAT2X2 | DMAT2X3 | DMAT2X4 | DMAT3X2 | DMAT3X3 | DMAT3X4 | DMAT4X2 | DMAT4X3 | DMAT4X4 | ATOMIC_UINT | SAMPLER2D | SAMPLER3D | SAMPLERCUBE | SAMPLER2DSHADOW | SAMPLERCUBESHADOW | SAMPLER2DARRAY | SAMPLER2DARRAYSHADOW | SAMPLERCUBEARRAY | SAMPLERCUBEARRAYSHADOW | ISAMPLER2D | ISAMPLER3D | ISAMPLERCUBE | ISAMPLER2DARRAY | ISAMPLERCUBEARRAY | USAMPLER2D | USAMPLER3D | USAMPLERCUBE | USAMPLER2DARRAY | USAMPLERCUBEARRAY | SAMPLER1D | SAMPLER1DSHADOW | SAMPLER1DARRAY | SAMPLER1DARRAYSHADOW | ISAMPLER1D | ISAMPLER1DARRAY | USAMPLER1D | USAMPLER1DARRAY | SAMPLER2DRECT | SAMPLER2DRECTSHADOW | ISAMPLER2DRECT | USAMPLER2DRECT | SAMPLERBUFFER | ISAMPLERBUFFER | USAMPLERBUFFER | SAMPLER2DMS | ISAMPLER2DMS | USAMPLER2DMS | SAMPLER2DMSARRAY | ISAMPLER2DMSARRAY | USAMPLER2DMSARRAY | IMAGE2D | IIMAGE2D | UIMAGE2D | IMAGE3D | IIMAGE3D | UIMAGE3D | IMAGECUBE | IIMAGECUBE | UIMAGECUBE | IMAGEBUFFER | IIMAGEBUFFER | UIMAGEBUFFER | IMAGE1D | IIMAGE1D | UIMAGE1D | IMAGE1DARRAY | IIMAGE1DARRAY | UIMAGE1DARRAY | IMAGE2DRECT | IIMAGE2DRECT | UIMAGE2DRECT | IMAGE2DARRAY | IIMAGE2DARRAY | UIMAGE2DARRAY | IMAGECUBEARRAY | IIMAGECUBEARRAY | UIMAGECUBEARRAY | IMAGE2DMS | IIMAGE2DMS | UIMAGE2DMS | IMAGE2DMSARRAY | IIMAGE2DMSARRAY | UIMAGE2DMSARRAY | struct_specifier | TYPE_NAME
         GlslTypeSpecifier typeSpecifier;
-        GlslLexer.Token token = reader.peek();
-        GlslTypeSpecifier.BuiltinType type = token.type().asBuiltinType();
+        GlslLexer.TokenType tokenType = reader.peekType(0);
+        GlslTypeSpecifier.BuiltinType type = tokenType.asBuiltinType();
         if (type != null) {
             typeSpecifier = type;
             reader.skip();
@@ -1331,9 +1646,9 @@ public class GlslParserImpl {
             if (structSpecifier != null) {
                 typeSpecifier = structSpecifier;
             } else {
-                if (token.type() == GlslLexer.TokenType.IDENTIFIER) {
+                if (tokenType == GlslLexer.TokenType.IDENTIFIER) {
+                    typeSpecifier = GlslTypeSpecifier.named(reader.peekValue(0));
                     reader.skip();
-                    typeSpecifier = GlslTypeSpecifier.named(token.value());
                 } else {
                     return null;
                 }
@@ -1408,7 +1723,7 @@ public class GlslParserImpl {
 
         String name = null;
         if (reader.tryConsume(GlslLexer.TokenType.IDENTIFIER)) {
-            name = reader.peek(-1).value();
+            name = reader.peekValue(-1);
         }
 
         if (!reader.tryConsume(GlslLexer.TokenType.LEFT_BRACE)) {
@@ -1427,6 +1742,9 @@ public class GlslParserImpl {
             return null;
         }
 
+        if (name != null) {
+            reader.getSymbols().declareType(name);
+        }
         return GlslTypeSpecifier.struct(name, fields);
     }
 
@@ -1510,7 +1828,7 @@ public class GlslParserImpl {
 
         // IDENTIFIER
         // IDENTIFIER array_specifier
-        String name = reader.peek(-1).value();
+        String name = reader.peekValue(-1);
         GlslSpecifiedType arraySpecifier = parseArraySpecifier(reader, type);
         return new GlslStructField(Objects.requireNonNullElse(arraySpecifier, type), name);
     }
@@ -1601,11 +1919,13 @@ public class GlslParserImpl {
         GlslNode statement;
 
         // declaration_statement -> declaration
-        List<GlslNode> declaration = parseDeclaration(reader);
-        if (declaration != null) {
-            return declaration;
+        if (isDeclarationStart(reader)) {
+            List<GlslNode> declaration = parseDeclaration(reader);
+            if (declaration != null) {
+                return declaration;
+            }
+            reader.setCursor(cursor);
         }
-        reader.setCursor(cursor);
 
         // expression_statement
         statement = parseExpressionStatement(reader);
@@ -1648,6 +1968,50 @@ public class GlslParserImpl {
         return null;
     }
 
+    /**
+     * Checks whether the next tokens can start a declaration, so statements that can't be one skip straight to the
+     * other alternatives. Declared struct names are always treated as types. Other names are only types if they are
+     * followed by another name, like <code>Light light</code> with a struct declared outside the parsed source.
+     *
+     * @param reader The reader to check the next tokens of
+     * @return Whether a declaration should be attempted
+     */
+    private static boolean isDeclarationStart(GlslTokenReader reader) {
+        GlslLexer.TokenType type = reader.peekType(0);
+        if (type == null) {
+            return false;
+        }
+        if (type != GlslLexer.TokenType.IDENTIFIER) {
+            return switch (type) {
+                case PRECISION, STRUCT, LAYOUT, SUBROUTINE, INVARIANT, PRECISE -> true;
+                default -> type.asBuiltinType() != null ||
+                        type.asStorageQualifier() != null ||
+                        type.asPrecisionQualifier() != null ||
+                        type.asInterpolationQualifier() != null;
+            };
+        }
+
+        // type_specifier array_specifier
+        int next = 1;
+        if (reader.peekType(next) == GlslLexer.TokenType.LEFT_BRACKET) {
+            int depth = 0;
+            while (reader.peekType(next) != null) {
+                GlslLexer.TokenType token = reader.peekType(next++);
+                if (token == GlslLexer.TokenType.LEFT_BRACKET) {
+                    depth++;
+                } else if (token == GlslLexer.TokenType.RIGHT_BRACKET && --depth == 0) {
+                    break;
+                }
+            }
+        }
+
+        GlslLexer.TokenType after = reader.peekType(next);
+        if (after == GlslLexer.TokenType.IDENTIFIER) {
+            return true;
+        }
+        return reader.getSymbols().isType(reader.peekValue(0)) && (after == GlslLexer.TokenType.SEMICOLON || after == GlslLexer.TokenType.COMMA);
+    }
+
     public static @Nullable GlslNode parseCompoundStatement(GlslTokenReader reader) {
         // LEFT_BRACE RIGHT_BRACE
         // LEFT_BRACE statement_list RIGHT_BRACE
@@ -1663,7 +2027,7 @@ public class GlslParserImpl {
         }
 
         // statement_list
-        List<GlslNode> statements = parseStatementList(reader);
+        List<GlslNode> statements = parseScopedStatementList(reader);
 
         if (!reader.tryConsume(GlslLexer.TokenType.RIGHT_BRACE)) {
             reader.setCursor(cursor);
@@ -1693,7 +2057,7 @@ public class GlslParserImpl {
             return null;
         }
 
-        List<GlslNode> statements = parseStatementList(reader);
+        List<GlslNode> statements = parseScopedStatementList(reader);
         if (!reader.tryConsume(GlslLexer.TokenType.RIGHT_BRACE)) {
             reader.markError("Expected '}'");
             reader.setCursor(cursor);
@@ -1703,6 +2067,16 @@ public class GlslParserImpl {
         return statements;
     }
 
+    private static List<GlslNode> parseScopedStatementList(GlslTokenReader reader) {
+        GlslSymbolTable symbols = reader.getSymbols();
+        symbols.pushScope();
+        try {
+            return parseStatementList(reader);
+        } finally {
+            symbols.popScope();
+        }
+    }
+
     public static List<GlslNode> parseStatementList(GlslTokenReader reader) {
         List<GlslNode> statements = new ArrayList<>();
         while (reader.canRead()) {
@@ -1783,6 +2157,10 @@ public class GlslParserImpl {
     }
 
     public static @Nullable GlslNode parseCondition(GlslTokenReader reader) {
+        return memoize(GlslMemoTable.CONDITION, reader, GlslParserImpl::parseConditionRule);
+    }
+
+    private static @Nullable GlslNode parseConditionRule(GlslTokenReader reader) {
         // expression
         List<GlslNode> expression = parseExpression(reader);
         if (expression != null) {
@@ -1793,7 +2171,7 @@ public class GlslParserImpl {
         int cursor = reader.getCursor();
         GlslSpecifiedType type = parseFullySpecifiedType(reader);
         if (type != null && reader.tryConsume(GlslLexer.TokenType.IDENTIFIER, GlslLexer.TokenType.EQUAL)) {
-            String name = reader.peek(-2).value();
+            String name = reader.peekValue(-2);
             GlslNode initializer = parseInitializer(reader);
             if (initializer != null) {
                 return new GlslNewFieldNode(type, name, initializer);
@@ -1945,13 +2323,68 @@ public class GlslParserImpl {
             return null;
         }
 
-        List<GlslNode> statement = parseCompoundStatementNoNewScope(reader);
-        if (statement == null) {
+        // function_prototype compound_statement_no_new_scope
+        GlslFunctionNode function = parseFunctionBody(functionPrototype, reader);
+        if (function == null) {
             reader.setCursor(cursor);
             return null;
         }
 
-        // function_prototype compound_statement_no_new_scope
-        return new GlslFunctionNode(functionPrototype, statement);
+        return function;
+    }
+
+    /**
+     * Parses the body of a function definition. If the reader has lazy function bodies enabled, only the closing brace is
+     * found and the statements are parsed the first time the body is used. Bodies containing a marker are always parsed
+     * so the marked nodes are known when the tree is created.
+     *
+     * @param header The header of the function
+     * @param reader The reader at the opening brace of the body
+     * @return The function or <code>null</code> if there is no body
+     */
+    private static @Nullable GlslFunctionNode parseFunctionBody(GlslFunctionHeader header, GlslTokenReader reader) {
+        if (reader.isLazyFunctionBodies()) {
+            int start = reader.getCursor();
+            int end = reader.findClosingBrace();
+            if (end != -1 && !reader.hasMarker(start, end)) {
+                // Types declared after the function aren't visible in the body
+                String[] types = reader.getSymbols().getGlobalTypes();
+                reader.setCursor(end);
+                return GlslFunctionNode.lazy(header, () -> parseLazyFunctionBody(reader, start, end, types));
+            }
+        }
+
+        List<GlslNode> statement = parseCompoundStatementNoNewScope(reader);
+        return statement != null ? new GlslFunctionNode(header, statement) : null;
+    }
+
+    private static List<GlslNode> parseLazyFunctionBody(GlslTokenReader parent, int start, int end, String[] types) {
+        GlslTokenReader reader = new GlslTokenReader(parent, start, end);
+        for (String type : types) {
+            reader.getSymbols().declareType(type);
+        }
+
+        List<GlslNode> statement = parseCompoundStatementNoNewScope(reader);
+        if (statement == null || reader.canRead()) {
+            try {
+                reader.throwError();
+            } catch (GlslSyntaxException e) {
+                throw new IllegalStateException("Failed to parse function body", e);
+            }
+        }
+        return statement;
+    }
+
+    private record ParsedChunk(List<String> directives, List<GlslNode> body, Map<String, GlslNode> markedNodes) {
+    }
+
+    /**
+     * A tree parsed by {@link #parseIncremental(IncrementalTree, CharSequence, GlslIdentifierPool)} and the
+     * fingerprints of its declarations.
+     *
+     * @param tree         The parsed tree
+     * @param fingerprints The fingerprints to find unchanged declarations of the tree with
+     */
+    public record IncrementalTree(GlslTree tree, GlslDeclarationFingerprints fingerprints) {
     }
 }
@@ -1,6 +1,9 @@
 package io.github.ocelot.glslprocessor.impl;
 
 import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.CharBuffer;
 
 /**
  * @author Ocelot
@@ -8,17 +11,106 @@ import org.jetbrains.annotations.ApiStatus;
 @ApiStatus.Internal
 class GlslStringReader {
 
-    public final String string;
-    public final char[] chars;
+    private static final int WINDOW_SIZE = 1024;
+    // Refill the window early so a vector scan doesn't start right before its end
+    private static final int MIN_WINDOW_REMAINING = 64;
+
+    public final CharSequence source;
+    public final int length;
     public int cursor;
+    private final @Nullable GlslCharScanner scanner;
+    private final char @Nullable [] array;
+    private final int arrayOffset;
+    private final char @Nullable [] window;
+    private int windowStart;
+    private int windowEnd;
+
+    public GlslStringReader(CharSequence source) {
+        this(source, null);
+    }
+
+    /**
+     * @param source  The characters to read
+     * @param scanner The scanner for runs of characters or <code>null</code> to read one character at a time.
+     *                Array-backed buffers are scanned in place. Strings, string builders and other buffers are copied
+     *                through a small window, so the source is never copied as a whole. Any other source is always read
+     *                one character at a time
+     */
+    public GlslStringReader(CharSequence source, @Nullable GlslCharScanner scanner) {
+        this.source = source;
+        this.length = source.length();
+        this.scanner = scanner;
+        if (scanner != null && source instanceof CharBuffer buffer && buffer.hasArray()) {
+            this.array = buffer.array();
+            this.arrayOffset = buffer.arrayOffset() + buffer.position();
+            this.window = null;
+        } else {
+            this.array = null;
+            this.arrayOffset = 0;
+            this.window = scanner != null && canCopy(source) ? new char[WINDOW_SIZE] : null;
+        }
+    }
+
+    private GlslStringReader(GlslStringReader parent, int start, int end) {
+        this.source = parent.source;
+        this.length = end;
+        this.cursor = start;
+        this.scanner = parent.scanner;
+        this.array = parent.array;
+        this.arrayOffset = parent.arrayOffset;
+        // Ranges can be read on other threads, so they can't share a window
+        this.window = parent.window != null ? new char[WINDOW_SIZE] : null;
+    }
+
+    private static boolean canCopy(CharSequence source) {
+        return source instanceof String || source instanceof StringBuilder || source instanceof StringBuffer || source instanceof CharBuffer;
+    }
+
+    /**
+     * Copies the characters starting at the specified index into the window unless enough of them already are.
+     *
+     * @param start The first index that will be scanned
+     * @return The index after the last character in the window
+     */
+    private int fill(int start) {
+        if (start >= this.windowStart && start < this.windowEnd && (this.windowEnd - start >= MIN_WINDOW_REMAINING || this.windowEnd == this.length)) {
+            return this.windowEnd;
+        }
+
+        char[] window = this.window;
+        int end = Math.min(this.length, start + window.length);
+        if (this.source instanceof String string) {
+            string.getChars(start, end, window, 0);
+        } else if (this.source instanceof StringBuilder builder) {
+            builder.getChars(start, end, window, 0);
+        } else if (this.source instanceof StringBuffer buffer) {
+            buffer.getChars(start, end, window, 0);
+        } else {
+            CharBuffer buffer = (CharBuffer) this.source;
+            buffer.get(buffer.position() + start, window, 0, end - start);
+        }
+        this.windowStart = start;
+        this.windowEnd = end;
+        return end;
+    }
 
-    public GlslStringReader(String string) {
-        this.string = string;
-        this.chars = string.toCharArray();
+    /**
+     * Creates a reader over part of the same source. Positions are still relative to the start of the source.
+     *
+     * @param start The position to start reading from
+     * @param end   The position to stop reading at
+     * @return A new reader for the range
+     */
+    public GlslStringReader range(int start, int end) {
+        return new GlslStringReader(this, start, end);
     }
 
     public boolean canRead() {
-        return this.cursor < this.chars.length;
+        return this.cursor < this.length;
+    }
+
+    public char charAt(int index) {
+        return this.source.charAt(index);
     }
 
     public void skip(int amount) {
@@ -30,8 +122,85 @@ class GlslStringReader {
     }
 
     public void skipWhitespace() {
-        while (this.cursor < this.chars.length && Character.isWhitespace(this.chars[this.cursor])) {
+        if (this.array != null) {
+            this.cursor = this.scanner.skipWhitespace(this.array, this.arrayOffset + this.cursor, this.arrayOffset + this.length) - this.arrayOffset;
+            return;
+        }
+        if (this.window != null) {
+            int i = this.cursor;
+            while (i < this.length) {
+                int end = this.fill(i);
+                i = this.scanner.skipWhitespace(this.window, i - this.windowStart, end - this.windowStart) + this.windowStart;
+                if (i < end) {
+                    break;
+                }
+            }
+            this.cursor = i;
+            return;
+        }
+        while (this.cursor < this.length && Character.isWhitespace(this.source.charAt(this.cursor))) {
             this.skip();
         }
     }
+
+    /**
+     * Finds the end of the identifier characters starting at the specified index.
+     *
+     * @param start The first index to check
+     * @return The index of the first character that can't be part of an identifier
+     */
+    public int findIdentifierEnd(int start) {
+        if (this.array != null) {
+            return this.scanner.skipIdentifier(this.array, this.arrayOffset + start, this.arrayOffset + this.length) - this.arrayOffset;
+        }
+        if (this.window != null) {
+            int i = start;
+            while (i < this.length) {
+                int end = this.fill(i);
+                i = this.scanner.skipIdentifier(this.window, i - this.windowStart, end - this.windowStart) + this.windowStart;
+                if (i < end) {
+                    break;
+                }
+            }
+            return i;
+        }
+        int i = start;
+        while (i < this.length) {
+            char c = this.source.charAt(i);
+            if (!Character.isDigit(c) && !GlslLexer.isValidIdentifierChar(c)) {
+                break;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Finds the next occurrence of a character.
+     *
+     * @param c     The character to find
+     * @param start The first index to check
+     * @return The index of the character or the length of the source if it is never found
+     */
+    public int indexOf(char c, int start) {
+        if (this.array != null) {
+            return this.scanner.indexOf(this.array, c, this.arrayOffset + start, this.arrayOffset + this.length) - this.arrayOffset;
+        }
+        if (this.window != null) {
+            int i = start;
+            while (i < this.length) {
+                int end = this.fill(i);
+                i = this.scanner.indexOf(this.window, c, i - this.windowStart, end - this.windowStart) + this.windowStart;
+                if (i < end) {
+                    break;
+                }
+            }
+            return i;
+        }
+        int i = start;
+        while (i < this.length && this.source.charAt(i) != c) {
+            i++;
+        }
+        return i;
+    }
 }
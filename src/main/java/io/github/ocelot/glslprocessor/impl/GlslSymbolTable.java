@@ -0,0 +1,107 @@
+package io.github.ocelot.glslprocessor.impl;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Scoped table of the struct names declared while parsing. Statements use it to tell declarations of named types apart
+ * from expressions without trying both.
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+final class GlslSymbolTable {
+
+    private final List<Set<String>> scopes;
+    private int depth;
+    private String @Nullable [] sortedGlobalTypes;
+
+    GlslSymbolTable() {
+        this.scopes = new ArrayList<>();
+        this.scopes.add(new HashSet<>());
+        this.depth = 0;
+    }
+
+    /**
+     * Enters a new block. Types declared until the matching {@link #popScope()} are only visible inside it.
+     */
+    public void pushScope() {
+        this.depth++;
+        if (this.depth == this.scopes.size()) {
+            this.scopes.add(new HashSet<>());
+        }
+    }
+
+    /**
+     * Leaves the current block and forgets all types declared in it.
+     */
+    public void popScope() {
+        if (this.depth == 0) {
+            throw new IllegalStateException("Can't leave the global scope");
+        }
+        // Sets are kept to be reused by the next block at the same depth
+        this.scopes.get(this.depth).clear();
+        this.depth--;
+    }
+
+    /**
+     * Forgets all declared types and moves back to the global scope.
+     */
+    public void clear() {
+        for (Set<String> scope : this.scopes) {
+            scope.clear();
+        }
+        this.depth = 0;
+        this.sortedGlobalTypes = null;
+    }
+
+    /**
+     * Declares a type name in the current scope.
+     *
+     * @param name The name of the type
+     */
+    public void declareType(String name) {
+        if (this.scopes.get(this.depth).add(name) && this.depth == 0) {
+            this.sortedGlobalTypes = null;
+        }
+    }
+
+    /**
+     * @return The names of all types declared in the global scope
+     */
+    public String[] getGlobalTypes() {
+        return this.scopes.get(0).toArray(String[]::new);
+    }
+
+    /**
+     * @return The names of all types declared in the global scope in alphabetical order. The same array is returned
+     * until another global type is declared, so it must not be modified
+     */
+    public String[] getSortedGlobalTypes() {
+        if (this.sortedGlobalTypes == null) {
+            String[] types = this.getGlobalTypes();
+            Arrays.sort(types);
+            this.sortedGlobalTypes = types;
+        }
+        return this.sortedGlobalTypes;
+    }
+
+    /**
+     * @param name The name to check
+     * @return Whether a type with the specified name is visible in the current scope
+     */
+    public boolean isType(String name) {
+        for (int i = this.depth; i >= 0; i--) {
+            if (this.scopes.get(i).contains(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
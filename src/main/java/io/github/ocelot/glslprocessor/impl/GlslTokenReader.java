@@ -1,14 +1,17 @@
 package io.github.ocelot.glslprocessor.impl;
 
+import io.github.ocelot.glslprocessor.api.GlslIdentifierPool;
 import io.github.ocelot.glslprocessor.api.GlslSyntaxException;
 import io.github.ocelot.glslprocessor.api.node.GlslNode;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.ObjIntConsumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.IntStream;
 
 /**
  * @author Ocelot
@@ -20,60 +23,168 @@ public class GlslTokenReader {
 
     private final Map<String, Integer> markers;
     private final Map<String, GlslNode> markedNodes;
-    private final GlslLexer.Token[] tokens;
-    private final String tokenString;
+    private GlslTokenStream tokens;
+    private int end;
     private int cursor;
-    private final List<GlslSyntaxException> errors;
-    private final List<GlslSyntaxException> errorsView;
+    private final GlslDiagnostics errors;
+    private @Nullable GlslMemoTable memo;
+    private boolean lazyFunctionBodies;
+    private final GlslSymbolTable symbols;
+    private final List<List<GlslNode>> nodeLists;
+
+    public GlslTokenReader(CharSequence source) throws GlslSyntaxException {
+        this(source, null);
+    }
+
+    public GlslTokenReader(CharSequence source, @Nullable GlslIdentifierPool identifierPool) throws GlslSyntaxException {
+        this(source, identifierPool, null);
+    }
 
-    public GlslTokenReader(String source) throws GlslSyntaxException {
+    /**
+     * @param source         The source to read tokens from
+     * @param identifierPool The pool to deduplicate identifier names with or <code>null</code> to not share names
+     * @param pool           The pool to lex large sources in parallel on or <code>null</code> to lex on this thread
+     * @throws GlslSyntaxException If the source contains invalid tokens
+     */
+    public GlslTokenReader(CharSequence source, @Nullable GlslIdentifierPool identifierPool, @Nullable ForkJoinPool pool) throws GlslSyntaxException {
         this.markers = new HashMap<>();
         this.markedNodes = new HashMap<>();
-        this.tokens = GlslLexer.createTokens(source, (comment, index) -> {
-            String value = comment.value().substring(2);
-            if (comment.type() == GlslLexer.TokenType.MULTI_COMMENT) {
-                value = value.substring(0, value.length() - 2);
-            }
-
-            Matcher matcher = MARKER_PATTERN.matcher(value);
-            if (matcher.find()) {
-                this.markers.put(matcher.group(1).toLowerCase(Locale.ROOT), index);
-            }
-        });
-        this.tokenString = calculateString(source.length() + this.tokens.length, this.tokens);
+        ObjIntConsumer<GlslLexer.Token> commentConsumer = this::readMarker;
+        this.tokens = pool != null ? GlslLexer.createTokenStreamParallel(source, commentConsumer, pool) : GlslLexer.createTokenStream(source, commentConsumer);
+        this.tokens.setIdentifierPool(identifierPool);
+        this.end = this.tokens.size();
         this.cursor = 0;
-        this.errors = new ArrayList<>();
-        this.errorsView = Collections.unmodifiableList(this.errors);
+        this.errors = new GlslDiagnostics();
+        this.symbols = new GlslSymbolTable();
+        this.nodeLists = new ArrayList<>();
+    }
+
+    /**
+     * Creates a reader that lexes into the specified builder. The reader can be reused for another source with
+     * {@link #reset(CharSequence, GlslTokenStream.Builder, GlslIdentifierPool)}.
+     *
+     * @param source         The source to read tokens from
+     * @param tokens         The builder to lex tokens into
+     * @param identifierPool The pool to deduplicate identifier names with or <code>null</code> to not share names
+     * @throws GlslSyntaxException If the source contains invalid tokens
+     */
+    public GlslTokenReader(CharSequence source, GlslTokenStream.Builder tokens, @Nullable GlslIdentifierPool identifierPool) throws GlslSyntaxException {
+        this.markers = new HashMap<>();
+        this.markedNodes = new HashMap<>();
+        this.errors = new GlslDiagnostics();
+        this.symbols = new GlslSymbolTable();
+        this.nodeLists = new ArrayList<>();
+        this.reset(source, tokens, identifierPool);
     }
 
     public GlslTokenReader(GlslLexer.Token[] tokens) {
+        this(GlslTokenStream.of(tokens));
+    }
+
+    public GlslTokenReader(GlslTokenStream tokens) {
         this.markers = Collections.emptyMap();
         this.markedNodes = new HashMap<>();
         this.tokens = tokens;
-        this.tokenString = calculateString(tokens.length * 8, tokens);
+        this.end = tokens.size();
         this.cursor = 0;
-        this.errors = new ArrayList<>();
-        this.errorsView = Collections.unmodifiableList(this.errors);
+        this.errors = new GlslDiagnostics();
+        this.symbols = new GlslSymbolTable();
+        this.nodeLists = new ArrayList<>();
     }
 
-    private static String calculateString(int length, GlslLexer.Token[] tokens) {
-        StringBuilder builder = new StringBuilder(length);
-        for (GlslLexer.Token token : tokens) {
-            builder.append(token.value());
+    /**
+     * Creates a reader for already lexed tokens, reading markers from the comments of the stream.
+     *
+     * @param tokens         The tokens to read
+     * @param identifierPool The pool to deduplicate identifier names with or <code>null</code> to not share names
+     */
+    public GlslTokenReader(GlslTokenStream tokens, @Nullable GlslIdentifierPool identifierPool) {
+        this.markers = new HashMap<>();
+        this.markedNodes = new HashMap<>();
+        this.tokens = tokens;
+        this.tokens.setIdentifierPool(identifierPool);
+        this.end = tokens.size();
+        this.cursor = 0;
+        this.errors = new GlslDiagnostics();
+        this.symbols = new GlslSymbolTable();
+        this.nodeLists = new ArrayList<>();
+        for (int i = 0; i < tokens.getCommentCount(); i++) {
+            this.readMarker(tokens.getComment(i), tokens.getCommentTokenIndex(i));
+        }
+    }
+
+    /**
+     * Creates a reader for a range of the tokens of another reader. Markers are shared, but marked nodes, errors and
+     * declared types are tracked separately. The new reader can be used on another thread than the parent.
+     *
+     * @param parent The reader to read the tokens of
+     * @param start  The index of the first token to read
+     * @param end    The index after the last token to read
+     */
+    public GlslTokenReader(GlslTokenReader parent, int start, int end) {
+        this.markers = parent.markers;
+        this.markedNodes = new HashMap<>();
+        this.tokens = parent.tokens;
+        this.end = end;
+        this.cursor = start;
+        this.errors = new GlslDiagnostics();
+        this.symbols = new GlslSymbolTable();
+        this.nodeLists = new ArrayList<>();
+        this.memo = parent.memo != null ? new GlslMemoTable(start, end) : null;
+        this.lazyFunctionBodies = parent.lazyFunctionBodies;
+    }
+
+    private void readMarker(GlslLexer.Token comment, int index) {
+        String value = comment.value().substring(2);
+        if (comment.type() == GlslLexer.TokenType.MULTI_COMMENT) {
+            value = value.substring(0, value.length() - 2);
+        }
+
+        Matcher matcher = MARKER_PATTERN.matcher(value);
+        if (matcher.find()) {
+            this.markers.put(matcher.group(1).toLowerCase(Locale.ROOT), index);
         }
-        return builder.toString().trim();
     }
 
+    /**
+     * Lexes a new source into the specified builder and moves back to the first token. Markers, marked nodes, errors and
+     * declared types of the previous source are cleared, but their buffers are kept. Nodes marked before must be copied
+     * before calling this.
+     *
+     * @param source         The source to read tokens from
+     * @param tokens         The builder to lex tokens into. Any stream built with it before must no longer be used
+     * @param identifierPool The pool to deduplicate identifier names with or <code>null</code> to not share names
+     * @throws GlslSyntaxException If the source contains invalid tokens
+     */
+    public void reset(CharSequence source, GlslTokenStream.Builder tokens, @Nullable GlslIdentifierPool identifierPool) throws GlslSyntaxException {
+        this.markers.clear();
+        this.markedNodes.clear();
+        this.errors.clear();
+        this.symbols.clear();
+        this.tokens = GlslLexer.createTokenStream(source, this::readMarker, tokens);
+        this.tokens.setIdentifierPool(identifierPool);
+        this.end = this.tokens.size();
+        this.cursor = 0;
+        if (this.memo != null) {
+            this.memo = new GlslMemoTable(0, this.end);
+        }
+    }
+
+    /**
+     * Calculates the position in the source after the specified token.
+     *
+     * @param cursor The index of the token
+     * @return The end of the token in the source or the end of the last token if the cursor is past the end
+     */
     public int getCursorOffset(int cursor) {
-        int offset = 0;
-        for (int i = 0; i <= Math.min(cursor, this.tokens.length - 1); i++) {
-            offset += this.tokens[i].value().length();
+        if (this.tokens.size() == 0) {
+            return 0;
         }
-        return offset;
+        return this.tokens.getEnd(Math.min(Math.max(cursor, 0), this.tokens.size() - 1));
     }
 
     public boolean canRead(int length) {
-        return this.cursor + length <= this.tokens.length;
+        return this.cursor + length <= this.end;
     }
 
     public boolean canRead() {
@@ -85,32 +196,81 @@ public class GlslTokenReader {
     }
 
     public GlslLexer.Token peek(int amount) {
-        return this.cursor + amount < this.tokens.length ? this.tokens[this.cursor + amount] : null;
+        return this.cursor + amount < this.end ? this.tokens.getToken(this.cursor + amount) : null;
     }
 
     public GlslLexer.TokenType peekType(int amount) {
-        return this.cursor + amount < this.tokens.length ? this.tokens[this.cursor + amount].type() : null;
+        return this.cursor + amount < this.end ? this.tokens.getType(this.cursor + amount) : null;
+    }
+
+    /**
+     * Retrieves the value of a token relative to the cursor without creating a token object.
+     *
+     * @param amount The offset from the cursor
+     * @return The token value or <code>null</code> if there is no token at that position
+     */
+    public String peekValue(int amount) {
+        return this.cursor + amount < this.end ? this.tokens.getValue(this.cursor + amount) : null;
+    }
+
+    /**
+     * Retrieves the value of an integer constant token relative to the cursor.
+     *
+     * @param amount The offset from the cursor
+     * @return The raw 32 bits of the constant
+     */
+    public int peekInt(int amount) {
+        return this.tokens.getIntConstant(this.cursor + amount);
+    }
+
+    /**
+     * Retrieves the value of a float constant token relative to the cursor.
+     *
+     * @param amount The offset from the cursor
+     * @return The value of the constant
+     */
+    public float peekFloat(int amount) {
+        return this.tokens.getFloatConstant(this.cursor + amount);
+    }
+
+    /**
+     * Retrieves the value of a double constant token relative to the cursor.
+     *
+     * @param amount The offset from the cursor
+     * @return The value of the constant
+     */
+    public double peekDouble(int amount) {
+        return this.tokens.getDoubleConstant(this.cursor + amount);
     }
 
     public boolean canConsume(GlslLexer.TokenType token) {
-        return this.canRead() && this.peek().type() == token;
+        return this.canRead() && this.peekType(0) == token;
     }
 
     public GlslLexer.Token consume(GlslLexer.TokenType token) throws GlslSyntaxException {
-        if (!this.canRead() || this.peek().type() != token) {
+        if (!this.canRead() || this.peekType(0) != token) {
             throw this.error("Expected " + token);
         }
         this.cursor++;
         return this.peek(-1);
     }
 
+    public boolean tryConsume(GlslLexer.TokenType token) {
+        // Avoids creating an array for the common case of a single token
+        if (this.cursor < this.end && this.tokens.getType(this.cursor) == token) {
+            this.cursor++;
+            return true;
+        }
+        return false;
+    }
+
     public boolean tryConsume(GlslLexer.TokenType... tokens) {
         if (!this.canRead(tokens.length)) {
             return false;
         }
 
         for (int i = 0; i < tokens.length; i++) {
-            if (this.peek(i).type() != tokens[i]) {
+            if (this.peekType(i) != tokens[i]) {
                 return false;
             }
         }
@@ -119,36 +279,27 @@ public class GlslTokenReader {
     }
 
     public GlslSyntaxException error(String error) {
-        return new GlslSyntaxException(error, this.tokenString, this.getCursorOffset(this.cursor));
+        return this.createError(error, this.getCursorOffset(this.cursor), this.cursor);
     }
 
-    @Contract("->fail")
-    public void throwError() throws GlslSyntaxException {
-        if (this.errors.isEmpty()) {
-            throw new GlslSyntaxException("Failed", this.tokenString, this.cursor);
-        }
-
-        int cursor = this.cursor;
-        int[] cursors = this.errors.stream().mapToInt(GlslSyntaxException::getCursor).toArray();
-        int[] cursorOffsets = new int[cursors.length];
+    /**
+     * Creates an error with the line and column of a token in the source.
+     */
+    private GlslSyntaxException createError(String error, int offset, int token) {
+        return this.createError(error, offset, token, true);
+    }
 
-        int offset = 0;
-        for (int i = 0; i <= Math.min(Math.max(cursor, IntStream.of(cursors).max().orElse(0)), this.tokens.length - 1); i++) {
-            offset += this.tokens[i].value().length();
-            if (i == this.cursor) {
-                cursor = offset;
-            }
-            for (int j = 0; j < cursors.length; j++) {
-                if (i == cursors[j]) {
-                    cursorOffsets[j] = offset;
-                }
-            }
-        }
+    private GlslSyntaxException createError(String error, int offset, int token, boolean stackTrace) {
+        GlslSyntaxException exception = new GlslSyntaxException(error, this.tokens.getSource(), offset, stackTrace);
+        token = Math.min(token, this.tokens.size());
+        exception.setPosition(this.tokens.getLine(token), this.tokens.getColumn(token));
+        return exception;
+    }
 
-        GlslSyntaxException exception = new GlslSyntaxException("Failed", this.tokenString, this.getCursorOffset(this.cursor));
-        for (int i = 0; i < this.errors.size(); i++) {
-            GlslSyntaxException error = this.errors.get(i);
-            error.setCursor(cursorOffsets[i]);
+    @Contract("->fail")
+    public void throwError() throws GlslSyntaxException {
+        GlslSyntaxException exception = this.createError("Failed", this.getCursorOffset(this.cursor), this.cursor);
+        for (GlslSyntaxException error : this.getErrors()) {
             exception.addSuppressed(error);
         }
         throw exception;
@@ -162,13 +313,72 @@ public class GlslTokenReader {
         this.cursor += amount;
     }
 
+    /**
+     * Marks an error at the current token. Errors are only turned into exceptions when they are reported.
+     *
+     * @param message The error message
+     */
     public void markError(String message) {
-        for (GlslSyntaxException error : this.errors) {
-            if (error.getCursor() == this.cursor && error.getRawMessage().equals(message)) {
-                return;
+        this.errors.add(this.cursor, message);
+    }
+
+    /**
+     * Borrows an empty list to collect nodes in before they are copied into a node. The list must be given back with
+     * {@link #releaseNodeList(List)} once it is no longer used.
+     *
+     * @return An empty list
+     */
+    public List<GlslNode> borrowNodeList() {
+        return this.nodeLists.isEmpty() ? new ArrayList<>() : this.nodeLists.remove(this.nodeLists.size() - 1);
+    }
+
+    /**
+     * Gives back a list from {@link #borrowNodeList()} so it can be reused.
+     *
+     * @param list The list to reuse
+     */
+    public void releaseNodeList(List<GlslNode> list) {
+        list.clear();
+        this.nodeLists.add(list);
+    }
+
+    /**
+     * Checks whether any marker comment is placed before a token in the specified range.
+     *
+     * @param start The index of the first token to check
+     * @param end   The index after the last token to check
+     * @return Whether a node in the range could be marked
+     */
+    public boolean hasMarker(int start, int end) {
+        for (int index : this.markers.values()) {
+            if (index >= start && index < end) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds the brace that closes the block opened at the cursor.
+     *
+     * @return The index of the token after the closing brace or <code>-1</code> if the cursor is not at an opening brace
+     * or it is never closed
+     */
+    public int findClosingBrace() {
+        if (this.peekType(0) != GlslLexer.TokenType.LEFT_BRACE) {
+            return -1;
+        }
+
+        int depth = 0;
+        for (int i = this.cursor; i < this.end; i++) {
+            GlslLexer.TokenType type = this.tokens.getType(i);
+            if (type == GlslLexer.TokenType.LEFT_BRACE) {
+                depth++;
+            } else if (type == GlslLexer.TokenType.RIGHT_BRACE && --depth == 0) {
+                return i + 1;
             }
         }
-        this.errors.add(new GlslSyntaxException(message, this.tokenString, this.cursor));
+        return -1;
     }
 
     public void markNode(int cursor, GlslNode node) {
@@ -180,16 +390,90 @@ public class GlslTokenReader {
     }
 
     /**
-     * @return All errors marked from reading tokens
+     * @return All errors marked from reading tokens. The exceptions are created each time this is called and have no stack
+     * trace
      */
     public List<GlslSyntaxException> getErrors() {
-        return this.errorsView;
+        List<GlslSyntaxException> errors = new ArrayList<>(this.errors.size());
+        for (int i = 0; i < this.errors.size(); i++) {
+            int cursor = this.errors.getCursor(i);
+            errors.add(this.createError(this.errors.getMessage(i), this.getCursorOffset(cursor), cursor, false));
+        }
+        return Collections.unmodifiableList(errors);
     }
 
     public int getCursor() {
         return this.cursor;
     }
 
+    /**
+     * Enables or disables packrat memoization of the parser rules that are retried at the same token while
+     * backtracking. This trades memory proportional to the number of tokens for not parsing the same rule twice.
+     *
+     * @param memoize Whether to store the results of expensive rules
+     */
+    public void setMemoization(boolean memoize) {
+        if (!memoize) {
+            this.memo = null;
+        } else if (this.memo == null) {
+            this.memo = new GlslMemoTable(0, this.end);
+        }
+    }
+
+    /**
+     * Enables or disables lazy parsing of function bodies. Function definitions only find the closing brace of their body
+     * and parse the statements the first time the body is used. Syntax errors in a body are only reported when it is
+     * parsed, by throwing an {@link IllegalStateException}.
+     *
+     * @param lazy Whether to skip function bodies until they are needed
+     */
+    public void setLazyFunctionBodies(boolean lazy) {
+        this.lazyFunctionBodies = lazy;
+    }
+
+    /**
+     * @return Whether function bodies are parsed the first time they are used
+     */
+    public boolean isLazyFunctionBodies() {
+        return this.lazyFunctionBodies;
+    }
+
+    /**
+     * @return Whether the results of expensive rules are stored
+     */
+    public boolean isMemoizationEnabled() {
+        return this.memo != null;
+    }
+
+    /**
+     * @return The number of rule results that were reused instead of parsed again
+     */
+    public int getMemoHits() {
+        return this.memo != null ? this.memo.getHits() : 0;
+    }
+
+    /**
+     * @return The number of rule results that had to be parsed
+     */
+    public int getMemoMisses() {
+        return this.memo != null ? this.memo.getMisses() : 0;
+    }
+
+    @Nullable GlslMemoTable getMemoTable() {
+        return this.memo;
+    }
+
+    GlslSymbolTable getSymbols() {
+        return this.symbols;
+    }
+
+    /**
+     * @return All tokens this reader reads from
+     */
+    public GlslTokenStream getTokens() {
+        return this.tokens;
+    }
+
     public Map<String, GlslNode> getMarkedNodes() {
         return this.markedNodes;
     }
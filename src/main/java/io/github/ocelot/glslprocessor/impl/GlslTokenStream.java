@@ -0,0 +1,517 @@
+package io.github.ocelot.glslprocessor.impl;
+
+import io.github.ocelot.glslprocessor.api.GlslIdentifierPool;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * A compact list of tokens stored as parallel arrays. Each token is a type ordinal and a range in the source string.
+ * Token values are only created when requested, except for keywords and operators which reuse the shared word. Number
+ * constants decoded by the lexer keep their primitive value in a side table, so the parser never has to read it back
+ * from a string.
+ * <p>
+ * Comments are not part of the token list, but are kept in a separate table along with the number of tokens before
+ * them.
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public final class GlslTokenStream {
+
+    private static final GlslLexer.TokenType[] TYPES = GlslLexer.TokenType.values();
+    private static final int TYPE_MASK = 0xFFFF;
+    private static final int CONSTANT_FLAG = 1 << 16;
+
+    private final CharSequence source;
+    private final int size;
+    private final int[] types;
+    private final int[] offsets;
+    private final String[] values;
+    private final long @Nullable [] constants;
+    private final int commentCount;
+    private final int[] comments;
+    private GlslIdentifierPool identifierPool;
+    private GlslLineTable lineTable;
+
+    private GlslTokenStream(CharSequence source, int size, int[] types, int[] offsets, String[] values, long @Nullable [] constants, int commentCount, int[] comments) {
+        this.source = source;
+        this.size = size;
+        this.types = types;
+        this.offsets = offsets;
+        this.values = values;
+        this.constants = constants;
+        this.commentCount = commentCount;
+        this.comments = comments;
+    }
+
+    /**
+     * Creates a token stream from already materialized tokens. The source of the stream is all token values joined
+     * together.
+     *
+     * @param tokens The tokens to wrap
+     * @return A new token stream
+     */
+    public static GlslTokenStream of(GlslLexer.Token[] tokens) {
+        Builder builder = new Builder(tokens.length);
+        StringBuilder source = new StringBuilder();
+        for (GlslLexer.Token token : tokens) {
+            int start = source.length();
+            source.append(token.value());
+            builder.add(token.type(), start, source.length(), token.value());
+        }
+        return builder.build(source.toString());
+    }
+
+    /**
+     * @return The number of tokens in this stream
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Sets the pool identifier values are shared from. This only affects values that have not been requested yet.
+     *
+     * @param identifierPool The pool to use or <code>null</code> to always create new strings
+     */
+    public void setIdentifierPool(@Nullable GlslIdentifierPool identifierPool) {
+        this.identifierPool = identifierPool;
+    }
+
+    /**
+     * @return The string the token offsets point into
+     */
+    public CharSequence getSource() {
+        return this.source;
+    }
+
+    /**
+     * Creates a stream of the same tokens with its own copy of the source. Sources that can be edited in place, like
+     * string builders, can then be changed without changing the text of the tokens.
+     *
+     * @return This stream if the source is already a string or a new stream with a copy of the source
+     */
+    public GlslTokenStream snapshot() {
+        if (this.source instanceof String) {
+            return this;
+        }
+        String source = new StringBuilder(this.source.length()).append(this.source).toString();
+        // Values are created from the source when requested, so the original stream can't share them anymore
+        GlslTokenStream stream = new GlslTokenStream(source, this.size, this.types, this.offsets, this.values.clone(), this.constants, this.commentCount, this.comments);
+        stream.identifierPool = this.identifierPool;
+        return stream;
+    }
+
+    /**
+     * @return The line table of the source, created the first time it is requested
+     */
+    public GlslLineTable getLineTable() {
+        if (this.lineTable == null) {
+            this.lineTable = GlslLineTable.of(this.source);
+        }
+        return this.lineTable;
+    }
+
+    /**
+     * @param index The index of the token or {@link #size()} for the end of the source
+     * @return The line the specified token starts on
+     */
+    public int getLine(int index) {
+        return this.getLineTable().getLine(this.getPosition(index));
+    }
+
+    /**
+     * @param index The index of the token or {@link #size()} for the end of the source
+     * @return The column the specified token starts at
+     */
+    public int getColumn(int index) {
+        return this.getLineTable().getColumn(this.getPosition(index));
+    }
+
+    private int getPosition(int index) {
+        return index < this.size ? this.getStart(index) : this.source.length();
+    }
+
+    public GlslLexer.TokenType getType(int index) {
+        return TYPES[this.types[index] & TYPE_MASK];
+    }
+
+    public int getStart(int index) {
+        return this.offsets[index * 2];
+    }
+
+    public int getEnd(int index) {
+        return this.offsets[index * 2 + 1];
+    }
+
+    /**
+     * Retrieves the value of the specified token, creating it from the source the first time it is requested.
+     *
+     * @param index The index of the token
+     * @return The token value
+     */
+    public String getValue(int index) {
+        String value = this.values[index];
+        if (value == null) {
+            GlslLexer.TokenType type = this.getType(index);
+            int start = this.getStart(index);
+            int end = this.getEnd(index);
+            if (GlslNumberConstantParser.isNumber(type)) {
+                value = GlslNumberConstantParser.normalize(type, this.source, start, end);
+            } else if (type == GlslLexer.TokenType.IDENTIFIER && this.identifierPool != null) {
+                value = this.identifierPool.intern(this.source, start, end);
+            } else {
+                value = this.source.subSequence(start, end).toString();
+            }
+            this.values[index] = value;
+        }
+        return value;
+    }
+
+    /**
+     * Calculates a 64-bit hash of the types and source text of a range of tokens. Whitespace and comments between tokens
+     * don't change the hash.
+     *
+     * @param start The index of the first token
+     * @param end   The index after the last token
+     * @param seed  The value to start the hash from
+     * @return The hash of the tokens
+     */
+    public long fingerprint(int start, int end, long seed) {
+        long hash = seed ^ 0xCBF29CE484222325L;
+        for (int i = start; i < end; i++) {
+            hash = (hash ^ (this.types[i] & TYPE_MASK)) * 0x100000001B3L;
+            for (int j = this.getStart(i); j < this.getEnd(i); j++) {
+                hash = (hash ^ this.source.charAt(j)) * 0x100000001B3L;
+            }
+            // Separate tokens so "ab" and "a b" don't hash the same
+            hash = (hash ^ 0xFF) * 0x100000001B3L;
+        }
+        return hash ^ (hash >>> 32);
+    }
+
+    /**
+     * Checks whether a range of tokens has the same types and source text as a range of tokens in another stream.
+     * Whitespace and comments between tokens are ignored, the same as {@link #fingerprint(int, int, long)}.
+     *
+     * @param start      The index of the first token
+     * @param end        The index after the last token
+     * @param other      The stream to compare with
+     * @param otherStart The index of the first token in the other stream
+     * @param otherEnd   The index after the last token in the other stream
+     * @return Whether both ranges contain the same tokens
+     */
+    public boolean rangeEquals(int start, int end, GlslTokenStream other, int otherStart, int otherEnd) {
+        if (end - start != otherEnd - otherStart) {
+            return false;
+        }
+        for (int i = start, j = otherStart; i < end; i++, j++) {
+            if ((this.types[i] & TYPE_MASK) != (other.types[j] & TYPE_MASK)) {
+                return false;
+            }
+            int tokenStart = this.getStart(i);
+            int otherTokenStart = other.getStart(j);
+            int length = this.getEnd(i) - tokenStart;
+            if (length != other.getEnd(j) - otherTokenStart) {
+                return false;
+            }
+            for (int k = 0; k < length; k++) {
+                if (this.source.charAt(tokenStart + k) != other.source.charAt(otherTokenStart + k)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean hasConstant(int index) {
+        return (this.types[index] & CONSTANT_FLAG) != 0;
+    }
+
+    /**
+     * Retrieves the value of an integer constant. Signed and unsigned constants are both returned as the raw 32 bits.
+     *
+     * @param index The index of the token
+     * @return The integer value
+     * @throws NumberFormatException If the constant does not fit in 32 bits
+     */
+    public int getIntConstant(int index) {
+        if (this.hasConstant(index)) {
+            return (int) this.constants[index];
+        }
+        return Integer.parseUnsignedInt(this.getValue(index), GlslNumberConstantParser.getRadix(this.getType(index)));
+    }
+
+    /**
+     * @param index The index of the token
+     * @return The value of the float constant
+     */
+    public float getFloatConstant(int index) {
+        if (this.hasConstant(index)) {
+            return Float.intBitsToFloat((int) this.constants[index]);
+        }
+        return Float.parseFloat(this.getValue(index));
+    }
+
+    /**
+     * @param index The index of the token
+     * @return The value of the double constant
+     */
+    public double getDoubleConstant(int index) {
+        if (this.hasConstant(index)) {
+            return Double.longBitsToDouble(this.constants[index]);
+        }
+        return Double.parseDouble(this.getValue(index));
+    }
+
+    public GlslLexer.Token getToken(int index) {
+        return new GlslLexer.Token(this.getType(index), this.getValue(index));
+    }
+
+    /**
+     * Finds the first token that starts at or after the specified source position.
+     *
+     * @param position The position in the source
+     * @return The index of the token or {@link #size()} if all tokens start before the position
+     */
+    public int findToken(int position) {
+        int low = 0;
+        int high = this.size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (this.offsets[middle * 2] < position) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return The number of comments in the source
+     */
+    public int getCommentCount() {
+        return this.commentCount;
+    }
+
+    public GlslLexer.TokenType getCommentType(int comment) {
+        return TYPES[this.comments[comment * 4]];
+    }
+
+    public int getCommentStart(int comment) {
+        return this.comments[comment * 4 + 1];
+    }
+
+    public int getCommentEnd(int comment) {
+        return this.comments[comment * 4 + 2];
+    }
+
+    /**
+     * @param comment The index of the comment
+     * @return The number of tokens before the specified comment
+     */
+    public int getCommentTokenIndex(int comment) {
+        return this.comments[comment * 4 + 3];
+    }
+
+    public GlslLexer.Token getComment(int comment) {
+        return new GlslLexer.Token(this.getCommentType(comment), this.source.subSequence(this.getCommentStart(comment), this.getCommentEnd(comment)).toString());
+    }
+
+    /**
+     * Finds the first comment that starts at or after the specified source position.
+     *
+     * @param position The position in the source
+     * @return The index of the comment or {@link #getCommentCount()} if all comments start before the position
+     */
+    public int findComment(int position) {
+        int low = 0;
+        int high = this.commentCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (this.comments[middle * 4 + 1] < position) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return All tokens in this stream as token objects
+     */
+    public GlslLexer.Token[] toArray() {
+        GlslLexer.Token[] tokens = new GlslLexer.Token[this.size];
+        for (int i = 0; i < this.size; i++) {
+            tokens[i] = this.getToken(i);
+        }
+        return tokens;
+    }
+
+    @Override
+    public String toString() {
+        return "GlslTokenStream{size=" + this.size + "}";
+    }
+
+    /**
+     * Incrementally builds a token stream.
+     */
+    public static final class Builder {
+
+        private int size;
+        private int[] types;
+        private int[] offsets;
+        private String[] values;
+        private long[] constants;
+        private int commentCount;
+        private int[] comments;
+
+        public Builder() {
+            this(64);
+        }
+
+        public Builder(int capacity) {
+            capacity = Math.max(capacity, 1);
+            this.types = new int[capacity];
+            this.offsets = new int[capacity * 2];
+            this.values = new String[capacity];
+            this.comments = new int[16];
+        }
+
+        /**
+         * Adds a token to the end of the stream.
+         *
+         * @param type  The type of token
+         * @param start The first character of the token in the source
+         * @param end   The character after the last character of the token in the source
+         * @param value The value of the token or <code>null</code> to create it from the source when needed
+         */
+        public void add(GlslLexer.TokenType type, int start, int end, @Nullable String value) {
+            if (this.size >= this.types.length) {
+                this.grow();
+            }
+
+            this.types[this.size] = type.ordinal();
+            this.offsets[this.size * 2] = start;
+            this.offsets[this.size * 2 + 1] = end;
+            this.values[this.size] = value;
+            this.size++;
+        }
+
+        /**
+         * Adds a number constant with an already decoded value to the end of the stream.
+         *
+         * @param type  The type of number constant
+         * @param start The first character of the token in the source
+         * @param end   The character after the last character of the token in the source
+         * @param value The value from {@link GlslNumberConstantParser#getValue()}
+         */
+        public void addConstant(GlslLexer.TokenType type, int start, int end, long value) {
+            this.add(type, start, end, null);
+            if (value != GlslNumberConstantParser.INVALID) {
+                this.setConstant(this.size - 1, value);
+            }
+        }
+
+        private void setConstant(int index, long value) {
+            if (this.constants == null) {
+                this.constants = new long[this.types.length];
+            }
+            this.types[index] |= CONSTANT_FLAG;
+            this.constants[index] = value;
+        }
+
+        /**
+         * Adds a comment after the last added token.
+         *
+         * @param type  The type of comment
+         * @param start The first character of the comment in the source
+         * @param end   The character after the last character of the comment in the source
+         */
+        public void addComment(GlslLexer.TokenType type, int start, int end) {
+            this.addComment(type, start, end, this.size);
+        }
+
+        private void addComment(GlslLexer.TokenType type, int start, int end, int tokenIndex) {
+            if (this.commentCount * 4 >= this.comments.length) {
+                this.comments = Arrays.copyOf(this.comments, this.comments.length * 2);
+            }
+
+            int index = this.commentCount * 4;
+            this.comments[index] = type.ordinal();
+            this.comments[index + 1] = start;
+            this.comments[index + 2] = end;
+            this.comments[index + 3] = tokenIndex;
+            this.commentCount++;
+        }
+
+        /**
+         * Copies all tokens and comments that start in a range of the source of another stream.
+         *
+         * @param stream The stream to copy from
+         * @param start  The first source position to copy
+         * @param end    The source position after the last position to copy
+         * @param shift  The amount to move the source offsets by
+         */
+        public void addAll(GlslTokenStream stream, int start, int end, int shift) {
+            int firstToken = stream.findToken(start);
+            int lastToken = stream.findToken(end);
+            int firstComment = stream.findComment(start);
+            int lastComment = stream.findComment(end);
+            int base = this.size;
+
+            for (int i = firstToken; i < lastToken; i++) {
+                if (this.size >= this.types.length) {
+                    this.grow();
+                }
+                this.types[this.size] = stream.types[i];
+                this.offsets[this.size * 2] = stream.offsets[i * 2] + shift;
+                this.offsets[this.size * 2 + 1] = stream.offsets[i * 2 + 1] + shift;
+                this.values[this.size] = stream.values[i];
+                if (stream.hasConstant(i)) {
+                    this.setConstant(this.size, stream.constants[i]);
+                }
+                this.size++;
+            }
+
+            for (int i = firstComment; i < lastComment; i++) {
+                this.addComment(stream.getCommentType(i), stream.getCommentStart(i) + shift, stream.getCommentEnd(i) + shift, stream.getCommentTokenIndex(i) - firstToken + base);
+            }
+        }
+
+        private void grow() {
+            int capacity = this.types.length * 2;
+            this.types = Arrays.copyOf(this.types, capacity);
+            this.offsets = Arrays.copyOf(this.offsets, capacity * 2);
+            this.values = Arrays.copyOf(this.values, capacity);
+            if (this.constants != null) {
+                this.constants = Arrays.copyOf(this.constants, capacity);
+            }
+        }
+
+        /**
+         * Removes all tokens and comments while keeping the arrays for the next tokens. Streams built before are backed
+         * by the same arrays, so they must no longer be used.
+         */
+        public void reset() {
+            Arrays.fill(this.values, 0, this.size, null);
+            this.size = 0;
+            this.commentCount = 0;
+        }
+
+        /**
+         * @return The number of tokens added so far
+         */
+        public int size() {
+            return this.size;
+        }
+
+        public GlslTokenStream build(CharSequence source) {
+            return new GlslTokenStream(source, this.size, this.types, this.offsets, this.values, this.constants, this.commentCount, this.comments);
+        }
+    }
+}
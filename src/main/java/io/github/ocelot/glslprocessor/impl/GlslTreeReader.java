@@ -0,0 +1,387 @@
+package io.github.ocelot.glslprocessor.impl;
+
+import io.github.ocelot.glslprocessor.api.GlslIdentifierPool;
+import io.github.ocelot.glslprocessor.api.grammar.*;
+import io.github.ocelot.glslprocessor.api.node.GlslCompoundNode;
+import io.github.ocelot.glslprocessor.api.node.GlslEmptyNode;
+import io.github.ocelot.glslprocessor.api.node.GlslNode;
+import io.github.ocelot.glslprocessor.api.node.GlslNodeType;
+import io.github.ocelot.glslprocessor.api.node.GlslTree;
+import io.github.ocelot.glslprocessor.api.node.branch.*;
+import io.github.ocelot.glslprocessor.api.node.constant.*;
+import io.github.ocelot.glslprocessor.api.node.expression.*;
+import io.github.ocelot.glslprocessor.api.node.function.GlslFunctionNode;
+import io.github.ocelot.glslprocessor.api.node.function.GlslInvokeFunctionNode;
+import io.github.ocelot.glslprocessor.api.node.function.GlslPrimitiveConstructorNode;
+import io.github.ocelot.glslprocessor.api.node.variable.*;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static io.github.ocelot.glslprocessor.impl.GlslTreeWriter.*;
+
+/**
+ * Reads trees from the binary format written by {@link GlslTreeWriter}.
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public final class GlslTreeReader {
+
+    private static final GlslNodeType[] NODE_TYPES = GlslNodeType.values();
+    private static final GlslBitwiseNode.Operand[] BITWISE_OPERANDS = new GlslBitwiseNode.Operand[NODE_TYPES.length];
+    private static final GlslWhileLoopNode.Type[] LOOP_TYPES = GlslWhileLoopNode.Type.values();
+    private static final GlslAssignmentNode.Operand[] ASSIGNMENT_OPERANDS = GlslAssignmentNode.Operand.values();
+    private static final GlslOperationNode.Operand[] OPERATION_OPERANDS = GlslOperationNode.Operand.values();
+    private static final GlslCompareNode.Operand[] COMPARE_OPERANDS = GlslCompareNode.Operand.values();
+    private static final GlslUnaryNode.Operand[] UNARY_OPERANDS = GlslUnaryNode.Operand.values();
+    private static final GlslIntFormat[] INT_FORMATS = GlslIntFormat.values();
+    private static final GlslTypeSpecifier.BuiltinType[] BUILTIN_TYPES = GlslTypeSpecifier.BuiltinType.values();
+    private static final GlslTypeQualifier.StorageType[] STORAGE_TYPES = GlslTypeQualifier.StorageType.values();
+    private static final GlslTypeQualifier.Precision[] PRECISIONS = GlslTypeQualifier.Precision.values();
+    private static final GlslTypeQualifier.Interpolation[] INTERPOLATIONS = GlslTypeQualifier.Interpolation.values();
+
+    static {
+        for (GlslBitwiseNode.Operand operand : GlslBitwiseNode.Operand.values()) {
+            BITWISE_OPERANDS[operand.getNodeType().ordinal()] = operand;
+        }
+    }
+
+    private final byte[] data;
+    private final int end;
+    private int cursor;
+    private String[] strings;
+    private final Map<Integer, List<String>> markerIds;
+    private final Map<String, GlslNode> markers;
+    private int nodeCount;
+
+    private GlslTreeReader(byte[] data, int offset, int length) {
+        this.data = data;
+        this.end = offset + length;
+        this.cursor = offset;
+        this.strings = new String[0];
+        this.markerIds = new HashMap<>();
+        this.markers = new HashMap<>();
+    }
+
+    /**
+     * Reads a tree written by {@link GlslTreeWriter#write(GlslTree)}.
+     *
+     * @param data           The data to read
+     * @param offset         The index of the first byte of the tree
+     * @param length         The number of bytes to read
+     * @param identifierPool The pool to deduplicate names with or <code>null</code> to not share names
+     * @return The tree read from the data
+     * @throws IOException If the data is not a serialized tree or was written with a different version of the format
+     */
+    public static GlslTree read(byte[] data, int offset, int length, @Nullable GlslIdentifierPool identifierPool) throws IOException {
+        Objects.checkFromIndexSize(offset, length, data.length);
+        GlslTreeReader reader = new GlslTreeReader(data, offset, length);
+        reader.readHeader(identifierPool);
+        GlslTree tree = reader.readTree();
+        if (reader.cursor != reader.end) {
+            throw new IOException("Unexpected data after tree: " + (reader.end - reader.cursor) + " bytes");
+        }
+        return tree;
+    }
+
+    private void readHeader(@Nullable GlslIdentifierPool identifierPool) throws IOException {
+        int magic = this.readInt();
+        if (magic != MAGIC) {
+            throw new IOException("Not a serialized GLSL tree");
+        }
+        int version = this.readVarInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported format version: " + version + ", expected " + VERSION);
+        }
+
+        this.strings = new String[this.readCount()];
+        for (int i = 0; i < this.strings.length; i++) {
+            int length = this.readCount();
+            this.require(length);
+            String value = new String(this.data, this.cursor, length, StandardCharsets.UTF_8);
+            this.strings[i] = identifierPool != null ? identifierPool.intern(value) : value;
+            this.cursor += length;
+        }
+
+        int markerCount = this.readCount();
+        for (int i = 0; i < markerCount; i++) {
+            String name = this.readNonNullString();
+            this.markerIds.computeIfAbsent(this.readVarInt(), unused -> new ArrayList<>(1)).add(name);
+        }
+    }
+
+    private GlslTree readTree() throws IOException {
+        GlslVersionStatement version = new GlslVersionStatement(this.readVarInt(), this.readBoolean());
+
+        int directiveCount = this.readCount();
+        List<String> directives = new ArrayList<>(directiveCount);
+        for (int i = 0; i < directiveCount; i++) {
+            directives.add(this.readNonNullString());
+        }
+
+        int macroCount = this.readCount();
+        Map<String, String> macros = new HashMap<>();
+        for (int i = 0; i < macroCount; i++) {
+            macros.put(this.readNonNullString(), this.readNonNullString());
+        }
+
+        List<GlslNode> body = this.readNodes();
+        GlslTree tree = new GlslTree(version, body, directives, this.markers);
+        tree.getMacros().putAll(macros);
+        return tree;
+    }
+
+    private void require(int bytes) throws IOException {
+        if (bytes > this.end - this.cursor) {
+            throw new IOException("Unexpected end of data");
+        }
+    }
+
+    private boolean readBoolean() throws IOException {
+        this.require(1);
+        return this.data[this.cursor++] != 0;
+    }
+
+    private int readVarInt() throws IOException {
+        // Most tags, counts and indices fit in a single byte
+        if (this.cursor < this.end) {
+            byte b = this.data[this.cursor];
+            if (b >= 0) {
+                this.cursor++;
+                return b;
+            }
+        }
+
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            this.require(1);
+            byte b = this.data[this.cursor++];
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Variable length integer is too long");
+    }
+
+    private int readSignedVarInt() throws IOException {
+        int value = this.readVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private int readCount() throws IOException {
+        int count = this.readVarInt();
+        // Every element takes at least one byte, so this also rejects counts that would allocate too much
+        if (count < 0 || count > this.end - this.cursor) {
+            throw new IOException("Invalid count: " + count);
+        }
+        return count;
+    }
+
+    private int readInt() throws IOException {
+        this.require(4);
+        int value = (this.data[this.cursor] & 0xFF) << 24 |
+                (this.data[this.cursor + 1] & 0xFF) << 16 |
+                (this.data[this.cursor + 2] & 0xFF) << 8 |
+                (this.data[this.cursor + 3] & 0xFF);
+        this.cursor += 4;
+        return value;
+    }
+
+    private long readLong() throws IOException {
+        return (long) this.readInt() << 32 | (this.readInt() & 0xFFFFFFFFL);
+    }
+
+    private @Nullable String readString() throws IOException {
+        int index = this.readVarInt();
+        if (index == 0) {
+            return null;
+        }
+        if (index < 0 || index > this.strings.length) {
+            throw new IOException("Invalid string index: " + (index - 1));
+        }
+        return this.strings[index - 1];
+    }
+
+    private String readNonNullString() throws IOException {
+        String value = this.readString();
+        if (value == null) {
+            throw new IOException("Expected string");
+        }
+        return value;
+    }
+
+    private static <T> T ordinal(T[] values, int ordinal, String name) throws IOException {
+        if (ordinal < 0 || ordinal >= values.length || values[ordinal] == null) {
+            throw new IOException("Invalid " + name + ": " + ordinal);
+        }
+        return values[ordinal];
+    }
+
+    private List<GlslNode> readNodes() throws IOException {
+        int count = this.readCount();
+        List<GlslNode> nodes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            nodes.add(this.readNonNullNode());
+        }
+        return nodes;
+    }
+
+    private GlslNode readNonNullNode() throws IOException {
+        GlslNode node = this.readNode();
+        if (node == null) {
+            throw new IOException("Expected node");
+        }
+        return node;
+    }
+
+    private @Nullable GlslNode readNode() throws IOException {
+        int tag = this.readVarInt();
+        if (tag == NULL_TAG) {
+            return null;
+        }
+
+        // Ids are assigned before children are read to match the order they were written in
+        int id = this.nodeCount++;
+        GlslNode node = this.readNode(tag);
+        if (!this.markerIds.isEmpty()) {
+            List<String> names = this.markerIds.remove(id);
+            if (names != null) {
+                for (String name : names) {
+                    this.markers.put(name, node);
+                }
+            }
+        }
+        return node;
+    }
+
+    private GlslNode readNode(int tag) throws IOException {
+        if (tag == EMPTY_TAG) {
+            return GlslEmptyNode.INSTANCE;
+        }
+        if (tag == COMPOUND_TAG) {
+            return new GlslCompoundNode(this.readNodes());
+        }
+
+        GlslNodeType type = ordinal(NODE_TYPES, tag - NODE_TAG_OFFSET, "node tag");
+        return switch (type) {
+            case FOR_LOOP -> new GlslForLoopNode(this.readNonNullNode(), this.readNonNullNode(), this.readNode(), this.readNodes());
+            case WHILE_LOOP -> new GlslWhileLoopNode(this.readNonNullNode(), this.readNodes(), ordinal(LOOP_TYPES, this.readVarInt(), "loop type"));
+            case CONTINUE -> GlslJumpNode.CONTINUE;
+            case BREAK -> GlslJumpNode.BREAK;
+            case DISCARD -> GlslJumpNode.DISCARD;
+            case RETURN -> new GlslReturnNode(this.readNode());
+            case IF_ELSE -> new GlslIfNode(this.readNonNullNode(), this.readNodes(), this.readNodes());
+            case SWITCH -> new GlslSwitchNode(this.readNonNullNode(), this.readNodes());
+            case CASE_LABEL -> new GlslCaseLabelNode(this.readNode());
+            case AND, OR, XOR, LOGICAL_AND, LOGICAL_OR, LOGICAL_XOR -> new GlslBitwiseNode(this.readNodes(), BITWISE_OPERANDS[type.ordinal()]);
+            case ASSIGN -> new GlslAssignmentNode(this.readNonNullNode(), this.readNonNullNode(), ordinal(ASSIGNMENT_OPERANDS, this.readVarInt(), "assignment operand"));
+            case OPERATION -> new GlslOperationNode(this.readNonNullNode(), this.readNonNullNode(), ordinal(OPERATION_OPERANDS, this.readVarInt(), "operation operand"));
+            case COMPARE -> new GlslCompareNode(this.readNonNullNode(), this.readNonNullNode(), ordinal(COMPARE_OPERANDS, this.readVarInt(), "compare operand"));
+            case CONDITIONAL -> new GlslConditionalNode(this.readNonNullNode(), this.readNonNullNode(), this.readNonNullNode());
+            case PRECISION -> new GlslPrecisionNode(ordinal(PRECISIONS, this.readVarInt(), "precision"), this.readSpecifier());
+            case UNARY -> new GlslUnaryNode(this.readNonNullNode(), ordinal(UNARY_OPERANDS, this.readVarInt(), "unary operand"));
+            case FUNCTION -> {
+                String name = this.readNonNullString();
+                GlslSpecifiedType returnType = this.readSpecifiedType();
+                int parameterCount = this.readCount();
+                List<GlslParameterDeclaration> parameters = new ArrayList<>(parameterCount);
+                for (int i = 0; i < parameterCount; i++) {
+                    parameters.add(new GlslParameterDeclaration(this.readSpecifiedType(), this.readString()));
+                }
+                yield new GlslFunctionNode(new GlslFunctionHeader(name, returnType, parameters), this.readBoolean() ? this.readNodes() : null);
+            }
+            case INVOKE_FUNCTION -> new GlslInvokeFunctionNode(this.readNonNullNode(), this.readNodes());
+            case PRIMITIVE_CONSTRUCTOR -> new GlslPrimitiveConstructorNode(this.readSpecifier());
+            case DOUBLE_CONSTANT -> new GlslDoubleConstantNode(Double.longBitsToDouble(this.readLong()));
+            case FLOAT_CONSTANT -> new GlslFloatConstantNode(Float.intBitsToFloat(this.readInt()));
+            case INT_CONSTANT -> new GlslIntConstantNode(ordinal(INT_FORMATS, this.readVarInt(), "int format"), this.readBoolean(), this.readSignedVarInt());
+            case BOOL_CONSTANT -> new GlslBoolConstantNode(this.readBoolean());
+            case VARIABLE_DECLARATION -> {
+                List<GlslTypeQualifier> qualifiers = this.readQualifiers();
+                int nameCount = this.readCount();
+                List<String> names = new ArrayList<>(nameCount);
+                for (int i = 0; i < nameCount; i++) {
+                    names.add(this.readNonNullString());
+                }
+                yield new GlslVariableDeclarationNode(qualifiers, names);
+            }
+            case GET_ARRAY -> new GlslGetArrayNode(this.readNonNullNode(), this.readNonNullNode());
+            case GET_FIELD -> new GlslGetFieldNode(this.readNonNullNode(), this.readNonNullString());
+            case NEW_FIELD -> new GlslNewFieldNode(this.readSpecifiedType(), this.readString(), this.readNode());
+            case STRUCT_DECLARATION -> {
+                GlslSpecifiedType specifiedType = this.readSpecifiedType();
+                if (!specifiedType.getSpecifier().isStruct()) {
+                    throw new IOException("Struct declaration is not a struct");
+                }
+                yield new GlslStructDeclarationNode(specifiedType);
+            }
+            case VARIABLE -> new GlslVariableNode(this.readNonNullString());
+        };
+    }
+
+    private GlslSpecifiedType readSpecifiedType() throws IOException {
+        GlslTypeSpecifier specifier = this.readSpecifier();
+        List<GlslTypeQualifier> qualifiers = this.readQualifiers();
+        // Most types have no qualifiers, so don't make the type copy an empty list
+        return qualifiers.isEmpty() ? new GlslSpecifiedType(specifier) : new GlslSpecifiedType(specifier, qualifiers);
+    }
+
+    private GlslTypeSpecifier readSpecifier() throws IOException {
+        int tag = this.readVarInt();
+        return switch (tag) {
+            case BUILTIN_SPECIFIER -> ordinal(BUILTIN_TYPES, this.readVarInt(), "builtin type");
+            case NAMED_SPECIFIER -> GlslTypeSpecifier.named(this.readNonNullString());
+            case ARRAY_SPECIFIER -> GlslTypeSpecifier.array(this.readSpecifier(), this.readNode());
+            case STRUCT_SPECIFIER -> {
+                String name = this.readString();
+                int fieldCount = this.readCount();
+                List<GlslStructField> fields = new ArrayList<>(fieldCount);
+                for (int i = 0; i < fieldCount; i++) {
+                    fields.add(new GlslStructField(this.readSpecifiedType(), this.readString()));
+                }
+                yield GlslTypeSpecifier.struct(name, fields);
+            }
+            default -> throw new IOException("Invalid type specifier tag: " + tag);
+        };
+    }
+
+    private List<GlslTypeQualifier> readQualifiers() throws IOException {
+        int count = this.readCount();
+        if (count == 0) {
+            return Collections.emptyList();
+        }
+        List<GlslTypeQualifier> qualifiers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int tag = this.readVarInt();
+            qualifiers.add(switch (tag) {
+                case STORAGE_SUBROUTINE_QUALIFIER -> {
+                    String[] typeNames = new String[this.readCount()];
+                    for (int j = 0; j < typeNames.length; j++) {
+                        typeNames[j] = this.readNonNullString();
+                    }
+                    yield GlslTypeQualifier.storage(typeNames);
+                }
+                case LAYOUT_QUALIFIER -> {
+                    int idCount = this.readCount();
+                    List<GlslTypeQualifier.LayoutId> layoutIds = new ArrayList<>(idCount);
+                    for (int j = 0; j < idCount; j++) {
+                        layoutIds.add(GlslTypeQualifier.layoutId(this.readNonNullString(), this.readNode()));
+                    }
+                    yield GlslTypeQualifier.layout(layoutIds);
+                }
+                case STORAGE_QUALIFIER -> ordinal(STORAGE_TYPES, this.readVarInt(), "storage type");
+                case PRECISION_QUALIFIER -> ordinal(PRECISIONS, this.readVarInt(), "precision");
+                case INTERPOLATION_QUALIFIER -> ordinal(INTERPOLATIONS, this.readVarInt(), "interpolation");
+                case INVARIANT_QUALIFIER -> GlslTypeQualifier.Invariant.INVARIANT;
+                case PRECISE_QUALIFIER -> GlslTypeQualifier.Precise.PRECISE;
+                default -> throw new IOException("Invalid type qualifier tag: " + tag);
+            });
+        }
+        return qualifiers;
+    }
+}
@@ -0,0 +1,491 @@
+package io.github.ocelot.glslprocessor.impl;
+
+import io.github.ocelot.glslprocessor.api.grammar.*;
+import io.github.ocelot.glslprocessor.api.node.GlslCompoundNode;
+import io.github.ocelot.glslprocessor.api.node.GlslEmptyNode;
+import io.github.ocelot.glslprocessor.api.node.GlslNode;
+import io.github.ocelot.glslprocessor.api.node.GlslNodeType;
+import io.github.ocelot.glslprocessor.api.node.GlslTree;
+import io.github.ocelot.glslprocessor.api.node.branch.*;
+import io.github.ocelot.glslprocessor.api.node.constant.GlslBoolConstantNode;
+import io.github.ocelot.glslprocessor.api.node.constant.GlslDoubleConstantNode;
+import io.github.ocelot.glslprocessor.api.node.constant.GlslFloatConstantNode;
+import io.github.ocelot.glslprocessor.api.node.constant.GlslIntConstantNode;
+import io.github.ocelot.glslprocessor.api.node.expression.*;
+import io.github.ocelot.glslprocessor.api.node.function.GlslFunctionNode;
+import io.github.ocelot.glslprocessor.api.node.function.GlslInvokeFunctionNode;
+import io.github.ocelot.glslprocessor.api.node.function.GlslPrimitiveConstructorNode;
+import io.github.ocelot.glslprocessor.api.node.variable.*;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Writes trees into the binary format read by {@link GlslTreeReader}.
+ * <p>
+ * The data starts with {@link #MAGIC} and {@link #VERSION}, followed by a table of every string in the tree, the
+ * markers and finally the tree itself. Strings are referred to by their index in the table and nodes start with a tag
+ * that is the ordinal of their {@link GlslNodeType}. All counts, indices and
+ * integers are written as variable length integers, so most of them only take a single byte.
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public final class GlslTreeWriter {
+
+    /**
+     * The bytes every serialized tree starts with, <code>GLSL</code> in ASCII.
+     */
+    public static final int MAGIC = 0x474C534C;
+    /**
+     * The version of the format. This is increased whenever the format changes, and data written with a different
+     * version can't be read.
+     */
+    public static final int VERSION = 1;
+
+    static final int NULL_TAG = 0;
+    static final int EMPTY_TAG = 1;
+    static final int COMPOUND_TAG = 2;
+    static final int NODE_TAG_OFFSET = 3;
+
+    static final int BUILTIN_SPECIFIER = 0;
+    static final int NAMED_SPECIFIER = 1;
+    static final int ARRAY_SPECIFIER = 2;
+    static final int STRUCT_SPECIFIER = 3;
+
+    static final int STORAGE_SUBROUTINE_QUALIFIER = 0;
+    static final int LAYOUT_QUALIFIER = 1;
+    static final int STORAGE_QUALIFIER = 2;
+    static final int PRECISION_QUALIFIER = 3;
+    static final int INTERPOLATION_QUALIFIER = 4;
+    static final int INVARIANT_QUALIFIER = 5;
+    static final int PRECISE_QUALIFIER = 6;
+
+    private final Buffer data;
+    private final Buffer markers;
+    private final StringTable strings;
+    private final Map<GlslNode, List<String>> markedNodes;
+    private int markerCount;
+    private int nodeCount;
+
+    private GlslTreeWriter(Map<String, GlslNode> markers) {
+        this.data = new Buffer(1024);
+        this.markers = new Buffer(16);
+        this.strings = new StringTable();
+        this.markedNodes = new IdentityHashMap<>();
+        for (Map.Entry<String, GlslNode> entry : markers.entrySet()) {
+            this.markedNodes.computeIfAbsent(entry.getValue(), unused -> new ArrayList<>(1)).add(entry.getKey());
+        }
+    }
+
+    /**
+     * Writes the specified tree into a new byte array. Lazy function bodies are parsed so they can be written.
+     *
+     * @param tree The tree to write
+     * @return The serialized tree
+     */
+    public static byte[] write(GlslTree tree) {
+        GlslTreeWriter writer = new GlslTreeWriter(tree.getMarkers());
+        writer.writeTree(tree);
+        return writer.toByteArray();
+    }
+
+    private byte[] toByteArray() {
+        Buffer header = new Buffer(256 + this.markers.size);
+        header.writeInt(MAGIC);
+        header.writeVarInt(VERSION);
+        header.writeVarInt(this.strings.size);
+        for (int i = 0; i < this.strings.size; i++) {
+            byte[] bytes = this.strings.values[i].getBytes(StandardCharsets.UTF_8);
+            header.writeVarInt(bytes.length);
+            header.writeBytes(bytes, bytes.length);
+        }
+        header.writeVarInt(this.markerCount);
+        header.writeBytes(this.markers.data, this.markers.size);
+
+        byte[] result = Arrays.copyOf(header.data, header.size + this.data.size);
+        System.arraycopy(this.data.data, 0, result, header.size, this.data.size);
+        return result;
+    }
+
+    private void writeTree(GlslTree tree) {
+        GlslVersionStatement version = tree.getVersionStatement();
+        this.data.writeVarInt(version.getVersion());
+        this.data.writeBoolean(version.isCore());
+
+        List<String> directives = tree.getDirectives();
+        this.data.writeVarInt(directives.size());
+        for (String directive : directives) {
+            this.writeString(directive);
+        }
+
+        Map<String, String> macros = tree.getMacros();
+        this.data.writeVarInt(macros.size());
+        for (Map.Entry<String, String> entry : macros.entrySet()) {
+            this.writeString(entry.getKey());
+            this.writeString(entry.getValue());
+        }
+
+        this.writeNodes(tree.getBody());
+    }
+
+    private void writeString(@Nullable String value) {
+        if (value == null) {
+            this.data.writeVarInt(0);
+            return;
+        }
+
+        // Zero is reserved for null
+        this.data.writeVarInt(this.strings.indexOf(value) + 1);
+    }
+
+    private void writeNodes(List<GlslNode> nodes) {
+        int size = nodes.size();
+        this.data.writeVarInt(size);
+        // Node lists are all random access, so this avoids creating an iterator for every list
+        for (int i = 0; i < size; i++) {
+            this.writeNode(nodes.get(i));
+        }
+    }
+
+    private void writeNode(@Nullable GlslNode node) {
+        if (node == null) {
+            this.data.writeVarInt(NULL_TAG);
+            return;
+        }
+
+        // Nodes are numbered in the order they are written so markers can refer to them
+        int id = this.nodeCount++;
+        if (!this.markedNodes.isEmpty()) {
+            List<String> names = this.markedNodes.get(node);
+            if (names != null) {
+                for (String name : names) {
+                    this.markers.writeVarInt(this.strings.indexOf(name) + 1);
+                    this.markers.writeVarInt(id);
+                    this.markerCount++;
+                }
+            }
+        }
+
+        if (node instanceof GlslEmptyNode) {
+            this.data.writeVarInt(EMPTY_TAG);
+            return;
+        }
+        if (node instanceof GlslCompoundNode compoundNode) {
+            this.data.writeVarInt(COMPOUND_TAG);
+            this.writeNodes(compoundNode.toList());
+            return;
+        }
+
+        GlslNodeType type = node.getNodeType();
+        this.data.writeVarInt(NODE_TAG_OFFSET + type.ordinal());
+        switch (type) {
+            case FOR_LOOP -> {
+                GlslForLoopNode forLoop = (GlslForLoopNode) node;
+                this.writeNode(forLoop.getInit());
+                this.writeNode(forLoop.getCondition());
+                this.writeNode(forLoop.getIncrement());
+                this.writeNodes(forLoop.getBody());
+            }
+            case WHILE_LOOP -> {
+                GlslWhileLoopNode whileLoop = (GlslWhileLoopNode) node;
+                this.writeNode(whileLoop.getCondition());
+                this.writeNodes(whileLoop.getBody());
+                this.data.writeVarInt(whileLoop.getLoopType().ordinal());
+            }
+            case CONTINUE, BREAK, DISCARD -> {
+            }
+            case RETURN -> this.writeNode(((GlslReturnNode) node).getValue());
+            case IF_ELSE -> {
+                GlslIfNode ifNode = (GlslIfNode) node;
+                this.writeNode(ifNode.getExpression());
+                this.writeNodes(ifNode.getFirst());
+                this.writeNodes(ifNode.getSecond());
+            }
+            case SWITCH -> {
+                GlslSwitchNode switchNode = (GlslSwitchNode) node;
+                this.writeNode(switchNode.getCondition());
+                this.writeNodes(switchNode.getBranches());
+            }
+            case CASE_LABEL -> this.writeNode(((GlslCaseLabelNode) node).getCondition());
+            // The operand is stored in the node type
+            case AND, OR, XOR, LOGICAL_AND, LOGICAL_OR, LOGICAL_XOR -> this.writeNodes(((GlslBitwiseNode) node).getExpressions());
+            case ASSIGN -> {
+                GlslAssignmentNode assignment = (GlslAssignmentNode) node;
+                this.writeNode(assignment.getFirst());
+                this.writeNode(assignment.getSecond());
+                this.data.writeVarInt(assignment.getOperand().ordinal());
+            }
+            case OPERATION -> {
+                GlslOperationNode operation = (GlslOperationNode) node;
+                this.writeNode(operation.getFirst());
+                this.writeNode(operation.getSecond());
+                this.data.writeVarInt(operation.getOperand().ordinal());
+            }
+            case COMPARE -> {
+                GlslCompareNode compare = (GlslCompareNode) node;
+                this.writeNode(compare.getFirst());
+                this.writeNode(compare.getSecond());
+                this.data.writeVarInt(compare.getOperand().ordinal());
+            }
+            case CONDITIONAL -> {
+                GlslConditionalNode conditional = (GlslConditionalNode) node;
+                this.writeNode(conditional.getCondition());
+                this.writeNode(conditional.getFirst());
+                this.writeNode(conditional.getSecond());
+            }
+            case PRECISION -> {
+                GlslPrecisionNode precision = (GlslPrecisionNode) node;
+                this.data.writeVarInt(precision.getPrecision().ordinal());
+                this.writeSpecifier(precision.getTypeSpecifier());
+            }
+            case UNARY -> {
+                GlslUnaryNode unary = (GlslUnaryNode) node;
+                this.writeNode(unary.getExpression());
+                this.data.writeVarInt(unary.getOperand().ordinal());
+            }
+            case FUNCTION -> {
+                GlslFunctionNode function = (GlslFunctionNode) node;
+                GlslFunctionHeader header = function.getHeader();
+                this.writeString(header.getName());
+                this.writeSpecifiedType(header.getReturnType());
+                List<GlslParameterDeclaration> parameters = header.getParameters();
+                this.data.writeVarInt(parameters.size());
+                for (GlslParameterDeclaration parameter : parameters) {
+                    this.writeSpecifiedType(parameter.getType());
+                    this.writeString(parameter.getName());
+                }
+
+                // Prototypes have no body
+                List<GlslNode> body = function.getBody();
+                this.data.writeBoolean(body != null);
+                if (body != null) {
+                    this.writeNodes(body);
+                }
+            }
+            case INVOKE_FUNCTION -> {
+                GlslInvokeFunctionNode invoke = (GlslInvokeFunctionNode) node;
+                this.writeNode(invoke.getHeader());
+                this.writeNodes(invoke.getParameters());
+            }
+            case PRIMITIVE_CONSTRUCTOR -> this.writeSpecifier(((GlslPrimitiveConstructorNode) node).getPrimitiveType());
+            case DOUBLE_CONSTANT -> this.data.writeLong(Double.doubleToRawLongBits(((GlslDoubleConstantNode) node).doubleValue()));
+            case FLOAT_CONSTANT -> this.data.writeInt(Float.floatToRawIntBits(((GlslFloatConstantNode) node).floatValue()));
+            case INT_CONSTANT -> {
+                GlslIntConstantNode constant = (GlslIntConstantNode) node;
+                this.data.writeVarInt(constant.format().ordinal());
+                this.data.writeBoolean(constant.signed());
+                this.data.writeSignedVarInt(constant.intValue());
+            }
+            case BOOL_CONSTANT -> this.data.writeBoolean(((GlslBoolConstantNode) node).booleanValue());
+            case VARIABLE_DECLARATION -> {
+                GlslVariableDeclarationNode declaration = (GlslVariableDeclarationNode) node;
+                this.writeQualifiers(declaration.getTypeQualifiers());
+                List<String> declarationNames = declaration.getNames();
+                this.data.writeVarInt(declarationNames.size());
+                for (String name : declarationNames) {
+                    this.writeString(name);
+                }
+            }
+            case GET_ARRAY -> {
+                GlslGetArrayNode getArray = (GlslGetArrayNode) node;
+                this.writeNode(getArray.getExpression());
+                this.writeNode(getArray.getIndex());
+            }
+            case GET_FIELD -> {
+                GlslGetFieldNode getField = (GlslGetFieldNode) node;
+                this.writeNode(getField.getExpression());
+                this.writeString(getField.getFieldSelection());
+            }
+            case NEW_FIELD -> {
+                GlslNewFieldNode newField = (GlslNewFieldNode) node;
+                this.writeSpecifiedType(newField.getType());
+                this.writeString(newField.getName());
+                this.writeNode(newField.getInitializer());
+            }
+            case STRUCT_DECLARATION -> this.writeSpecifiedType(((GlslStructDeclarationNode) node).getSpecifiedType());
+            case VARIABLE -> this.writeString(((GlslVariableNode) node).getName());
+        }
+    }
+
+    private void writeSpecifiedType(GlslSpecifiedType type) {
+        this.writeSpecifier(type.getSpecifier());
+        this.writeQualifiers(type.getQualifiers());
+    }
+
+    private void writeSpecifier(GlslTypeSpecifier specifier) {
+        if (specifier instanceof GlslTypeSpecifier.BuiltinType builtinType) {
+            this.data.writeVarInt(BUILTIN_SPECIFIER);
+            this.data.writeVarInt(builtinType.ordinal());
+        } else if (specifier instanceof GlslTypeSpecifier.Name name) {
+            this.data.writeVarInt(NAMED_SPECIFIER);
+            this.writeString(name.getName());
+        } else if (specifier instanceof GlslTypeSpecifier.Array array) {
+            this.data.writeVarInt(ARRAY_SPECIFIER);
+            this.writeSpecifier(array.getSpecifier());
+            this.writeNode(array.getSize());
+        } else if (specifier instanceof GlslStructSpecifier struct) {
+            this.data.writeVarInt(STRUCT_SPECIFIER);
+            this.writeString(struct.getName());
+            List<GlslStructField> fields = struct.getFields();
+            this.data.writeVarInt(fields.size());
+            for (GlslStructField field : fields) {
+                this.writeSpecifiedType(field.getType());
+                this.writeString(field.getName());
+            }
+        }
+    }
+
+    private void writeQualifiers(List<GlslTypeQualifier> qualifiers) {
+        this.data.writeVarInt(qualifiers.size());
+        for (GlslTypeQualifier qualifier : qualifiers) {
+            if (qualifier instanceof GlslTypeQualifier.StorageSubroutine subroutine) {
+                this.data.writeVarInt(STORAGE_SUBROUTINE_QUALIFIER);
+                this.data.writeVarInt(subroutine.typeNames().length);
+                for (String typeName : subroutine.typeNames()) {
+                    this.writeString(typeName);
+                }
+            } else if (qualifier instanceof GlslTypeQualifier.Layout layout) {
+                this.data.writeVarInt(LAYOUT_QUALIFIER);
+                this.data.writeVarInt(layout.layoutIds().size());
+                for (GlslTypeQualifier.LayoutId layoutId : layout.layoutIds()) {
+                    this.writeString(layoutId.identifier());
+                    this.writeNode(layoutId.expression());
+                }
+            } else if (qualifier instanceof GlslTypeQualifier.StorageType storageType) {
+                this.data.writeVarInt(STORAGE_QUALIFIER);
+                this.data.writeVarInt(storageType.ordinal());
+            } else if (qualifier instanceof GlslTypeQualifier.Precision precision) {
+                this.data.writeVarInt(PRECISION_QUALIFIER);
+                this.data.writeVarInt(precision.ordinal());
+            } else if (qualifier instanceof GlslTypeQualifier.Interpolation interpolation) {
+                this.data.writeVarInt(INTERPOLATION_QUALIFIER);
+                this.data.writeVarInt(interpolation.ordinal());
+            } else if (qualifier instanceof GlslTypeQualifier.Invariant) {
+                this.data.writeVarInt(INVARIANT_QUALIFIER);
+            } else if (qualifier instanceof GlslTypeQualifier.Precise) {
+                this.data.writeVarInt(PRECISE_QUALIFIER);
+            }
+        }
+    }
+
+    /**
+     * Assigns every string an index in the order they are first written. This is looked up for every name in the tree,
+     * so it is an open addressing table that compares references first, since most names come from the same pool.
+     */
+    private static final class StringTable {
+
+        private String[] keys;
+        private int[] indices;
+        private String[] values;
+        private int size;
+
+        private StringTable() {
+            this.keys = new String[64];
+            this.indices = new int[64];
+            this.values = new String[32];
+        }
+
+        private static int slot(String value, int mask) {
+            int hash = value.hashCode();
+            return (hash ^ (hash >>> 16)) & mask;
+        }
+
+        private int indexOf(String value) {
+            int mask = this.keys.length - 1;
+            for (int slot = slot(value, mask); ; slot = (slot + 1) & mask) {
+                String key = this.keys[slot];
+                if (key == null) {
+                    break;
+                }
+                if (key == value || key.equals(value)) {
+                    return this.indices[slot];
+                }
+            }
+
+            int index = this.size++;
+            if (index == this.values.length) {
+                this.values = Arrays.copyOf(this.values, index * 2);
+                this.rehash(this.keys.length * 2);
+            }
+            this.values[index] = value;
+            this.insert(value, index);
+            return index;
+        }
+
+        private void insert(String value, int index) {
+            int mask = this.keys.length - 1;
+            int slot = slot(value, mask);
+            while (this.keys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            this.keys[slot] = value;
+            this.indices[slot] = index;
+        }
+
+        private void rehash(int capacity) {
+            // The table is kept at most half full so probes stay short
+            this.keys = new String[capacity];
+            this.indices = new int[capacity];
+            for (int i = 0; i < this.size - 1; i++) {
+                this.insert(this.values[i], i);
+            }
+        }
+    }
+
+    private static final class Buffer {
+
+        private byte[] data;
+        private int size;
+
+        private Buffer(int capacity) {
+            this.data = new byte[capacity];
+        }
+
+        private void ensureCapacity(int bytes) {
+            if (this.size + bytes > this.data.length) {
+                this.data = Arrays.copyOf(this.data, Math.max(this.data.length * 2, this.size + bytes));
+            }
+        }
+
+        private void writeBoolean(boolean value) {
+            this.ensureCapacity(1);
+            this.data[this.size++] = (byte) (value ? 1 : 0);
+        }
+
+        private void writeVarInt(int value) {
+            this.ensureCapacity(5);
+            while ((value & ~0x7F) != 0) {
+                this.data[this.size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            this.data[this.size++] = (byte) value;
+        }
+
+        private void writeSignedVarInt(int value) {
+            // Zig-zag encode so small negative numbers are small too
+            this.writeVarInt((value << 1) ^ (value >> 31));
+        }
+
+        private void writeInt(int value) {
+            this.ensureCapacity(4);
+            this.data[this.size++] = (byte) (value >> 24);
+            this.data[this.size++] = (byte) (value >> 16);
+            this.data[this.size++] = (byte) (value >> 8);
+            this.data[this.size++] = (byte) value;
+        }
+
+        private void writeLong(long value) {
+            this.writeInt((int) (value >> 32));
+            this.writeInt((int) value);
+        }
+
+        private void writeBytes(byte[] bytes, int length) {
+            this.ensureCapacity(length);
+            System.arraycopy(bytes, 0, this.data, this.size, length);
+            this.size += length;
+        }
+    }
+}
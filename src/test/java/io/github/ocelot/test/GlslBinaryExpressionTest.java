@@ -0,0 +1,155 @@
+package io.github.ocelot.test;
+
+import io.github.ocelot.glslprocessor.api.GlslSyntaxException;
+import io.github.ocelot.glslprocessor.api.node.GlslNode;
+import io.github.ocelot.glslprocessor.impl.GlslLexer;
+import io.github.ocelot.glslprocessor.impl.GlslParserImpl;
+import io.github.ocelot.glslprocessor.impl.GlslTokenReader;
+import io.github.ocelot.glslprocessor.impl.GlslTokenStream;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GlslBinaryExpressionTest {
+
+    private static final String[] BINARY_OPERATORS = {
+            "||", "^^", "&&", "|", "^", "&", "==", "!=", "<", ">", "<=", ">=", "<<", ">>", "+", "-", "*", "/", "%"
+    };
+    private static final String[] ASSIGNMENT_OPERATORS = {"=", "+=", "-=", "*=", "/=", "%=", "<<=", ">>=", "&=", "^=", "|="};
+    private static final String[] OPERANDS = {"a", "b", "c", "1", "2u", "0x1F", "1.5", "2.0lf", "true", "gl_Position.x", "v[1]", "i++", "--i", "-a", "!b", "~c"};
+    private static final String[] GARBAGE = {"", ")", "(", ",", "?", ":", "*", "&&", "|", "=", "}", "int", "vec4("};
+
+    private static void appendExpression(StringBuilder builder, Random random, int depth) {
+        int operands = 1 + random.nextInt(5);
+        for (int i = 0; i < operands; i++) {
+            if (i > 0) {
+                builder.append(' ').append(BINARY_OPERATORS[random.nextInt(BINARY_OPERATORS.length)]).append(' ');
+            }
+            int kind = depth > 0 ? random.nextInt(8) : 0;
+            switch (kind) {
+                case 1 -> {
+                    builder.append('(');
+                    appendExpression(builder, random, depth - 1);
+                    builder.append(')');
+                }
+                case 2 -> {
+                    builder.append("max(");
+                    appendExpression(builder, random, depth - 1);
+                    builder.append(", ");
+                    appendExpression(builder, random, depth - 1);
+                    builder.append(')');
+                }
+                case 3 -> {
+                    builder.append('(');
+                    appendExpression(builder, random, depth - 1);
+                    builder.append(" ? ");
+                    appendExpression(builder, random, depth - 1);
+                    builder.append(" : ");
+                    appendExpression(builder, random, depth - 1);
+                    builder.append(')');
+                }
+                case 4 -> {
+                    builder.append("(a ").append(ASSIGNMENT_OPERATORS[random.nextInt(ASSIGNMENT_OPERATORS.length)]).append(' ');
+                    appendExpression(builder, random, depth - 1);
+                    builder.append(')');
+                }
+                default -> builder.append(OPERANDS[random.nextInt(OPERANDS.length)]);
+            }
+        }
+    }
+
+    private static String parse(GlslTokenStream tokens, Function<GlslTokenReader, GlslNode> parser) {
+        GlslTokenReader reader = new GlslTokenReader(tokens);
+        GlslNode node = parser.apply(reader);
+        StringBuilder builder = new StringBuilder();
+        builder.append(node).append(" @ ").append(reader.getCursor());
+        for (GlslSyntaxException error : reader.getErrors()) {
+            builder.append('\n').append(error.getMessage());
+        }
+        return builder.toString();
+    }
+
+    private static void assertSameExpression(String source) throws GlslSyntaxException {
+        GlslTokenStream tokens = GlslLexer.createTokenStream(source);
+        assertEquals(parse(tokens, GlslReferenceExpressionParser::parseLogicalOrExpression), parse(tokens, GlslParserImpl::parseBinaryExpression), source);
+    }
+
+    @Test
+    public void testPrecedence() throws GlslSyntaxException {
+        assertSameExpression("a + b * c - d / e % f");
+        assertSameExpression("a << 1 + 2 >> b");
+        assertSameExpression("a < b == c >= d != e");
+        assertSameExpression("a & b & c ^ d | e | f & g");
+        assertSameExpression("a || b && c || d ^^ e && f");
+        assertSameExpression("a == b & c || d < e && f");
+        assertSameExpression("-a * !b + ~c");
+        assertSameExpression("max(a + b, c) * (d - e) / v[a & 1]");
+    }
+
+    @Test
+    public void testIncomplete() throws GlslSyntaxException {
+        assertSameExpression("");
+        assertSameExpression("a +");
+        assertSameExpression("a &");
+        assertSameExpression("a & b &");
+        assertSameExpression("a & b & ;");
+        assertSameExpression("a + b * ;");
+        assertSameExpression("a || b * ) + c");
+        assertSameExpression("a == b < ; c");
+        assertSameExpression("a * (b + ) - c");
+    }
+
+    @Test
+    public void testRandom() throws GlslSyntaxException {
+        Random random = new Random(0xB1A5);
+        for (int i = 0; i < 5_000; i++) {
+            StringBuilder builder = new StringBuilder();
+            appendExpression(builder, random, 3);
+            if (random.nextInt(3) == 0) {
+                builder.append(' ').append(BINARY_OPERATORS[random.nextInt(BINARY_OPERATORS.length)]);
+            }
+            builder.append(' ').append(GARBAGE[random.nextInt(GARBAGE.length)]);
+            assertSameExpression(builder.toString());
+        }
+    }
+
+    private static void parseAll(GlslTokenStream tokens, Function<GlslTokenReader, GlslNode> parser) {
+        GlslTokenReader reader = new GlslTokenReader(tokens);
+        while (reader.canRead()) {
+            parser.apply(reader);
+            reader.tryConsume(GlslLexer.TokenType.COMMA);
+        }
+    }
+
+    @Test
+    public void testBinarySpeed() throws GlslSyntaxException {
+        Random random = new Random(0x5EED);
+        // Most expressions in shaders only have a few operands, so every level of the rule chain is entered for each one.
+        // Parentheses are left out so the time isn't dominated by backtracking in unary expressions
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 2_000; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            int operands = 1 + random.nextInt(3);
+            for (int j = 0; j < operands; j++) {
+                if (j > 0) {
+                    builder.append(' ').append(BINARY_OPERATORS[random.nextInt(BINARY_OPERATORS.length)]).append(' ');
+                }
+                builder.append(OPERANDS[random.nextInt(OPERANDS.length)]);
+            }
+        }
+        GlslTokenStream tokens = GlslLexer.createTokenStream(builder.toString());
+
+        long chain = GlslTestHelper.measure(200, 20, 10, () -> parseAll(tokens, GlslReferenceExpressionParser::parseLogicalOrExpression));
+        long binary = GlslTestHelper.measure(200, 20, 10, () -> parseAll(tokens, GlslParserImpl::parseBinaryExpression));
+
+        System.out.printf("Took %.3fms with the rule chain and %.3fms with precedence climbing for %d tokens (%.2fx)%n", chain / 1_000_000.0F, binary / 1_000_000.0F, tokens.size(), (double) chain / binary);
+        // Precedence climbing is about 1.3x faster, this only fails when it stops beating the rule chain
+        assertTrue(chain > binary * 1.1, "Precedence climbing is not faster than the rule chain");
+    }
+}
@@ -0,0 +1,147 @@
+package io.github.ocelot.test;
+
+import io.github.ocelot.glslprocessor.api.GlslSyntaxException;
+import io.github.ocelot.glslprocessor.api.grammar.GlslVersionStatement;
+import io.github.ocelot.glslprocessor.api.node.GlslNode;
+import io.github.ocelot.glslprocessor.api.node.GlslTree;
+import io.github.ocelot.glslprocessor.api.node.function.GlslFunctionNode;
+import io.github.ocelot.glslprocessor.api.node.variable.GlslGetArrayNode;
+import io.github.ocelot.glslprocessor.api.node.variable.GlslNewFieldNode;
+import io.github.ocelot.glslprocessor.api.node.variable.GlslVariableNode;
+import io.github.ocelot.glslprocessor.impl.GlslLexer;
+import io.github.ocelot.glslprocessor.impl.GlslParserImpl;
+import io.github.ocelot.glslprocessor.impl.GlslTokenReader;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GlslDeclarationTest {
+
+    private static final String DECLARATIONS = """
+            #version 430 core
+            precision highp float;
+            struct Light { vec3 position; vec3 color; };
+            layout(std140, binding = 0) uniform Lights { Light lights[4]; } lightData;
+            layout(location = 0) in vec3 Position;
+            flat out int Index;
+            uniform float a, b[2], c = 1.0;
+            const int Values[3] = int[3](1, 2, 3);
+            uniform;
+            invariant gl_Position;
+            vec4 shade(in vec3 normal, Light light);
+            float length2(vec3 v) { return dot(v, v); }
+            void empty();
+            void empty() {}
+            int count(int, float);
+            """;
+
+    private static GlslTree parseLegacy(String source) throws GlslSyntaxException {
+        // The top level loop before prototypes and declarations shared their prefix
+        GlslTokenReader reader = new GlslTokenReader(source);
+        List<GlslNode> body = new ArrayList<>();
+        while (reader.canRead()) {
+            if (reader.tryConsume(GlslLexer.TokenType.DIRECTIVE)) {
+                continue;
+            }
+
+            GlslFunctionNode functionDefinition = GlslParserImpl.parseFunctionDefinition(reader);
+            if (functionDefinition != null) {
+                body.add(functionDefinition);
+                continue;
+            }
+
+            List<GlslNode> declarations = GlslParserImpl.parseDeclaration(reader);
+            if (declarations != null) {
+                body.addAll(declarations);
+                continue;
+            }
+
+            if (reader.tryConsume(GlslLexer.TokenType.SEMICOLON)) {
+                continue;
+            }
+
+            reader.throwError();
+        }
+        return new GlslTree(new GlslVersionStatement(), body, List.of(), Map.of());
+    }
+
+    private static String declarations(int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            builder.append("layout(location = ").append(i).append(") uniform vec4 Value").append(i).append(";\n");
+            builder.append("uniform sampler2D Sampler").append(i).append(", Other").append(i).append(";\n");
+            builder.append("vec3 function").append(i).append("(in vec3 a, float b[2], inout int c);\n");
+        }
+        return builder.toString();
+    }
+
+    @Test
+    public void testSameTree() throws GlslSyntaxException {
+        assertEquals(parseLegacy(DECLARATIONS).getBody().toString(), GlslParserImpl.parse(DECLARATIONS).getBody().toString());
+        for (String shader : GlslTestShaders.ALL) {
+            assertEquals(parseLegacy(shader).getBody().toString(), GlslParserImpl.parse(shader).getBody().toString());
+        }
+        String source = declarations(20);
+        assertEquals(parseLegacy(source).getBody().toString(), GlslParserImpl.parse(source).getBody().toString());
+    }
+
+    @Test
+    public void testSameErrors() {
+        for (String source : new String[]{"uniform vec4 a", "void main() { int a = ; }", "void main(int a, ) {}", "vec4 f(int a) int b;"}) {
+            GlslSyntaxException expected = assertThrows(GlslSyntaxException.class, () -> parseLegacy(source));
+            GlslSyntaxException actual = assertThrows(GlslSyntaxException.class, () -> GlslParserImpl.parse(source));
+            assertEquals(expected.getMessage(), actual.getMessage(), source);
+            assertEquals(expected.getSuppressed().length, actual.getSuppressed().length, source);
+        }
+    }
+
+    private static List<GlslNode> body(GlslTree tree, String function) {
+        return tree.functions().filter(node -> node.getName().equals(function)).findFirst().orElseThrow().getBody();
+    }
+
+    @Test
+    public void testTypeNames() throws GlslSyntaxException {
+        GlslTree tree = GlslParserImpl.parse("""
+                struct Light { vec3 color; };
+                void f() {
+                    Light;
+                    Light a, b;
+                    Light[2] c;
+                    Other d;
+                    e;
+                    g[1];
+                    {
+                        struct Local { float x; };
+                        Local;
+                    }
+                    Local;
+                }
+                """);
+        List<GlslNode> body = body(tree, "f");
+        assertInstanceOf(GlslNewFieldNode.class, body.get(0));
+        assertEquals("a", ((GlslNewFieldNode) body.get(1)).getName());
+        assertEquals("b", ((GlslNewFieldNode) body.get(2)).getName());
+        assertEquals("c", ((GlslNewFieldNode) body.get(3)).getName());
+        // Names that aren't declared are still types when followed by a name
+        assertEquals("d", ((GlslNewFieldNode) body.get(4)).getName());
+        assertInstanceOf(GlslVariableNode.class, body.get(5));
+        assertInstanceOf(GlslGetArrayNode.class, body.get(6));
+        assertInstanceOf(GlslNewFieldNode.class, body.get(body.size() - 2));
+        // Types declared in a block are forgotten after it
+        assertInstanceOf(GlslVariableNode.class, body.get(body.size() - 1));
+    }
+
+    @Test
+    public void testDeclarationSpeed() throws GlslSyntaxException {
+        String source = declarations(500);
+        long legacy = GlslTestHelper.measure(50, 20, 5, () -> parseLegacy(source));
+        long shared = GlslTestHelper.measure(50, 20, 5, () -> GlslParserImpl.parse(source));
+
+        System.out.printf("Took %.3fms retrying prototypes and %.3fms sharing the prefix for %d declarations (%.2fx)%n", legacy / 1_000_000.0F, shared / 1_000_000.0F, 1_500, (double) legacy / shared);
+        assertTrue(legacy > shared * 1.5, "Sharing the declaration prefix is not significantly faster");
+    }
+}
@@ -0,0 +1,85 @@
+package io.github.ocelot.test;
+
+import io.github.ocelot.glslprocessor.api.GlslIdentifierPool;
+import io.github.ocelot.glslprocessor.api.GlslParser;
+import io.github.ocelot.glslprocessor.api.GlslSyntaxException;
+import io.github.ocelot.glslprocessor.api.node.GlslTree;
+import io.github.ocelot.glslprocessor.api.node.variable.GlslNewFieldNode;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GlslIdentifierPoolTest {
+
+    @Test
+    public void testSharedAcrossParses() throws GlslSyntaxException {
+        GlslIdentifierPool pool = new GlslIdentifierPool();
+        GlslTree first = GlslParser.parse(GlslTestShaders.FRAGMENT, pool);
+        GlslTree second = GlslParser.parse(GlslTestShaders.FRAGMENT, pool);
+
+        assertEquals(first, second);
+        assertSame(first.field("FogColor").map(GlslNewFieldNode::getName).orElseThrow(), second.field("FogColor").map(GlslNewFieldNode::getName).orElseThrow());
+        assertSame(first.mainFunction().orElseThrow().getName(), second.mainFunction().orElseThrow().getName());
+        assertTrue(pool.getHits() > 0);
+        assertTrue(pool.getBytesSaved() > 0);
+        assertTrue(pool.getHitRate() > 0.5);
+    }
+
+    @Test
+    public void testWithoutPool() throws GlslSyntaxException {
+        GlslTree first = GlslParser.parse(GlslTestShaders.FRAGMENT);
+        GlslTree second = GlslParser.parse(GlslTestShaders.FRAGMENT);
+
+        assertEquals(first, second);
+        assertNotSame(first.mainFunction().orElseThrow().getName(), second.mainFunction().orElseThrow().getName());
+    }
+
+    @Test
+    public void testBounded() {
+        GlslIdentifierPool pool = new GlslIdentifierPool(10);
+        assertEquals(16, pool.getCapacity());
+
+        for (int i = 0; i < 1000; i++) {
+            String name = "identifier" + i;
+            assertEquals(name, pool.intern(name, 0, name.length()));
+        }
+        assertEquals(1000, pool.getMisses());
+
+        String source = "float texCoord;";
+        String value = pool.intern(source, 6, 14);
+        assertEquals("texCoord", value);
+        assertSame(value, pool.intern("texCoord"));
+        assertEquals(1, pool.getHits());
+
+        pool.clear();
+        assertEquals(0, pool.getHits());
+        assertEquals(0, pool.getMisses());
+        assertNotSame(value, pool.intern(new String("texCoord")));
+    }
+
+    @Test
+    public void testConcurrent() throws Exception {
+        GlslIdentifierPool pool = new GlslIdentifierPool(64);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<?>[] futures = new Future[4];
+            for (int i = 0; i < futures.length; i++) {
+                futures[i] = executor.submit(() -> {
+                    for (int j = 0; j < 10_000; j++) {
+                        String name = "name" + (j % 100);
+                        assertEquals(name, pool.intern(name, 0, name.length()));
+                    }
+                });
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(40_000, pool.getHits() + pool.getMisses());
+    }
+}
@@ -0,0 +1,213 @@
+package io.github.ocelot.test;
+
+import io.github.ocelot.glslprocessor.api.GlslIncrementalParser;
+import io.github.ocelot.glslprocessor.api.GlslParser;
+import io.github.ocelot.glslprocessor.api.GlslSource;
+import io.github.ocelot.glslprocessor.api.GlslSyntaxException;
+import io.github.ocelot.glslprocessor.api.node.GlslNode;
+import io.github.ocelot.glslprocessor.api.node.GlslTree;
+import io.github.ocelot.glslprocessor.api.node.function.GlslFunctionNode;
+import io.github.ocelot.glslprocessor.api.node.variable.GlslNewFieldNode;
+import io.github.ocelot.glslprocessor.api.node.variable.GlslVariableNode;
+import io.github.ocelot.glslprocessor.impl.GlslDeclarationFingerprints;
+import io.github.ocelot.glslprocessor.impl.GlslLexer;
+import io.github.ocelot.glslprocessor.impl.GlslTokenStream;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GlslIncrementalParserTest {
+
+    private static String lighting(int functions, String changed) {
+        StringBuilder builder = new StringBuilder("#version 430 core\n");
+        for (int i = 0; i < functions; i++) {
+            builder.append("uniform vec4 Color").append(i).append(", Other").append(i).append(";\n");
+            builder.append("vec4 light").append(i).append("(vec4 value) {\n");
+            for (int j = 0; j < 20; j++) {
+                builder.append("    value = value * Color").append(i).append(" + vec4(").append(j).append(".0, 1.0, max(value.x, 2.0), 3.0);\n");
+            }
+            if (i == functions / 2) {
+                builder.append(changed);
+            }
+            builder.append("    return value;\n}\n");
+        }
+        return builder.append("void main() {\n    gl_FragColor = light0(vec4(1.0));\n}\n").toString();
+    }
+
+    private static GlslTree parse(GlslIncrementalParser parser, CharSequence source) throws GlslSyntaxException {
+        GlslTree tree = parser.parse(source);
+        assertEquals(GlslParser.parse(source).getBody().toString(), tree.getBody().toString());
+        return tree;
+    }
+
+    private static GlslFunctionNode function(GlslTree tree, String name) {
+        return tree.functions().filter(node -> node.getName().equals(name)).findFirst().orElseThrow();
+    }
+
+    private static int reused(GlslTree previous, GlslTree tree) {
+        int reused = 0;
+        for (GlslNode node : tree.getBody()) {
+            for (GlslNode old : previous.getBody()) {
+                if (node == old) {
+                    reused++;
+                    break;
+                }
+            }
+        }
+        return reused;
+    }
+
+    @Test
+    public void testSameTree() throws GlslSyntaxException {
+        GlslIncrementalParser parser = new GlslIncrementalParser();
+        for (String shader : GlslTestShaders.ALL) {
+            GlslTree previous = parse(parser, shader);
+            GlslTree tree = parse(parser, shader);
+            assertEquals(previous.getMarkers().toString(), tree.getMarkers().toString());
+        }
+    }
+
+    @Test
+    public void testChangedFunction() throws GlslSyntaxException {
+        GlslIncrementalParser parser = new GlslIncrementalParser();
+        GlslTree previous = parse(parser, lighting(10, ""));
+        GlslTree tree = parse(parser, lighting(10, "    value.x = 0.0;\n"));
+        assertNotSame(function(previous, "light5"), function(tree, "light5"));
+        assertSame(function(previous, "light4"), function(tree, "light4"));
+        assertSame(function(previous, "main"), function(tree, "main"));
+        // Two uniforms per line, ten functions and main, minus the changed function
+        assertEquals(previous.getBody().size() - 1, reused(previous, tree));
+    }
+
+    @Test
+    public void testFormatting() throws GlslSyntaxException {
+        GlslIncrementalParser parser = new GlslIncrementalParser();
+        String source = "uniform float a, b;\nvoid f() { a = b; }\n";
+        GlslTree previous = parse(parser, source);
+        GlslTree tree = parse(parser, "// comment\nuniform  float a,\n    b;\n\nvoid f()\n{\n    a = b; /* comment */\n}\n");
+        assertEquals(3, reused(previous, tree));
+    }
+
+    @Test
+    public void testMovedDeclarations() throws GlslSyntaxException {
+        GlslIncrementalParser parser = new GlslIncrementalParser();
+        GlslTree previous = parse(parser, "void f() {}\nvoid g() {}\nvoid f() {}\n");
+        GlslTree tree = parse(parser, "void g() {}\nvoid f() {}\nvoid f() {}\nvoid f() {}\n");
+        // Each previous declaration is only reused once
+        assertEquals(3, reused(previous, tree));
+        assertNotSame(tree.getBody().get(1), tree.getBody().get(2));
+    }
+
+    @Test
+    public void testTypeNames() throws GlslSyntaxException {
+        GlslIncrementalParser parser = new GlslIncrementalParser();
+        String source = "void f() { Light; }\n";
+        GlslTree previous = parse(parser, source);
+        assertInstanceOf(GlslVariableNode.class, function(previous, "f").getBody().get(0));
+
+        // Declaring the type changes how the function is parsed
+        GlslTree tree = parse(parser, "struct Light { vec3 color; };\n" + source);
+        assertInstanceOf(GlslNewFieldNode.class, function(tree, "f").getBody().get(0));
+        assertEquals(0, reused(previous, tree));
+    }
+
+    @Test
+    public void testTypeNameCollision() throws GlslSyntaxException {
+        GlslIncrementalParser parser = new GlslIncrementalParser();
+        // Both names have the same string hash code
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        GlslTree previous = parse(parser, "struct Aa { float x; };\nvoid f() { BB; }\n");
+        assertInstanceOf(GlslVariableNode.class, function(previous, "f").getBody().get(0));
+
+        GlslTree tree = parse(parser, "struct BB { float x; };\nvoid f() { BB; }\n");
+        assertInstanceOf(GlslNewFieldNode.class, function(tree, "f").getBody().get(0));
+        assertEquals(0, reused(previous, tree));
+    }
+
+    @Test
+    public void testFingerprintCollision() throws GlslSyntaxException {
+        GlslTree previous = GlslParser.parse("uniform float a;\n");
+        GlslTokenStream oldTokens = GlslLexer.createTokenStream("uniform float a;");
+        GlslTokenStream newTokens = GlslLexer.createTokenStream("uniform float b;");
+        String[] types = new String[0];
+
+        // Declarations with the same fingerprint are only reused if their tokens are the same
+        GlslDeclarationFingerprints fingerprints = new GlslDeclarationFingerprints(oldTokens);
+        fingerprints.add(42L, 0, oldTokens.size(), types, previous.getBody());
+        assertNull(fingerprints.lookup(previous.getBody()).take(42L, newTokens, 0, newTokens.size(), types));
+        assertNull(fingerprints.lookup(previous.getBody()).take(42L, oldTokens, 0, oldTokens.size(), new String[]{"Light"}));
+        assertNotNull(fingerprints.lookup(previous.getBody()).take(42L, oldTokens, 0, oldTokens.size(), types));
+    }
+
+    @Test
+    public void testRemovedNodes() throws GlslSyntaxException {
+        GlslIncrementalParser parser = new GlslIncrementalParser();
+        String source = "uniform float a;\nuniform float b;\n";
+        GlslTree previous = parse(parser, source);
+        GlslNode removed = previous.getBody().remove(0);
+        GlslTree tree = parse(parser, source);
+        assertNotSame(removed, tree.getBody().get(0));
+        assertSame(previous.getBody().get(0), tree.getBody().get(1));
+    }
+
+    @Test
+    public void testEditedInPlace() throws GlslSyntaxException {
+        GlslIncrementalParser parser = new GlslIncrementalParser();
+        StringBuilder builder = new StringBuilder("uniform float a;\nvoid f() { a = 1.0; }\n");
+        GlslTree previous = parse(parser, builder);
+        int value = builder.indexOf("1.0");
+        builder.replace(value, value + 3, "2.0");
+        GlslTree tree = parse(parser, builder);
+        assertTrue(function(tree, "f").toSourceString().contains("2.0"), function(tree, "f").toSourceString());
+        assertSame(previous.getBody().get(0), tree.getBody().get(0));
+
+        char[] chars = "uniform float a;\nvoid f() { a = 1.0; }\n".toCharArray();
+        CharSequence source = GlslSource.wrap(chars, 0, chars.length);
+        parser.reset();
+        previous = parse(parser, source);
+        chars[value] = '3';
+        tree = parse(parser, source);
+        assertTrue(function(tree, "f").toSourceString().contains("3.0"), function(tree, "f").toSourceString());
+        assertEquals(1, reused(previous, tree));
+    }
+
+    @Test
+    public void testMarkers() throws GlslSyntaxException {
+        GlslIncrementalParser parser = new GlslIncrementalParser();
+        String source = "// #color\nuniform vec4 Color;\nuniform float a;\n";
+        GlslTree previous = parse(parser, source);
+        GlslTree tree = parse(parser, source);
+        assertNotSame(previous.getMarkers().get("color"), tree.getMarkers().get("color"));
+        assertSame(tree.getBody().get(0), tree.getMarkers().get("color"));
+        assertEquals(1, reused(previous, tree));
+    }
+
+    @Test
+    public void testReset() throws GlslSyntaxException {
+        String source = GlslTestShaders.FRAGMENT;
+        GlslIncrementalParser parser = new GlslIncrementalParser();
+        GlslTree previous = parse(parser, source);
+        parser.reset();
+        GlslTree tree = parse(parser, source);
+        assertEquals(0, reused(previous, tree));
+        assertEquals(List.copyOf(tree.getBody()), List.copyOf(parse(parser, source).getBody()));
+    }
+
+    @Test
+    public void testIncrementalSpeed() throws GlslSyntaxException {
+        String source = lighting(200, "");
+        String changed = lighting(200, "    value.x = 0.0;\n");
+        long full = GlslTestHelper.measure(40, 10, 5, () -> GlslParser.parse(changed));
+        // Every parse after the first only has to reparse the function that differs from the previous source
+        GlslIncrementalParser parser = new GlslIncrementalParser();
+        long incremental = GlslTestHelper.measure(40, 10, 5, () -> {
+            parser.parse(changed);
+            parser.parse(source);
+        }) / 2;
+
+        System.out.printf("Took %.3fms to parse %d lines and %.3fms to reparse one changed function (%.2fx)%n", full / 1_000_000.0F, changed.split("\n").length, incremental / 1_000_000.0F, (double) full / incremental);
+        assertTrue(full > incremental * 2, "Reparsing one function is not much faster than parsing the whole source");
+    }
+}
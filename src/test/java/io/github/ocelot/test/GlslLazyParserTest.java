@@ -0,0 +1,110 @@
+package io.github.ocelot.test;
+
+import io.github.ocelot.glslprocessor.api.GlslParser;
+import io.github.ocelot.glslprocessor.api.GlslSyntaxException;
+import io.github.ocelot.glslprocessor.api.node.GlslNode;
+import io.github.ocelot.glslprocessor.api.node.GlslTree;
+import io.github.ocelot.glslprocessor.api.node.function.GlslFunctionNode;
+import io.github.ocelot.glslprocessor.api.node.variable.GlslNewFieldNode;
+import io.github.ocelot.glslprocessor.api.node.variable.GlslVariableNode;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GlslLazyParserTest {
+
+    private static String largeFunctions(int functions, int statements) {
+        StringBuilder builder = new StringBuilder("#version 430 core\n");
+        for (int i = 0; i < functions; i++) {
+            builder.append("uniform vec4 Color").append(i).append(";\n");
+            builder.append("vec4 function").append(i).append("(vec4 value) {\n");
+            for (int j = 0; j < statements; j++) {
+                builder.append("    value = value * Color").append(i).append(" + vec4(").append(j).append(".0, 1.0, max(value.x, 2.0), 3.0);\n");
+                builder.append("    if (value.x > ").append(j).append(".0) { value.y -= 1.0; }\n");
+            }
+            builder.append("    return value;\n}\n");
+        }
+        return builder.append("void main() {\n    gl_FragColor = function0(vec4(1.0));\n}\n").toString();
+    }
+
+    private static GlslFunctionNode function(GlslTree tree, String name) {
+        return tree.functions().filter(node -> node.getName().equals(name)).findFirst().orElseThrow();
+    }
+
+    @Test
+    public void testSameTree() throws GlslSyntaxException {
+        for (String shader : GlslTestShaders.ALL) {
+            assertEquals(GlslParser.parse(shader).getBody().toString(), GlslParser.parseLazy(shader, null).getBody().toString());
+        }
+        String source = largeFunctions(10, 10);
+        assertEquals(GlslParser.parse(source).getBody().toString(), GlslParser.parseLazy(source, null).getBody().toString());
+    }
+
+    @Test
+    public void testUnusedBodies() throws GlslSyntaxException {
+        GlslTree tree = GlslParser.parseLazy(largeFunctions(10, 10), null);
+        assertEquals(10, tree.fields().count());
+        assertTrue(tree.functions().noneMatch(GlslFunctionNode::isBodyParsed));
+
+        GlslFunctionNode main = tree.mainFunction().orElseThrow();
+        assertEquals(1, main.getBody().size());
+        assertTrue(main.isBodyParsed());
+        assertFalse(function(tree, "function0").isBodyParsed());
+
+        GlslFunctionNode function = function(tree, "function1");
+        function.setBody(List.of());
+        assertTrue(function.isBodyParsed());
+        assertTrue(function.getBody().isEmpty());
+    }
+
+    @Test
+    public void testTypeNames() throws GlslSyntaxException {
+        GlslTree tree = GlslParser.parseLazy("""
+                struct Before { float x; };
+                void f() {
+                    Before;
+                    After;
+                }
+                struct After { float y; };
+                """, null);
+        List<GlslNode> body = function(tree, "f").getBody();
+        assertInstanceOf(GlslNewFieldNode.class, body.get(0));
+        // Types declared after the function are not visible in it
+        assertInstanceOf(GlslVariableNode.class, body.get(1));
+    }
+
+    @Test
+    public void testMarkers() throws GlslSyntaxException {
+        GlslTree expected = GlslParser.parse(GlslTestShaders.COMPUTE);
+        GlslTree actual = GlslParser.parseLazy(GlslTestShaders.COMPUTE, null);
+        assertFalse(expected.getMarkers().isEmpty());
+        assertEquals(expected.getMarkers().toString(), actual.getMarkers().toString());
+    }
+
+    @Test
+    public void testBodyErrors() throws GlslSyntaxException {
+        String source = "void f() { int a = ; }\nvoid main() { f(); }";
+        assertThrows(GlslSyntaxException.class, () -> GlslParser.parse(source));
+
+        GlslTree tree = GlslParser.parseLazy(source, null);
+        assertEquals(1, tree.mainFunction().orElseThrow().getBody().size());
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> function(tree, "f").getBody());
+        assertInstanceOf(GlslSyntaxException.class, exception.getCause());
+
+        // Unclosed bodies can't be skipped
+        assertThrows(GlslSyntaxException.class, () -> GlslParser.parseLazy("void main() { {}", null));
+    }
+
+    @Test
+    public void testLazySpeed() {
+        String source = largeFunctions(50, 100);
+        long eager = GlslTestHelper.measure(20, 10, 2, () -> GlslParser.parse(source).fields().count());
+        long lazy = GlslTestHelper.measure(100, 10, 2, () -> GlslParser.parseLazy(source, null).fields().count());
+
+        System.out.printf("Took %.3fms parsing all bodies and %.3fms parsing lazily to read %d uniforms (%.2fx)%n", eager / 1_000_000.0F, lazy / 1_000_000.0F, 50, (double) eager / lazy);
+        // Lazy bodies are still lexed, but skipping them should leave most of the parsing out
+        assertTrue(eager > lazy * 3, "Parsing lazily is not much faster than parsing all bodies");
+    }
+}
@@ -0,0 +1,102 @@
+package io.github.ocelot.test;
+
+import io.github.ocelot.glslprocessor.api.GlslParser;
+import io.github.ocelot.glslprocessor.api.GlslSyntaxException;
+import io.github.ocelot.glslprocessor.impl.GlslLexer;
+import io.github.ocelot.glslprocessor.impl.GlslLineTable;
+import io.github.ocelot.glslprocessor.impl.GlslTokenStream;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GlslLineTableTest {
+
+    @Test
+    public void testLines() {
+        GlslLineTable lines = GlslLineTable.of("ab\n\ncd\r\nef");
+        assertEquals(4, lines.getLineCount());
+        assertEquals(1, lines.getLine(0));
+        assertEquals(1, lines.getLine(2));
+        assertEquals(2, lines.getLine(3));
+        assertEquals(3, lines.getLine(4));
+        assertEquals(4, lines.getLine(8));
+        assertEquals(4, lines.getLine(10));
+
+        assertEquals(1, lines.getColumn(0));
+        assertEquals(3, lines.getColumn(2));
+        assertEquals(1, lines.getColumn(3));
+        assertEquals(2, lines.getColumn(5));
+        assertEquals(3, lines.getColumn(10));
+
+        assertEquals(4, lines.getLineStart(3));
+        assertEquals(7, lines.getLineEnd(3));
+        assertEquals(10, lines.getLineEnd(4));
+        assertThrows(IndexOutOfBoundsException.class, () -> lines.getLineStart(5));
+    }
+
+    @Test
+    public void testEmpty() {
+        GlslLineTable lines = GlslLineTable.of("");
+        assertEquals(1, lines.getLineCount());
+        assertEquals(1, lines.getLine(0));
+        assertEquals(1, lines.getColumn(0));
+    }
+
+    @Test
+    public void testLargeSource() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) {
+            builder.append("x".repeat(i % 7)).append('\n');
+        }
+        String source = builder.toString();
+        GlslLineTable lines = GlslLineTable.of(source);
+
+        int line = 1;
+        int column = 1;
+        for (int i = 0; i < source.length(); i++) {
+            assertEquals(line, lines.getLine(i));
+            assertEquals(column, lines.getColumn(i));
+            if (source.charAt(i) == '\n') {
+                line++;
+                column = 1;
+            } else {
+                column++;
+            }
+        }
+    }
+
+    @Test
+    public void testTokens() throws GlslSyntaxException {
+        GlslTokenStream tokens = GlslLexer.createTokenStream(GlslTestShaders.FRAGMENT);
+        for (int i = 0; i < tokens.size(); i++) {
+            String before = GlslTestShaders.FRAGMENT.substring(0, tokens.getStart(i));
+            assertEquals(before.chars().filter(c -> c == '\n').count() + 1, tokens.getLine(i));
+            assertEquals(before.length() - before.lastIndexOf('\n'), tokens.getColumn(i));
+        }
+    }
+
+    @Test
+    public void testLexerError() {
+        GlslSyntaxException exception = assertThrows(GlslSyntaxException.class, () -> GlslLexer.createTokens("void main() {\n    int a = 1;\n    a = $;\n}"));
+        assertEquals(3, exception.getLine());
+        assertEquals(9, exception.getColumn());
+        assertTrue(exception.getMessage().contains("line 3, column 9"), exception.getMessage());
+    }
+
+    @Test
+    public void testParserError() {
+        String source = "void main() {\n    int a = 1;\n    a = (2;\n}";
+        GlslSyntaxException exception = assertThrows(GlslSyntaxException.class, () -> GlslParser.parse(source));
+        assertEquals(1, exception.getLine());
+        assertEquals(1, exception.getColumn());
+        assertNotEquals(0, exception.getStackTrace().length);
+        assertNotEquals(0, exception.getSuppressed().length);
+        for (Throwable error : exception.getSuppressed()) {
+            assertEquals(3, ((GlslSyntaxException) error).getLine());
+            assertEquals(5, ((GlslSyntaxException) error).getColumn());
+            // Error cursors point after the token in the original source
+            assertEquals(source.indexOf("a = (") + 1, ((GlslSyntaxException) error).getCursor());
+            assertEquals(0, error.getStackTrace().length);
+        }
+    }
+}
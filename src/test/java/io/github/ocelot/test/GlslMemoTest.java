@@ -0,0 +1,97 @@
+package io.github.ocelot.test;
+
+import io.github.ocelot.glslprocessor.api.GlslSyntaxException;
+import io.github.ocelot.glslprocessor.api.node.GlslTree;
+import io.github.ocelot.glslprocessor.api.visitor.GlslTreeStringWriter;
+import io.github.ocelot.glslprocessor.impl.GlslParserImpl;
+import io.github.ocelot.glslprocessor.impl.GlslTokenReader;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GlslMemoTest {
+
+    private static String nestedParentheses(int depth) {
+        return "void main() {\n    float a = " + "(".repeat(depth) + "1.0" + ")".repeat(depth) + ";\n}\n";
+    }
+
+    private static String chainedAssignments(int count) {
+        StringBuilder builder = new StringBuilder("void main() {\n    float a");
+        for (int i = 0; i < count; i++) {
+            builder.append(" = b").append(i);
+        }
+        return builder.append(" = 1.0;\n}\n").toString();
+    }
+
+    private static GlslTokenReader reader(String source, boolean memoize) throws GlslSyntaxException {
+        GlslTokenReader reader = new GlslTokenReader(source);
+        reader.setMemoization(memoize);
+        return reader;
+    }
+
+    private static String write(GlslTree tree) {
+        GlslTreeStringWriter writer = new GlslTreeStringWriter();
+        tree.visit(writer);
+        return writer.toString();
+    }
+
+    private static void assertSameTree(String source) throws GlslSyntaxException {
+        String expected = write(GlslParserImpl.parse(reader(source, false)));
+        GlslTokenReader reader = reader(source, true);
+        assertEquals(expected, write(GlslParserImpl.parse(reader)));
+        assertTrue(reader.isMemoizationEnabled());
+    }
+
+    @Test
+    public void testSameTree() throws GlslSyntaxException {
+        for (String shader : GlslTestShaders.ALL) {
+            assertSameTree(shader);
+        }
+        assertSameTree(nestedParentheses(8));
+        assertSameTree(chainedAssignments(8));
+        assertSameTree("uniform vec4 color;\nvoid f() {\n    int a = 1, b = 2;\n    a = b++ + -a;\n}\n");
+    }
+
+    @Test
+    public void testSameErrors() throws GlslSyntaxException {
+        String source = "void main() {\n    int a = 1;\n    a = (2;\n}";
+        GlslSyntaxException expected = assertThrows(GlslSyntaxException.class, () -> GlslParserImpl.parse(reader(source, false)));
+        GlslSyntaxException actual = assertThrows(GlslSyntaxException.class, () -> GlslParserImpl.parse(reader(source, true)));
+        assertEquals(expected.getMessage(), actual.getMessage());
+        assertEquals(expected.getSuppressed().length, actual.getSuppressed().length);
+        for (int i = 0; i < expected.getSuppressed().length; i++) {
+            assertEquals(expected.getSuppressed()[i].getMessage(), actual.getSuppressed()[i].getMessage());
+        }
+    }
+
+    @Test
+    public void testDisable() throws GlslSyntaxException {
+        GlslTokenReader reader = reader(GlslTestShaders.FRAGMENT, true);
+        reader.setMemoization(false);
+        GlslParserImpl.parse(reader);
+        assertFalse(reader.isMemoizationEnabled());
+        assertEquals(0, reader.getMemoHits());
+    }
+
+    private static double benchmark(String name, String source) throws GlslSyntaxException {
+        long plainTime = GlslTestHelper.measure(100, 10, 10, () -> GlslParserImpl.parse(reader(source, false)));
+        long memoTime = GlslTestHelper.measure(100, 10, 10, () -> GlslParserImpl.parse(reader(source, true)));
+
+        GlslTokenReader memo = reader(source, true);
+        GlslParserImpl.parse(memo);
+        System.out.printf("%s: %.3fms without memoization, %.3fms with memoization (%.2fx, %d hits, %d misses)%n", name, plainTime / 1_000_000.0F, memoTime / 1_000_000.0F, (double) plainTime / memoTime, memo.getMemoHits(), memo.getMemoMisses());
+        return (double) plainTime / memoTime;
+    }
+
+    @Test
+    public void testMemoSpeed() throws GlslSyntaxException {
+        // Declarations are tried as function prototypes first, so typical shaders reuse a few results per statement
+        benchmark("Fragment", GlslTestShaders.FRAGMENT);
+        benchmark("Compute", GlslTestShaders.COMPUTE);
+        benchmark("Constants", GlslTestShaders.CONSTANTS);
+        // Every nesting level retries the whole inner expression several times without memoization
+        assertTrue(benchmark("Nested parentheses", nestedParentheses(8)) > 10, "Memoization does not avoid retrying nested expressions");
+        // Right associative chains never retry a rule, so the table is only overhead
+        assertTrue(benchmark("Chained assignments", chainedAssignments(12)) > 0.5, "Memoization overhead is too high");
+    }
+}
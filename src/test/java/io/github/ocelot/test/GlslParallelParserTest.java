@@ -0,0 +1,98 @@
+package io.github.ocelot.test;
+
+import io.github.ocelot.glslprocessor.api.GlslParser;
+import io.github.ocelot.glslprocessor.api.GlslSyntaxException;
+import io.github.ocelot.glslprocessor.api.node.GlslTree;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class GlslParallelParserTest {
+
+    private static ForkJoinPool pool;
+
+    @BeforeAll
+    public static void setup() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    public static void shutdown() {
+        pool.shutdown();
+    }
+
+    private static String repeat(String source, int count) {
+        // The first version statement is the only one parsed as a version
+        StringBuilder builder = new StringBuilder(source);
+        for (int i = 1; i < count; i++) {
+            builder.append(source.replace("#version", "#line"));
+        }
+        return builder.toString();
+    }
+
+    private static void assertSameTree(String source) throws GlslSyntaxException {
+        GlslTree expected = GlslParser.parse(source);
+        GlslTree actual = GlslParser.parseParallel(source, null, pool);
+        assertEquals(expected.getVersionStatement().toString(), actual.getVersionStatement().toString());
+        assertEquals(expected.getDirectives(), actual.getDirectives());
+        assertEquals(expected.getBody().size(), actual.getBody().size());
+        assertEquals(expected.getBody().toString(), actual.getBody().toString());
+        assertEquals(expected.getMarkers().keySet(), actual.getMarkers().keySet());
+        expected.getMarkers().forEach((name, node) -> assertEquals(node.toString(), actual.getMarkers().get(name).toString()));
+    }
+
+    @Test
+    public void testShaders() throws GlslSyntaxException {
+        for (String shader : GlslTestShaders.ALL) {
+            assertSameTree(shader);
+            assertSameTree(repeat(shader, 200));
+        }
+    }
+
+    @Test
+    public void testStructs() throws GlslSyntaxException {
+        StringBuilder builder = new StringBuilder("#version 430 core\n");
+        for (int i = 0; i < 2_000; i++) {
+            builder.append("struct Type").append(i).append(" { vec3 a; float b[2]; };\n");
+            builder.append("void f").append(i).append("() {\n    Type").append(i).append(";\n    Type").append(i / 2).append(" value;\n    value.b[0] = 1.0;\n}\n");
+        }
+        assertSameTree(builder.toString());
+    }
+
+    @Test
+    public void testErrors() {
+        String source = repeat(GlslTestShaders.COMPUTE, 200);
+        for (String broken : new String[]{source + "void main() { int a = ; }", "void main() { a = (2; }\n" + source, source + "uniform vec4 a" + source}) {
+            GlslSyntaxException expected = assertThrows(GlslSyntaxException.class, () -> GlslParser.parse(broken));
+            GlslSyntaxException actual = assertThrows(GlslSyntaxException.class, () -> GlslParser.parseParallel(broken, null, pool));
+            assertEquals(expected.getMessage(), actual.getMessage());
+            assertEquals(expected.getSuppressed().length, actual.getSuppressed().length);
+        }
+    }
+
+    @Test
+    public void testParallelSpeed() {
+        String source = repeat(GlslTestShaders.ALL[0] + GlslTestShaders.ALL[1] + GlslTestShaders.ALL[2], 500);
+        long sequential = GlslTestHelper.measure(3, 3, 1, () -> GlslParser.parse(source));
+        System.out.printf("Took %.3fms to parse %d characters sequentially%n", sequential / 1_000_000.0F, source.length());
+
+        int processors = Runtime.getRuntime().availableProcessors();
+        assumeTrue(processors > 1, "Only one processor is available");
+        for (int threads = 2; threads <= processors; threads *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                long parallel = GlslTestHelper.measure(3, 3, 1, () -> GlslParser.parseParallel(source, null, pool));
+                System.out.printf("Took %.3fms to parse %d characters on %d threads (%.2fx)%n", parallel / 1_000_000.0F, source.length(), threads, (double) sequential / parallel);
+                // Splitting the source and assembling the tree are sequential, but every thread should still do most of its share
+                assertTrue(sequential > parallel * threads * 0.4, "Parsing on " + threads + " threads does not scale");
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package io.github.ocelot.test;
+
+import io.github.ocelot.glslprocessor.api.GlslParseCache;
+import io.github.ocelot.glslprocessor.api.GlslParser;
+import io.github.ocelot.glslprocessor.api.GlslSyntaxException;
+import io.github.ocelot.glslprocessor.api.node.GlslNode;
+import io.github.ocelot.glslprocessor.api.node.GlslTree;
+import io.github.ocelot.glslprocessor.api.node.function.GlslFunctionNode;
+import io.github.ocelot.glslprocessor.api.node.variable.GlslVariableNode;
+import io.github.ocelot.glslprocessor.lib.anarres.cpp.LexerException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GlslParseCacheTest {
+
+    private static void assertSameTree(GlslTree expected, GlslTree actual) {
+        assertEquals(expected.getVersionStatement().toString(), actual.getVersionStatement().toString());
+        assertEquals(expected.getDirectives(), actual.getDirectives());
+        assertEquals(expected.getBody().toString(), actual.getBody().toString());
+        assertEquals(expected.getMarkers().toString(), actual.getMarkers().toString());
+    }
+
+    private static String shader(int index) {
+        return "uniform float Value" + index + ";\nvoid main() {\n    gl_FragColor = vec4(Value" + index + ");\n}\n";
+    }
+
+    @Test
+    public void testCopy() throws GlslSyntaxException {
+        for (String shader : GlslTestShaders.ALL) {
+            GlslTree tree = GlslParser.parse(shader);
+            GlslTree copy = tree.copy();
+            assertSameTree(tree, copy);
+            assertEquals(tree.toSourceString(), copy.toSourceString());
+            for (int i = 0; i < tree.getBody().size(); i++) {
+                assertNotSame(tree.getBody().get(i), copy.getBody().get(i));
+            }
+        }
+    }
+
+    @Test
+    public void testCopyMarkers() throws GlslSyntaxException {
+        GlslTree tree = GlslParser.parse(GlslTestShaders.COMPUTE + "// #color\nuniform vec4 Color;\n");
+        GlslTree copy = tree.copy();
+        assertEquals(tree.getMarkers().keySet(), copy.getMarkers().keySet());
+        assertSame(copy.getBody().get(copy.getBody().size() - 1), copy.getMarkers().get("color"));
+
+        // Markers inside function bodies refer to the copied nodes
+        GlslNode marked = copy.getMarkers().get("test");
+        assertNotSame(tree.getMarkers().get("test"), marked);
+        assertInstanceOf(GlslVariableNode.class, marked);
+        ((GlslVariableNode) marked).setName("OtherLightCount");
+        assertTrue(copy.toSourceString().contains("OtherLightCount"));
+        assertFalse(tree.toSourceString().contains("OtherLightCount"));
+    }
+
+    @Test
+    public void testCachedTrees() throws GlslSyntaxException {
+        GlslParseCache cache = new GlslParseCache();
+        for (int i = 0; i < 3; i++) {
+            for (String shader : GlslTestShaders.ALL) {
+                assertSameTree(GlslParser.parse(shader), cache.parse(shader));
+            }
+        }
+        assertEquals(3, cache.size());
+        assertEquals(3, cache.getMisses());
+        assertEquals(6, cache.getHits());
+        assertEquals(6.0 / 9.0, cache.getHitRate(), 1.0E-6);
+    }
+
+    @Test
+    public void testIndependentCopies() throws GlslSyntaxException {
+        GlslParseCache cache = new GlslParseCache();
+        GlslTree first = cache.parse(GlslTestShaders.FRAGMENT);
+        String expected = first.getBody().toString();
+
+        first.getBody().clear();
+        first.getDirectives().add("#extension A : enable");
+        GlslTree second = cache.parse(GlslTestShaders.FRAGMENT);
+        assertEquals(expected, second.getBody().toString());
+        assertTrue(second.getDirectives().isEmpty());
+
+        GlslFunctionNode main = second.mainFunction().orElseThrow();
+        main.getBody().clear();
+        main.getHeader().setName("other");
+        assertEquals(expected, cache.parse(GlslTestShaders.FRAGMENT).getBody().toString());
+    }
+
+    @Test
+    public void testMacros() throws GlslSyntaxException, LexerException {
+        String source = "#ifdef RED\nuniform vec4 Red;\n#endif\nuniform float Value;\n";
+        GlslParseCache cache = new GlslParseCache();
+
+        Map<String, String> first = new LinkedHashMap<>();
+        first.put("RED", "1");
+        first.put("GREEN", "1");
+        Map<String, String> second = new LinkedHashMap<>();
+        second.put("GREEN", "1");
+        second.put("RED", "1");
+
+        Map<String, String> expected = new HashMap<>(first);
+        assertSameTree(GlslParser.preprocessParse(source, expected), cache.preprocessParse(source, first));
+        assertEquals(expected, first);
+        // The order the macros are defined in doesn't matter
+        cache.preprocessParse(source, second);
+        assertEquals(1, cache.getHits());
+        // Macros defined by the source are still added on a hit
+        assertEquals(expected, second);
+
+        assertSameTree(GlslParser.preprocessParse(source, new HashMap<>()), cache.preprocessParse(source, new HashMap<>()));
+        assertSameTree(GlslParser.preprocessParse(source, new HashMap<>(Map.of("RED", "0"))), cache.preprocessParse(source, new HashMap<>(Map.of("RED", "0"))));
+        assertEquals(3, cache.getMisses());
+
+        // Preprocessed trees are separate from trees parsed directly
+        cache.parse("uniform float Value;\n");
+        assertEquals(4, cache.getMisses());
+    }
+
+    @Test
+    public void testEviction() throws GlslSyntaxException {
+        GlslParseCache cache = new GlslParseCache(2);
+        cache.parse(shader(0));
+        cache.parse(shader(1));
+        cache.parse(shader(0));
+        // The second shader is the least recently used
+        cache.parse(shader(2));
+        assertEquals(1, cache.getEvictions());
+        assertEquals(2, cache.size());
+
+        cache.parse(shader(0));
+        assertEquals(2, cache.getHits());
+        cache.parse(shader(1));
+        assertEquals(4, cache.getMisses());
+        assertEquals(2, cache.getEvictions());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getHits());
+        assertEquals(0, cache.getEvictions());
+        assertThrows(IllegalArgumentException.class, () -> new GlslParseCache(0));
+    }
+
+    @Test
+    public void testErrors() {
+        GlslParseCache cache = new GlslParseCache();
+        String source = "void main() {\n    a = (2;\n}";
+        for (int i = 0; i < 2; i++) {
+            assertThrows(GlslSyntaxException.class, () -> cache.parse(source));
+        }
+        assertEquals(0, cache.size());
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    public void testConcurrentUse() throws Exception {
+        GlslParseCache cache = new GlslParseCache(8);
+        Map<String, String> expected = new LinkedHashMap<>();
+        for (int i = 0; i < 16; i++) {
+            expected.put(shader(i), GlslParser.parse(shader(i)).getBody().toString());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                int offset = thread;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        String source = shader((i * 7 + offset) % 16);
+                        assertEquals(expected.get(source), cache.parse(source).getBody().toString());
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(800, cache.getHits() + cache.getMisses());
+        assertTrue(cache.size() <= 8);
+    }
+
+    @Test
+    public void testCacheSpeed() {
+        StringBuilder builder = new StringBuilder("#version 450 core\n");
+        for (int i = 0; i < 20; i++) {
+            builder.append(GlslTestShaders.CONSTANTS.replace("#version 450 core", "").replace("main", "main" + i));
+        }
+        String source = builder.toString();
+        GlslParseCache cache = new GlslParseCache();
+        long parse = GlslTestHelper.measure(1000, 20, 10, () -> GlslParser.parse(source));
+        long cached = GlslTestHelper.measure(1000, 20, 10, () -> cache.parse(source));
+
+        System.out.printf("Took %.3fms parsing and %.3fms copying a cached tree (%.2fx)%n", parse / 1_000_000.0F, cached / 1_000_000.0F, (double) parse / cached);
+        assertTrue(parse > cached * 4, "Copying a cached tree is not much faster than parsing");
+    }
+}
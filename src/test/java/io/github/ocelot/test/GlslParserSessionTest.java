@@ -0,0 +1,95 @@
+package io.github.ocelot.test;
+
+import io.github.ocelot.glslprocessor.api.GlslParser;
+import io.github.ocelot.glslprocessor.api.GlslParserSession;
+import io.github.ocelot.glslprocessor.api.GlslSyntaxException;
+import io.github.ocelot.glslprocessor.api.node.GlslTree;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GlslParserSessionTest {
+
+    private static void assertSameTree(GlslTree expected, GlslTree actual) {
+        assertEquals(expected.getVersionStatement().toString(), actual.getVersionStatement().toString());
+        assertEquals(expected.getDirectives(), actual.getDirectives());
+        assertEquals(expected.getBody().toString(), actual.getBody().toString());
+        assertEquals(expected.getMarkers().toString(), actual.getMarkers().toString());
+    }
+
+    @Test
+    public void testSameTree() throws GlslSyntaxException {
+        GlslParserSession session = new GlslParserSession();
+        for (int i = 0; i < 3; i++) {
+            for (String shader : GlslTestShaders.ALL) {
+                assertSameTree(GlslParser.parse(shader), session.parse(shader));
+            }
+        }
+    }
+
+    @Test
+    public void testIndependentTrees() throws GlslSyntaxException {
+        GlslParserSession session = new GlslParserSession();
+        GlslTree first = session.parse(GlslTestShaders.COMPUTE);
+        String body = first.getBody().toString();
+        String markers = first.getMarkers().toString();
+        session.parse(GlslTestShaders.FRAGMENT);
+        session.parse("void main() {}");
+        assertEquals(body, first.getBody().toString());
+        assertEquals(markers, first.getMarkers().toString());
+    }
+
+    @Test
+    public void testNoLeakedState() throws GlslSyntaxException {
+        GlslParserSession session = new GlslParserSession();
+        session.parse("struct Light { vec3 color; };\nvoid f() { Light; }");
+        // Types, markers and errors from the previous source are forgotten
+        String source = "void f() { Light; }";
+        assertSameTree(GlslParser.parse(source), session.parse(source));
+
+        String broken = "void main() {\n    int a = 1;\n    a = (2;\n}";
+        GlslSyntaxException expected = assertThrows(GlslSyntaxException.class, () -> GlslParser.parse(broken));
+        GlslSyntaxException actual = assertThrows(GlslSyntaxException.class, () -> session.parse(broken));
+        assertEquals(expected.getMessage(), actual.getMessage());
+        assertEquals(expected.getSuppressed().length, actual.getSuppressed().length);
+        assertSameTree(GlslParser.parse(GlslTestShaders.FRAGMENT), session.parse(GlslTestShaders.FRAGMENT));
+
+        session.reset();
+        assertSameTree(GlslParser.parse(GlslTestShaders.CONSTANTS), session.parse(GlslTestShaders.CONSTANTS));
+    }
+
+    @Test
+    public void testSessionAllocation() throws GlslSyntaxException {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean) || !bean.isThreadAllocatedMemorySupported()) {
+            System.out.println("Thread allocation counters are not available, skipping allocation measurements");
+            return;
+        }
+
+        String source = GlslTestShaders.FRAGMENT;
+        GlslParserSession session = new GlslParserSession();
+        for (int i = 0; i < 200; i++) {
+            GlslParser.parse(source);
+            session.parse(source);
+        }
+
+        int runs = 1_000;
+        long thread = Thread.currentThread().getId();
+        long start = bean.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < runs; i++) {
+            GlslParser.parse(source);
+        }
+        long allocated = (bean.getThreadAllocatedBytes(thread) - start) / runs;
+
+        start = bean.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < runs; i++) {
+            session.parse(source);
+        }
+        long reused = (bean.getThreadAllocatedBytes(thread) - start) / runs;
+
+        System.out.printf("Allocated %d bytes per parse with new buffers and %d bytes per parse with a session (%.2fx)%n", allocated, reused, (double) allocated / reused);
+        assertTrue(reused < allocated);
+    }
+}
@@ -0,0 +1,296 @@
+package io.github.ocelot.test;
+
+import io.github.ocelot.glslprocessor.api.node.GlslNode;
+import io.github.ocelot.glslprocessor.api.node.expression.GlslBitwiseNode;
+import io.github.ocelot.glslprocessor.api.node.expression.GlslCompareNode;
+import io.github.ocelot.glslprocessor.api.node.expression.GlslOperationNode;
+import io.github.ocelot.glslprocessor.impl.GlslLexer;
+import io.github.ocelot.glslprocessor.impl.GlslParserImpl;
+import io.github.ocelot.glslprocessor.impl.GlslTokenReader;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * The binary expression rules of the GLSL grammar with one method per precedence level. The parser handles all of these
+ * levels in a single precedence climbing loop, so this is kept to check it still builds the same trees.
+ */
+public final class GlslReferenceExpressionParser {
+
+    private GlslReferenceExpressionParser() {
+    }
+
+    public static GlslNode parseSimpleExpression(GlslTokenReader reader, Function<GlslTokenReader, GlslNode> parser, GlslLexer.TokenType operator, Function<List<GlslNode>, GlslNode> join) {
+        int cursor = reader.getCursor();
+        List<GlslNode> expressions = new ArrayList<>();
+        while (reader.canRead()) {
+            GlslNode expression = parser.apply(reader);
+            if (expression == null) {
+                reader.setCursor(cursor);
+                break;
+            }
+
+            expressions.add(expression);
+            cursor = reader.getCursor();
+
+            if (!reader.tryConsume(operator)) {
+                break;
+            }
+        }
+
+        if (expressions.isEmpty()) {
+            return null;
+        }
+        if (expressions.size() == 1) {
+            return expressions.get(0);
+        }
+        return join.apply(expressions);
+    }
+
+    public static GlslNode parseMultiplicativeExpression(GlslTokenReader reader) {
+        // unary_expression
+        // multiplicative_expression STAR unary_expression
+        // multiplicative_expression SLASH unary_expression
+        // multiplicative_expression PERCENT unary_expression
+
+        GlslNode left = GlslParserImpl.parseUnaryExpression(reader);
+        if (left == null) {
+            return null;
+        }
+
+        while (reader.canRead()) {
+            int cursor = reader.getCursor();
+            if (reader.tryConsume(GlslLexer.TokenType.STAR)) {
+                GlslNode right = GlslParserImpl.parseUnaryExpression(reader);
+                if (right == null) {
+                    reader.setCursor(cursor);
+                    return left;
+                }
+                left = new GlslOperationNode(left, right, GlslOperationNode.Operand.MULTIPLY);
+                continue;
+            }
+            if (reader.tryConsume(GlslLexer.TokenType.SLASH)) {
+                GlslNode right = GlslParserImpl.parseUnaryExpression(reader);
+                if (right == null) {
+                    reader.setCursor(cursor);
+                    return left;
+                }
+                left = new GlslOperationNode(left, right, GlslOperationNode.Operand.DIVIDE);
+                continue;
+            }
+            if (reader.tryConsume(GlslLexer.TokenType.PERCENT)) {
+                GlslNode right = GlslParserImpl.parseUnaryExpression(reader);
+                if (right == null) {
+                    reader.setCursor(cursor);
+                    return left;
+                }
+                left = new GlslOperationNode(left, right, GlslOperationNode.Operand.MODULO);
+                continue;
+            }
+            break;
+        }
+
+        return left;
+    }
+
+    public static GlslNode parseAdditiveExpression(GlslTokenReader reader) {
+        // multiplicative_expression
+        // additive_expression PLUS multiplicative_expression
+        // additive_expression DASH multiplicative_expression
+
+        GlslNode left = parseMultiplicativeExpression(reader);
+        if (left == null) {
+            return null;
+        }
+
+        while (reader.canRead()) {
+            int cursor = reader.getCursor();
+            if (reader.tryConsume(GlslLexer.TokenType.PLUS)) {
+                GlslNode right = parseMultiplicativeExpression(reader);
+                if (right == null) {
+                    reader.setCursor(cursor);
+                    return left;
+                }
+                left = new GlslOperationNode(left, right, GlslOperationNode.Operand.ADD);
+                continue;
+            }
+            if (reader.tryConsume(GlslLexer.TokenType.DASH)) {
+                GlslNode right = parseMultiplicativeExpression(reader);
+                if (right == null) {
+                    reader.setCursor(cursor);
+                    return left;
+                }
+                left = new GlslOperationNode(left, right, GlslOperationNode.Operand.SUBTRACT);
+                continue;
+            }
+            break;
+        }
+
+        return left;
+    }
+
+    public static GlslNode parseShiftExpression(GlslTokenReader reader) {
+        // additive_expression
+        // shift_expression LEFT_OP additive_expression
+        // shift_expression RIGHT_OP additive_expression
+
+        GlslNode left = parseAdditiveExpression(reader);
+        if (left == null) {
+            return null;
+        }
+
+        while (reader.canRead()) {
+            int cursor = reader.getCursor();
+            if (reader.tryConsume(GlslLexer.TokenType.LEFT_OP)) {
+                GlslNode right = parseAdditiveExpression(reader);
+                if (right == null) {
+                    reader.setCursor(cursor);
+                    return left;
+                }
+                left = new GlslOperationNode(left, right, GlslOperationNode.Operand.LEFT_SHIFT);
+                continue;
+            }
+            if (reader.tryConsume(GlslLexer.TokenType.RIGHT_OP)) {
+                GlslNode right = parseAdditiveExpression(reader);
+                if (right == null) {
+                    reader.setCursor(cursor);
+                    return left;
+                }
+                left = new GlslOperationNode(left, right, GlslOperationNode.Operand.RIGHT_SHIFT);
+                continue;
+            }
+            break;
+        }
+
+        return left;
+    }
+
+    public static GlslNode parseRelationalExpression(GlslTokenReader reader) {
+        // shift_expression
+        // relational_expression LEFT_ANGLE shift_expression
+        // relational_expression RIGHT_ANGLE shift_expression
+        // relational_expression LE_OP shift_expression
+        // relational_expression GE_OP shift_expression
+
+        GlslNode left = parseShiftExpression(reader);
+        if (left == null) {
+            return null;
+        }
+
+        while (reader.canRead()) {
+            int cursor = reader.getCursor();
+            if (reader.tryConsume(GlslLexer.TokenType.LEFT_ANGLE)) {
+                GlslNode right = parseShiftExpression(reader);
+                if (right == null) {
+                    reader.setCursor(cursor);
+                    return left;
+                }
+                left = new GlslCompareNode(left, right, GlslCompareNode.Operand.LESS);
+                continue;
+            }
+            if (reader.tryConsume(GlslLexer.TokenType.RIGHT_ANGLE)) {
+                GlslNode right = parseShiftExpression(reader);
+                if (right == null) {
+                    reader.setCursor(cursor);
+                    return left;
+                }
+                left = new GlslCompareNode(left, right, GlslCompareNode.Operand.GREATER);
+                continue;
+            }
+            if (reader.tryConsume(GlslLexer.TokenType.LE_OP)) {
+                GlslNode right = parseShiftExpression(reader);
+                if (right == null) {
+                    reader.setCursor(cursor);
+                    return left;
+                }
+                left = new GlslCompareNode(left, right, GlslCompareNode.Operand.LEQUAL);
+                continue;
+            }
+            if (reader.tryConsume(GlslLexer.TokenType.GE_OP)) {
+                GlslNode right = parseShiftExpression(reader);
+                if (right == null) {
+                    reader.setCursor(cursor);
+                    return left;
+                }
+                left = new GlslCompareNode(left, right, GlslCompareNode.Operand.GEQUAL);
+                continue;
+            }
+            break;
+        }
+
+        return left;
+    }
+
+    public static GlslNode parseEqualityExpression(GlslTokenReader reader) {
+        // relational_expression
+        // equality_expression EQ_OP relational_expression
+        // equality_expression NE_OP relational_expression
+
+        GlslNode left = parseRelationalExpression(reader);
+        if (left == null) {
+            return null;
+        }
+
+        while (reader.canRead()) {
+            int cursor = reader.getCursor();
+            if (reader.tryConsume(GlslLexer.TokenType.EQ_OP)) {
+                GlslNode right = parseRelationalExpression(reader);
+                if (right == null) {
+                    reader.setCursor(cursor);
+                    return left;
+                }
+                left = new GlslCompareNode(left, right, GlslCompareNode.Operand.EQUAL);
+                continue;
+            }
+            if (reader.tryConsume(GlslLexer.TokenType.NE_OP)) {
+                GlslNode right = parseRelationalExpression(reader);
+                if (right == null) {
+                    reader.setCursor(cursor);
+                    return left;
+                }
+                left = new GlslCompareNode(left, right, GlslCompareNode.Operand.NOT_EQUAL);
+                continue;
+            }
+            break;
+        }
+
+        return left;
+    }
+
+    public static GlslNode parseAndExpression(GlslTokenReader reader) {
+        // equality_expression
+        // and_expression AMPERSAND equality_expression
+        return parseSimpleExpression(reader, GlslReferenceExpressionParser::parseEqualityExpression, GlslLexer.TokenType.AMPERSAND, GlslBitwiseNode::bitAnd);
+    }
+
+    public static GlslNode parseExclusiveOrExpression(GlslTokenReader reader) {
+        // and_expression
+        // exclusive_or_expression CARET and_expression
+        return parseSimpleExpression(reader, GlslReferenceExpressionParser::parseAndExpression, GlslLexer.TokenType.CARET, GlslBitwiseNode::bitXor);
+    }
+
+    public static GlslNode parseInclusiveOrExpression(GlslTokenReader reader) {
+        // exclusive_or_expression
+        // inclusive_or_expression VERTICAL_BAR exclusive_or_expression
+        return parseSimpleExpression(reader, GlslReferenceExpressionParser::parseExclusiveOrExpression, GlslLexer.TokenType.VERTICAL_BAR, GlslBitwiseNode::bitOr);
+    }
+
+    public static GlslNode parseLogicalAndExpression(GlslTokenReader reader) {
+        // inclusive_or_expression
+        // logical_and_expression AND_OP inclusive_or_expression
+        return parseSimpleExpression(reader, GlslReferenceExpressionParser::parseInclusiveOrExpression, GlslLexer.TokenType.AND_OP, GlslBitwiseNode::logicalAnd);
+    }
+
+    public static GlslNode parseLogicalXorExpression(GlslTokenReader reader) {
+        // logical_and_expression
+        // logical_xor_expression XOR_OP logical_and_expression
+        return parseSimpleExpression(reader, GlslReferenceExpressionParser::parseLogicalAndExpression, GlslLexer.TokenType.XOR_OP, GlslBitwiseNode::logicalXor);
+    }
+
+    public static GlslNode parseLogicalOrExpression(GlslTokenReader reader) {
+        // logical_xor_expression
+        // logical_or_expression OR_OP logical_xor_expression
+        return parseSimpleExpression(reader, GlslReferenceExpressionParser::parseLogicalXorExpression, GlslLexer.TokenType.OR_OP, GlslBitwiseNode::logicalOr);
+    }
+}
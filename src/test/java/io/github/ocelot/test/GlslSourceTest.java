@@ -0,0 +1,153 @@
+package io.github.ocelot.test;
+
+import io.github.ocelot.glslprocessor.api.GlslParser;
+import io.github.ocelot.glslprocessor.api.GlslSource;
+import io.github.ocelot.glslprocessor.api.GlslSyntaxException;
+import io.github.ocelot.glslprocessor.api.node.GlslTree;
+import io.github.ocelot.glslprocessor.impl.GlslLexer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GlslSourceTest {
+
+    @Test
+    public void testCharSequence() throws GlslSyntaxException {
+        GlslTree expected = GlslParser.parse(GlslTestShaders.COMPUTE);
+        assertEquals(expected, GlslParser.parse(new StringBuilder(GlslTestShaders.COMPUTE)));
+    }
+
+    @Test
+    public void testCharRange() throws GlslSyntaxException {
+        String padded = "#error not part of the source\n" + GlslTestShaders.FRAGMENT + "}}}";
+        char[] chars = padded.toCharArray();
+        int offset = padded.indexOf('\n') + 1;
+
+        CharSequence source = GlslSource.wrap(chars, offset, GlslTestShaders.FRAGMENT.length());
+        assertEquals(GlslTestShaders.FRAGMENT, source.toString());
+        // The lexer can only scan the array directly if the buffer exposes it
+        assertTrue(source instanceof CharBuffer buffer && buffer.hasArray());
+        assertArrayEquals(GlslLexer.createTokens(GlslTestShaders.FRAGMENT), GlslLexer.createTokens(source));
+        assertEquals(GlslParser.parse(GlslTestShaders.FRAGMENT), GlslParser.parse(source));
+    }
+
+    @Test
+    public void testByteBuffer() throws GlslSyntaxException {
+        GlslTree expected = GlslParser.parse(GlslTestShaders.CONSTANTS);
+        byte[] bytes = GlslTestShaders.CONSTANTS.getBytes(StandardCharsets.ISO_8859_1);
+
+        ByteBuffer heap = ByteBuffer.wrap(bytes);
+        assertEquals(expected, GlslParser.parse(GlslSource.wrap(heap, StandardCharsets.ISO_8859_1)));
+        assertEquals(0, heap.position());
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length + 2);
+        direct.put((byte) '{').put(bytes).put((byte) '{').flip();
+        direct.position(1).limit(bytes.length + 1);
+        assertEquals(expected, GlslParser.parse(GlslSource.wrap(direct, StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testNonAsciiUtf8() throws GlslSyntaxException {
+        String source = "// \u00dcberpr\u00fcfung \u2600\n" + GlslTestShaders.FRAGMENT;
+        ByteBuffer buffer = ByteBuffer.wrap(source.getBytes(StandardCharsets.UTF_8));
+        CharSequence sequence = GlslSource.wrap(buffer, StandardCharsets.UTF_8);
+        assertEquals(source, sequence.toString());
+        assertEquals(GlslParser.parse(source), GlslParser.parse(sequence));
+    }
+
+    @Test
+    public void testMappedFile(@TempDir Path folder) throws IOException, GlslSyntaxException {
+        Path file = folder.resolve("shader.glsl");
+        Files.writeString(file, GlslTestShaders.COMPUTE, StandardCharsets.UTF_8);
+
+        assertEquals(GlslParser.parse(GlslTestShaders.COMPUTE), GlslParser.parse(GlslSource.map(file, StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testError() {
+        ByteBuffer buffer = ByteBuffer.wrap("void main() { int a = 0x; }".getBytes(StandardCharsets.US_ASCII));
+        GlslSyntaxException exception = assertThrows(GlslSyntaxException.class, () -> GlslParser.parse(GlslSource.wrap(buffer, StandardCharsets.US_ASCII)));
+        assertEquals("Unknown Token", exception.getRawMessage());
+    }
+
+    @Test
+    public void testErrorWithoutCopy() {
+        CharSequence lexerError = new NoCopySequence(GlslTestShaders.FRAGMENT + "\nint $a;");
+        GlslSyntaxException exception = assertThrows(GlslSyntaxException.class, () -> GlslParser.parse(lexerError));
+        assertTrue(exception.getMessage().endsWith("int $<--[HERE]"), exception.getMessage());
+
+        CharSequence parserError = new NoCopySequence(GlslTestShaders.FRAGMENT + "\nint a = (1;");
+        exception = assertThrows(GlslSyntaxException.class, () -> GlslParser.parse(parserError));
+        for (Throwable error : exception.getSuppressed()) {
+            assertTrue(error.getMessage().contains("<--[HERE]"), error.getMessage());
+        }
+    }
+
+    @Test
+    public void testErrorAfterSourceReuse() throws IOException, ClassNotFoundException {
+        StringBuilder builder = new StringBuilder(GlslTestShaders.FRAGMENT + "\nint $a;");
+        GlslSyntaxException lexerError = assertThrows(GlslSyntaxException.class, () -> GlslParser.parse(builder));
+        String message = lexerError.getMessage();
+        assertTrue(message.endsWith("int $<--[HERE]"), message);
+
+        char[] chars = (GlslTestShaders.FRAGMENT + "\nint a = (1;").toCharArray();
+        GlslSyntaxException parserError = assertThrows(GlslSyntaxException.class, () -> GlslParser.parse(GlslSource.wrap(chars, 0, chars.length)));
+        String parserMessage = parserError.getMessage();
+
+        // The message must not change when the buffers are reused for another source
+        builder.setLength(0);
+        builder.append("void main() {}");
+        Arrays.fill(chars, 'x');
+        assertEquals(message, lexerError.getMessage());
+        assertEquals(parserMessage, parserError.getMessage());
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (ObjectOutputStream stream = new ObjectOutputStream(output)) {
+            stream.writeObject(lexerError);
+        }
+        try (ObjectInputStream stream = new ObjectInputStream(new ByteArrayInputStream(output.toByteArray()))) {
+            GlslSyntaxException read = (GlslSyntaxException) stream.readObject();
+            assertEquals(message, read.getMessage());
+            assertEquals(lexerError.getLine(), read.getLine());
+        }
+    }
+
+    /**
+     * A source that fails if the entire source is ever copied into a string.
+     */
+    private record NoCopySequence(String source) implements CharSequence {
+
+        @Override
+        public int length() {
+            return this.source.length();
+        }
+
+        @Override
+        public char charAt(int index) {
+            return this.source.charAt(index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return this.source.subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            throw new AssertionError("Source was copied");
+        }
+    }
+}
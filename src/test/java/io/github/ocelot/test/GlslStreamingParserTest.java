@@ -0,0 +1,168 @@
+package io.github.ocelot.test;
+
+import io.github.ocelot.glslprocessor.api.GlslParser;
+import io.github.ocelot.glslprocessor.api.GlslParserSession;
+import io.github.ocelot.glslprocessor.api.GlslSyntaxException;
+import io.github.ocelot.glslprocessor.api.grammar.GlslVersionStatement;
+import io.github.ocelot.glslprocessor.api.node.GlslNode;
+import io.github.ocelot.glslprocessor.api.node.GlslTree;
+import io.github.ocelot.glslprocessor.api.node.function.GlslFunctionNode;
+import io.github.ocelot.glslprocessor.api.node.variable.GlslNewFieldNode;
+import io.github.ocelot.glslprocessor.api.node.variable.GlslStructDeclarationNode;
+import io.github.ocelot.glslprocessor.api.node.variable.GlslVariableDeclarationNode;
+import io.github.ocelot.glslprocessor.api.visitor.GlslNodeVisitor;
+import io.github.ocelot.glslprocessor.api.visitor.GlslTreeStringWriter;
+import io.github.ocelot.glslprocessor.api.visitor.GlslTreeVisitor;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GlslStreamingParserTest {
+
+    private static final String NO_DIRECTIVES = GlslTestShaders.COMPUTE.replaceAll("#extension[^\n]*\n", "");
+
+    private static class RecordingVisitor extends GlslTreeVisitor {
+
+        private final List<String> events = new ArrayList<>();
+        private final List<String> directives = new ArrayList<>();
+        private final Map<String, String> markers = new TreeMap<>();
+
+        @Override
+        public void visitMarkers(Map<String, GlslNode> markers) {
+            markers.forEach((name, node) -> this.markers.put(name, node.toString()));
+        }
+
+        @Override
+        public void visitVersion(GlslVersionStatement version) {
+            this.events.add("version " + version);
+        }
+
+        @Override
+        public void visitDirective(String directive) {
+            this.directives.add(directive);
+        }
+
+        @Override
+        public void visitNewField(GlslNewFieldNode node) {
+            this.events.add("field " + node);
+        }
+
+        @Override
+        public void visitStructDeclaration(GlslStructDeclarationNode node) {
+            this.events.add("struct " + node);
+        }
+
+        @Override
+        public void visitDeclaration(GlslVariableDeclarationNode node) {
+            this.events.add("declaration " + node);
+        }
+
+        @Override
+        public GlslNodeVisitor visitFunction(GlslFunctionNode node) {
+            this.events.add("function " + node);
+            return null;
+        }
+
+        @Override
+        public void visitFunctionEnd(GlslFunctionNode node) {
+            this.events.add("end " + node.getName());
+        }
+
+        @Override
+        public void visitTreeEnd(GlslTree tree) {
+            this.events.add("tree end " + tree.getVersionStatement());
+        }
+    }
+
+    private static void assertSameEvents(String source) throws GlslSyntaxException {
+        RecordingVisitor expected = new RecordingVisitor();
+        GlslParser.parse(source).visit(expected);
+        RecordingVisitor actual = new RecordingVisitor();
+        GlslParser.visit(source, actual);
+        assertEquals(expected.events, actual.events);
+        assertEquals(expected.directives, actual.directives);
+        assertEquals(expected.markers, actual.markers);
+    }
+
+    private static String write(String source) throws GlslSyntaxException {
+        GlslTreeStringWriter writer = new GlslTreeStringWriter();
+        GlslParser.visit(source, writer);
+        return writer.toString();
+    }
+
+    @Test
+    public void testSameEvents() throws GlslSyntaxException {
+        for (String shader : GlslTestShaders.ALL) {
+            assertSameEvents(shader);
+        }
+        assertSameEvents("struct Light { vec3 color; } light;\nint a, b = 1;\nvoid f();\nvoid f() {}\n;");
+    }
+
+    @Test
+    public void testStringWriter() throws GlslSyntaxException {
+        String source = NO_DIRECTIVES + "// #color\nuniform vec4 Color;\n";
+        GlslTreeStringWriter writer = new GlslTreeStringWriter();
+        GlslParser.parse(source).visit(writer);
+        assertEquals(writer.toString(), write(source));
+        assertTrue(writer.toString().contains("/* #color */"));
+    }
+
+    @Test
+    public void testDirectivesInOrder() throws GlslSyntaxException {
+        RecordingVisitor visitor = new RecordingVisitor() {
+            @Override
+            public void visitDirective(String directive) {
+                super.visitDirective(directive);
+                super.events.add(directive);
+            }
+        };
+        GlslParser.visit("#version 330\nuniform float a;\n#extension A : enable\nuniform float b;\n", visitor);
+        assertEquals(4, visitor.events.size() - 1);
+        assertEquals("#extension A : enable", visitor.events.get(2));
+    }
+
+    @Test
+    public void testErrors() {
+        String source = "uniform vec4 a;\nvoid main() {\n    a = (2;\n}";
+        RecordingVisitor visitor = new RecordingVisitor();
+        GlslSyntaxException expected = assertThrows(GlslSyntaxException.class, () -> GlslParser.parse(source));
+        GlslSyntaxException actual = assertThrows(GlslSyntaxException.class, () -> GlslParser.visit(source, visitor));
+        assertEquals(expected.getMessage(), actual.getMessage());
+        // Declarations before the error were already visited
+        assertEquals(2, visitor.events.size());
+        assertTrue(visitor.events.get(1).startsWith("field "));
+    }
+
+    @Test
+    public void testSession() throws GlslSyntaxException {
+        GlslParserSession session = new GlslParserSession();
+        for (String shader : GlslTestShaders.ALL) {
+            RecordingVisitor expected = new RecordingVisitor();
+            GlslParser.visit(shader, expected);
+            RecordingVisitor actual = new RecordingVisitor();
+            session.visit(shader, actual);
+            assertEquals(expected.events, actual.events);
+            assertEquals(expected.markers, actual.markers);
+        }
+    }
+
+    @Test
+    public void testStreamingSpeed() throws GlslSyntaxException {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            builder.append(NO_DIRECTIVES.replace("#version 430 core", ""));
+        }
+        String source = "#version 430 core\n" + builder;
+        long tree = GlslTestHelper.measure(100, 10, 5, () -> GlslParser.parse(source).visit(new GlslTreeStringWriter()));
+        long streaming = GlslTestHelper.measure(100, 10, 5, () -> GlslParser.visit(source, new GlslTreeStringWriter()));
+
+        System.out.printf("Took %.3fms building and visiting a tree and %.3fms visiting while parsing (%.2fx)%n", tree / 1_000_000.0F, streaming / 1_000_000.0F, (double) tree / streaming);
+        // Not building the tree saves about a third of the time, this only fails when most of that is lost
+        assertTrue(tree > streaming * 1.1, "Visiting while parsing is not faster than building a tree");
+    }
+}
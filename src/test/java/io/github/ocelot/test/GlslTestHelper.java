@@ -5,6 +5,7 @@ import io.github.ocelot.glslprocessor.api.GlslSyntaxException;
 import io.github.ocelot.glslprocessor.api.node.GlslTree;
 import io.github.ocelot.glslprocessor.api.visitor.GlslTreeStringWriter;
 import io.github.ocelot.glslprocessor.impl.GlslLexer;
+import org.junit.jupiter.api.function.Executable;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -37,6 +38,25 @@ public class GlslTestHelper {
         return comments;
     }
 
+    public static long measure(int warmup, int rounds, int runs, Executable task) {
+        return assertDoesNotThrow(() -> {
+            for (int i = 0; i < warmup; i++) {
+                task.execute();
+            }
+
+            // The fastest round is the one least disturbed by the JIT, garbage collection and other processes
+            long best = Long.MAX_VALUE;
+            for (int round = 0; round < rounds; round++) {
+                long start = System.nanoTime();
+                for (int i = 0; i < runs; i++) {
+                    task.execute();
+                }
+                best = Math.min(best, (System.nanoTime() - start) / runs);
+            }
+            return best;
+        });
+    }
+
     public static GlslTree testSpeed(String source) throws GlslSyntaxException {
         if (PRELOAD) {
             // Load classes
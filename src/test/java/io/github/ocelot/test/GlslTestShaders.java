@@ -0,0 +1,172 @@
+package io.github.ocelot.test;
+
+public class GlslTestShaders {
+
+    public static final String FRAGMENT = """
+            #version 430 core
+
+            uniform sampler2D DiffuseSampler0;
+            uniform sampler2D DiffuseDepthSampler;
+
+            const float FogStart = 0;
+            const float FogEnd = 100;
+            uniform vec4 FogColor;
+            uniform int FogShape;
+
+            in vec2 texCoord;
+
+            out vec4 fragColor;
+
+            // Converts the depth sample into a view position
+            vec3 viewPosFromDepthSample(float depth, vec2 uv) {
+                vec4 positionCs = vec4(uv * 2.0 - 1.0, depth * 2.0 - 1.0, 1.0);
+                return positionCs.xyz / positionCs.w;
+            }
+
+            void main() {
+                vec4 baseColor = texture(DiffuseSampler0, texCoord);
+                float depthSample = texture(DiffuseDepthSampler, texCoord).r;
+                vec3 pos = viewPosFromDepthSample(depthSample, texCoord);
+
+                /*
+                 * Scoped blocks
+                 */
+                {
+                    int a = 4;
+                    float b = 7.0;
+                    {
+                        float h = 7.0e-3;
+                        int w = 1;
+                    }
+                }
+
+                for (int i = 0; i < 7; i++) {
+                    float g = float(i);
+                    int k = 1;
+                }
+
+                float vertexDistance = fog_distance(pos, FogShape);
+                fragColor = linear_fog(baseColor, vertexDistance, FogStart, FogEnd, FogColor);
+            }
+            """;
+
+    public static final String COMPUTE = """
+            #version 430 core
+
+            #extension GL_ARB_compute_shader : enable
+            #extension GL_ARB_shader_atomic_counters : enable
+            #extension GL_ARB_shader_storage_buffer_object : enable
+
+            layout(std140) uniform CameraMatrices {
+                mat4 ProjMat;
+                mat4 IProjMat;
+                mat4 ViewMat;
+                mat4 IViewMat;
+                mat3 IViewRotMat;
+                vec3 CameraPosition;
+                float NearPlane;
+                float FarPlane;
+            } VeilCamera;
+
+            layout(std430) readonly buffer VeilLightInstanced {
+                float data[];
+            };
+
+            layout(std430) writeonly buffer VeilLightIndirect {
+                int commands[];
+            };
+
+            layout(binding = 0) uniform atomic_uint VeilLightCount;
+
+            uniform int HighResSize;
+            uniform int LowResSize;
+            uniform int LightSize;
+            uniform int PositionOffset;
+            uniform int RangeOffset;
+            uniform float FrustumPlanes[24];
+
+            bool testSphere(float x, float y, float z, float r) {
+                return FrustumPlanes[0] * x + FrustumPlanes[1] * y + FrustumPlanes[2] * z + FrustumPlanes[3] >= -r &&
+                       FrustumPlanes[4] * x + FrustumPlanes[5] * y + FrustumPlanes[6] * z + FrustumPlanes[7] >= -r &&
+                       FrustumPlanes[8] * x + FrustumPlanes[9] * y + FrustumPlanes[10] * z + FrustumPlanes[11] >= -r &&
+                       FrustumPlanes[12] * x + FrustumPlanes[13] * y + FrustumPlanes[14] * z + FrustumPlanes[15] >= -r &&
+                       FrustumPlanes[16] * x + FrustumPlanes[17] * y + FrustumPlanes[18] * z + FrustumPlanes[19] >= -r &&
+                       FrustumPlanes[20] * x + FrustumPlanes[21] * y + FrustumPlanes[22] * z + FrustumPlanes[23] >= -r;
+            }
+
+            layout (local_size_x = 1, local_size_y = 1, local_size_z = 1) in;
+            void main() {
+                uint lightId = gl_GlobalInvocationID.x;
+                uint lightDataIndex = lightId * LightSize;
+
+                float x = data[lightDataIndex + PositionOffset];
+                float y = data[lightDataIndex + PositionOffset + 1];
+                float z = data[lightDataIndex + PositionOffset + 2];
+                float range = data[lightDataIndex + RangeOffset];
+                float dx = x - VeilCamera.CameraPosition.x;
+                float dy = y - VeilCamera.CameraPosition.y;
+                float dz = z - VeilCamera.CameraPosition.z;
+
+                bool visible = testSphere(dx, dy, dz, range * 1.414);
+                if (visible) {
+                    uint i = atomicCounterIncrement(
+                    /*#test*/
+                    VeilLightCount
+                    ) * 5;
+                    bool highRes = dx * dx + dy * dy + dz * dz <= range * range;
+                    commands[i] = highRes ? HighResSize : LowResSize;
+                    commands[i + 1] = 1;
+                    commands[i + 2] = !highRes ? HighResSize : 0;
+                    commands[i + 3] = 0;
+                    commands[i + 4] = int(lightId);
+                }
+            }
+            """;
+
+    public static final String CONSTANTS = """
+            #version 450 core
+
+            const uint MASK = 0xFFu;
+            const int OCTAL = 0777;
+            const int HEX = 0X1aF;
+            const uint DECIMAL = 42U;
+            const float A = 1.5f;
+            const float B = .25;
+            const float C = 3.;
+            const float D = 1E+5;
+            const float E = 2.5e-3F;
+            const double F = 1.0lf;
+            const double G = 6.02LF;
+
+            struct Light {
+                vec3 position;
+                vec3 color;
+                float radius[2];
+            };
+
+            layout(location = 0) out vec4 fragColor;
+
+            float attenuate(in Light light, vec3 pos) {
+                float d = distance(light.position, pos);
+                return clamp(1.0 - d * d / (light.radius[0] * light.radius[1]), 0.0, 1.0);
+            }
+
+            void main() {
+                int bits = HEX << 2 | OCTAL >> 1 & ~3 ^ 5;
+                bits <<= 1;
+                bits >>= 1;
+                bits |= 1;
+                bits &= 0xF;
+                bits ^= 2;
+                bits %= 3;
+                bool test = bits != 0 && bits == 1 || bits >= 4 ^^ !(bits <= 2);
+                fragColor = vec4(test ? A : B, C / D, E * float(F), float(G) - float(MASK));
+                fragColor.rgb -= vec3(0.5);
+            }
+            """;
+
+    public static final String[] ALL = {FRAGMENT, COMPUTE, CONSTANTS};
+
+    private GlslTestShaders() {
+    }
+}
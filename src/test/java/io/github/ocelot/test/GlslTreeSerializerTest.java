@@ -0,0 +1,183 @@
+package io.github.ocelot.test;
+
+import io.github.ocelot.glslprocessor.api.GlslIdentifierPool;
+import io.github.ocelot.glslprocessor.api.GlslParser;
+import io.github.ocelot.glslprocessor.api.GlslSyntaxException;
+import io.github.ocelot.glslprocessor.api.GlslTreeSerializer;
+import io.github.ocelot.glslprocessor.api.node.GlslNode;
+import io.github.ocelot.glslprocessor.api.node.GlslTree;
+import io.github.ocelot.glslprocessor.lib.anarres.cpp.LexerException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GlslTreeSerializerTest {
+
+    private static final String CONSTRUCTS = """
+            #version 410 compatibility
+            #extension GL_ARB_shading_language_420pack : enable
+            struct Light {
+                vec3 color;
+                float radius[4];
+            };
+            struct {
+                int a;
+            } anonymous;
+            layout(location = 0, shared) uniform Block {
+                mat4 Matrix;
+            } block;
+            layout(std140) uniform;
+            subroutine vec4 Shade(vec4 color);
+            subroutine(Shade) vec4 shadeRed(vec4 color) {
+                return color;
+            }
+            flat in int Index;
+            invariant gl_Position;
+            uniform Light Lights[8];
+            const int Values[3] = int[](0x1F, 017, -4);
+            float prototype(float, int);
+            out vec4 fragColor;
+            void main() {
+                precision highp float;
+                uint count = 4000000000u;
+                double big = 2.5lf;
+                bool flag = !false;
+                for (int i = 0; i < 4;) {
+                    i++;
+                    if (i == 2) continue;
+                }
+                int j = 0;
+                do {
+                    j += 2;
+                } while (j < 10 && !flag || j > 20 ^^ flag);
+                while (true) {
+                    break;
+                }
+                switch (Index) {
+                    case 0:
+                        fragColor = vec4(Lights[0].color, 1.0);
+                        break;
+                    default:
+                        fragColor = vec4(1 << 2 | 3 & 5 ^ 7, -big, count % 3u, flag ? 1.0 : 0.0);
+                }
+                if (fragColor.a < 0.5) {
+                    discard;
+                } else {
+                    fragColor.rgb *= 2.0;
+                }
+                return;
+            }
+            """;
+
+    private static GlslTree roundTrip(GlslTree tree) throws IOException {
+        byte[] data = GlslTreeSerializer.write(tree);
+        GlslTree decoded = GlslTreeSerializer.read(data);
+        assertEquals(tree, decoded);
+        assertEquals(tree.getMacros(), decoded.getMacros());
+        assertEquals(tree.getMarkers().keySet(), decoded.getMarkers().keySet());
+        assertEquals(tree.toSourceString(), decoded.toSourceString());
+        // Writing the decoded tree creates the same data
+        assertArrayEquals(data, GlslTreeSerializer.write(decoded));
+        return decoded;
+    }
+
+    @Test
+    public void testRoundTrip() throws GlslSyntaxException, IOException {
+        for (String shader : GlslTestShaders.ALL) {
+            roundTrip(GlslParser.parse(shader));
+        }
+        roundTrip(GlslParser.parse(CONSTRUCTS));
+        roundTrip(new GlslTree());
+    }
+
+    @Test
+    public void testPreprocessedRoundTrip() throws GlslSyntaxException, LexerException, IOException {
+        // The preprocessor doesn't support double suffixes used by the constants shader
+        for (String shader : new String[]{GlslTestShaders.FRAGMENT, GlslTestShaders.COMPUTE}) {
+            GlslTree tree = GlslParser.preprocessParse(shader, new HashMap<>());
+            tree.getMacros().put("LIGHT_COUNT", "8");
+            GlslTree decoded = roundTrip(tree);
+            assertEquals("8", decoded.getMacros().get("LIGHT_COUNT"));
+        }
+    }
+
+    @Test
+    public void testMarkers() throws GlslSyntaxException, IOException {
+        GlslTree tree = GlslParser.parse(GlslTestShaders.COMPUTE + "// #color\nuniform vec4 Color;\n");
+        GlslTree decoded = roundTrip(tree);
+        assertSame(decoded.getBody().get(decoded.getBody().size() - 1), decoded.getMarkers().get("color"));
+        for (Map.Entry<String, GlslNode> entry : tree.getMarkers().entrySet()) {
+            assertEquals(entry.getValue(), decoded.getMarkers().get(entry.getKey()));
+        }
+    }
+
+    @Test
+    public void testLazyFunctions() throws GlslSyntaxException, IOException {
+        GlslTree tree = GlslParser.parseLazy(CONSTRUCTS, null);
+        assertEquals(GlslParser.parse(CONSTRUCTS), GlslTreeSerializer.read(GlslTreeSerializer.write(tree)));
+    }
+
+    @Test
+    public void testStreams() throws GlslSyntaxException, IOException {
+        GlslTree tree = GlslParser.parse(GlslTestShaders.FRAGMENT);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        GlslTreeSerializer.write(tree, output);
+        assertEquals(tree, GlslTreeSerializer.read(new ByteArrayInputStream(output.toByteArray())));
+    }
+
+    @Test
+    public void testIdentifierPool() throws GlslSyntaxException, IOException {
+        byte[] data = GlslTreeSerializer.write(GlslParser.parse(GlslTestShaders.FRAGMENT));
+        GlslIdentifierPool pool = new GlslIdentifierPool();
+        GlslTree first = GlslTreeSerializer.read(data, pool);
+        GlslTree second = GlslTreeSerializer.read(data, pool);
+        assertEquals(first, second);
+        assertSame(first.mainFunction().orElseThrow().getName(), second.mainFunction().orElseThrow().getName());
+    }
+
+    @Test
+    public void testInvalidData() throws GlslSyntaxException {
+        byte[] data = GlslTreeSerializer.write(GlslParser.parse(CONSTRUCTS));
+        assertThrows(IOException.class, () -> GlslTreeSerializer.read(new byte[0]));
+        assertThrows(IOException.class, () -> GlslTreeSerializer.read("not a tree".getBytes()));
+
+        byte[] version = data.clone();
+        version[4] = (byte) (GlslTreeSerializer.FORMAT_VERSION + 1);
+        IOException exception = assertThrows(IOException.class, () -> GlslTreeSerializer.read(version));
+        assertTrue(exception.getMessage().contains("version"));
+
+        // Truncated data is always reported as an IO error
+        for (int i = 0; i < data.length; i++) {
+            byte[] truncated = Arrays.copyOf(data, i);
+            assertThrows(IOException.class, () -> GlslTreeSerializer.read(truncated));
+        }
+        assertThrows(IOException.class, () -> GlslTreeSerializer.read(Arrays.copyOf(data, data.length + 1)));
+    }
+
+    @Test
+    public void testSerializerSpeed() throws GlslSyntaxException, IOException {
+        StringBuilder builder = new StringBuilder("#version 450 core\n");
+        for (int i = 0; i < 20; i++) {
+            builder.append(GlslTestShaders.CONSTANTS.replace("#version 450 core", "").replace("main", "main" + i));
+        }
+        String source = builder.toString();
+        GlslTree tree = GlslParser.parse(source);
+        byte[] data = GlslTreeSerializer.write(tree);
+
+        long parse = GlslTestHelper.measure(1000, 30, 10, () -> GlslParser.parse(source));
+        long write = GlslTestHelper.measure(10000, 30, 10, () -> GlslTreeSerializer.write(tree));
+        long read = GlslTestHelper.measure(10000, 30, 10, () -> GlslTreeSerializer.read(data));
+
+        System.out.printf("Took %.3fms parsing %d characters, %.3fms writing and %.3fms reading %d bytes (%.2fx, %.2fx)%n", parse / 1_000_000.0F, source.length(), write / 1_000_000.0F, read / 1_000_000.0F, data.length, (double) parse / write, (double) parse / read);
+        // Both take about a ninth of the time parsing does, this only fails when one of them gets a lot slower
+        assertTrue(parse > write * 5, "Writing is not much faster than parsing");
+        assertTrue(parse > read * 5, "Reading is not much faster than parsing");
+    }
+}
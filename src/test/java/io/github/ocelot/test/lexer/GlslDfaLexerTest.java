@@ -0,0 +1,180 @@
+package io.github.ocelot.test.lexer;
+
+import io.github.ocelot.glslprocessor.api.GlslSyntaxException;
+import io.github.ocelot.glslprocessor.impl.GlslDfaLexer;
+import io.github.ocelot.glslprocessor.impl.GlslLexer;
+import io.github.ocelot.test.GlslTestShaders;
+import org.junit.jupiter.api.DynamicNode;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+
+import java.util.*;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GlslDfaLexerTest {
+
+    private static final String[] WORDS = Arrays.stream(GlslLexer.TokenType.values())
+            .filter(type -> type.getWords() != null)
+            .flatMap(type -> Arrays.stream(type.getWords()))
+            .toArray(String[]::new);
+    private static final String[] FRAGMENTS = {
+            "a", "vec4x", "_test1", "input", "0", "1", "08", "0777", "0x1F", "0XaBu", "0x", "12", "12u", "1 2", "1 .5",
+            "1.5", "1.5 f", "1.5 foo", ".5", "1.", "1e5", "1E+5", "1 e 5", "1.5e", "1.5e+", "1.5lf", "1.5LF", "1.5lF",
+            "3.0F", "12e", "1 2 3", "1 2u", "1 0x1F", "1 0x", "089 1", "0 8 9u", "07 8", "1 2e", "1 2 e 5", "1 2 e+",
+            "1 2 .5", "1 2.", "08.5", "1.5else", "1.5e++", "1.5e-=", "1.5lx", "1. e5", "\u0663", "1\u0663", "\u0663.5",
+            "1 \u0663 .5", "1 \u0663", ".\u0663", "a\u0663", "1\u2003.5", "//", "// comment", "/**/", "/* * / **/", "/*/", "#", "#define A 1", "\n", "\t", "\r\n", " ", " "
+    };
+
+    // Every character a number constant can contain, and some that can follow one
+    private static final String[] NUMBER_CHARS = {"0", "1", "8", "a", ".", "e", "+", "l", "f", "u", "x", " ", "\u0663"};
+
+    private static void assertSameTokens(String source) {
+        Map<Integer, GlslLexer.Token> expectedComments = new HashMap<>();
+        Map<Integer, GlslLexer.Token> actualComments = new HashMap<>();
+
+        GlslLexer.Token[] expected;
+        try {
+            expected = GlslLexer.createTokens(source, (token, index) -> expectedComments.put(index, token));
+        } catch (GlslSyntaxException e) {
+            GlslSyntaxException actual = assertThrows(GlslSyntaxException.class, () -> GlslDfaLexer.createTokens(source), source);
+            assertEquals(e.getRawMessage(), actual.getRawMessage(), source);
+            assertEquals(e.getCursor(), actual.getCursor(), source);
+            return;
+        }
+
+        GlslLexer.Token[] actual = assertDoesNotThrow(() -> GlslDfaLexer.createTokens(source, (token, index) -> actualComments.put(index, token)), source);
+        assertArrayEquals(expected, actual, source);
+        assertEquals(expectedComments, actualComments, source);
+    }
+
+    @Test
+    public void testEmpty() {
+        assertSameTokens("");
+        assertSameTokens(" \n\t ");
+    }
+
+    @TestFactory
+    public Stream<DynamicNode> testShaders() {
+        return IntStream.range(0, GlslTestShaders.ALL.length)
+                .mapToObj(i -> DynamicTest.dynamicTest("testShader " + i, () -> assertSameTokens(GlslTestShaders.ALL[i])));
+    }
+
+    @TestFactory
+    public Stream<DynamicNode> testFragments() {
+        // The old lexer reads past the end of the input after some numbers, so every fragment is terminated
+        return Arrays.stream(FRAGMENTS).map(fragment -> DynamicTest.dynamicTest("testFragment " + fragment.replaceAll("\\s", "_"), () -> assertSameTokens(fragment + " ;")));
+    }
+
+    @Test
+    public void testUnterminatedComment() {
+        assertSameTokens("int a; /* never closed");
+        assertSameTokens("int a; /* never closed *");
+    }
+
+    @Test
+    public void testIntegerRuns() {
+        assertSameTokens("1 2 3");
+        assertSameTokens("int a[3] = int[](1 , 2 , 3);");
+        assertSameTokens("x = 0 8 9 0x1F 1 2 e 3 4 5u");
+        assertSameTokens("x = 1\n2\n3\n4 .5 6 7 e+ 8");
+    }
+
+    @Test
+    public void testNumberGrammar() {
+        // Every combination of up to 5 characters, so the table can't drift from the number constant parser
+        int combinations = 1;
+        for (int length = 1; length <= 5; length++) {
+            combinations *= NUMBER_CHARS.length;
+            for (int i = 0; i < combinations; i++) {
+                StringBuilder source = new StringBuilder();
+                for (int j = 0, index = i; j < length; j++, index /= NUMBER_CHARS.length) {
+                    source.append(NUMBER_CHARS[index % NUMBER_CHARS.length]);
+                }
+                assertSameTokens(source.append(" ;").toString());
+            }
+        }
+    }
+
+    @TestFactory
+    public Stream<DynamicNode> testReadOnce() {
+        return IntStream.range(0, GlslTestShaders.ALL.length).mapToObj(i -> DynamicTest.dynamicTest("testReadOnce " + i, () -> {
+            CountingSequence chars = new CountingSequence(GlslTestShaders.ALL[i]);
+            GlslDfaLexer.createTokenStream(chars);
+            assertEquals(chars.length(), chars.reads);
+        }));
+    }
+
+    @Test
+    public void testIntegerRunSpeed() throws GlslSyntaxException {
+        // Every character of a run of integers should only be read once
+        for (int count = 4000; count <= 32000; count *= 2) {
+            String input = "1 ".repeat(count) + "e+;";
+            CountingSequence chars = new CountingSequence(input);
+            GlslDfaLexer.createTokenStream(chars);
+            // The incomplete exponent at the end isn't read again either
+            assertEquals(input.length(), chars.reads);
+
+            long start = System.nanoTime();
+            GlslLexer.Token[] tokens = GlslDfaLexer.createTokens(input);
+            long end = System.nanoTime();
+
+            assertEquals(count + 3, tokens.length);
+            System.out.printf("Took %.3fms to lex %d integers%n", (end - start) / 1_000_000.0F, count);
+        }
+    }
+
+    @Test
+    public void testRandom() {
+        Random random = new Random(0x5EED);
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder source = new StringBuilder();
+            int length = random.nextInt(32);
+            for (int j = 0; j < length; j++) {
+                if (random.nextBoolean()) {
+                    source.append(WORDS[random.nextInt(WORDS.length)]);
+                } else {
+                    source.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+                }
+                if (random.nextInt(3) == 0) {
+                    source.append(' ');
+                }
+            }
+            assertSameTokens(source.append(" ;").toString());
+        }
+    }
+
+    private static final class CountingSequence implements CharSequence {
+
+        private final String value;
+        private int reads;
+
+        private CountingSequence(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public int length() {
+            return this.value.length();
+        }
+
+        @Override
+        public char charAt(int index) {
+            this.reads++;
+            return this.value.charAt(index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return this.value.subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return this.value;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package io.github.ocelot.test.lexer;
+
+import io.github.ocelot.glslprocessor.api.GlslSyntaxException;
+import io.github.ocelot.glslprocessor.impl.GlslLexer;
+import io.github.ocelot.glslprocessor.impl.GlslTokenStream;
+import io.github.ocelot.test.GlslTestShaders;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GlslIncrementalLexerTest {
+
+    private static final String[] INSERTIONS = {
+            "", " ", "\n", "a", "1", ".", "e", "f", "x", "u", "5", "0x", "+", "-", "=", "<", "/", "*", "/*", "*/", "//",
+            "#", ";", "vec4", "1.5", " 2", "lf", "float b = 1.0e-3;", "/* comment */", "\n#define TEST\n"
+    };
+
+    private static void assertSameStream(GlslTokenStream expected, GlslTokenStream actual, String source) {
+        assertArrayEquals(expected.toArray(), actual.toArray(), source);
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.getStart(i), actual.getStart(i), source);
+            assertEquals(expected.getEnd(i), actual.getEnd(i), source);
+        }
+
+        assertEquals(expected.getCommentCount(), actual.getCommentCount(), source);
+        for (int i = 0; i < expected.getCommentCount(); i++) {
+            assertEquals(expected.getComment(i), actual.getComment(i), source);
+            assertEquals(expected.getCommentTokenIndex(i), actual.getCommentTokenIndex(i), source);
+        }
+    }
+
+    private static void assertSameRelex(GlslTokenStream previous, int offset, int removed, String inserted) {
+        String old = previous.getSource().toString();
+        String source = old.substring(0, offset) + inserted + old.substring(offset + removed);
+
+        GlslTokenStream expected;
+        try {
+            expected = GlslLexer.createTokenStream(source);
+        } catch (GlslSyntaxException e) {
+            GlslSyntaxException actual = assertThrows(GlslSyntaxException.class, () -> GlslLexer.relex(previous, offset, removed, inserted), source);
+            assertEquals(e.getCursor(), actual.getCursor(), source);
+            return;
+        }
+
+        GlslTokenStream actual = assertDoesNotThrow(() -> GlslLexer.relex(previous, offset, removed, inserted), source);
+        assertSameStream(expected, actual, source);
+    }
+
+    @Test
+    public void testSimpleEdits() throws GlslSyntaxException {
+        GlslTokenStream stream = GlslLexer.createTokenStream("float a = 1.0; // test\nint b = 2;");
+        assertSameRelex(stream, 6, 1, "abc");
+        assertSameRelex(stream, 7, 0, "b");
+        assertSameRelex(stream, 13, 0, " 5");
+        assertSameRelex(stream, 10, 1, "0x");
+        assertSameRelex(stream, 15, 0, "/*");
+        assertSameRelex(stream, 0, 0, "/* start */");
+        assertSameRelex(stream, stream.getSource().length(), 0, " float c;");
+        assertSameRelex(stream, 0, stream.getSource().length(), "");
+    }
+
+    @Test
+    public void testNumberLookahead() throws GlslSyntaxException {
+        // The number before the edit could read past all the whitespace
+        GlslTokenStream stream = GlslLexer.createTokenStream("float a = 1     ;");
+        assertSameRelex(stream, 16, 1, ".5;");
+        assertSameRelex(stream, 16, 1, "e5;");
+        assertSameRelex(stream, 14, 0, "f");
+    }
+
+    @Test
+    public void testRandomEdits() throws GlslSyntaxException {
+        Random random = new Random(0xED17);
+        for (String shader : GlslTestShaders.ALL) {
+            GlslTokenStream stream = GlslLexer.createTokenStream(shader);
+            for (int i = 0; i < 500; i++) {
+                int offset = random.nextInt(shader.length() + 1);
+                int removed = random.nextInt(Math.min(8, shader.length() - offset) + 1);
+                assertSameRelex(stream, offset, removed, INSERTIONS[random.nextInt(INSERTIONS.length)]);
+            }
+        }
+    }
+
+    @Test
+    public void testSequentialEdits() throws GlslSyntaxException {
+        Random random = new Random(0x5EED);
+        GlslTokenStream stream = GlslLexer.createTokenStream(GlslTestShaders.COMPUTE);
+        for (int i = 0; i < 200; i++) {
+            String old = stream.getSource().toString();
+            int offset = random.nextInt(old.length() + 1);
+            String inserted = random.nextBoolean() ? " " : "\n";
+            stream = GlslLexer.relex(stream, offset, 0, inserted);
+            assertSameStream(GlslLexer.createTokenStream(stream.getSource()), stream, stream.getSource().toString());
+        }
+    }
+
+    @Test
+    public void testSpeed() throws GlslSyntaxException {
+        String source = GlslTestShaders.COMPUTE.repeat(200);
+        GlslTokenStream stream = GlslLexer.createTokenStream(source);
+        int offset = source.length() / 2;
+        for (int i = 0; i < 10; i++) {
+            GlslLexer.createTokenStream(source);
+            GlslLexer.relex(stream, offset, 0, "a");
+        }
+
+        long start = System.nanoTime();
+        GlslLexer.createTokenStream(source);
+        long full = System.nanoTime();
+        GlslLexer.relex(stream, offset, 0, "a");
+        long end = System.nanoTime();
+
+        System.out.printf("Took %.3fms to lex %d characters, %.3fms to relex one edit%n", (full - start) / 1_000_000.0F, source.length(), (end - full) / 1_000_000.0F);
+    }
+}
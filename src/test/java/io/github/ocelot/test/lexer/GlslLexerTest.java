@@ -1,6 +1,8 @@
 package io.github.ocelot.test.lexer;
 
+import io.github.ocelot.glslprocessor.api.GlslSyntaxException;
 import io.github.ocelot.glslprocessor.impl.GlslLexer;
+import io.github.ocelot.glslprocessor.impl.GlslTokenStream;
 import org.junit.jupiter.api.DynamicNode;
 import org.junit.jupiter.api.DynamicTest;
 import org.junit.jupiter.api.Test;
@@ -12,6 +14,8 @@ import java.util.stream.Stream;
 import static io.github.ocelot.test.GlslTestHelper.*;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class GlslLexerTest {
 
@@ -45,6 +49,23 @@ public class GlslLexerTest {
         return tests;
     }
 
+    @Test
+    public void testLongestMatch() {
+        assertArrayEquals(new GlslLexer.Token[]{
+                new GlslLexer.Token(GlslLexer.TokenType.INOUT, "inout"),
+                new GlslLexer.Token(GlslLexer.TokenType.IDENTIFIER, "input"),
+                new GlslLexer.Token(GlslLexer.TokenType.IDENTIFIER, "vec4x"),
+                new GlslLexer.Token(GlslLexer.TokenType.LEFT_ASSIGN, "<<="),
+                new GlslLexer.Token(GlslLexer.TokenType.LEFT_OP, "<<"),
+                new GlslLexer.Token(GlslLexer.TokenType.LE_OP, "<="),
+                new GlslLexer.Token(GlslLexer.TokenType.LEFT_ANGLE, "<"),
+                new GlslLexer.Token(GlslLexer.TokenType.IDENTIFIER, "int2"),
+                new GlslLexer.Token(GlslLexer.TokenType.INC_OP, "++"),
+                new GlslLexer.Token(GlslLexer.TokenType.PLUS, "+"),
+                new GlslLexer.Token(GlslLexer.TokenType.BOOL_CONSTANT, "false"),
+        }, lexGlsl("inout input vec4x<<=<< <=<int2+++false"));
+    }
+
     @TestFactory
     public Stream<DynamicNode> testDirectives() {
         String[] directives = {
@@ -86,4 +107,107 @@ be fully supported
             assertEquals(new GlslLexer.Token(type, comment), entry.getValue());
         }));
     }
+
+    @Test
+    public void testMultiCommentEdges() {
+        assertArrayEquals(new GlslLexer.Token[]{
+                new GlslLexer.Token(GlslLexer.TokenType.IDENTIFIER, "a"),
+                new GlslLexer.Token(GlslLexer.TokenType.IDENTIFIER, "b"),
+        }, lexGlsl("a /*/ ** / *** */ b"));
+        assertThrows(GlslSyntaxException.class, () -> GlslLexer.createTokens("a /* b *"));
+    }
+
+    @Test
+    public void testTokenStream() throws GlslSyntaxException {
+        String source = "uniform vec4 Color;\nfloat a = 1 .5f + 0x1Fu; // comment\n";
+        GlslTokenStream stream = GlslLexer.createTokenStream(source);
+
+        assertArrayEquals(lexGlsl(source), stream.toArray());
+        assertEquals(GlslLexer.TokenType.UNIFORM, stream.getType(0));
+        assertEquals("Color", source.substring(stream.getStart(2), stream.getEnd(2)));
+        assertEquals("1 .5f", source.substring(stream.getStart(7), stream.getEnd(7)));
+        assertEquals("1.5", stream.getValue(7));
+        assertEquals("1F", stream.getValue(9));
+    }
+
+    @Test
+    public void testManyCommentsSpeed() {
+        // Lexing time should grow linearly with the number of comments
+        int[] counts = {1000, 2000, 4000, 8000, 16000};
+        String[] inputs = new String[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            StringBuilder source = new StringBuilder();
+            for (int j = 0; j < counts[i]; j++) {
+                source.append("/* comment ").append(j).append(" */ float a").append(j).append(" = 1.0;\n");
+            }
+            inputs[i] = source.toString();
+            assertEquals(counts[i] * 5, lexGlsl(inputs[i]).length);
+        }
+
+        // Warm up on the largest source so the smallest isn't measured while it is still being compiled
+        for (int i = 0; i < 20; i++) {
+            lexGlsl(inputs[inputs.length - 1]);
+        }
+
+        long[] times = new long[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            String input = inputs[i];
+            times[i] = measure(10, 5, 3, () -> GlslLexer.createTokens(input));
+            System.out.printf("Took %.3fms to lex %d comments (%.1fns per comment)%n", times[i] / 1_000_000.0F, counts[i], (double) times[i] / counts[i]);
+        }
+
+        // Sixteen times the comments would take 256 times as long if scanning was quadratic
+        assertTrue(times[times.length - 1] < times[0] * 16 * 4, "Lexing comments does not scale linearly");
+    }
+
+    @Test
+    public void testNumberConstants() throws GlslSyntaxException {
+        GlslTokenStream tokens = GlslLexer.createTokenStream("0xFFFFFFFFu,0777,4294967295U,12,1.5,7.0e-3,.25F,1E+5,2.5e-3lf,6.02LF,3.4028235e38,0.1000000000000000055511151231257827;");
+        assertEquals(0xFFFFFFFF, tokens.getIntConstant(0));
+        assertEquals(511, tokens.getIntConstant(2));
+        assertEquals(-1, tokens.getIntConstant(4));
+        assertEquals(12, tokens.getIntConstant(6));
+        assertEquals(1.5F, tokens.getFloatConstant(8));
+        assertEquals(7.0e-3F, tokens.getFloatConstant(10));
+        assertEquals(0.25F, tokens.getFloatConstant(12));
+        assertEquals(1E+5F, tokens.getFloatConstant(14));
+        assertEquals(2.5e-3, tokens.getDoubleConstant(16));
+        assertEquals(6.02, tokens.getDoubleConstant(18));
+        assertEquals(Float.MAX_VALUE, tokens.getFloatConstant(20));
+        assertEquals(0.1F, tokens.getFloatConstant(22));
+
+        GlslTokenStream overflow = GlslLexer.createTokenStream("4294967296");
+        assertThrows(NumberFormatException.class, () -> overflow.getIntConstant(0));
+    }
+
+    @Test
+    public void testRandomNumberConstants() throws GlslSyntaxException {
+        Random random = new Random(0xF10A7);
+        for (int i = 0; i < 20_000; i++) {
+            StringBuilder builder = new StringBuilder();
+            int integer = random.nextInt(12);
+            for (int j = 0; j < integer; j++) {
+                builder.append((char) ('0' + random.nextInt(10)));
+            }
+            builder.append('.');
+            int fraction = random.nextInt(integer == 0 ? 12 : 13) + (integer == 0 ? 1 : 0);
+            for (int j = 0; j < fraction; j++) {
+                builder.append((char) ('0' + random.nextInt(10)));
+            }
+            if (random.nextBoolean()) {
+                builder.append(random.nextBoolean() ? 'e' : 'E').append(random.nextBoolean() ? '-' : '+').append(random.nextInt(40));
+            }
+            boolean floating = random.nextBoolean();
+            String literal = builder.append(floating ? "f" : "lf").toString();
+
+            // The decoded value must match parsing the normalized text
+            GlslTokenStream tokens = GlslLexer.createTokenStream(literal + ";");
+            String normalized = tokens.getValue(0);
+            if (floating) {
+                assertEquals(Float.parseFloat(normalized), tokens.getFloatConstant(0), literal);
+            } else {
+                assertEquals(Double.parseDouble(normalized), tokens.getDoubleConstant(0), literal);
+            }
+        }
+    }
 }
@@ -0,0 +1,130 @@
+package io.github.ocelot.test.lexer;
+
+import io.github.ocelot.glslprocessor.api.GlslSyntaxException;
+import io.github.ocelot.glslprocessor.impl.GlslLexer;
+import io.github.ocelot.glslprocessor.impl.GlslTokenStream;
+import io.github.ocelot.test.GlslTestShaders;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GlslParallelLexerTest {
+
+    private static final String[] FRAGMENTS = {
+            "int a = 1;\n", "float b = 1\n.5;\n", "float c = 2\ne5;\n", "uint d = 3\nu;\n", "vec4 e = vec4(1.0,\n2.0, 3.0, 4.0);\n",
+            "/* multi\nline\n*/\n", "/* // not a line comment\n*/ int f;\n", "// comment /* not a block\n", "#define A 1\n",
+            "#version 430 core // directive\n", "a /\n/ b;\n", "x\n", "\n\n", "  \t\n", "1.\n", "{\n", "}\n", "0x\n1F;\n"
+    };
+
+    private static ForkJoinPool pool;
+
+    @BeforeAll
+    public static void setup() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    public static void shutdown() {
+        pool.shutdown();
+    }
+
+    private static String repeat(String source, int length) {
+        StringBuilder builder = new StringBuilder(length + source.length());
+        while (builder.length() < length) {
+            builder.append(source);
+        }
+        return builder.toString();
+    }
+
+    private static void assertSameTokens(String source) {
+        List<String> expectedComments = new ArrayList<>();
+        List<String> actualComments = new ArrayList<>();
+
+        GlslTokenStream expected;
+        try {
+            expected = GlslLexer.createTokenStream(source, (token, index) -> expectedComments.add(index + token.toString()));
+        } catch (GlslSyntaxException e) {
+            GlslSyntaxException actual = assertThrows(GlslSyntaxException.class, () -> GlslLexer.createTokenStreamParallel(source, null, pool));
+            assertEquals(e.getCursor(), actual.getCursor());
+            assertEquals(e.getLine(), actual.getLine());
+            return;
+        }
+
+        GlslTokenStream actual = assertDoesNotThrow(() -> GlslLexer.createTokenStreamParallel(source, (token, index) -> actualComments.add(index + token.toString()), pool));
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.getType(i), actual.getType(i));
+            assertEquals(expected.getStart(i), actual.getStart(i));
+            assertEquals(expected.getEnd(i), actual.getEnd(i));
+            assertEquals(expected.getValue(i), actual.getValue(i));
+        }
+        assertEquals(expectedComments, actualComments);
+    }
+
+    @Test
+    public void testShaders() {
+        for (String shader : GlslTestShaders.ALL) {
+            assertSameTokens(shader);
+            assertSameTokens(repeat(shader, 300_000));
+        }
+    }
+
+    @Test
+    public void testErrors() {
+        String source = repeat(GlslTestShaders.COMPUTE, 200_000);
+        assertSameTokens(source + "\nint $a;\n" + source + "\n$");
+        assertSameTokens(source + "\n/* never closed\n" + source);
+    }
+
+    @Test
+    public void testRandom() {
+        Random random = new Random(0x5EED);
+        for (int i = 0; i < 20; i++) {
+            StringBuilder source = new StringBuilder();
+            while (source.length() < 150_000) {
+                source.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+            }
+            assertSameTokens(source.append(';').toString());
+        }
+    }
+
+    @Test
+    public void testParallelSpeed() throws GlslSyntaxException {
+        String source = repeat(GlslTestShaders.ALL[0] + GlslTestShaders.ALL[1] + GlslTestShaders.ALL[2], 4_000_000);
+        for (int i = 0; i < 3; i++) {
+            GlslLexer.createTokenStream(source);
+        }
+
+        long start = System.nanoTime();
+        GlslLexer.createTokenStream(source);
+        long sequential = System.nanoTime() - start;
+        System.out.printf("Took %.3fms to lex %d characters sequentially%n", sequential / 1_000_000.0F, source.length());
+
+        int processors = Runtime.getRuntime().availableProcessors();
+        if (processors == 1) {
+            System.out.println("Only one processor is available, skipping parallel timings");
+        }
+        for (int threads = 2; threads <= processors; threads *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                for (int i = 0; i < 3; i++) {
+                    GlslLexer.createTokenStreamParallel(source, null, pool);
+                }
+
+                start = System.nanoTime();
+                GlslLexer.createTokenStreamParallel(source, null, pool);
+                long parallel = System.nanoTime() - start;
+                System.out.printf("Took %.3fms to lex %d characters on %d threads (%.2fx)%n", parallel / 1_000_000.0F, source.length(), threads, (double) sequential / parallel);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+}
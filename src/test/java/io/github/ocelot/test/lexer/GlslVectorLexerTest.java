@@ -0,0 +1,153 @@
+package io.github.ocelot.test.lexer;
+
+import io.github.ocelot.glslprocessor.api.GlslSource;
+import io.github.ocelot.glslprocessor.api.GlslSyntaxException;
+import io.github.ocelot.glslprocessor.impl.GlslLexer;
+import io.github.ocelot.glslprocessor.impl.GlslTokenStream;
+import io.github.ocelot.test.GlslTestShaders;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.CharBuffer;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class GlslVectorLexerTest {
+
+    private static final String[] FRAGMENTS = {
+            "a", "_test1", "vec4", "uniform", "0x1F", "1.5", " ", "\t", "\n", "\r\n", "\u001F", "// comment\n",
+            "/* * / **/", "#define A 1\n", "(", ";", "+=", "\u00E9", "\u0660", "\u2028", "\u3000", "/*\u00FC*/", "//\u00FC\n"
+    };
+
+    private boolean enabled;
+
+    @BeforeEach
+    public void setup() {
+        assumeTrue(GlslLexer.isVectorScanningSupported(), "Vector API is not available");
+        this.enabled = GlslLexer.isVectorScanningEnabled();
+    }
+
+    @AfterEach
+    public void reset() {
+        GlslLexer.setVectorScanning(this.enabled);
+    }
+
+    private static void assertSameTokens(CharSequence source) {
+        GlslLexer.setVectorScanning(false);
+        GlslTokenStream expected;
+        try {
+            expected = GlslLexer.createTokenStream(source);
+        } catch (GlslSyntaxException e) {
+            GlslLexer.setVectorScanning(true);
+            GlslSyntaxException actual = assertThrows(GlslSyntaxException.class, () -> GlslLexer.createTokenStream(source), source::toString);
+            assertEquals(e.getCursor(), actual.getCursor(), source::toString);
+            return;
+        }
+
+        GlslLexer.setVectorScanning(true);
+        GlslTokenStream actual = assertDoesNotThrow(() -> GlslLexer.createTokenStream(source), source::toString);
+        assertArrayEquals(expected.toArray(), actual.toArray(), source::toString);
+        assertEquals(expected.getCommentCount(), actual.getCommentCount(), source::toString);
+        for (int i = 0; i < expected.getCommentCount(); i++) {
+            assertEquals(expected.getComment(i), actual.getComment(i), source::toString);
+            assertEquals(expected.getCommentTokenIndex(i), actual.getCommentTokenIndex(i), source::toString);
+        }
+    }
+
+    @Test
+    public void testShaders() {
+        for (String shader : GlslTestShaders.ALL) {
+            assertSameTokens(shader);
+            assertSameTokens(new StringBuilder(shader));
+        }
+    }
+
+    @Test
+    public void testLongRuns() {
+        assertSameTokens(" ".repeat(100) + "a".repeat(100) + " ;");
+        assertSameTokens("int " + "_aZ09".repeat(40) + "\u0660b = 1;");
+        assertSameTokens("// " + "x".repeat(200) + "\nint a;");
+        assertSameTokens("#define LONG " + "1 + ".repeat(50) + "1\nint a;");
+        assertSameTokens("/*" + "* ".repeat(100) + "\u00FC*/ int a;");
+        assertSameTokens("int a;" + " \t\r\n".repeat(30) + "\u3000\u2028 int b;");
+        assertSameTokens("int a; /* " + "never closed ".repeat(10));
+    }
+
+    @Test
+    public void testCharBuffer() {
+        String padded = "{{" + GlslTestShaders.COMPUTE + "}}";
+        char[] chars = padded.toCharArray();
+        CharBuffer buffer = CharBuffer.wrap(chars, 2, GlslTestShaders.COMPUTE.length()).slice();
+        assertSameTokens(buffer);
+        assertSameTokens(CharBuffer.wrap(chars, 2, GlslTestShaders.COMPUTE.length()));
+    }
+
+    @Test
+    public void testWindowBoundaries() {
+        // Runs longer than the scan window and runs crossing its end
+        StringBuilder builder = new StringBuilder();
+        for (int length = 990; length < 1100; length += 7) {
+            builder.append(" ".repeat(length)).append("a".repeat(length)).append(';');
+            builder.append("/*").append("x".repeat(length)).append("*/");
+            builder.append("//").append("\u00FC".repeat(length % 5)).append("y".repeat(length)).append('\n');
+        }
+        String source = builder.toString();
+        char[] chars = source.toCharArray();
+        assertSameTokens(source);
+        assertSameTokens(builder);
+        assertSameTokens(new StringBuffer(source));
+        assertSameTokens(GlslSource.wrap(chars, 0, chars.length));
+        assertSameTokens(CharBuffer.wrap(chars, 1, chars.length - 1).asReadOnlyBuffer());
+    }
+
+    @Test
+    public void testNoSourceCopy() throws GlslSyntaxException {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean) || !bean.isThreadAllocatedMemorySupported()) {
+            System.out.println("Thread allocation counters are not available, skipping allocation measurements");
+            return;
+        }
+
+        String source = (GlslTestShaders.COMPUTE + "\n").repeat(50);
+        char[] chars = source.toCharArray();
+        CharSequence wrapped = GlslSource.wrap(chars, 0, chars.length);
+        GlslLexer.setVectorScanning(true);
+        GlslTokenStream.Builder tokens = new GlslTokenStream.Builder();
+        for (int i = 0; i < 200; i++) {
+            GlslLexer.createTokenStream(source, null, tokens);
+            GlslLexer.createTokenStream(wrapped, null, tokens);
+        }
+
+        long thread = Thread.currentThread().getId();
+        for (CharSequence input : new CharSequence[]{source, wrapped}) {
+            // Vector operations allocate until they are compiled, so only the best run counts
+            long allocated = Long.MAX_VALUE;
+            for (int i = 0; i < 10; i++) {
+                long start = bean.getThreadAllocatedBytes(thread);
+                GlslLexer.createTokenStream(input, null, tokens);
+                allocated = Math.min(allocated, bean.getThreadAllocatedBytes(thread) - start);
+            }
+
+            System.out.printf("Allocated %d bytes lexing %d characters from %s%n", allocated, input.length(), input.getClass().getSimpleName());
+            // Copying the source would allocate two bytes per character
+            assertTrue(allocated < input.length(), "Allocated " + allocated + " bytes");
+        }
+    }
+
+    @Test
+    public void testRandom() {
+        Random random = new Random(0x5EED);
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder source = new StringBuilder();
+            int length = random.nextInt(64);
+            for (int j = 0; j < length; j++) {
+                String fragment = FRAGMENTS[random.nextInt(FRAGMENTS.length)];
+                source.append(random.nextInt(4) == 0 ? fragment.repeat(random.nextInt(40)) : fragment);
+            }
+            assertSameTokens(source.append(" ;").toString());
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package io.github.ocelot.glslprocessor.impl;
+
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * Scans runs of characters with the incubating vector API, classifying a full vector of characters per step. Any block
+ * that contains a non-ASCII character is handed back to the scalar scanner so the results always match
+ * {@link Character#isWhitespace(char)} and {@link Character#isDigit(char)}.
+ * <p>
+ * Vectors only stay in registers when the compiler inlines every method they pass through. One passed to a helper that
+ * isn't inlined is allocated on every call, so each method classifies its vectors itself.
+ * <p>
+ * This class is compiled in its own source set with the incubating module and is only created through reflection by
+ * {@link GlslLexer}, since it can't be loaded when the <code>jdk.incubator.vector</code> module is not present.
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+final class GlslVectorScanner implements GlslCharScanner {
+
+    private static final VectorSpecies<Short> SPECIES = ShortVector.SPECIES_PREFERRED;
+    private static final int LENGTH = SPECIES.length();
+
+    GlslVectorScanner() {
+    }
+
+    @Override
+    public boolean isSupported() {
+        return LENGTH >= 8;
+    }
+
+    @Override
+    public int skipWhitespace(char[] chars, int start, int end) {
+        int i = start;
+        int bound = end - LENGTH;
+        while (i <= bound) {
+            ShortVector vector = ShortVector.fromCharArray(SPECIES, chars, i);
+            // '\t', '\n', '\u000B', '\f', '\r', '\u001C'-'\u001F' and ' '
+            VectorMask<Short> stop = vector.compare(VectorOperators.EQ, (short) ' ')
+                    .or(vector.compare(VectorOperators.UNSIGNED_GE, (short) 0x09).and(vector.compare(VectorOperators.UNSIGNED_LE, (short) 0x0D)))
+                    .or(vector.compare(VectorOperators.UNSIGNED_GE, (short) 0x1C).and(vector.compare(VectorOperators.UNSIGNED_LE, (short) 0x1F)))
+                    .not();
+            if (stop.anyTrue()) {
+                int lane = stop.firstTrue();
+                VectorMask<Short> nonAscii = vector.compare(VectorOperators.UNSIGNED_GE, (short) 0x80);
+                if (!nonAscii.anyTrue() || lane < nonAscii.firstTrue()) {
+                    return i + lane;
+                }
+                break;
+            }
+            i += LENGTH;
+        }
+        while (i < end && Character.isWhitespace(chars[i])) {
+            i++;
+        }
+        return i;
+    }
+
+    @Override
+    public int skipIdentifier(char[] chars, int start, int end) {
+        int i = start;
+        int bound = end - LENGTH;
+        while (i <= bound) {
+            ShortVector vector = ShortVector.fromCharArray(SPECIES, chars, i);
+            ShortVector lower = vector.lanewise(VectorOperators.OR, (short) 0x20);
+            VectorMask<Short> stop = lower.compare(VectorOperators.UNSIGNED_GE, (short) 'a').and(lower.compare(VectorOperators.UNSIGNED_LE, (short) 'z'))
+                    .or(vector.compare(VectorOperators.UNSIGNED_GE, (short) '0').and(vector.compare(VectorOperators.UNSIGNED_LE, (short) '9')))
+                    .or(vector.compare(VectorOperators.EQ, (short) '_'))
+                    .not();
+            if (stop.anyTrue()) {
+                int lane = stop.firstTrue();
+                VectorMask<Short> nonAscii = vector.compare(VectorOperators.UNSIGNED_GE, (short) 0x80);
+                if (!nonAscii.anyTrue() || lane < nonAscii.firstTrue()) {
+                    return i + lane;
+                }
+                break;
+            }
+            i += LENGTH;
+        }
+        while (i < end && (Character.isDigit(chars[i]) || GlslLexer.isValidIdentifierChar(chars[i]))) {
+            i++;
+        }
+        return i;
+    }
+
+    @Override
+    public int indexOf(char[] chars, char c, int start, int end) {
+        int i = start;
+        int bound = end - LENGTH;
+        while (i <= bound) {
+            VectorMask<Short> match = ShortVector.fromCharArray(SPECIES, chars, i).compare(VectorOperators.EQ, (short) c);
+            if (match.anyTrue()) {
+                return i + match.firstTrue();
+            }
+            i += LENGTH;
+        }
+        while (i < end && chars[i] != c) {
+            i++;
+        }
+        return i;
+    }
+}